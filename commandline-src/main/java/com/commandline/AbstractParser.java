@@ -0,0 +1,361 @@
+package main.java.com.commandline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * The rules shared by the parsers: which arguments are tags, which option a tag matches, when a tag is
+ * skipped, how many arguments an occurrence takes, and when an argument is an entry attached to the
+ * short tag of a key-value option. Subclasses only say where the arguments come from and how they are
+ * compared and stored, so that parsing strings and parsing bytes cannot drift apart.
+ *
+ * @author Zach Wilson
+ */
+abstract class AbstractParser {
+
+    /** The specification being parsed against. */
+    private final SpecTable table;
+
+    /** Hashes each occurrence into the fingerprint of the result. */
+    private final Fingerprint.Hasher hasher = new Fingerprint.Hasher();
+
+    /** Told about every occurrence of an option, or null. */
+    private Parser.OccurrenceListener listener;
+
+    /** Canonicalizes argument values, or null. */
+    private ValueTable values;
+
+    /** Records the decisions of the parser, or null. */
+    private ParseTrace trace;
+
+    /** Number of the parse in the trace. */
+    private int parseNumber;
+
+    /** Index of the next argument. */
+    private int argument;
+
+    /**
+     * Constructor.
+     * @param table the specification being parsed against.
+     */
+    AbstractParser(final SpecTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets the listener told about every occurrence of an option while parsing.
+     * @param listener the listener, or null.
+     */
+    void setOccurrenceListener(final Parser.OccurrenceListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the table canonicalizing the argument values taken.
+     * @param values the table, or null.
+     */
+    void setValueTable(final ValueTable values) {
+        this.values = values;
+    }
+
+    /**
+     * Sets the trace recording the decisions of the parser.
+     * @param trace the trace, or null.
+     */
+    void setTrace(final ParseTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Gets the specification being parsed against.
+     * @return the specification.
+     */
+    final SpecTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * Canonicalizes an argument value, if there is a table.
+     * @param value the value.
+     * @return the canonical string, or the value.
+     */
+    final String canonicalize(final String value) {
+        return this.values == null ? value : this.values.canonicalize(value);
+    }
+
+    /**
+     * Determines whether another argument follows.
+     * @return true if there is another argument.
+     */
+    abstract boolean hasNext();
+
+    /**
+     * Moves to the next argument, which becomes the current one.
+     */
+    abstract void next();
+
+    /**
+     * Holds the current argument as the tag which the options are matched against, while the arguments
+     * of the options it matches are taken.
+     */
+    abstract void holdTag();
+
+    /**
+     * Determines whether the current argument begins with '-'.
+     * @return true if the argument begins with '-'.
+     */
+    abstract boolean isDash();
+
+    /**
+     * Finds the first option from an ordinal on with the held tag.
+     * @param table the specification.
+     * @param from ordinal to start from, inclusive.
+     * @return ordinal of the option; but if there is none, -1.
+     */
+    abstract int find(SpecTable table, int from);
+
+    /**
+     * Determines whether an option was found before this parse began, so that it is not matched again
+     * unless it may be repeated.
+     * @param ordinal ordinal of the option.
+     * @return true if the option was found before.
+     */
+    boolean wasFound(final int ordinal) {
+        return false;
+    }
+
+    /**
+     * Determines whether the held tag is longer than the tag of an option and begins with it.
+     * @param tag the tag of the option.
+     * @return true if the held tag begins with the tag of the option.
+     */
+    abstract boolean startsWith(String tag);
+
+    /**
+     * Decodes the current argument.
+     * @return the argument.
+     */
+    abstract String decode();
+
+    /**
+     * Adds the current argument to an occurrence of an option, and hashes it.
+     * @param result what has been found so far.
+     * @param slot slot of the option in the result.
+     * @param hasher hashes the occurrence.
+     * @return the argument as it was added, if it was decoded; otherwise null.
+     */
+    abstract String addArgument(ParseResult result, int slot, Fingerprint.Hasher hasher);
+
+    /**
+     * Parses the arguments into a result.
+     * @param result the result to fill.
+     * @param argumentCount number of arguments, for the trace; -1 if not known beforehand.
+     * @return the result.
+     * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
+     */
+    final ParseResult parse(final ParseResult result, final int argumentCount) throws IllegalArgumentException {
+        this.argument = 0;
+        if (this.trace != null) {
+            this.parseNumber = this.trace.start(argumentCount);
+        }
+        try {
+            parseArguments(result);
+        } catch (IllegalArgumentException e) {
+            if (this.trace != null) {
+                trace(this.argument - 1, -1, ParseTrace.Action.FAILED, 0);
+            }
+            throw e;
+        }
+
+        // Entries are hashed once all are kept, since a repeated key may replace an earlier value
+        result.addEntriesToFingerprint(this.hasher);
+        result.finish();
+        return result;
+    }
+
+    /**
+     * Parses the remaining arguments into a result.
+     * @param result what has been found so far.
+     * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
+     */
+    private void parseArguments(final ParseResult result) throws IllegalArgumentException {
+
+        // Keeps track of whether a first argument has been obtained
+        boolean firstArgument = true;
+
+        while (hasNext()) {
+            int argument = this.argument;
+            take();
+            holdTag();
+
+            // If the argument isn't an option, throw exception
+            if (!isDash()) {
+                if (firstArgument) {
+                    throw new IllegalArgumentException("Missing command line option.");
+                }
+                throw new IllegalArgumentException("Too many arguments for option.");
+            }
+            firstArgument = false;
+
+            // Keeps track of whether an option's tag matched the argument
+            boolean matched = false;
+            boolean skipped = false;
+
+            // Every option with the tag takes an occurrence, each from the arguments after the last
+            for (int ordinal = find(this.table, 0); ordinal >= 0; ordinal = find(this.table, ordinal + 1)) {
+                if (isSkipped(ordinal, result)) {
+                    skipped = true;
+                    if (this.trace != null) {
+                        trace(argument, ordinal, ParseTrace.Action.SKIPPED, 0);
+                    }
+                } else {
+                    matched = true;
+                    int start = this.argument;
+                    consume(ordinal, result);
+                    if (this.trace != null) {
+                        trace(argument, ordinal, ParseTrace.Action.MATCHED, this.argument - start);
+                    }
+                }
+            }
+
+            // No exact match: look for an entry attached to a key-value option, e.g. "-Dname=value"
+            if (!matched) {
+                for (int ordinal : this.table.getKeyValueOrdinals()) {
+                    if (consumeAttachedEntry(ordinal, result)) {
+                        matched = true;
+                        if (this.trace != null) {
+                            trace(argument, ordinal, ParseTrace.Action.ENTRY, 0);
+                        }
+                        break;
+                    }
+                }
+                if (!matched && !skipped && this.trace != null) {
+                    trace(argument, -1, ParseTrace.Action.IGNORED, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the next argument.
+     */
+    private void take() {
+        ++this.argument;
+        next();
+    }
+
+    /**
+     * Records a decision. Only called when tracing, so that the actions are not even loaded otherwise.
+     * @param argument index of the argument.
+     * @param ordinal ordinal of the option; -1 for none.
+     * @param action what was decided.
+     * @param count number of arguments taken.
+     */
+    private void trace(final int argument, final int ordinal, final ParseTrace.Action action, final int count) {
+        this.trace.record(this.parseNumber, argument, ordinal, action, count);
+    }
+
+    /**
+     * Determines whether an option is no longer matched, because it was found and may not be repeated.
+     * @param ordinal ordinal of the option.
+     * @param result what has been found so far.
+     * @return true if the option is skipped.
+     */
+    private boolean isSkipped(final int ordinal, final ParseResult result) {
+
+        // Do not re-check options with arguments, unless they may be repeated
+        boolean found = result.isFound(ordinal) || wasFound(ordinal);
+        return found && !this.table.isRepeatable(ordinal) && !this.table.isKeyValue(ordinal);
+    }
+
+    /**
+     * Records an occurrence of an option and takes its arguments.
+     * @param ordinal ordinal of the option.
+     * @param result what has been found so far.
+     * @throws IllegalArgumentException if arguments of the option are missing.
+     */
+    private void consume(final int ordinal, final ParseResult result) throws IllegalArgumentException {
+        SpecTable table = this.table;
+        int slot = result.markFound(ordinal);
+
+        // A key-value option takes its entry from the next argument
+        if (table.isKeyValue(ordinal)) {
+            if (!hasNext()) {
+                throw new IllegalArgumentException("Missing entry for option '" +
+                        table.getShortName(ordinal) + "'.");
+            }
+            take();
+            if (isDash()) {
+                throw new IllegalArgumentException("Missing entry for option '" +
+                        table.getShortName(ordinal) + "'.");
+            }
+            String entry = canonicalize(decode());
+            if (!result.addEntry(slot, entry, 0, table.getDuplicateKeyPolicy(ordinal))) {
+                throw Option.duplicateKey(table.getShortName(ordinal), entry, 0);
+            }
+            if (this.listener != null) {
+                this.listener.onOccurrence(ordinal, Collections.singletonList(entry));
+            }
+            return;
+        }
+
+        this.hasher.start(table.getShortTag(ordinal), result.getCountAt(slot) - 1);
+
+        // Only gathered for the listener
+        ArrayList<String> occurrence = this.listener == null ? null :
+                new ArrayList<>(table.getExpectedArgumentCount(ordinal));
+
+        // Number of arguments preceding an option is known
+        // Keep looping through until that number is expelled
+        for (int counter = 0; counter < table.getExpectedArgumentCount(ordinal); ++counter) {
+
+            // If there is no next-item, an item is missing: throw exception
+            if (!hasNext()) {
+                throw new IllegalArgumentException("Missing argument for option '" +
+                        table.getShortName(ordinal) + "'. Given " + counter + ", expected " +
+                        table.getExpectedArgumentCount(ordinal) + ".");
+            }
+
+            // Ensuring no option is found here because more args are expected
+            take();
+            if (isDash()) {
+                throw new IllegalArgumentException();
+            }
+            String argument = addArgument(result, slot, this.hasher);
+            if (occurrence != null) {
+                occurrence.add(argument != null ? argument : decode());
+            }
+        }
+        result.addToFingerprint(this.hasher);
+        if (occurrence != null) {
+            this.listener.onOccurrence(ordinal, occurrence);
+        }
+    }
+
+    /**
+     * Records the held tag as an entry attached to the short tag of a key-value option, e.g.
+     * "-Dname=value", if it is one. No arguments have been taken since the tag, so it is also the current
+     * argument.
+     * @param ordinal ordinal of the option.
+     * @param result what has been found so far.
+     * @return true if the argument is an entry of the option.
+     * @throws IllegalArgumentException if the entry repeats a key the option does not allow to be repeated.
+     */
+    private boolean consumeAttachedEntry(final int ordinal, final ParseResult result)
+            throws IllegalArgumentException {
+        String shortTag = this.table.getShortTag(ordinal);
+        if (!startsWith(shortTag)) {
+            return false;
+        }
+        int slot = result.markFound(ordinal);
+        int keyStart = shortTag.length();
+        String entry = canonicalize(decode());
+        if (!result.addEntry(slot, entry, keyStart, this.table.getDuplicateKeyPolicy(ordinal))) {
+            throw Option.duplicateKey(this.table.getShortName(ordinal), entry, keyStart);
+        }
+        if (this.listener != null) {
+            this.listener.onOccurrence(ordinal, Collections.singletonList(entry.substring(keyStart)));
+        }
+        return true;
+    }
+}
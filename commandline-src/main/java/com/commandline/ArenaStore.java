@@ -0,0 +1,149 @@
+package main.java.com.commandline;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Holds arguments packed into one byte array per slot, with only the end of each argument recorded.
+ *
+ * Arguments whose characters all fit in a byte (ISO-8859-1, which covers ASCII) take one byte per
+ * character, others two; the top bit of an end tells which. No string is kept: one is created from
+ * the bytes each time an argument is read.
+ *
+ * @author Zach Wilson
+ */
+final class ArenaStore extends StringArgumentStore {
+
+    /** Marks the end of an argument stored as UTF-16. */
+    private static final int WIDE = 0x80000000;
+
+    /** Initial number of bytes of a slot. */
+    private static final int INITIAL_BYTES = 32;
+
+    /** Initial number of arguments of a slot. */
+    private static final int INITIAL_ARGUMENTS = 4;
+
+    /** Packed characters by slot; null if there are none. */
+    private byte[][] bytes;
+
+    /** Number of bytes used by slot. */
+    private int[] used;
+
+    /** End of each argument, possibly marked as {@link #WIDE}, by slot. */
+    private int[][] ends;
+
+    /** Number of arguments by slot. */
+    private int[] counts;
+
+    /**
+     * Creates a store.
+     * @param capacity initial number of slots.
+     * @return new store.
+     */
+    static StringArgumentStore create(final int capacity) {
+        return new ArenaStore(capacity);
+    }
+
+    /**
+     * Constructor.
+     * @param capacity initial number of slots.
+     */
+    ArenaStore(final int capacity) {
+        this.bytes = new byte[capacity][];
+        this.used = new int[capacity];
+        this.ends = new int[capacity][];
+        this.counts = new int[capacity];
+    }
+
+    @Override
+    void grow(final int capacity) {
+        this.bytes = Arrays.copyOf(this.bytes, capacity);
+        this.used = Arrays.copyOf(this.used, capacity);
+        this.ends = Arrays.copyOf(this.ends, capacity);
+        this.counts = Arrays.copyOf(this.counts, capacity);
+    }
+
+    @Override
+    void add(final int slot, final String argument) {
+        int length = argument.length();
+        int start = this.used[slot];
+        byte[] array = reserve(slot, start + length);
+
+        // Copy one byte per character until one does not fit
+        int i = 0;
+        while (i < length) {
+            char c = argument.charAt(i);
+            if (c > 0xFF) {
+                break;
+            }
+            array[start + i++] = (byte) c;
+        }
+        int end;
+        if (i == length) {
+            end = start + length;
+        } else {
+            array = reserve(slot, start + length * 2);
+            for (i = 0; i < length; ++i) {
+                char c = argument.charAt(i);
+                array[start + i * 2] = (byte) (c >>> 8);
+                array[start + i * 2 + 1] = (byte) c;
+            }
+            end = (start + length * 2) | WIDE;
+        }
+        this.used[slot] = end & ~WIDE;
+
+        int count = this.counts[slot];
+        if (this.ends[slot] == null) {
+            this.ends[slot] = new int[INITIAL_ARGUMENTS];
+        } else if (count == this.ends[slot].length) {
+            this.ends[slot] = Arrays.copyOf(this.ends[slot], count * 2);
+        }
+        this.ends[slot][count] = end;
+        this.counts[slot] = count + 1;
+    }
+
+    /**
+     * Makes sure the bytes of a slot hold at least the given number.
+     * @param slot slot of the option.
+     * @param needed number of bytes needed.
+     * @return the bytes of the slot.
+     */
+    private byte[] reserve(final int slot, final int needed) {
+        byte[] array = this.bytes[slot];
+        if (array == null) {
+            array = new byte[Math.max(INITIAL_BYTES, needed)];
+            this.bytes[slot] = array;
+        } else if (needed > array.length) {
+            array = Arrays.copyOf(array, Math.max(array.length * 2, needed));
+            this.bytes[slot] = array;
+        }
+        return array;
+    }
+
+    @Override
+    void trim() {
+        for (int slot = 0; slot < this.bytes.length; ++slot) {
+            if (this.bytes[slot] != null && this.bytes[slot].length > this.used[slot]) {
+                this.bytes[slot] = Arrays.copyOf(this.bytes[slot], this.used[slot]);
+            }
+            if (this.ends[slot] != null && this.ends[slot].length > this.counts[slot]) {
+                this.ends[slot] = Arrays.copyOf(this.ends[slot], this.counts[slot]);
+            }
+        }
+    }
+
+    @Override
+    int size(final int slot) {
+        return this.counts[slot];
+    }
+
+    @Override
+    String get(final int slot, final int index) {
+        int end = this.ends[slot][index];
+        int start = index == 0 ? 0 : this.ends[slot][index - 1] & ~WIDE;
+        if ((end & WIDE) != 0) {
+            return new String(this.bytes[slot], start, (end & ~WIDE) - start, StandardCharsets.UTF_16BE);
+        }
+        return new String(this.bytes[slot], start, end - start, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,241 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+
+/**
+ * The entries of a key-value option, e.g. "-Dname=value".
+ *
+ * Entries are not split into new strings: each entry keeps the argument it came from together with
+ * the positions of its key and of the first '='. Keys are found through an open-addressing table,
+ * and values are only created when they are read.
+ *
+ * @author Zach Wilson
+ */
+public final class ArgumentMap {
+
+    /** Initial number of entries. */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The arguments the entries came from. */
+    private String[] sources = new String[INITIAL_CAPACITY];
+
+    /** Start of each key within its argument. */
+    private int[] keyStarts = new int[INITIAL_CAPACITY];
+
+    /** Position of the '=' within each argument, or the argument length if there is none. */
+    private int[] separators = new int[INITIAL_CAPACITY];
+
+    /** Hash table of entry index + 1, 0 marks an empty slot. Twice the entry capacity. */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    /** Number of entries. */
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    ArgumentMap() {}
+
+    /**
+     * Gets the number of entries.
+     * @return number of entries.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the value of the key.
+     * @param key key to be searched for.
+     * @return value of the key; but if the key is not found, null.
+     */
+    public String get(final String key) {
+        int index = indexOf(key, 0, key.length());
+        return index < 0 ? null : getValue(index);
+    }
+
+    /**
+     * Determines whether there exists an entry for the key.
+     * @param key key to be searched for.
+     * @return true if the key exists.
+     */
+    public boolean containsKey(final String key) {
+        return indexOf(key, 0, key.length()) >= 0;
+    }
+
+    /**
+     * Gets the key of the entry with the specified index, in the order keys were first given.
+     * @param index index of the entry.
+     * @return key.
+     */
+    public String getKey(final int index) {
+        checkIndex(index);
+        return this.sources[index].substring(this.keyStarts[index], this.separators[index]);
+    }
+
+    /**
+     * Gets the value of the entry with the specified index, in the order keys were first given.
+     * An entry given without '=' has an empty value.
+     * @param index index of the entry.
+     * @return value.
+     */
+    public String getValue(final int index) {
+        checkIndex(index);
+        String source = this.sources[index];
+        int separator = this.separators[index];
+        return separator == source.length() ? "" : source.substring(separator + 1);
+    }
+
+    /**
+     * Gets the argument an entry came from.
+     * @param index index of the entry.
+     * @return argument holding the entry.
+     */
+    String getSource(final int index) {
+        checkIndex(index);
+        return this.sources[index];
+    }
+
+    /**
+     * Gets the start of the key of an entry within its argument.
+     * @param index index of the entry.
+     * @return start of the key.
+     */
+    int getKeyStart(final int index) {
+        checkIndex(index);
+        return this.keyStarts[index];
+    }
+
+    /**
+     * Adds an entry, splitting the argument on its first '='.
+     * @param source argument holding the entry.
+     * @param keyStart start of the key within the argument.
+     * @param policy what to do if the key already exists.
+     * @return false if the key already exists and the policy is {@link DuplicateKeyPolicy#ERROR}.
+     */
+    boolean put(final String source, final int keyStart, final DuplicateKeyPolicy policy) {
+        int separator = source.indexOf('=', keyStart);
+        if (separator < 0) {
+            separator = source.length();
+        }
+
+        int mask = this.table.length - 1;
+        int slot = hash(source, keyStart, separator) & mask;
+        while (this.table[slot] != 0) {
+            int index = this.table[slot] - 1;
+            if (keyEquals(index, source, keyStart, separator)) {
+                if (policy == DuplicateKeyPolicy.ERROR) {
+                    return false;
+                }
+                if (policy == DuplicateKeyPolicy.LAST) {
+                    this.sources[index] = source;
+                    this.keyStarts[index] = keyStart;
+                    this.separators[index] = separator;
+                }
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (this.size == this.sources.length) {
+            grow();
+            put(source, keyStart, policy);
+            return true;
+        }
+        this.sources[this.size] = source;
+        this.keyStarts[this.size] = keyStart;
+        this.separators[this.size] = separator;
+        this.table[slot] = ++this.size;
+        return true;
+    }
+
+    /**
+     * Finds the entry of a key.
+     * @param key string holding the key.
+     * @param start start of the key.
+     * @param end end of the key.
+     * @return index of the entry; but if the key is not found, -1.
+     */
+    private int indexOf(final String key, final int start, final int end) {
+        int mask = this.table.length - 1;
+        int slot = hash(key, start, end) & mask;
+        while (this.table[slot] != 0) {
+            int index = this.table[slot] - 1;
+            if (keyEquals(index, key, start, end)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the key of an entry with a region of a string.
+     * @param index index of the entry.
+     * @param key string holding the key.
+     * @param start start of the key.
+     * @param end end of the key.
+     * @return true if the keys are equal.
+     */
+    private boolean keyEquals(final int index, final String key, final int start, final int end) {
+        int length = end - start;
+        return this.separators[index] - this.keyStarts[index] == length &&
+               this.sources[index].regionMatches(this.keyStarts[index], key, start, length);
+    }
+
+    /**
+     * Doubles the capacity and rebuilds the hash table.
+     */
+    private void grow() {
+        int capacity = this.sources.length * 2;
+        this.sources = Arrays.copyOf(this.sources, capacity);
+        this.keyStarts = Arrays.copyOf(this.keyStarts, capacity);
+        this.separators = Arrays.copyOf(this.separators, capacity);
+        this.table = new int[capacity * 2];
+        int mask = this.table.length - 1;
+        for (int index = 0; index < this.size; ++index) {
+            int slot = hash(this.sources[index], this.keyStarts[index], this.separators[index]) & mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Checks that an entry index is valid.
+     * @param index index to be checked.
+     */
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + this.size + ".");
+        }
+    }
+
+    /**
+     * Hashes a region of a string.
+     * @param string string holding the region.
+     * @param start start of the region.
+     * @param end end of the region.
+     * @return hash value.
+     */
+    private static int hash(final String string, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; ++i) {
+            hash = 31 * hash + string.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < this.size; ++index) {
+            builder.append(getKey(index));
+            builder.append("=");
+            builder.append(getValue(index));
+            builder.append(" ");
+        }
+        return builder.toString();
+    }
+}
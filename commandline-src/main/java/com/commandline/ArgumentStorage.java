@@ -0,0 +1,19 @@
+package main.java.com.commandline;
+
+/**
+ * Decides how a {@link ParseResult} holds the arguments of options.
+ *
+ * @author Zach Wilson
+ */
+public enum ArgumentStorage {
+
+    /** Each argument is kept as the string it was given as, in a list per option. */
+    STRINGS,
+
+    /**
+     * The characters of the arguments of each option are copied into one array, with only the end of
+     * each argument recorded. The given strings are not kept, and a string is only created when an
+     * argument is read. Suits results holding very many arguments.
+     */
+    ARENA
+}
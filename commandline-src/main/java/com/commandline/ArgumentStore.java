@@ -0,0 +1,80 @@
+package main.java.com.commandline;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Holds the arguments of the options found by a parse, by slot. How arguments are added depends on
+ * what is parsed: strings are added to a {@link StringArgumentStore}, ranges of bytes to a {@link ByteStore}.
+ *
+ * @author Zach Wilson
+ */
+abstract class ArgumentStore {
+
+    /**
+     * Makes room for more slots.
+     * @param capacity new number of slots.
+     */
+    abstract void grow(int capacity);
+
+    /**
+     * Gets the number of arguments of a slot.
+     * @param slot slot of the option.
+     * @return number of arguments.
+     */
+    abstract int size(int slot);
+
+    /**
+     * Gets an argument.
+     * @param slot slot of the option.
+     * @param index index of the argument.
+     * @return argument.
+     */
+    abstract String get(int slot, int index);
+
+    /**
+     * Releases spare room once all arguments have been added.
+     */
+    void trim() {
+    }
+
+    /**
+     * Gets a read-only view of the arguments of a slot.
+     * @param slot slot of the option.
+     * @return arguments.
+     */
+    List<String> list(final int slot) {
+        return new View(slot);
+    }
+
+    /**
+     * A read-only view of the arguments of a slot, reading each argument when it is asked for.
+     */
+    private final class View extends AbstractList<String> implements RandomAccess {
+
+        /** Slot of the option. */
+        private final int slot;
+
+        /**
+         * Constructor.
+         * @param slot slot of the option.
+         */
+        View(final int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + size() + ".");
+            }
+            return ArgumentStore.this.get(this.slot, index);
+        }
+
+        @Override
+        public int size() {
+            return ArgumentStore.this.size(this.slot);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package main.java.com.commandline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Splits text holding command lines, such as argument files or logs, into arguments, as NUL-separated
+ * UTF-8 bytes which {@link CommandLine#parseResult(ByteBuffer)} parses without decoding.
+ *
+ * Arguments are separated by whitespace: any byte up to and including the space, so NUL, tabs and line
+ * ends as well. Within an argument, text between single quotes is taken as it is, text between double
+ * quotes is taken as it is except that a backslash takes the next '"' or '\' literally, and outside
+ * quotes a backslash takes the next byte literally. Quotes are removed, and an empty pair of quotes
+ * is an empty argument.
+ *
+ * Most bytes are none of these, so the scan looks for the next byte that is: by default eight bytes at
+ * a time, read as a long, copied whole and tested with word-wide arithmetic. {@link Scan#BYTE} tests and
+ * copies one byte at a time instead, with the same outcome.
+ *
+ * @author Zach Wilson
+ */
+public final class ArgumentTokenizer {
+
+    /**
+     * How the text is scanned.
+     */
+    public enum Scan {
+
+        /** Eight bytes at a time. */
+        WORD,
+
+        /** One byte at a time. */
+        BYTE
+    }
+
+    /** Reads eight bytes of an array as a long, the first byte lowest. */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    /** 0x01 in every byte. */
+    private static final long ONES = 0x0101010101010101L;
+
+    /** 0x80 in every byte. */
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /** Looking for whitespace, quotes and backslashes, outside quotes. */
+    private static final int PLAIN = 0;
+
+    /** Looking for the closing single quote. */
+    private static final int SINGLE = 1;
+
+    /** Looking for the closing double quote or a backslash. */
+    private static final int DOUBLE = 2;
+
+    /** How the text is scanned. */
+    private final Scan scan;
+
+    /**
+     * Constructor.
+     * Scans eight bytes at a time.
+     */
+    public ArgumentTokenizer() {
+        this(Scan.WORD);
+    }
+
+    /**
+     * Constructor.
+     * @param scan how the text is scanned.
+     */
+    public ArgumentTokenizer(final Scan scan) {
+        this.scan = scan;
+    }
+
+    /**
+     * Gets how the text is scanned.
+     * @return scan.
+     */
+    public Scan getScan() {
+        return this.scan;
+    }
+
+    /**
+     * Splits text into arguments, from the position of the buffer to its limit. The position is not
+     * changed.
+     * @param text the text, as UTF-8.
+     * @return buffer holding the arguments, each followed by NUL, from position 0 to its limit.
+     * @throws IllegalArgumentException if a quote is not closed, or the text ends in a backslash.
+     */
+    public ByteBuffer tokenize(final ByteBuffer text) {
+        byte[] bytes;
+        int start;
+        if (text.hasArray()) {
+            bytes = text.array();
+            start = text.arrayOffset() + text.position();
+        } else {
+            bytes = new byte[text.remaining()];
+            text.get(text.position(), bytes);
+            start = 0;
+        }
+        byte[] out = new byte[text.remaining() + 1];
+        int length = tokenize(bytes, start, start + text.remaining(), out, 0);
+        return ByteBuffer.wrap(out, 0, length);
+    }
+
+    /**
+     * Splits a range of bytes into arguments, writing each followed by NUL. The output needs one byte more
+     * than the input, and must not overlap it; all of it may be written over, not only the bytes returned.
+     * @param text the text, as UTF-8.
+     * @param start index of the first byte of the text.
+     * @param end index after the last byte of the text.
+     * @param out where the arguments are written.
+     * @param outStart index at which to start writing.
+     * @return number of bytes written.
+     * @throws IllegalArgumentException if a quote is not closed, or the text ends in a backslash.
+     */
+    public int tokenize(final byte[] text, final int start, final int end, final byte[] out, final int outStart) {
+        if (out.length - outStart < end - start + 1) {
+            throw new IllegalArgumentException("Output of " + (out.length - outStart) + " bytes, " +
+                    (end - start + 1) + " needed.");
+        }
+        boolean word = this.scan == Scan.WORD;
+        int position = start;
+        int written = outStart;
+        int state = PLAIN;
+        int quote = -1;
+        boolean inArgument = false;
+        while (true) {
+            int special = word ? copyWords(text, position, end, out, written - position, state, inArgument)
+                    : copyBytes(text, position, end, out, written - position, state);
+            if (special > position) {
+                written += special - position;
+
+                // Eight bytes at a time may have ended arguments on the way
+                inArgument = state != PLAIN || !isSpace(text[special - 1]);
+            }
+            if (special == end) {
+                break;
+            }
+            byte b = text[special];
+            position = special + 1;
+            if (state == PLAIN) {
+                if (b == '"' || b == '\'') {
+                    state = b == '"' ? DOUBLE : SINGLE;
+                    quote = special;
+                    inArgument = true;
+                } else if (b == '\\') {
+                    if (position == end) {
+                        throw new IllegalArgumentException("Backslash at the end of the text, position " +
+                                special + ".");
+                    }
+                    out[written++] = text[position++];
+                    inArgument = true;
+                } else if (inArgument) {
+                    out[written++] = 0;
+                    inArgument = false;
+                }
+            } else if (b == '\\') {
+
+                // Only a double quote or a backslash is escaped within double quotes
+                if (position < end && (text[position] == '"' || text[position] == '\\')) {
+                    out[written++] = text[position++];
+                } else {
+                    out[written++] = b;
+                }
+            } else {
+                state = PLAIN;
+            }
+        }
+        if (state != PLAIN) {
+            throw new IllegalArgumentException("Quote at position " + quote + " is not closed.");
+        }
+        if (inArgument) {
+            out[written++] = 0;
+        }
+        return written - outStart;
+    }
+
+    /**
+     * Copies the bytes up to the next one which is special in a state, one byte at a time.
+     * @param text the text.
+     * @param from index to start from.
+     * @param end index after the last byte of the text.
+     * @param out where the bytes are copied.
+     * @param offset index in the output less index in the text.
+     * @param state what is looked for.
+     * @return index of the special byte; but if there is none, the end.
+     */
+    private static int copyBytes(final byte[] text, final int from, final int end, final byte[] out,
+            final int offset, final int state) {
+        for (int i = from; i < end; ++i) {
+            byte b = text[i];
+            if (isSpecial(b, state)) {
+                return i;
+            }
+            out[i + offset] = b;
+        }
+        return end;
+    }
+
+    /**
+     * Copies the bytes up to the next one which is special in a state, eight bytes at a time. Each word
+     * is written whole, so bytes after the special byte are written as well; the output never runs ahead
+     * of the text, so they stay within the output and are written over later. Outside quotes, whitespace
+     * within a word is written as NUL and passed over, as long as it is a single byte following an
+     * argument; it is only special otherwise.
+     * @param text the text.
+     * @param from index to start from.
+     * @param end index after the last byte of the text.
+     * @param out where the bytes are copied.
+     * @param offset index in the output less index in the text.
+     * @param state what is looked for.
+     * @param inArgument true if the byte before the first is part of an argument.
+     * @return index of the special byte; but if there is none, the end.
+     */
+    private static int copyWords(final byte[] text, final int from, final int end, final byte[] out,
+            final int offset, final int state, final boolean inArgument) {
+        int i = from;
+        int last = end - 8;
+        if (state == PLAIN) {
+
+            // Whitespace is single if the byte before it is neither whitespace nor the start
+            long before = inArgument ? 0 : 0x80L;
+            for (; i <= last; i += 8) {
+                long word = (long) LONGS.get(text, i);
+                long space = below(word, 0x21);
+                long quoted = equal(word, '"') | equal(word, '\'') | equal(word, '\\');
+                if (quoted == 0 && (space & (space << 8 | before)) == 0) {
+                    LONGS.set(out, i + offset, word & ~((space >>> 7) * 0xFF));
+                    before = space >>> 56;
+                    continue;
+                }
+                LONGS.set(out, i + offset, word);
+                return i + (Long.numberOfTrailingZeros(space | quoted) >>> 3);
+            }
+        } else {
+            int match = state == SINGLE ? '\'' : '"';
+            int escape = state == SINGLE ? '\'' : '\\';
+            for (; i <= last; i += 8) {
+                long word = (long) LONGS.get(text, i);
+                LONGS.set(out, i + offset, word);
+                long found = equal(word, match) | equal(word, escape);
+                if (found != 0) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        return copyBytes(text, i, end, out, offset, state);
+    }
+
+    /**
+     * Marks the bytes of a word below a value, exactly: the low seven bits of each byte are added to
+     * separately, so nothing carries between bytes.
+     * @param word eight bytes, the first lowest.
+     * @param value bound, at most 0x80.
+     * @return 0x80 in each marked byte.
+     */
+    private static long below(final long word, final int value) {
+        return ~(((word & ~HIGHS) + ONES * (0x80 - value)) | word) & HIGHS;
+    }
+
+    /**
+     * Marks the bytes of a word equal to a value. The lowest marked byte is always exact; marks above it
+     * may be wrong, since the subtraction borrows.
+     * @param word eight bytes, the first lowest.
+     * @param value the value, below 0x80.
+     * @return 0x80 in each marked byte.
+     */
+    private static long equal(final long word, final int value) {
+        long difference = word ^ (ONES * value);
+        return (difference - ONES) & ~difference & HIGHS;
+    }
+
+    /**
+     * Determines whether a byte is whitespace.
+     * @param b the byte.
+     * @return true if the byte is whitespace.
+     */
+    private static boolean isSpace(final byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Determines whether a byte is special in a state.
+     * @param b the byte.
+     * @param state what is looked for.
+     * @return true if the byte is special.
+     */
+    private static boolean isSpecial(final byte b, final int state) {
+        if (state == PLAIN) {
+            return isSpace(b) || b == '"' || b == '\'' || b == '\\';
+        }
+        return state == SINGLE ? b == '\'' : b == '"' || b == '\\';
+    }
+}
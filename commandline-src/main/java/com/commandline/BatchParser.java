@@ -0,0 +1,226 @@
+package main.java.com.commandline;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Parses many sets of command line arguments against the same {@link CommandLine} concurrently.
+ *
+ * Every set is parsed with {@link CommandLine#parseResult(String[])}, so the options are shared and
+ * never copied. At most {@link #setParallelism(int) parallelism} sets are parsed or waiting to be
+ * handed out at a time; further input is not read until the caller has taken earlier outcomes.
+ * Outcomes are handed to the caller on the calling thread, in input order or in completion order.
+ *
+ * The options must not be added or changed while a batch is being parsed.
+ *
+ * @author Zach Wilson
+ */
+public class BatchParser {
+
+    /** The command line the arguments are parsed against. */
+    private final CommandLine commandLine;
+
+    /** Maximum number of sets parsed or waiting at a time. */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** Executor running the parses; null to create one per batch. */
+    private ExecutorService executor;
+
+    /** Whether outcomes are handed out in input order. */
+    private boolean ordered = true;
+
+    /**
+     * Constructor.
+     * @param commandLine the command line the arguments are parsed against.
+     */
+    public BatchParser(final CommandLine commandLine) {
+        this.commandLine = commandLine;
+    }
+
+    /**
+     * Sets the maximum number of sets parsed or waiting to be handed out at a time.
+     * The default is the number of processors.
+     * @param parallelism maximum number of sets in flight.
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, given " + parallelism + ".");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the executor running the parses. By default, each batch runs on virtual threads when the
+     * runtime supports them, and otherwise on a pool of {@link #setParallelism(int) parallelism} threads.
+     * @param executor executor running the parses; null for the default.
+     */
+    public void setExecutor(final ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets whether outcomes are handed out in input order or as soon as they complete.
+     * The default is input order.
+     * @param ordered true for input order.
+     */
+    public void setOrdered(final boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Parses every set of arguments of a stream.
+     * @param inputs sets of command line arguments.
+     * @param sink receives the outcome of every set, on the calling thread.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public void parse(final Stream<String[]> inputs, final Consumer<Outcome> sink) throws InterruptedException {
+        parse(inputs.iterator(), sink);
+    }
+
+    /**
+     * Parses every set of arguments of an iterator. The iterator is only read from the calling thread,
+     * and only when there is room for another set, so a blocking iterator over a queue applies backpressure.
+     * @param inputs sets of command line arguments.
+     * @param sink receives the outcome of every set, on the calling thread.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public void parse(final Iterator<String[]> inputs, final Consumer<Outcome> sink) throws InterruptedException {
+        ExecutorService executor = this.executor != null ? this.executor : createExecutor(this.parallelism);
+        try {
+            CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+            HashMap<Long, Outcome> waiting = new HashMap<>();
+            long submitted = 0;
+            long completed = 0;
+            long emitted = 0;
+
+            while (inputs.hasNext() || completed < submitted) {
+
+                // Fill the window
+                while (submitted - emitted < this.parallelism && inputs.hasNext()) {
+                    final long index = submitted++;
+                    final String[] args = inputs.next();
+                    completion.submit(() -> {
+                        try {
+                            return new Outcome(index, args, this.commandLine.parseResult(args), null);
+                        } catch (IllegalArgumentException e) {
+                            return new Outcome(index, args, null, e);
+                        }
+                    });
+                }
+                if (completed == submitted) {
+                    continue;
+                }
+
+                // Hand out what has completed
+                Outcome outcome;
+                try {
+                    outcome = completion.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Parse failed unexpectedly.", e.getCause());
+                }
+                ++completed;
+                if (!this.ordered) {
+                    sink.accept(outcome);
+                    ++emitted;
+                    continue;
+                }
+                waiting.put(outcome.getIndex(), outcome);
+                while ((outcome = waiting.remove(emitted)) != null) {
+                    sink.accept(outcome);
+                    ++emitted;
+                }
+            }
+        } finally {
+            if (this.executor == null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Creates the default executor: virtual threads when available, otherwise a fixed pool.
+     * @param threads number of threads of the fixed pool.
+     * @return new executor.
+     */
+    private static ExecutorService createExecutor(final int threads) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    /**
+     * The outcome of parsing one set of arguments: a result, or the error that made parsing fail.
+     */
+    public static final class Outcome {
+
+        /** Position of the set in the input. */
+        private final long index;
+
+        /** The arguments that were parsed. */
+        private final String[] args;
+
+        /** The parse result, or null. */
+        private final ParseResult result;
+
+        /** The error, or null. */
+        private final IllegalArgumentException error;
+
+        /**
+         * Constructor.
+         * @param index position of the set in the input.
+         * @param args the arguments that were parsed.
+         * @param result the parse result, or null.
+         * @param error the error, or null.
+         */
+        Outcome(final long index, final String[] args, final ParseResult result,
+                final IllegalArgumentException error) {
+            this.index = index;
+            this.args = args;
+            this.result = result;
+            this.error = error;
+        }
+
+        /**
+         * Gets the position of the set in the input.
+         * @return index, starting at 0.
+         */
+        public long getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Gets the arguments that were parsed.
+         * @return command line arguments.
+         */
+        public String[] getArgs() {
+            return this.args;
+        }
+
+        /**
+         * Gets the parse result.
+         * @return the result; but if parsing failed, null.
+         */
+        public ParseResult getResult() {
+            return this.result;
+        }
+
+        /**
+         * Gets the error that made parsing fail.
+         * @return the error; but if parsing succeeded, null.
+         */
+        public IllegalArgumentException getError() {
+            return this.error;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package main.java.com.commandline;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses command line arguments given as NUL-separated UTF-8 bytes, such as /proc/&lt;pid&gt;/cmdline,
+ * into a result, following the same rules as {@link Parser}.
+ *
+ * Tags are matched against the bytes, and the arguments of options are kept as ranges of the buffer,
+ * so only what the caller reads is decoded. Entries of key-value options are decoded while parsing,
+ * since their keys are needed to detect duplicates.
+ *
+ * @author Zach Wilson
+ */
+final class ByteParser extends AbstractParser {
+
+    /** The NUL separating arguments. */
+    private static final byte SEPARATOR = 0;
+
+    /** The bytes holding the arguments. */
+    private final byte[] bytes;
+
+    /** Index after the last byte of the arguments. */
+    private final int limit;
+
+    /** Start of the next argument. */
+    private int position;
+
+    /** Index of the first byte of the current argument. */
+    private int start;
+
+    /** Index after the last byte of the current argument. */
+    private int end;
+
+    /** Index of the first byte of the argument held as a tag. */
+    private int tagStart;
+
+    /** Index after the last byte of the argument held as a tag. */
+    private int tagEnd;
+
+    /**
+     * Constructor.
+     * The bytes of a buffer with an accessible array are parsed in place; those of any other buffer are
+     * copied once.
+     * @param buffer the arguments, from the position to the limit; a NUL at the end is optional.
+     * @param table the specification being parsed against.
+     */
+    ByteParser(final ByteBuffer buffer, final SpecTable table) {
+        super(table);
+        if (buffer.hasArray()) {
+            this.bytes = buffer.array();
+            this.position = buffer.arrayOffset() + buffer.position();
+            this.limit = buffer.arrayOffset() + buffer.limit();
+        } else {
+            this.bytes = new byte[buffer.remaining()];
+            buffer.get(buffer.position(), this.bytes);
+            this.position = 0;
+            this.limit = this.bytes.length;
+        }
+    }
+
+    /**
+     * Parses the arguments into a result, without changing the Options objects.
+     * @return the parse result.
+     * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
+     */
+    ParseResult parseResult() throws IllegalArgumentException {
+        return parse(new ParseResult(getTable(), this.bytes), -1);
+    }
+
+    @Override
+    boolean hasNext() {
+        return this.position < this.limit;
+    }
+
+    @Override
+    void next() {
+        int end = this.position;
+        while (end < this.limit && this.bytes[end] != SEPARATOR) {
+            ++end;
+        }
+        this.start = this.position;
+        this.end = end;
+        this.position = end + 1;
+    }
+
+    @Override
+    void holdTag() {
+        this.tagStart = this.start;
+        this.tagEnd = this.end;
+    }
+
+    @Override
+    boolean isDash() {
+        return this.end > this.start && this.bytes[this.start] == '-';
+    }
+
+    @Override
+    int find(final SpecTable table, final int from) {
+        return table.find(this.bytes, this.tagStart, this.tagEnd, from);
+    }
+
+    @Override
+    boolean startsWith(final String tag) {
+        if (ByteStore.isAscii(tag)) {
+            return this.tagEnd - this.tagStart > tag.length() &&
+                   ByteStore.equals(this.bytes, this.tagStart, this.tagStart + tag.length(), tag);
+        }
+        String arg = ByteStore.decode(this.bytes, this.tagStart, this.tagEnd);
+        return arg.length() > tag.length() && arg.startsWith(tag);
+    }
+
+    @Override
+    String decode() {
+        return ByteStore.decode(this.bytes, this.start, this.end);
+    }
+
+    @Override
+    String addArgument(final ParseResult result, final int slot, final Fingerprint.Hasher hasher) {
+        result.addArgument(slot, this.start, this.end);
+        hasher.add(this.bytes, this.start, this.end);
+        return null;
+    }
+}
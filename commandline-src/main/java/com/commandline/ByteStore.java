@@ -0,0 +1,132 @@
+package main.java.com.commandline;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Holds arguments as ranges of the UTF-8 bytes they were parsed from. Nothing is decoded while
+ * parsing: a string is created from the bytes each time an argument is read, so arguments which are
+ * never read cost two ints each. The bytes must not be changed while the result is in use.
+ *
+ * @author Zach Wilson
+ */
+final class ByteStore extends ArgumentStore {
+
+    /** Initial number of arguments of a slot. */
+    private static final int INITIAL_ARGUMENTS = 4;
+
+    /** The bytes the arguments were parsed from. */
+    private final byte[] bytes;
+
+    /** Start and end of each argument within the bytes, by slot; null if there are none. */
+    private int[][] ranges;
+
+    /** Number of arguments by slot. */
+    private int[] counts;
+
+    /**
+     * Creates a store.
+     * @param bytes the bytes the arguments are parsed from.
+     * @param capacity initial number of slots.
+     * @return new store.
+     */
+    static ByteStore create(final byte[] bytes, final int capacity) {
+        return new ByteStore(bytes, capacity);
+    }
+
+    /**
+     * Constructor.
+     * @param bytes the bytes the arguments are parsed from.
+     * @param capacity initial number of slots.
+     */
+    ByteStore(final byte[] bytes, final int capacity) {
+        this.bytes = bytes;
+        this.ranges = new int[capacity][];
+        this.counts = new int[capacity];
+    }
+
+    /**
+     * Decodes a range of bytes as UTF-8.
+     * @param bytes the bytes.
+     * @param start index of the first byte.
+     * @param end index after the last byte.
+     * @return decoded string.
+     */
+    static String decode(final byte[] bytes, final int start, final int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Determines whether a range of bytes holds exactly a tag.
+     * @param bytes the bytes.
+     * @param start index of the first byte.
+     * @param end index after the last byte.
+     * @param tag the tag; empty never matches.
+     * @return true if the range holds the tag.
+     */
+    static boolean equals(final byte[] bytes, final int start, final int end, final String tag) {
+        if (tag.isEmpty()) {
+            return false;
+        }
+        if (!isAscii(tag)) {
+            return decode(bytes, start, end).equals(tag);
+        }
+        if (end - start != tag.length()) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); ++i) {
+            if (bytes[start + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether all characters of a string are ASCII, so that it is encoded one byte per character.
+     * @param string the string.
+     * @return true if the string is ASCII.
+     */
+    static boolean isAscii(final String string) {
+        for (int i = 0; i < string.length(); ++i) {
+            if (string.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void grow(final int capacity) {
+        this.ranges = Arrays.copyOf(this.ranges, capacity);
+        this.counts = Arrays.copyOf(this.counts, capacity);
+    }
+
+    /**
+     * Adds the argument in a range of the bytes.
+     * @param slot slot of the option.
+     * @param start index of the first byte.
+     * @param end index after the last byte.
+     */
+    void add(final int slot, final int start, final int end) {
+        int count = this.counts[slot];
+        if (this.ranges[slot] == null) {
+            this.ranges[slot] = new int[INITIAL_ARGUMENTS * 2];
+        } else if (count * 2 == this.ranges[slot].length) {
+            this.ranges[slot] = Arrays.copyOf(this.ranges[slot], count * 4);
+        }
+        this.ranges[slot][count * 2] = start;
+        this.ranges[slot][count * 2 + 1] = end;
+        this.counts[slot] = count + 1;
+    }
+
+    @Override
+    int size(final int slot) {
+        return this.counts[slot];
+    }
+
+    @Override
+    String get(final int slot, final int index) {
+        return decode(this.bytes, this.ranges[slot][index * 2], this.ranges[slot][index * 2 + 1]);
+    }
+}
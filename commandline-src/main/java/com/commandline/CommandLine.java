@@ -1,6 +1,11 @@
 package main.java.com.commandline;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Allows for specification and parsing of command line arguments.
@@ -9,18 +14,62 @@ import java.util.ArrayList;
  */
 public class CommandLine {
 
+    /** Number of options from which tags are looked up in an index even before freezing. */
+    private static final int INDEX_THRESHOLD = 16;
+
     /** Optional command line arguments. */
     private ArrayList<Option> options = new ArrayList<>();
 
+    /** Read-only view of the options. */
+    private final List<Option> optionsView = Collections.unmodifiableList(this.options);
+
     /** Help information option. */
     private Option help = new Option("h");
 
+    /** Ordinal of the help option, or -1 if there is none. */
+    private int helpOrdinal = -1;
+
+    /** Incremented whenever an option is added or changed, or a setting which affects results changes. */
+    private volatile long specVersion;
+
+    /** What the last call to parse found. */
+    private ParseResult lastResult;
+
+    /** Index of the option tags; null until frozen. */
+    private TagIndex index;
+
+    /** How arguments are matched against option tags. */
+    private TagMatching tagMatching = TagMatching.EXACT;
+
+    /** How results of {@link #parseResult(String[])} hold arguments. */
+    private ArgumentStorage argumentStorage = ArgumentStorage.STRINGS;
+
+    /** Records the decisions of every parse, or null. */
+    private ParseTrace trace;
+
+    /** Canonicalizes the argument values of every parse, or null. */
+    private ValueTable valueTable;
+
+    /** What parsing needs of the current specification; null until needed. */
+    private volatile CompiledSpec compiled;
+
     /**
-     * Adds command line option.
+     * Adds command line option. An option belongs to one command line only; to use the same definition
+     * in another, add a new option sharing its {@link Option#getSpec() spec}.
      * @param option command line option.
+     * @throws IllegalStateException if the command line is frozen.
+     * @throws IllegalArgumentException if the option was already added to a command line.
      */
     public void addOption(final Option option) {
+        checkNotFrozen();
+        if (option.getOrdinal() >= 0) {
+            throw new IllegalArgumentException("Option '" + option.getShortName() +
+                    "' already belongs to a command line.");
+        }
+        option.intern();
+        option.attach(this, options.size());
         options.add(option);
+        specChanged();
     }
 
     /**
@@ -29,12 +78,8 @@ public class CommandLine {
      * @return argument of the option; but if no argument is found, null.
      */
     public String getOptionByName(final String optionName) {
-        for (Option option : this.options) {
-            if (option.hasTag(optionName)) {
-                return option.getArgumentAtIndex(0);
-            }
-        }
-        return null;
+        int ordinal = compile().table.find(optionName, 0);
+        return ordinal < 0 ? null : this.options.get(ordinal).getArgumentAtIndex(0);
     }
 
     /**
@@ -46,25 +91,162 @@ public class CommandLine {
     }
 
     /**
-     * Parses command line arguments and stores data in Options list.
+     * Gets a read-only view of the options, by ordinal, without copying them.
+     * @return options.
+     */
+    public List<Option> getOptionsView() {
+        return this.optionsView;
+    }
+
+    /**
+     * Gets the number of options.
+     * @return number of options.
+     */
+    public int getOptionCount() {
+        return this.options.size();
+    }
+
+    /**
+     * Gets an option by ordinal.
+     * @param ordinal ordinal of the option.
+     * @return the option.
+     */
+    public Option getOption(final int ordinal) {
+        return this.options.get(ordinal);
+    }
+
+    /**
+     * Gets a handle reading the option with the given tag by ordinal. Look the handle up once and keep it.
+     * @param tag the option's short or long tag, e.g. "-o" or "--option".
+     * @return the handle.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    public OptionHandle getHandle(final String tag) {
+        int ordinal = compile().table.find(tag, 0);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Unknown option '" + tag + "'.");
+        }
+        return new OptionHandle(this, ordinal);
+    }
+
+    /**
+     * Gets the specification as the parsers read it, with tags looked up as {@link #parseResult(String[])}
+     * looks them up.
+     * @return the table.
+     * @throws IllegalArgumentException if two options share a tag once folded.
+     */
+    SpecTable getTable() {
+        return compile().table;
+    }
+
+    /**
+     * Parses command line arguments and stores data in Options list. This changes the options and the
+     * last result, so a frozen command line, which may be shared between threads, is only parsed with
+     * {@link #parseResult(String[])}.
      * @param args command line arguments.
+     * @throws IllegalStateException if the command line is frozen.
      */
     public void parse(final String[] args) {
+        checkNotFrozen();
 
         // Parse command line arguments
-        Parser parser = new Parser(args, options);
-        parser.parse();
+        OptionTable table = compile().table;
+        Parser parser = new Parser(args, options, table);
+        parser.setTrace(this.trace);
+        parser.setValueTable(this.valueTable);
+        this.lastResult = parser.parseIntoOptions();
 
         // Check for missing required options
         if (!this.help.isFound()) {
-            for (Option option : this.options) {
-                if (option.isRequired() && !option.isFound()) {
+            for (int ordinal : table.getRequiredOrdinals()) {
+                Option option = this.options.get(ordinal);
+                if (!option.isFound()) {
                     throw new IllegalArgumentException("Missing required option '" + option.getShortName() + "'.");
                 }
             }
         }
     }
 
+    /**
+     * Parses command line arguments into a result, leaving the Options untouched.
+     * Several threads may call this at once, as long as no options are added or changed meanwhile.
+     * @param args command line arguments.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public ParseResult parseResult(final String[] args) {
+        return parseResult(args, null);
+    }
+
+    /**
+     * Parses command line arguments into a result, leaving the Options untouched.
+     * @param args command line arguments.
+     * @param listener told about every occurrence of an option while parsing, or null.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    ParseResult parseResult(final String[] args, final Parser.OccurrenceListener listener) {
+
+        // Parse command line arguments
+        OptionTable table = compile().table;
+        Parser parser = new Parser(args, options, table);
+        parser.setOccurrenceListener(listener);
+        parser.setArgumentStorage(this.argumentStorage);
+        parser.setTrace(this.trace);
+        parser.setValueTable(this.valueTable);
+        ParseResult result = parser.parseResult();
+        table.checkRequired(result);
+        return result;
+    }
+
+    /**
+     * Parses command line arguments given as NUL-separated UTF-8 bytes into a result, leaving the
+     * Options untouched; /proc/&lt;pid&gt;/cmdline is in this form. Arguments are read from the position
+     * of the buffer to its limit, so the program name and anything else before the options are skipped
+     * by moving the position past them. Tags are matched against the bytes, and the arguments of
+     * options are only decoded when they are read from the result, so the buffer must not be changed
+     * while the result is in use. The position of the buffer is not changed.
+     * @param args command line arguments, separated by NUL; a NUL after the last is optional.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public ParseResult parseResult(final ByteBuffer args) {
+        OptionTable table = compile().table;
+        ByteParser parser = new ByteParser(args, table);
+        parser.setTrace(this.trace);
+        parser.setValueTable(this.valueTable);
+        ParseResult result = parser.parseResult();
+        table.checkRequired(result);
+        return result;
+    }
+
+    /**
+     * Decodes a result encoded by {@link ParseResult#encode()} from the position of a buffer, and moves
+     * the position past it. No tags are matched: options are read by ordinal, and the arguments stay in
+     * the buffer, read in place if it has an accessible array, so the buffer must not be changed while
+     * the result is in use. The specification must be the one the result was parsed against.
+     * @param encoded the encoded result.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the buffer does not hold an encoded result, or the result was
+     *         encoded against another specification.
+     */
+    public ParseResult decodeResult(final ByteBuffer encoded) {
+        return ResultCodec.decode(encoded, compile().table);
+    }
+
+    /**
+     * Reads a result encoded by {@link ParseResult#encode()} from a channel, such as a pipe from the
+     * process which parsed the arguments.
+     * @param channel the channel.
+     * @return the parse result; but if the channel is at its end, null.
+     * @throws IOException if the channel cannot be read or ends within a result.
+     * @throws IllegalArgumentException if the channel does not hold an encoded result, or the result was
+     *         encoded against another specification.
+     */
+    public ParseResult readResult(final ReadableByteChannel channel) throws IOException {
+        return ResultCodec.read(channel, compile().table);
+    }
+
     /**
      * Prints the help information.
      * @return help information.
@@ -76,11 +258,17 @@ public class CommandLine {
     /**
      * Creates help information option.
      * @param help help information.
+     * @throws IllegalStateException if the command line is frozen.
      */
     public void createHelp(final String help) {
+        checkNotFrozen();
         this.help.setLongName("help");
         this.help.setDescription(help);
+        this.help.intern();
+        this.helpOrdinal = this.options.size();
+        this.help.attach(this, this.helpOrdinal);
         this.options.add(this.help);
+        specChanged();
     }
 
     /**
@@ -91,6 +279,216 @@ public class CommandLine {
         return this.help.isFound();
     }
 
+    /**
+     * Freezes the specification: no options may be added and the options may no longer be changed.
+     * The tags of the options are indexed with a perfect hash, so each argument is then looked up
+     * at a cost which does not depend on the number of options. The command line may then be shared
+     * between threads, which parse with {@link #parseResult(String[])}; {@link #parse(String[])} is no
+     * longer allowed, since it stores what it finds in the options. Freezing twice has no effect.
+     * @throws IllegalArgumentException if two options share a tag.
+     */
+    public void freeze() {
+        if (this.index != null) {
+            return;
+        }
+        TagIndex index = new TagIndex(this.options, this.tagMatching);
+        for (Option option : this.options) {
+            option.freeze();
+        }
+        this.index = index;
+        this.compiled = new CompiledSpec(new OptionTable(this.options, this.helpOrdinal, index), this.specVersion);
+    }
+
+    /**
+     * Determines whether the specification is frozen.
+     * @return true if {@link #freeze()} has been called.
+     */
+    public boolean isFrozen() {
+        return this.index != null;
+    }
+
+    /**
+     * Sets how arguments are matched against option tags. By default, tags must match exactly.
+     * @param matching tag matching.
+     * @throws IllegalStateException if the command line is frozen.
+     */
+    public void setTagMatching(final TagMatching matching) {
+        checkNotFrozen();
+        this.tagMatching = matching;
+        specChanged();
+    }
+
+    /**
+     * Gets how arguments are matched against option tags.
+     * @return tag matching.
+     */
+    public TagMatching getTagMatching() {
+        return this.tagMatching;
+    }
+
+    /**
+     * Sets how results of {@link #parseResult(String[])} hold arguments. By default, they hold the given
+     * strings; {@link ArgumentStorage#ARENA} packs the characters instead, for results with very many
+     * arguments. Parsing into the options always keeps strings.
+     * @param storage how arguments are held.
+     */
+    public void setArgumentStorage(final ArgumentStorage storage) {
+        this.argumentStorage = storage;
+        specChanged();
+    }
+
+    /**
+     * Gets how results of {@link #parseResult(String[])} hold arguments.
+     * @return argument storage.
+     */
+    public ArgumentStorage getArgumentStorage() {
+        return this.argumentStorage;
+    }
+
+    /**
+     * Sets the trace recording the decisions of every parse, which tells why an argument was taken
+     * for one option rather than another, or ignored. A trace costs a few stores per argument, so it
+     * may be left on; {@link ParseTrace#dump(CommandLine)} renders it when needed.
+     * @param trace the trace, or null to stop tracing.
+     */
+    public void setTrace(final ParseTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Gets the trace recording the decisions of every parse.
+     * @return the trace, or null if not tracing.
+     */
+    public ParseTrace getTrace() {
+        return this.trace;
+    }
+
+    /**
+     * Sets the table canonicalizing argument values: equal arguments taken by any parse, and entries
+     * of key-value options, are held as one string by the results and options that keep them. Suits
+     * batches which give the same values many times. A parse of bytes only canonicalizes entries, since
+     * it does not create strings for other arguments. By default, values are kept as given.
+     * @param table the table, which may be shared with other command lines; null for none.
+     */
+    public void setValueTable(final ValueTable table) {
+        this.valueTable = table;
+        specChanged();
+    }
+
+    /**
+     * Gets the table canonicalizing argument values.
+     * @return the table, or null.
+     */
+    public ValueTable getValueTable() {
+        return this.valueTable;
+    }
+
+    /**
+     * Gets what parsing needs of the current specification, built once for each version of it so that
+     * parsing time does not grow with the number of options. Before freezing, an index is built if tags
+     * are not matched exactly or there are many options.
+     * @return the compiled specification.
+     * @throws IllegalArgumentException if two options share a tag once folded.
+     */
+    private CompiledSpec compile() {
+        long version = this.specVersion;
+        CompiledSpec compiled = this.compiled;
+        if (compiled != null && compiled.version == version) {
+            return compiled;
+        }
+        TagIndex index = this.index;
+        if (index == null && (this.tagMatching != TagMatching.EXACT || this.options.size() >= INDEX_THRESHOLD)) {
+            try {
+                index = new TagIndex(this.options, this.tagMatching);
+            } catch (IllegalArgumentException e) {
+                if (this.tagMatching != TagMatching.EXACT) {
+                    throw e;
+                }
+
+                // Options sharing a tag are all matched, which only searching the options does
+                index = null;
+            }
+        }
+        compiled = new CompiledSpec(new OptionTable(this.options, this.helpOrdinal, index), version);
+        this.compiled = compiled;
+        return compiled;
+    }
+
+    /**
+     * Copies the specification into a new command line which is not frozen: each option is copied
+     * from its definition, and the tag matching, argument storage, trace and value table are kept.
+     * Nothing that has been parsed is copied.
+     * @return the copy.
+     */
+    CommandLine copy() {
+        CommandLine copy = new CommandLine();
+        for (Option option : this.options) {
+            if (option == this.help) {
+                copy.createHelp(option.getDescription());
+            } else {
+                copy.addOption(new Option(option.getSpec()));
+            }
+        }
+        copy.tagMatching = this.tagMatching;
+        copy.argumentStorage = this.argumentStorage;
+        copy.trace = this.trace;
+        copy.valueTable = this.valueTable;
+        return copy;
+    }
+
+    /**
+     * Checks that options may still be added.
+     * @throws IllegalStateException if the command line is frozen.
+     */
+    private void checkNotFrozen() {
+        if (this.index != null) {
+            throw new IllegalStateException("Command line is frozen.");
+        }
+    }
+
+    /**
+     * Gets the version of the specification, which changes whenever an option is added or changed, or the
+     * tag matching, argument storage or value table is set. Reading it costs the same for any number of
+     * options.
+     * @return specification version.
+     */
+    public long getSpecVersion() {
+        return this.specVersion;
+    }
+
+    /**
+     * Records a change to the specification.
+     */
+    void specChanged() {
+        ++this.specVersion;
+    }
+
+    /**
+     * Gets the fingerprint of what the last call to {@link #parse(String[])} found.
+     * @return fingerprint; but if nothing has been parsed, {@link Fingerprint#EMPTY}.
+     */
+    public Fingerprint getFingerprint() {
+        ParseResult result = this.lastResult;
+        return result == null ? Fingerprint.EMPTY : result.getFingerprint();
+    }
+
+    /**
+     * Gets what the last call to {@link #parse(String[])} found.
+     * @return the parse result; but if nothing has been parsed, null.
+     */
+    public ParseResult getLastResult() {
+        return this.lastResult;
+    }
+
+    /**
+     * Determines whether the option is the help option of this command line.
+     * @param option option to be checked.
+     * @return true if the option is the help option.
+     */
+    boolean isHelp(final Option option) {
+        return option == this.help;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -100,4 +498,26 @@ public class CommandLine {
         builder.append("\n");
         return builder.toString();
     }
+
+    /**
+     * What parsing needs of one version of the specification.
+     */
+    private static final class CompiledSpec {
+
+        /** The options with their index, or none if they are searched, and their required ordinals. */
+        private final OptionTable table;
+
+        /** Specification version this was built for. */
+        private final long version;
+
+        /**
+         * Constructor.
+         * @param table the options with their index.
+         * @param version specification version this was built for.
+         */
+        CompiledSpec(final OptionTable table, final long version) {
+            this.table = table;
+            this.version = version;
+        }
+    }
 }
\ No newline at end of file
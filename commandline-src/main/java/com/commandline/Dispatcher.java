@@ -0,0 +1,186 @@
+package main.java.com.commandline;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs actions for the options found by a parse, instead of a chain of checks on every option.
+ *
+ * Actions are registered per option and compiled into a table indexed by option ordinal. Dispatch
+ * walks only the options that were found, in the order they first appeared on the command line,
+ * and looks each one up in the table, so its cost does not depend on how many options exist.
+ *
+ * The table is compiled against the options of the command line at the time; compile again after
+ * adding options.
+ *
+ * @author Zach Wilson
+ */
+public class Dispatcher {
+
+    /**
+     * An action run when an option is found.
+     */
+    public interface Action {
+
+        /**
+         * Runs the action.
+         * @param arguments arguments of the option; empty for options without arguments.
+         */
+        void perform(List<String> arguments);
+    }
+
+    /** Type of the method handles run as actions: taking the list of arguments and returning nothing. */
+    private static final MethodType ACTION_TYPE = MethodType.methodType(void.class, List.class);
+
+    /** The command line the actions belong to. */
+    private final CommandLine commandLine;
+
+    /** Registered options, in registration order. */
+    private final ArrayList<Option> registeredOptions = new ArrayList<>();
+
+    /** Registered actions, in registration order. */
+    private final ArrayList<Action> registeredActions = new ArrayList<>();
+
+    /** Actions by option ordinal; null until compiled. */
+    private Action[] table;
+
+    /**
+     * Constructor.
+     * @param commandLine the command line the actions belong to.
+     */
+    public Dispatcher(final CommandLine commandLine) {
+        this.commandLine = commandLine;
+    }
+
+    /**
+     * Registers an action for an option. Several actions may be registered for one option; they run in
+     * registration order.
+     * @param option option of the command line.
+     * @param action action run when the option is found.
+     */
+    public void on(final Option option, final Action action) {
+        this.registeredOptions.add(option);
+        this.registeredActions.add(action);
+        this.table = null;
+    }
+
+    /**
+     * Registers an action for the option with the given tag.
+     * @param tag the option's short or long tag, e.g. "-o" or "--option".
+     * @param action action run when the option is found.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    public void on(final String tag, final Action action) {
+        on(findOption(tag), action);
+    }
+
+    /**
+     * Registers a method handle for the option with the given tag. The handle takes either no
+     * parameters or the list of arguments of the option; what it returns is ignored. The handle is
+     * adapted once to take the list and return nothing, so that every dispatch invokes it exactly.
+     * @param tag the option's short or long tag, e.g. "-o" or "--option".
+     * @param handle method handle run when the option is found.
+     * @throws IllegalArgumentException if no option has the tag or the handle takes other parameters.
+     */
+    public void on(final String tag, final MethodHandle handle) {
+        int parameters = handle.type().parameterCount();
+        if (parameters > 1 || (parameters == 1 && !handle.type().parameterType(0).isAssignableFrom(List.class))) {
+            throw new IllegalArgumentException("Method handle must take no parameters or a List, given " +
+                    handle.type() + ".");
+        }
+        MethodHandle taking = parameters == 0 ? MethodHandles.dropArguments(handle, 0, List.class) : handle;
+        final MethodHandle adapted = taking.asType(ACTION_TYPE);
+        on(tag, arguments -> {
+            try {
+                adapted.invokeExact(arguments);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Action for option '" + tag + "' failed.", t);
+            }
+        });
+    }
+
+    /**
+     * Compiles the registered actions into a table indexed by option ordinal.
+     * @throws IllegalArgumentException if an action is registered for an option the command line lacks.
+     */
+    public void compile() {
+        int optionCount = this.commandLine.getOptionCount();
+        Action[] table = new Action[optionCount];
+        for (int i = 0; i < this.registeredOptions.size(); ++i) {
+            Option option = this.registeredOptions.get(i);
+            int ordinal = option.getOrdinal();
+            if (ordinal < 0 || ordinal >= optionCount || this.commandLine.getOption(ordinal) != option) {
+                throw new IllegalArgumentException("Option '" + option.getShortName() +
+                        "' does not belong to the command line.");
+            }
+            table[ordinal] = chain(table[ordinal], this.registeredActions.get(i));
+        }
+        this.table = table;
+    }
+
+    /**
+     * Runs the actions of the options found by a parse, in the order they first appeared.
+     * @param result the parse result.
+     * @return number of options whose actions ran.
+     */
+    public int dispatch(final ParseResult result) {
+        Action[] table = this.table;
+        if (table == null) {
+            compile();
+            table = this.table;
+        }
+        int dispatched = 0;
+        for (int index = 0; index < result.getFoundCount(); ++index) {
+            int ordinal = result.getFoundOrdinal(index);
+            if (ordinal < table.length && table[ordinal] != null) {
+                table[ordinal].perform(result.getArguments(ordinal));
+                ++dispatched;
+            }
+        }
+        return dispatched;
+    }
+
+    /**
+     * Runs the actions of the options found by the last call to {@link CommandLine#parse(String[])}.
+     * @return number of options whose actions ran.
+     * @throws IllegalStateException if the command line has not parsed anything.
+     */
+    public int dispatch() {
+        ParseResult result = this.commandLine.getLastResult();
+        if (result == null) {
+            throw new IllegalStateException("Nothing has been parsed.");
+        }
+        return dispatch(result);
+    }
+
+    /**
+     * Finds the option with the given tag.
+     * @param tag the option's short or long tag.
+     * @return the option.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    private Option findOption(final String tag) {
+        return this.commandLine.getHandle(tag).getOption();
+    }
+
+    /**
+     * Chains two actions.
+     * @param first action run first, or null.
+     * @param second action run second.
+     * @return action running both.
+     */
+    private static Action chain(final Action first, final Action second) {
+        if (first == null) {
+            return second;
+        }
+        return arguments -> {
+            first.perform(arguments);
+            second.perform(arguments);
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package main.java.com.commandline;
+
+/**
+ * Decides what happens when a key is given more than once to a key-value option.
+ *
+ * @author Zach Wilson
+ */
+public enum DuplicateKeyPolicy {
+
+    /** The first value given for a key is kept. */
+    FIRST,
+
+    /** The last value given for a key is kept. */
+    LAST,
+
+    /** A repeated key is an error. */
+    ERROR
+}
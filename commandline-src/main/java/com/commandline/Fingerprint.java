@@ -0,0 +1,196 @@
+package main.java.com.commandline;
+
+/**
+ * A 128-bit fingerprint of the options found by a parse and their arguments.
+ *
+ * Each occurrence of an option is hashed from the option's short tag, the number of earlier
+ * occurrences of the same option and its arguments, and the hashes of all occurrences are summed.
+ * The fingerprint therefore does not depend on the order of different options, nor on the order
+ * in which options were added to the command line, nor on descriptions; occurrences of the same
+ * option, and the arguments of an occurrence, keep their order. Key-value options are hashed from
+ * the entries they keep instead, each from the short tag, key and value, with the number of
+ * occurrences, so entries with different keys may be given in any order. It is computed while
+ * parsing, without creating any strings, and compared in constant time.
+ *
+ * @author Zach Wilson
+ */
+public final class Fingerprint {
+
+    /** The fingerprint of a parse which found nothing. */
+    public static final Fingerprint EMPTY = new Fingerprint(0, 0);
+
+    /** The upper 64 bits. */
+    private final long high;
+
+    /** The lower 64 bits. */
+    private final long low;
+
+    /**
+     * Constructor.
+     * @param high the upper 64 bits.
+     * @param low the lower 64 bits.
+     */
+    public Fingerprint(final long high, final long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Gets the upper 64 bits.
+     * @return upper bits.
+     */
+    public long getHigh() {
+        return this.high;
+    }
+
+    /**
+     * Gets the lower 64 bits.
+     * @return lower bits.
+     */
+    public long getLow() {
+        return this.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (this.low ^ (this.low >>> 32));
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint fingerprint = (Fingerprint) other;
+        return this.high == fingerprint.high && this.low == fingerprint.low;
+    }
+
+    /**
+     * Gets the fingerprint as 32 hexadecimal digits.
+     * @return hexadecimal digits.
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", this.high, this.low);
+    }
+
+    /**
+     * Hashes one occurrence of an option at a time. One hasher is reused for all occurrences of a parse.
+     */
+    static final class Hasher {
+
+        /** First lane, FNV-1a. */
+        private long first;
+
+        /** Second lane, with another multiplier and offset. */
+        private long second;
+
+        /**
+         * Starts hashing an occurrence.
+         * @param tag short tag of the option.
+         * @param occurrence number of earlier occurrences of the option.
+         */
+        void start(final String tag, final int occurrence) {
+            this.first = 0xCBF29CE484222325L;
+            this.second = 0x84222325CBF29CE4L;
+            add(tag);
+            mixIn(occurrence);
+        }
+
+        /**
+         * Starts hashing an entry kept by a key-value option, which has no occurrence.
+         * @param tag short tag of the option.
+         */
+        void startEntry(final String tag) {
+            start(tag, -1);
+        }
+
+        /**
+         * Adds an argument of the occurrence.
+         * @param argument the argument.
+         */
+        void add(final String argument) {
+            add(argument, 0);
+        }
+
+        /**
+         * Adds the end of an argument, from an index.
+         * @param argument the argument.
+         * @param start index of the first character to be added.
+         */
+        void add(final String argument, final int start) {
+            long first = this.first;
+            long second = this.second;
+            for (int i = start; i < argument.length(); ++i) {
+                char c = argument.charAt(i);
+                first = (first ^ c) * 0x100000001B3L;
+                second = (second ^ c) * 0x9E3779B97F4A7C15L;
+            }
+            this.first = first;
+            this.second = second;
+
+            // Separate arguments so that "ab" "c" differs from "a" "bc"
+            mixIn(0x10000);
+        }
+
+        /**
+         * Adds an argument in a range of UTF-8 bytes. ASCII bytes are hashed as the characters they
+         * encode; a range which is not ASCII is decoded first, so the hash is that of the argument.
+         * @param bytes the bytes.
+         * @param start index of the first byte.
+         * @param end index after the last byte.
+         */
+        void add(final byte[] bytes, final int start, final int end) {
+            long first = this.first;
+            long second = this.second;
+            for (int i = start; i < end; ++i) {
+                byte b = bytes[i];
+                if (b < 0) {
+                    add(ByteStore.decode(bytes, start, end));
+                    return;
+                }
+                first = (first ^ b) * 0x100000001B3L;
+                second = (second ^ b) * 0x9E3779B97F4A7C15L;
+            }
+            this.first = first;
+            this.second = second;
+            mixIn(0x10000);
+        }
+
+        /**
+         * Mixes a value into both lanes.
+         * @param value the value.
+         */
+        private void mixIn(final int value) {
+            this.first = (this.first ^ value) * 0x100000001B3L;
+            this.second = (this.second ^ value) * 0x9E3779B97F4A7C15L;
+        }
+
+        /**
+         * Gets the upper half of the hash of the occurrence.
+         * @return upper 64 bits.
+         */
+        long getHigh() {
+            return mix(this.first + this.second * 0xC2B2AE3D27D4EB4FL);
+        }
+
+        /**
+         * Gets the lower half of the hash of the occurrence.
+         * @return lower 64 bits.
+         */
+        long getLow() {
+            return mix(this.second ^ Long.rotateLeft(this.first, 31));
+        }
+
+        /**
+         * Mixes the bits of a value, so that each bit of the result depends on all bits of the value.
+         * @param value the value.
+         * @return mixed value.
+         */
+        private static long mix(final long value) {
+            long mixed = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+            mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return mixed ^ (mixed >>> 33);
+        }
+    }
+}
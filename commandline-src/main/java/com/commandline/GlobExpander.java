@@ -0,0 +1,466 @@
+package main.java.com.commandline;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Expands glob patterns, e.g. "data/**&#47;*.parquet", into the files that match them.
+ *
+ * The pattern is split into path segments. The leading segments without wildcards are the root of
+ * the walk; the remaining segments are matched one directory level at a time, so subtrees which
+ * cannot match are never listed. Directories are listed in parallel by fork-join tasks and matches
+ * are handed to the caller through a bounded queue as they are found. A task waiting for room in the
+ * queue tells its pool it is blocked, so the pool may start another thread instead of starving its
+ * other users.
+ *
+ * @author Zach Wilson
+ */
+public final class GlobExpander {
+
+    /** Number of matches which may wait for the caller. */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /** Marks the end of the matches in the queue. */
+    private static final Path END = Paths.get("");
+
+    /** Directory the walk starts from. */
+    private final Path root;
+
+    /** Matchers of the remaining segments; null for "**". */
+    private final PathMatcher[] segments;
+
+    /** Pool running the walk. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor.
+     * @param pattern glob pattern, using '/' to separate segments.
+     * @param pool pool running the walk.
+     */
+    public GlobExpander(final String pattern, final ForkJoinPool pool) {
+        this.pool = pool;
+
+        FileSystem fileSystem = Paths.get("").getFileSystem();
+        String[] parts = splitSegments(pattern);
+
+        // Leading segments without wildcards form the root
+        int first = 0;
+        StringBuilder root = new StringBuilder(pattern.startsWith("/") ? "/" : "");
+        while (first < parts.length - 1 && !hasWildcard(parts[first])) {
+            root.append(parts[first]).append('/');
+            ++first;
+        }
+        this.root = Paths.get(root.toString());
+
+        this.segments = new PathMatcher[parts.length - first];
+        for (int i = first; i < parts.length; ++i) {
+            this.segments[i - first] = parts[i].equals("**") ? null : fileSystem.getPathMatcher("glob:" + parts[i]);
+        }
+    }
+
+    /**
+     * Constructor. The walk runs in a pool of the expander's own, with one thread per processor, so that
+     * a caller which reads slowly or drops the stream without closing it only holds up this expander.
+     * Threads of the pool end once they have been idle for a while.
+     * @param pattern glob pattern, using '/' to separate segments.
+     */
+    public GlobExpander(final String pattern) {
+        this(pattern, new ForkJoinPool());
+    }
+
+    /**
+     * Determines whether the argument is a glob pattern.
+     * @param argument argument to be checked.
+     * @return true if the argument has a wildcard.
+     */
+    public static boolean hasWildcard(final String argument) {
+        for (int i = 0; i < argument.length(); ++i) {
+            char c = argument.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expands the pattern. The walk starts immediately and matches are streamed as they are found, in no
+     * particular order. Closing the stream stops the walk.
+     * @param maxResults maximum number of matches; the walk stops once it is reached.
+     * @return stream of matching files.
+     */
+    public Stream<Path> expand(final int maxResults) {
+        final Walk walk = new Walk(maxResults);
+        if (maxResults > 0) {
+            this.pool.execute(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    try {
+                        new DirectoryTask(walk, GlobExpander.this.root, start()).invoke();
+                    } finally {
+                        walk.finish();
+                    }
+                }
+            });
+        } else {
+            walk.finish();
+        }
+
+        Iterator<Path> iterator = new Iterator<Path>() {
+            private Path next;
+
+            @Override
+            public boolean hasNext() {
+                if (this.next == null) {
+                    this.next = walk.take();
+                }
+                return this.next != END;
+            }
+
+            @Override
+            public Path next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Path path = this.next;
+                this.next = null;
+                return path;
+            }
+        };
+        Spliterator<Path> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(walk::cancel);
+    }
+
+    /**
+     * Gets the pattern positions to match in the root directory.
+     * @return positions.
+     */
+    private int[] start() {
+        return closure(new int[] { 0 }, 1);
+    }
+
+    /**
+     * Adds the positions reachable by letting "**" match no segment.
+     * @param positions positions, possibly with room for more.
+     * @param count number of positions.
+     * @return the positions, without duplicates.
+     */
+    private int[] closure(final int[] positions, final int count) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            int position = positions[i];
+            while (!result.contains(position)) {
+                result.add(position);
+                if (position < this.segments.length && this.segments[position] == null) {
+                    ++position;
+                } else {
+                    break;
+                }
+            }
+        }
+        int[] closed = new int[result.size()];
+        for (int i = 0; i < closed.length; ++i) {
+            closed[i] = result.get(i);
+        }
+        return closed;
+    }
+
+    /**
+     * Splits a pattern into segments, ignoring empty segments.
+     * @param pattern glob pattern.
+     * @return segments.
+     */
+    private static String[] splitSegments(final String pattern) {
+        ArrayList<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= pattern.length(); ++i) {
+            if (i == pattern.length() || pattern.charAt(i) == '/') {
+                if (i > start) {
+                    parts.add(pattern.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        if (parts.isEmpty()) {
+            parts.add("*");
+        }
+        return parts.toArray(new String[parts.size()]);
+    }
+
+    /**
+     * State shared by the tasks of one walk.
+     */
+    private static final class Walk {
+
+        /** Matches waiting for the caller. */
+        private final BlockingQueue<Path> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+
+        /** Maximum number of matches. */
+        private final int maxResults;
+
+        /** Number of matches accepted; none is accepted past the maximum. */
+        private final AtomicInteger results = new AtomicInteger();
+
+        /** Set once the caller has closed the stream. */
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        /** Set if a task was interrupted otherwise than by the caller. */
+        private volatile boolean interrupted;
+
+        /** Threads waiting for room in the queue, interrupted when the walk is cancelled. */
+        private final Set<Thread> waiting = new HashSet<>();
+
+        /**
+         * Constructor.
+         * @param maxResults maximum number of matches.
+         */
+        Walk(final int maxResults) {
+            this.maxResults = maxResults;
+        }
+
+        /**
+         * Hands a match to the caller, waiting while the queue is full. Once the maximum number of matches
+         * has been accepted, further matches are ignored.
+         * @param path matching file.
+         */
+        void offer(final Path path) {
+            int count;
+            do {
+                count = this.results.get();
+                if (count >= this.maxResults) {
+                    return;
+                }
+            } while (!this.results.compareAndSet(count, count + 1));
+            put(path);
+        }
+
+        /**
+         * Marks the end of the walk, once every task has finished, waiting while the queue is full.
+         */
+        void finish() {
+            if (!put(END) && !this.cancelled.get()) {
+
+                // Interrupted otherwise than by the caller: the caller must still see the end
+                this.queue.clear();
+                this.queue.offer(END);
+            }
+        }
+
+        /**
+         * Puts a path in the queue, waiting while it is full, unless the walk is cancelled meanwhile.
+         * If the thread is interrupted otherwise, the walk stops and the interrupt is kept.
+         * @param path the path.
+         * @return true if the path was put.
+         */
+        private boolean put(final Path path) {
+            Thread thread = Thread.currentThread();
+            synchronized (this.waiting) {
+                if (this.cancelled.get()) {
+                    return false;
+                }
+                this.waiting.add(thread);
+            }
+            boolean put = false;
+            try {
+                ForkJoinPool.managedBlock(new Put(path));
+                put = true;
+            } catch (InterruptedException e) {
+                // Handled below
+            } finally {
+                synchronized (this.waiting) {
+                    this.waiting.remove(thread);
+                }
+            }
+            if (this.cancelled.get()) {
+
+                // An interrupt for the cancellation may also arrive after the path was put
+                Thread.interrupted();
+            } else if (!put) {
+                this.interrupted = true;
+                thread.interrupt();
+            }
+            return put;
+        }
+
+        /**
+         * Puts a path in the queue of the walk, letting the pool start another thread while it waits.
+         */
+        private final class Put implements ForkJoinPool.ManagedBlocker {
+
+            /** The path. */
+            private final Path path;
+
+            /** Whether the path has been put. */
+            private boolean done;
+
+            /**
+             * Constructor.
+             * @param path the path.
+             */
+            Put(final Path path) {
+                this.path = path;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (!this.done) {
+                    Walk.this.queue.put(this.path);
+                    this.done = true;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                if (!this.done) {
+                    this.done = Walk.this.queue.offer(this.path);
+                }
+                return this.done;
+            }
+        }
+
+        /**
+         * Takes the next match, waiting for the walk.
+         * @return next match, or {@link #END}.
+         */
+        Path take() {
+            try {
+                return this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                return END;
+            }
+        }
+
+        /**
+         * Stops the walk, wakes the tasks waiting for room and drops waiting matches.
+         */
+        void cancel() {
+            this.cancelled.set(true);
+            synchronized (this.waiting) {
+                for (Thread thread : this.waiting) {
+                    thread.interrupt();
+                }
+            }
+            this.queue.clear();
+        }
+
+        /**
+         * Determines whether the walk should stop listing directories.
+         * @return true if the walk is cancelled or interrupted, or the maximum number of matches has been
+         *         accepted.
+         */
+        boolean isStopped() {
+            return this.cancelled.get() || this.interrupted || this.results.get() >= this.maxResults;
+        }
+    }
+
+    /**
+     * Lists one directory, reporting matching files and forking tasks for directories which may
+     * hold matches.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+
+        /** Walk the task belongs to. */
+        private final Walk walk;
+
+        /** Directory to be listed. */
+        private final Path directory;
+
+        /** Pattern positions to match against entries of the directory. */
+        private final int[] positions;
+
+        /**
+         * Constructor.
+         * @param walk walk the task belongs to.
+         * @param directory directory to be listed.
+         * @param positions pattern positions.
+         */
+        DirectoryTask(final Walk walk, final Path directory, final int[] positions) {
+            this.walk = walk;
+            this.directory = directory;
+            this.positions = positions;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.walk.isStopped()) {
+                return;
+            }
+            ArrayList<DirectoryTask> tasks = new ArrayList<>();
+            int[] next = new int[this.positions.length * 2];
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory)) {
+                for (Path entry : entries) {
+                    if (this.walk.isStopped()) {
+                        break;
+                    }
+                    Path name = entry.getFileName();
+
+                    // Advance every position the entry matches
+                    int count = 0;
+                    for (int position : this.positions) {
+                        if (position == GlobExpander.this.segments.length) {
+                            continue;
+                        }
+                        PathMatcher matcher = GlobExpander.this.segments[position];
+                        if (matcher == null) {
+                            next[count++] = position;
+                        } else if (matcher.matches(name)) {
+                            next[count++] = position + 1;
+                        }
+                    }
+                    if (count == 0) {
+                        continue;
+                    }
+                    int[] reached = closure(next, count);
+
+                    boolean complete = false;
+                    boolean partial = false;
+                    for (int position : reached) {
+                        if (position == GlobExpander.this.segments.length) {
+                            complete = true;
+                        } else {
+                            partial = true;
+                        }
+                    }
+                    boolean directory = Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS);
+                    if (complete && !directory) {
+                        this.walk.offer(entry);
+                    }
+                    if (partial && directory) {
+                        tasks.add(new DirectoryTask(this.walk, entry, reached));
+                    }
+                }
+            } catch (IOException e) {
+                // Unreadable directories hold no matches
+            }
+            invokeAll(tasks);
+        }
+    }
+}
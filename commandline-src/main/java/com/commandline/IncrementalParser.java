@@ -0,0 +1,522 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+
+/**
+ * Parses a command line that is being typed, e.g. in an interactive console.
+ *
+ * The parser keeps the tokens of the previous line together with the parse state after each token.
+ * When the line is edited, the tokens before the edit are kept and only the tokens from the edit
+ * onwards are tokenized and matched again, so the work depends on the length of the changed suffix
+ * rather than the length of the line. Instead of throwing, the parser reports the state of the line
+ * ({@link State}) and classifies each token ({@link TokenKind}).
+ *
+ * Tokens are separated by whitespace. Tags are looked up in the specification the command line parses
+ * against, so matching follows {@link CommandLine#parseResult(String[])}: tags are folded by the
+ * command line's {@link TagMatching}, e.g. "--VERBOSE" matches "--verbose" when case is ignored, and
+ * every option sharing a tag takes an occurrence, each taking its arguments after those of the one before.
+ *
+ * @author Zach Wilson
+ */
+public class IncrementalParser {
+
+    /**
+     * The state of the whole line.
+     */
+    public enum State {
+
+        /** The line parses and no required option is missing. */
+        COMPLETE,
+
+        /** The line is valid so far, but arguments or required options are missing, or a tag is still being typed. */
+        INCOMPLETE,
+
+        /** A token is invalid. */
+        INVALID
+    }
+
+    /**
+     * The classification of a token.
+     */
+    public enum TokenKind {
+
+        /** Tag of an option. */
+        OPTION,
+
+        /** Argument of the preceding option. */
+        ARGUMENT,
+
+        /** Key-value entry, attached to a tag ("-Dname=value") or following one. */
+        ENTRY,
+
+        /** Tag of an option that was already given and is not repeatable; it is ignored. */
+        IGNORED,
+
+        /** Starts with '-' but matches no option; it is ignored. */
+        UNKNOWN,
+
+        /** Not allowed here. */
+        INVALID
+    }
+
+    /** Initial number of tokens. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The specification being matched. */
+    private final SpecTable table;
+
+    /** Whether each option is required, by ordinal. */
+    private final boolean[] required;
+
+    /** Number of required options. */
+    private final int requiredCount;
+
+    /** Ordinal of the help option, or -1. */
+    private final int helpOrdinal;
+
+    /** The current line. */
+    private final StringBuilder line = new StringBuilder();
+
+    /** Start of each token. */
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    /** End of each token, exclusive. */
+    private int[] ends = new int[INITIAL_CAPACITY];
+
+    /** Kind of each token. */
+    private TokenKind[] kinds = new TokenKind[INITIAL_CAPACITY];
+
+    /** Ordinal of the option each token belongs to, or -1. */
+    private int[] ordinals = new int[INITIAL_CAPACITY];
+
+    /** Ordinals of the options each tag matched, in ordinal order; null for other tokens. */
+    private int[][] matches = new int[INITIAL_CAPACITY][];
+
+    /** Tag whose options are awaiting arguments after each token, or -1. */
+    private int[] pendingTags = new int[INITIAL_CAPACITY];
+
+    /** Index among the matches of that tag of the option awaiting arguments after each token. */
+    private int[] pendingMatches = new int[INITIAL_CAPACITY];
+
+    /** Number of arguments that option still awaits after each token. */
+    private int[] pendingCounts = new int[INITIAL_CAPACITY];
+
+    /** Error message of each invalid token. */
+    private String[] messages = new String[INITIAL_CAPACITY];
+
+    /** Number of tokens. */
+    private int tokenCount;
+
+    /** Number of occurrences of each option. */
+    private final int[] foundCounts;
+
+    /** Number of required options found. */
+    private int requiredFound;
+
+    /** Number of invalid tokens. */
+    private int invalidCount;
+
+    /**
+     * Constructor.
+     * @param commandLine the command line whose options are matched, with its tag matching. Options must
+     *                    not be added or changed, nor the tag matching set, while the parser is in use.
+     * @throws IllegalArgumentException if two options share a tag once folded.
+     */
+    public IncrementalParser(final CommandLine commandLine) {
+        this.table = commandLine.getTable();
+        this.foundCounts = new int[this.table.size()];
+        this.required = new boolean[this.table.size()];
+        for (int ordinal : this.table.getRequiredOrdinals()) {
+            this.required[ordinal] = true;
+        }
+        this.requiredCount = this.table.getRequiredOrdinals().length;
+        this.helpOrdinal = this.table.getHelpOrdinal();
+    }
+
+    /**
+     * Replaces the line. Only the tokens from the first changed character onwards are parsed again.
+     * @param newLine the new line.
+     * @return state of the line.
+     */
+    public State update(final String newLine) {
+        int common = 0;
+        int limit = Math.min(this.line.length(), newLine.length());
+        while (common < limit && this.line.charAt(common) == newLine.charAt(common)) {
+            ++common;
+        }
+        return edit(common, this.line.length() - common, newLine.substring(common));
+    }
+
+    /**
+     * Edits the line. Only the tokens from the edit onwards are parsed again.
+     * @param position position of the edit.
+     * @param removed number of characters removed at the position.
+     * @param inserted characters inserted at the position.
+     * @return state of the line.
+     */
+    public State edit(final int position, final int removed, final String inserted) {
+        if (position < 0 || removed < 0 || position + removed > this.line.length()) {
+            throw new IndexOutOfBoundsException("Edit at " + position + " removing " + removed +
+                    ", length " + this.line.length() + ".");
+        }
+        this.line.replace(position, position + removed, inserted);
+
+        // Keep tokens which end before the edit: the whitespace after them is unchanged
+        int kept = this.tokenCount;
+        while (kept > 0 && this.ends[kept - 1] >= position) {
+            --kept;
+        }
+        rollback(kept);
+        reparse(kept == 0 ? 0 : this.ends[kept - 1]);
+        return getState();
+    }
+
+    /**
+     * Gets the state of the line.
+     * @return state of the line.
+     */
+    public State getState() {
+        if (this.invalidCount > 0) {
+            return State.INVALID;
+        }
+        if (this.tokenCount > 0) {
+            int last = this.tokenCount - 1;
+            if (this.pendingCounts[last] > 0) {
+                return State.INCOMPLETE;
+            }
+            // A tag which is still being typed
+            if (this.kinds[last] == TokenKind.UNKNOWN && this.ends[last] == this.line.length()) {
+                return State.INCOMPLETE;
+            }
+        }
+        boolean help = this.helpOrdinal >= 0 && this.foundCounts[this.helpOrdinal] > 0;
+        if (!help && this.requiredFound < this.requiredCount) {
+            return State.INCOMPLETE;
+        }
+        return State.COMPLETE;
+    }
+
+    /**
+     * Gets the first error message of the line.
+     * @return error message; but if the line is not invalid, null.
+     */
+    public String getMessage() {
+        for (int token = 0; token < this.tokenCount; ++token) {
+            if (this.messages[token] != null) {
+                return this.messages[token];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the current line.
+     * @return the line.
+     */
+    public String getLine() {
+        return this.line.toString();
+    }
+
+    /**
+     * Gets the number of tokens.
+     * @return number of tokens.
+     */
+    public int getTokenCount() {
+        return this.tokenCount;
+    }
+
+    /**
+     * Gets the start of a token within the line.
+     * @param token index of the token.
+     * @return start, inclusive.
+     */
+    public int getTokenStart(final int token) {
+        checkToken(token);
+        return this.starts[token];
+    }
+
+    /**
+     * Gets the end of a token within the line.
+     * @param token index of the token.
+     * @return end, exclusive.
+     */
+    public int getTokenEnd(final int token) {
+        checkToken(token);
+        return this.ends[token];
+    }
+
+    /**
+     * Gets the classification of a token.
+     * @param token index of the token.
+     * @return kind of the token.
+     */
+    public TokenKind getTokenKind(final int token) {
+        checkToken(token);
+        return this.kinds[token];
+    }
+
+    /**
+     * Gets the ordinal of the option a token belongs to: the tag's option, or the option an argument belongs to.
+     * @param token index of the token.
+     * @return ordinal of the option, or -1.
+     */
+    public int getTokenOrdinal(final int token) {
+        checkToken(token);
+        return this.ordinals[token];
+    }
+
+    /**
+     * Gets the number of arguments still awaited at the end of the line, including those of the options
+     * which share the last tag and have not taken theirs yet.
+     * @return number of missing arguments.
+     */
+    public int getPendingArgumentCount() {
+        if (this.tokenCount == 0) {
+            return 0;
+        }
+        int last = this.tokenCount - 1;
+        int count = this.pendingCounts[last];
+        int tag = this.pendingTags[last];
+        if (tag >= 0) {
+            for (int match = this.pendingMatches[last] + 1; match < this.matches[tag].length; ++match) {
+                count += expectedCount(this.matches[tag][match]);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Determines whether an option has been given on the line.
+     * @param ordinal ordinal of the option.
+     * @return true if the option is found.
+     */
+    public boolean isFound(final int ordinal) {
+        return this.foundCounts[ordinal] > 0;
+    }
+
+    /**
+     * Removes tokens and what they found.
+     * @param kept number of tokens to keep.
+     */
+    private void rollback(final int kept) {
+        for (int token = kept; token < this.tokenCount; ++token) {
+            TokenKind kind = this.kinds[token];
+            if (kind == TokenKind.OPTION) {
+                for (int ordinal : this.matches[token]) {
+                    unfound(ordinal);
+                }
+            } else if (kind == TokenKind.ENTRY && pendingTagBefore(token) < 0) {
+                unfound(this.ordinals[token]);
+            } else if (kind == TokenKind.INVALID) {
+                --this.invalidCount;
+            }
+            this.matches[token] = null;
+            this.messages[token] = null;
+        }
+        this.tokenCount = kept;
+    }
+
+    /**
+     * Tokenizes and matches the line from a position.
+     * @param from position to start from, at or before the first token to be parsed.
+     */
+    private void reparse(final int from) {
+        int length = this.line.length();
+        int position = from;
+        while (true) {
+            while (position < length && Character.isWhitespace(this.line.charAt(position))) {
+                ++position;
+            }
+            if (position == length) {
+                return;
+            }
+            int start = position;
+            while (position < length && !Character.isWhitespace(this.line.charAt(position))) {
+                ++position;
+            }
+            match(start, position);
+        }
+    }
+
+    /**
+     * Matches a token and appends it.
+     * @param start start of the token.
+     * @param end end of the token.
+     */
+    private void match(final int start, final int end) {
+        int token = this.tokenCount;
+        if (token == this.starts.length) {
+            grow();
+        }
+        this.starts[token] = start;
+        this.ends[token] = end;
+        this.ordinals[token] = -1;
+        this.matches[token] = null;
+        this.messages[token] = null;
+
+        int pendingTag = pendingTagBefore(token);
+        boolean dash = this.line.charAt(start) == '-';
+
+        if (pendingTag >= 0) {
+            int pendingMatch = this.pendingMatches[token - 1];
+            int pendingOrdinal = this.matches[pendingTag][pendingMatch];
+            boolean keyValue = this.table.isKeyValue(pendingOrdinal);
+            this.ordinals[token] = pendingOrdinal;
+            if (dash) {
+                this.kinds[token] = TokenKind.INVALID;
+                this.messages[token] = (keyValue ? "Missing entry" : "Missing argument") +
+                        " for option '" + this.table.getShortName(pendingOrdinal) + "'.";
+                setPending(token, -1, 0, 0);
+            } else {
+                this.kinds[token] = keyValue ? TokenKind.ENTRY : TokenKind.ARGUMENT;
+                setPending(token, pendingTag, pendingMatch, this.pendingCounts[token - 1] - 1);
+            }
+        } else if (!dash) {
+            this.kinds[token] = TokenKind.INVALID;
+            this.messages[token] = token == 0 ? "Missing command line option." : "Too many arguments for option.";
+            setPending(token, -1, 0, 0);
+        } else {
+            matchTag(token, this.line.substring(start, end));
+        }
+        if (this.kinds[token] == TokenKind.INVALID) {
+            ++this.invalidCount;
+        }
+        this.tokenCount = token + 1;
+    }
+
+    /**
+     * Matches a tag against every option which has it, as the parsers do.
+     * @param token index of the token.
+     * @param tag the tag.
+     */
+    private void matchTag(final int token, final String tag) {
+        int[] matched = null;
+        int count = 0;
+        int first = this.table.find(tag, 0);
+        for (int ordinal = first; ordinal >= 0; ordinal = this.table.find(tag, ordinal + 1)) {
+
+            // Do not re-check options with arguments, unless they may be repeated
+            if (this.foundCounts[ordinal] > 0 && !this.table.isRepeatable(ordinal) &&
+                !this.table.isKeyValue(ordinal)) {
+                continue;
+            }
+            if (matched == null) {
+                matched = new int[1];
+            } else if (count == matched.length) {
+                matched = Arrays.copyOf(matched, count * 2);
+            }
+            matched[count++] = ordinal;
+            found(ordinal);
+        }
+        if (count > 0) {
+            this.kinds[token] = TokenKind.OPTION;
+            this.ordinals[token] = matched[0];
+            this.matches[token] = count == matched.length ? matched : Arrays.copyOf(matched, count);
+            setPending(token, token, 0, expectedCount(matched[0]));
+            return;
+        }
+
+        // No option took the tag: look for an entry attached to a key-value option, e.g. "-Dname=value"
+        this.kinds[token] = first >= 0 ? TokenKind.IGNORED : TokenKind.UNKNOWN;
+        this.ordinals[token] = first;
+        for (int keyValue : this.table.getKeyValueOrdinals()) {
+            String shortTag = this.table.getShortTag(keyValue);
+            if (tag.length() > shortTag.length() && tag.startsWith(shortTag)) {
+                this.kinds[token] = TokenKind.ENTRY;
+                this.ordinals[token] = keyValue;
+                found(keyValue);
+                break;
+            }
+        }
+        setPending(token, -1, 0, 0);
+    }
+
+    /**
+     * Gets the number of arguments an occurrence of an option takes.
+     * @param ordinal ordinal of the option.
+     * @return number of arguments; one entry for a key-value option.
+     */
+    private int expectedCount(final int ordinal) {
+        return this.table.isKeyValue(ordinal) ? 1 : this.table.getExpectedArgumentCount(ordinal);
+    }
+
+    /**
+     * Gets the tag whose options are awaiting arguments before a token.
+     * @param token index of the token.
+     * @return index of the tag, or -1.
+     */
+    private int pendingTagBefore(final int token) {
+        return token == 0 ? -1 : this.pendingTags[token - 1];
+    }
+
+    /**
+     * Records what is awaited after a token. Once an option has all its arguments, the next option
+     * matched by the same tag awaits its own.
+     * @param token index of the token.
+     * @param tag index of the tag whose options are awaiting arguments, or -1.
+     * @param match index among the matches of the tag of the option awaiting arguments.
+     * @param count number of arguments that option still awaits.
+     */
+    private void setPending(final int token, final int tag, final int match, final int count) {
+        int pendingTag = tag;
+        int pendingMatch = match;
+        int pendingCount = count;
+        while (pendingTag >= 0 && pendingCount == 0) {
+            if (++pendingMatch == this.matches[pendingTag].length) {
+                pendingTag = -1;
+                pendingMatch = 0;
+            } else {
+                pendingCount = expectedCount(this.matches[pendingTag][pendingMatch]);
+            }
+        }
+        this.pendingTags[token] = pendingTag;
+        this.pendingMatches[token] = pendingMatch;
+        this.pendingCounts[token] = pendingCount;
+    }
+
+    /**
+     * Records an occurrence of an option.
+     * @param ordinal ordinal of the option.
+     */
+    private void found(final int ordinal) {
+        if (this.foundCounts[ordinal]++ == 0 && this.required[ordinal]) {
+            ++this.requiredFound;
+        }
+    }
+
+    /**
+     * Removes an occurrence of an option.
+     * @param ordinal ordinal of the option.
+     */
+    private void unfound(final int ordinal) {
+        if (--this.foundCounts[ordinal] == 0 && this.required[ordinal]) {
+            --this.requiredFound;
+        }
+    }
+
+    /**
+     * Checks that a token index is valid.
+     * @param token index to be checked.
+     */
+    private void checkToken(final int token) {
+        if (token < 0 || token >= this.tokenCount) {
+            throw new IndexOutOfBoundsException("Token " + token + ", count " + this.tokenCount + ".");
+        }
+    }
+
+    /**
+     * Doubles the token capacity.
+     */
+    private void grow() {
+        int capacity = this.starts.length * 2;
+        this.starts = Arrays.copyOf(this.starts, capacity);
+        this.ends = Arrays.copyOf(this.ends, capacity);
+        this.kinds = Arrays.copyOf(this.kinds, capacity);
+        this.ordinals = Arrays.copyOf(this.ordinals, capacity);
+        this.matches = Arrays.copyOf(this.matches, capacity);
+        this.pendingTags = Arrays.copyOf(this.pendingTags, capacity);
+        this.pendingMatches = Arrays.copyOf(this.pendingMatches, capacity);
+        this.pendingCounts = Arrays.copyOf(this.pendingCounts, capacity);
+        this.messages = Arrays.copyOf(this.messages, capacity);
+    }
+}
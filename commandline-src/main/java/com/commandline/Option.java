@@ -1,7 +1,13 @@
 package main.java.com.commandline;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Represents a single command line option.
@@ -10,23 +16,29 @@ import java.util.ArrayList;
  */
 public final class Option {
 
-    /** The short name of the command line option. */
-    private String shortName;
+    /** The definition of the option, shared with equal options once added to a command line. */
+    private OptionSpec spec;
 
-    /** The long name of the command line option. */
-    private String longName;
+    /** The arguments associated with the option; created when the first one is added. */
+    private ArrayList<String> arguments;
 
-    /** The description of the command line option. */
-    private String description;
+    /** Read-only view of the arguments. */
+    private List<String> argumentsView;
 
-    /** The arguments associated with the option. */
-    private ArrayList<String> arguments;
+    /** The entries of a key-value option. */
+    private ArgumentMap entries;
+
+    /** Whether the definition may no longer be changed. */
+    private boolean frozen;
 
-    /** The number of preceeding arguments. */
-    private int argCount;
+    /** Index of the option in the command line it was added to, or -1. */
+    private int ordinal = -1;
 
-    /** Indicated whether option is required or not. */
-    private boolean required;
+    /** The command line the option was added to, told about changes to the definition; or null. */
+    private CommandLine owner;
+
+    /** The number of times the option has been provided. */
+    private int count;
 
     /** Indicated whether option has been provided or not. */
     private boolean found;
@@ -42,9 +54,79 @@ public final class Option {
      * @param shortName option name.
      */
     public Option(final String shortName) {
-        this.shortName = "-" + shortName;
-        this.longName = "";
-        this.arguments = new ArrayList<>();
+        this.spec = OptionSpec.of(shortName);
+    }
+
+    /**
+     * Constructor.
+     * @param spec definition of the option, which may be shared with other options.
+     */
+    public Option(final OptionSpec spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * Gets the definition of the option.
+     * @return definition.
+     */
+    public OptionSpec getSpec() {
+        return this.spec;
+    }
+
+    /**
+     * Gets the ordinal of the option: its index in the command line it was added to, which never changes.
+     * @return ordinal; but if the option has not been added to a command line, -1.
+     */
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    /**
+     * Records the command line the option was added to.
+     * @param owner the command line.
+     * @param ordinal index of the option in the command line.
+     */
+    void attach(final CommandLine owner, final int ordinal) {
+        this.owner = owner;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Stops the definition from being changed.
+     */
+    void freeze() {
+        this.frozen = true;
+    }
+
+    /**
+     * Checks that the definition may be changed.
+     * @throws IllegalStateException if the option is frozen.
+     */
+    private void modify() {
+        if (this.frozen) {
+            throw new IllegalStateException("Option '" + getShortName() + "' is frozen.");
+        }
+    }
+
+    /**
+     * Replaces the definition after a change. Once the option was added to a command line, the new
+     * definition is shared as well, and the command line is told about the change.
+     * @param spec the changed definition.
+     */
+    private void setSpec(final OptionSpec spec) {
+        if (this.owner == null) {
+            this.spec = spec;
+            return;
+        }
+        this.spec = OptionSpec.intern(spec);
+        this.owner.specChanged();
+    }
+
+    /**
+     * Replaces the definition by the shared definition equal to it.
+     */
+    void intern() {
+        this.spec = OptionSpec.intern(this.spec);
     }
 
     /**
@@ -52,7 +134,7 @@ public final class Option {
      * @return short name.
      */
     public String getShortName() {
-        return this.shortName.substring(1, this.shortName.length());
+        return this.spec.getShortName();
     }
 
     /**
@@ -60,15 +142,16 @@ public final class Option {
      * @param name long name of option.
      */
     public void setLongName(final String name) {
-        this.longName = "--" + name;
+        modify();
+        setSpec(this.spec.withLongName(name));
     }
 
     /**
      * Gets long name of option.
-     * @return long name.
+     * @return long name; but if no long name is set, an empty string.
      */
     public String getLongName() {
-        return this.longName.substring(2, this.longName.length());
+        return this.spec.getLongName();
     }
     
     /**
@@ -76,7 +159,8 @@ public final class Option {
      * @param description description of option.
      */
     public void setDescription(final String description) {
-        this.description = description;
+        modify();
+        setSpec(this.spec.withDescription(description));
     }
 
     /**
@@ -84,7 +168,7 @@ public final class Option {
      * @return description.
      */
     public String getDescription() {
-        return this.description;
+        return this.spec.getDescription();
     }
 
     /**
@@ -92,7 +176,8 @@ public final class Option {
      * @param count number of preceding arguments.
      */
     public void setExpectedArgumentCount(final int count)  {
-        this.argCount = count;
+        modify();
+        setSpec(this.spec.withExpectedArgumentCount(count));
     }
 
     /**
@@ -100,7 +185,7 @@ public final class Option {
      * @return number of preceding arguments.
      */
     public int getExpectedArgumentCount() {
-        return this.argCount;
+        return this.spec.getExpectedArgumentCount();
     }
 
     /**
@@ -108,7 +193,26 @@ public final class Option {
      * @return arguments.
      */
     public ArrayList<String> getAllArguments() {
-        return this.arguments;
+        return argumentList();
+    }
+
+    /**
+     * Gets a read-only view of the arguments. The view is not a copy: it reflects later parsing.
+     * @return arguments.
+     */
+    public List<String> getArguments() {
+        if (this.argumentsView == null) {
+            this.argumentsView = Collections.unmodifiableList(argumentList());
+        }
+        return this.argumentsView;
+    }
+
+    /**
+     * Gets the number of arguments of the option.
+     * @return number of arguments.
+     */
+    public int getArgumentCount() {
+        return this.arguments == null ? 0 : this.arguments.size();
     }
 
     /**
@@ -117,7 +221,7 @@ public final class Option {
      * @return argument.
      */
     public String getArgumentAtIndex(final int index) {
-        return this.arguments.get(index);
+        return argumentList().get(index);
     }
 
     /**
@@ -125,7 +229,18 @@ public final class Option {
      * @param argument associated arguments of the option.
      */
     void addArgument(String argument) {
-        this.arguments.add(argument);
+        argumentList().add(argument);
+    }
+
+    /**
+     * Gets the list of arguments, creating it if there is none yet.
+     * @return arguments.
+     */
+    private ArrayList<String> argumentList() {
+        if (this.arguments == null) {
+            this.arguments = new ArrayList<>();
+        }
+        return this.arguments;
     }
 
     /**
@@ -134,8 +249,7 @@ public final class Option {
      * @return true if the tag exists.
      */
     public boolean hasTag(final String tag) {
-        return (this.longName != null && this.longName.equals(tag)) ||
-               (this.shortName != null && this.shortName.equals(tag));
+        return this.spec.hasTag(tag);
     }
 
     /**
@@ -143,7 +257,8 @@ public final class Option {
      * @param required whether option is required.
      */
     public void setRequired(final boolean required) {
-        this.required = required;
+        modify();
+        setSpec(this.spec.withRequired(required));
     }
 
     /**
@@ -151,7 +266,171 @@ public final class Option {
      * @return true if option is required.
      */
     public boolean isRequired() {
-        return this.required;
+        return this.spec.isRequired();
+    }
+
+    /**
+     * Sets whether option may be given more than once. By default, it is set to false.
+     * A repeatable option without arguments counts its occurrences (e.g. "-v -v -v");
+     * a repeatable option with arguments appends the arguments of every occurrence (e.g. "-I a -I b").
+     * @param repeatable whether option is repeatable.
+     */
+    public void setRepeatable(final boolean repeatable) {
+        modify();
+        setSpec(this.spec.withRepeatable(repeatable));
+    }
+
+    /**
+     * Returns whether option may be given more than once.
+     * @return true if option is repeatable.
+     */
+    public boolean isRepeatable() {
+        return this.spec.isRepeatable();
+    }
+
+    /**
+     * Sets the number of arguments to make room for before parsing, for repeatable options
+     * which are expected to be given many times.
+     * @param capacity expected number of arguments.
+     */
+    public void setInitialCapacity(final int capacity) {
+        argumentList().ensureCapacity(capacity);
+    }
+
+    /**
+     * Gets the number of times the option has been provided.
+     * @return number of occurrences.
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /**
+     * Records an occurrence of the option.
+     */
+    void incrementCount() {
+        ++this.count;
+    }
+
+    /**
+     * Sets whether option takes key-value entries. By default, it is set to false.
+     * A key-value option takes its entry attached to the short name ("-Dname=value") or as the
+     * following argument ("-D name=value", "--define name=value"). It may be given any number of times,
+     * and its entries are read through {@link #getValue(String)} and {@link #getEntries()}.
+     * @param keyValue whether option takes key-value entries.
+     */
+    public void setKeyValue(final boolean keyValue) {
+        modify();
+        setSpec(this.spec.withKeyValue(keyValue));
+    }
+
+    /**
+     * Returns whether option takes key-value entries.
+     * @return true if option takes key-value entries.
+     */
+    public boolean isKeyValue() {
+        return this.spec.isKeyValue();
+    }
+
+    /**
+     * Sets what happens when a key is given more than once. The default is {@link DuplicateKeyPolicy#LAST}.
+     * @param policy duplicate key policy.
+     */
+    public void setDuplicateKeyPolicy(final DuplicateKeyPolicy policy) {
+        modify();
+        setSpec(this.spec.withDuplicateKeyPolicy(policy));
+    }
+
+    /**
+     * Gets what happens when a key is given more than once.
+     * @return duplicate key policy.
+     */
+    public DuplicateKeyPolicy getDuplicateKeyPolicy() {
+        return this.spec.getDuplicateKeyPolicy();
+    }
+
+    /**
+     * Gets the value of a key given to a key-value option.
+     * @param key key to be searched for.
+     * @return value of the key; but if the key is not found, null.
+     */
+    public String getValue(final String key) {
+        return this.entries == null ? null : this.entries.get(key);
+    }
+
+    /**
+     * Gets the entries of a key-value option.
+     * @return entries; but if option does not take key-value entries, null.
+     */
+    public ArgumentMap getEntries() {
+        if (this.entries == null && isKeyValue()) {
+            this.entries = new ArgumentMap();
+        }
+        return this.entries;
+    }
+
+    /**
+     * Adds an entry to a key-value option.
+     * @param argument argument holding the entry.
+     * @param keyStart start of the key within the argument.
+     * @throws IllegalArgumentException if the key is repeated and the policy does not allow it.
+     */
+    void addEntry(final String argument, final int keyStart) {
+        if (!getEntries().put(argument, keyStart, getDuplicateKeyPolicy())) {
+            throw duplicateKey(argument, keyStart);
+        }
+    }
+
+    /**
+     * Creates the exception for a key which is repeated although the policy does not allow it.
+     * @param argument argument holding the entry.
+     * @param keyStart start of the key within the argument.
+     * @return exception to be thrown.
+     */
+    IllegalArgumentException duplicateKey(final String argument, final int keyStart) {
+        return duplicateKey(getShortName(), argument, keyStart);
+    }
+
+    /**
+     * Creates the exception for a key which is repeated although the policy does not allow it.
+     * @param shortName short name of the option.
+     * @param argument argument holding the entry.
+     * @param keyStart start of the key within the argument.
+     * @return exception to be thrown.
+     */
+    static IllegalArgumentException duplicateKey(final String shortName, final String argument, final int keyStart) {
+        int separator = argument.indexOf('=', keyStart);
+        String key = separator < 0 ? argument.substring(keyStart) : argument.substring(keyStart, separator);
+        return new IllegalArgumentException("Duplicate key '" + key + "' for option '" + shortName + "'.");
+    }
+
+    /**
+     * Adds the entries of another map to a key-value option.
+     * @param other entries to be added.
+     * @throws IllegalArgumentException if a key is repeated and the policy does not allow it.
+     */
+    void addEntries(final ArgumentMap other) {
+        for (int index = 0; index < other.size(); ++index) {
+            addEntry(other.getSource(index), other.getKeyStart(index));
+        }
+    }
+
+    /**
+     * Determines whether the argument is the short name with an entry attached, e.g. "-Dname=value".
+     * @param arg argument to be checked.
+     * @return true if an entry is attached to the short name.
+     */
+    boolean hasAttachedEntry(final String arg) {
+        String shortTag = this.spec.getShortTag();
+        return this.spec.isKeyValue() && arg.length() > shortTag.length() && arg.startsWith(shortTag);
+    }
+
+    /**
+     * Gets the length of the short name tag, including '-'.
+     * @return length of the short name tag.
+     */
+    int getShortTagLength() {
+        return this.spec.getShortTag().length();
     }
 
     /**
@@ -175,7 +454,7 @@ public final class Option {
      * @return true if the first argument is a valid file.
      */
     public boolean isFile() {
-        File file = new File(this.arguments.get(0));
+        File file = new File(argumentList().get(0));
         return file.exists();
     }
 
@@ -184,7 +463,7 @@ public final class Option {
      * @return true if all arguments are valid files.
      */
     public boolean areFiles() {
-        for (String argument : this.arguments) {
+        for (String argument : getArguments()) {
             File file = new File(argument);
             if (!file.exists()) {
                 return false;
@@ -193,6 +472,21 @@ public final class Option {
         return true;
     }
 
+    /**
+     * Expands the arguments into files. Arguments with wildcards are expanded as glob patterns
+     * (e.g. "data/**&#47;*.parquet") by walking directories in parallel; other arguments are kept if the
+     * file exists. Files are streamed as they are found, and closing the stream stops the walk.
+     * @param maxResults maximum number of files.
+     * @return stream of files.
+     */
+    public Stream<Path> expandFiles(final int maxResults) {
+        return getArguments().stream()
+                .flatMap(argument -> GlobExpander.hasWildcard(argument)
+                        ? new GlobExpander(argument).expand(maxResults)
+                        : Stream.of(Paths.get(argument)).filter(Files::exists))
+                .limit(maxResults);
+    }
+
     /**
      * Determines whether the first argument is a number.
      * @return true if the argument is a number.
@@ -206,7 +500,7 @@ public final class Option {
      * @return true if all arguments are numbers.
      */
     public boolean areAllNumeric() {
-        for (int index = 0; index < this.arguments.size(); ++index) {
+        for (int index = 0; index < getArgumentCount(); ++index) {
             if (!isANumberAtIndex(index)) {
                 return false;
             }
@@ -214,13 +508,101 @@ public final class Option {
         return true;
     }
 
+    /**
+     * Parses the first argument as a list of values and ranges, e.g. "0-1023,2048-4095".
+     * @return parsed list.
+     * @throws IllegalArgumentException if the argument is not a valid list.
+     */
+    public RangeList getRanges() {
+        return getRangesAtIndex(0);
+    }
+
+    /**
+     * Parses the argument with the specified index as a list of values and ranges.
+     * @param index specified index of argument in list.
+     * @return parsed list.
+     * @throws IllegalArgumentException if the argument is not a valid list.
+     */
+    public RangeList getRangesAtIndex(final int index) {
+        return RangeList.parse(argumentList().get(index));
+    }
+
+    /**
+     * Parses the first argument as a byte size, e.g. "4GiB" or "512m".
+     * @return number of bytes.
+     * @throws UnitFormatException if the argument is not a valid size.
+     * @see Units#parseSize(String)
+     */
+    public long getByteSize() {
+        return getByteSizeAtIndex(0);
+    }
+
+    /**
+     * Parses the argument with the specified index as a byte size.
+     * @param index specified index of argument in list.
+     * @return number of bytes.
+     * @throws UnitFormatException if the argument is not a valid size.
+     */
+    public long getByteSizeAtIndex(final int index) {
+        return Units.parseSize(argumentList().get(index));
+    }
+
+    /**
+     * Parses the first argument as a duration, e.g. "250ms" or "1h30m".
+     * @return number of nanoseconds.
+     * @throws UnitFormatException if the argument is not a valid duration.
+     * @see Units#parseDuration(String)
+     */
+    public long getDurationNanos() {
+        return getDurationNanosAtIndex(0);
+    }
+
+    /**
+     * Parses the argument with the specified index as a duration.
+     * @param index specified index of argument in list.
+     * @return number of nanoseconds.
+     * @throws UnitFormatException if the argument is not a valid duration.
+     */
+    public long getDurationNanosAtIndex(final int index) {
+        return Units.parseDuration(argumentList().get(index));
+    }
+
+    /**
+     * Parses the first argument as a rate, e.g. "10k/s".
+     * @return number per second.
+     * @throws UnitFormatException if the argument is not a valid rate.
+     * @see Units#parseRate(String)
+     */
+    public long getRatePerSecond() {
+        return getRatePerSecondAtIndex(0);
+    }
+
+    /**
+     * Parses the argument with the specified index as a rate.
+     * @param index specified index of argument in list.
+     * @return number per second.
+     * @throws UnitFormatException if the argument is not a valid rate.
+     */
+    public long getRatePerSecondAtIndex(final int index) {
+        return Units.parseRate(argumentList().get(index));
+    }
+
     /**
      * Checks if arguments at index is a number.
      * @param index index to be checked.
      * @return true if argument at index is numeric.
      */
     private boolean isANumberAtIndex(int index) {
-        return this.arguments.get(index).matches("(\\d+(\\.\\d+)?)|(\\.\\d+)");
+        return isNumber(argumentList().get(index));
+    }
+
+    /**
+     * Checks if an argument is a number.
+     * @param argument argument to be checked.
+     * @return true if argument is numeric.
+     */
+    static boolean isNumber(final String argument) {
+        return argument.matches("(\\d+(\\.\\d+)?)|(\\.\\d+)");
     }
 
     @Override
@@ -232,17 +614,17 @@ public final class Option {
 
         // Short name
         builder.append("Short name: ");
-        builder.append(this.shortName);
+        builder.append(this.spec.getShortTag());
         builder.append("\n");
 
         // Long name
         builder.append("Long name: ");
-        builder.append(this.longName);
+        builder.append(this.spec.getLongTag());
         builder.append("\n");
 
         // Argument count
         builder.append("Argument count: " );
-        builder.append(this.argCount);
+        builder.append(getExpectedArgumentCount());
         builder.append("\n");
 
         // Found
@@ -250,14 +632,28 @@ public final class Option {
         builder.append(this.found);
         builder.append("\n");
 
+        // Count
+        if (isRepeatable()) {
+            builder.append("Count: ");
+            builder.append(this.count);
+            builder.append("\n");
+        }
+
         // Description
         builder.append("Description: ");
-        builder.append(this.description);
+        builder.append(getDescription());
         builder.append("\n");
 
+        // Entries
+        if (isKeyValue()) {
+            builder.append("Entries: ");
+            builder.append(this.entries);
+            builder.append("\n");
+        }
+
         // Arguments
         builder.append("Arguments: ");
-        if (!this.arguments.isEmpty()) {
+        if (getArgumentCount() > 0) {
             for (String argument : this.arguments) {
                 builder.append(argument);
                 builder.append(" ");
@@ -0,0 +1,140 @@
+package main.java.com.commandline;
+
+import java.util.List;
+
+/**
+ * Reads one option of parse results by its ordinal, so that no tag is looked up after the handle is
+ * created. Handles are got from {@link CommandLine#getHandle(String)} once and kept.
+ *
+ * The methods without a result read what the last call to {@link CommandLine#parse(String[])} found.
+ * A frozen command line may be parsed by several threads at once, but only into results, so its
+ * handles are read with the methods taking a result.
+ *
+ * @author Zach Wilson
+ */
+public final class OptionHandle {
+
+    /** The command line the option belongs to. */
+    private final CommandLine commandLine;
+
+    /** Ordinal of the option. */
+    private final int ordinal;
+
+    /**
+     * Constructor.
+     * @param commandLine the command line the option belongs to.
+     * @param ordinal ordinal of the option.
+     */
+    OptionHandle(final CommandLine commandLine, final int ordinal) {
+        this.commandLine = commandLine;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Gets the ordinal of the option.
+     * @return ordinal.
+     */
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    /**
+     * Gets the option.
+     * @return the option.
+     */
+    public Option getOption() {
+        return this.commandLine.getOption(this.ordinal);
+    }
+
+    /**
+     * Determines whether the option has been provided.
+     * @param result the parse result.
+     * @return true if option has been found.
+     */
+    public boolean isFound(final ParseResult result) {
+        return result.isFound(this.ordinal);
+    }
+
+    /**
+     * Gets the number of times the option has been provided.
+     * @param result the parse result.
+     * @return number of occurrences.
+     */
+    public int getCount(final ParseResult result) {
+        return result.getCount(this.ordinal);
+    }
+
+    /**
+     * Gets a read-only view of the arguments of the option.
+     * @param result the parse result.
+     * @return arguments; empty if there are none.
+     */
+    public List<String> getArguments(final ParseResult result) {
+        return result.getArguments(this.ordinal);
+    }
+
+    /**
+     * Gets the argument of the option with the specified index.
+     * @param result the parse result.
+     * @param index specified index of argument.
+     * @return argument; but if there is no such argument, null.
+     */
+    public String getArgument(final ParseResult result, final int index) {
+        return result.getArgument(this.ordinal, index);
+    }
+
+    /**
+     * Determines whether the option has been provided to the last parse.
+     * @return true if option has been found.
+     * @throws IllegalStateException if the command line has not parsed anything.
+     */
+    public boolean isFound() {
+        return isFound(lastResult());
+    }
+
+    /**
+     * Gets the number of times the option has been provided to the last parse.
+     * @return number of occurrences.
+     * @throws IllegalStateException if the command line has not parsed anything.
+     */
+    public int getCount() {
+        return getCount(lastResult());
+    }
+
+    /**
+     * Gets a read-only view of the arguments of the option given to the last parse.
+     * @return arguments; empty if there are none.
+     * @throws IllegalStateException if the command line has not parsed anything.
+     */
+    public List<String> getArguments() {
+        return getArguments(lastResult());
+    }
+
+    /**
+     * Gets the argument of the option with the specified index given to the last parse.
+     * @param index specified index of argument.
+     * @return argument; but if there is no such argument, null.
+     * @throws IllegalStateException if the command line has not parsed anything.
+     */
+    public String getArgument(final int index) {
+        return getArgument(lastResult(), index);
+    }
+
+    /**
+     * Gets the result of the last parse.
+     * @return the parse result.
+     * @throws IllegalStateException if the command line has not parsed anything.
+     */
+    private ParseResult lastResult() {
+        ParseResult result = this.commandLine.getLastResult();
+        if (result == null) {
+            throw new IllegalStateException("Nothing has been parsed.");
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getOption().getShortName() + " #" + this.ordinal;
+    }
+}
@@ -0,0 +1,355 @@
+package main.java.com.commandline;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The immutable definition of a command line option: names, description, arity and flags.
+ *
+ * Definitions are shared. Equal definitions are deduplicated through an intern pool when an option
+ * is added to a {@link CommandLine}, and again when an added option is changed, so many command lines
+ * built from the same definitions hold one copy of each; an {@link Option} only adds its own parse state. Definitions which are no longer used
+ * are dropped from the pool. The pool takes no lock, so command lines may be built on many threads at
+ * once.
+ *
+ * @author Zach Wilson
+ */
+public final class OptionSpec {
+
+    /** The short tag, "-" and the short name. */
+    private final String shortTag;
+
+    /** The long tag, "--" and the long name; empty if there is no long name. */
+    private final String longTag;
+
+    /** The description. */
+    private final String description;
+
+    /** The number of preceeding arguments. */
+    private final int argCount;
+
+    /** Whether the option is required. */
+    private final boolean required;
+
+    /** Whether the option may be given more than once. */
+    private final boolean repeatable;
+
+    /** Whether the option takes key-value entries. */
+    private final boolean keyValue;
+
+    /** What happens when a key-value option is given a key more than once. */
+    private final DuplicateKeyPolicy duplicateKeyPolicy;
+
+    /** Cached hash code. */
+    private final int hash;
+
+    /**
+     * Constructor.
+     * @param shortTag the short tag, including '-'.
+     * @param longTag the long tag, including "--", or empty.
+     * @param description the description.
+     * @param argCount the number of preceeding arguments.
+     * @param required whether the option is required.
+     * @param repeatable whether the option may be given more than once.
+     * @param keyValue whether the option takes key-value entries.
+     * @param duplicateKeyPolicy what happens when a key is given more than once.
+     */
+    private OptionSpec(final String shortTag, final String longTag, final String description, final int argCount,
+                       final boolean required, final boolean repeatable, final boolean keyValue,
+                       final DuplicateKeyPolicy duplicateKeyPolicy) {
+        this.shortTag = shortTag;
+        this.longTag = longTag;
+        this.description = description;
+        this.argCount = argCount;
+        this.required = required;
+        this.repeatable = repeatable;
+        this.keyValue = keyValue;
+        this.duplicateKeyPolicy = duplicateKeyPolicy;
+        this.hash = Objects.hash(shortTag, longTag, description, argCount, required, repeatable, keyValue,
+                duplicateKeyPolicy);
+    }
+
+    /**
+     * Creates a definition with only a short name.
+     * @param shortName option name.
+     * @return new definition.
+     */
+    static OptionSpec of(final String shortName) {
+        return new OptionSpec("-" + shortName, "", null, 0, false, false, false, DuplicateKeyPolicy.LAST);
+    }
+
+    /**
+     * Gets the shared definition equal to this one, adding this one to the pool if there is none.
+     * @param spec definition to be interned.
+     * @return the shared definition.
+     */
+    static OptionSpec intern(final OptionSpec spec) {
+        return Pool.intern(spec);
+    }
+
+    /**
+     * Gets short name of option.
+     * @return short name.
+     */
+    public String getShortName() {
+        return this.shortTag.substring(1);
+    }
+
+    /**
+     * Gets long name of option.
+     * @return long name; but if no long name is set, an empty string.
+     */
+    public String getLongName() {
+        return this.longTag.isEmpty() ? "" : this.longTag.substring(2);
+    }
+
+    /**
+     * Gets description of option.
+     * @return description.
+     */
+    public String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Gets arguments count of option.
+     * @return number of preceding arguments.
+     */
+    public int getExpectedArgumentCount() {
+        return this.argCount;
+    }
+
+    /**
+     * Returns whether option is required or not.
+     * @return true if option is required.
+     */
+    public boolean isRequired() {
+        return this.required;
+    }
+
+    /**
+     * Returns whether option may be given more than once.
+     * @return true if option is repeatable.
+     */
+    public boolean isRepeatable() {
+        return this.repeatable;
+    }
+
+    /**
+     * Returns whether option takes key-value entries.
+     * @return true if option takes key-value entries.
+     */
+    public boolean isKeyValue() {
+        return this.keyValue;
+    }
+
+    /**
+     * Gets what happens when a key is given more than once.
+     * @return duplicate key policy.
+     */
+    public DuplicateKeyPolicy getDuplicateKeyPolicy() {
+        return this.duplicateKeyPolicy;
+    }
+
+    /**
+     * Determines whether there exists a tag for the option: short or long name.
+     * @param tag to be searched for.
+     * @return true if the tag exists.
+     */
+    public boolean hasTag(final String tag) {
+        return (!this.longTag.isEmpty() && this.longTag.equals(tag)) || this.shortTag.equals(tag);
+    }
+
+    /**
+     * Gets the short tag.
+     * @return "-" and the short name.
+     */
+    String getShortTag() {
+        return this.shortTag;
+    }
+
+    /**
+     * Gets the long tag.
+     * @return "--" and the long name; but if there is no long name, an empty string.
+     */
+    String getLongTag() {
+        return this.longTag;
+    }
+
+    /**
+     * Copies the definition with another long name.
+     * @param name long name.
+     * @return new definition.
+     */
+    OptionSpec withLongName(final String name) {
+        return new OptionSpec(this.shortTag, "--" + name, this.description, this.argCount, this.required,
+                this.repeatable, this.keyValue, this.duplicateKeyPolicy);
+    }
+
+    /**
+     * Copies the definition with another description.
+     * @param description description.
+     * @return new definition.
+     */
+    OptionSpec withDescription(final String description) {
+        return new OptionSpec(this.shortTag, this.longTag, description, this.argCount, this.required,
+                this.repeatable, this.keyValue, this.duplicateKeyPolicy);
+    }
+
+    /**
+     * Copies the definition with another arguments count.
+     * @param count number of preceding arguments.
+     * @return new definition.
+     */
+    OptionSpec withExpectedArgumentCount(final int count) {
+        return new OptionSpec(this.shortTag, this.longTag, this.description, count, this.required,
+                this.repeatable, this.keyValue, this.duplicateKeyPolicy);
+    }
+
+    /**
+     * Copies the definition with another required flag.
+     * @param required whether option is required.
+     * @return new definition.
+     */
+    OptionSpec withRequired(final boolean required) {
+        return new OptionSpec(this.shortTag, this.longTag, this.description, this.argCount, required,
+                this.repeatable, this.keyValue, this.duplicateKeyPolicy);
+    }
+
+    /**
+     * Copies the definition with another repeatable flag.
+     * @param repeatable whether option is repeatable.
+     * @return new definition.
+     */
+    OptionSpec withRepeatable(final boolean repeatable) {
+        return new OptionSpec(this.shortTag, this.longTag, this.description, this.argCount, this.required,
+                repeatable, this.keyValue, this.duplicateKeyPolicy);
+    }
+
+    /**
+     * Copies the definition with another key-value flag.
+     * @param keyValue whether option takes key-value entries.
+     * @return new definition.
+     */
+    OptionSpec withKeyValue(final boolean keyValue) {
+        return new OptionSpec(this.shortTag, this.longTag, this.description, this.argCount, this.required,
+                this.repeatable, keyValue, this.duplicateKeyPolicy);
+    }
+
+    /**
+     * Copies the definition with another duplicate key policy.
+     * @param policy duplicate key policy.
+     * @return new definition.
+     */
+    OptionSpec withDuplicateKeyPolicy(final DuplicateKeyPolicy policy) {
+        return new OptionSpec(this.shortTag, this.longTag, this.description, this.argCount, this.required,
+                this.repeatable, this.keyValue, policy);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof OptionSpec)) {
+            return false;
+        }
+        OptionSpec spec = (OptionSpec) other;
+        return this.hash == spec.hash &&
+               this.argCount == spec.argCount &&
+               this.required == spec.required &&
+               this.repeatable == spec.repeatable &&
+               this.keyValue == spec.keyValue &&
+               this.duplicateKeyPolicy == spec.duplicateKeyPolicy &&
+               this.shortTag.equals(spec.shortTag) &&
+               this.longTag.equals(spec.longTag) &&
+               Objects.equals(this.description, spec.description);
+    }
+
+    @Override
+    public String toString() {
+        return this.shortTag + (this.longTag.isEmpty() ? "" : ", " + this.longTag) + " (" + this.argCount + ")";
+    }
+
+    /**
+     * The intern pool. Kept in its own class so that it is only created once options are added.
+     */
+    private static final class Pool {
+
+        /** Shared definitions, each the key and value of its own weak reference. */
+        private static final ConcurrentHashMap<SpecReference, SpecReference> SPECS = new ConcurrentHashMap<>();
+
+        /** Receives the references of definitions which are no longer used. */
+        private static final ReferenceQueue<OptionSpec> CLEARED = new ReferenceQueue<>();
+
+        /**
+         * Gets the shared definition equal to the given one.
+         * @param spec definition to be interned.
+         * @return the shared definition.
+         */
+        static OptionSpec intern(final OptionSpec spec) {
+            for (Reference<?> cleared = CLEARED.poll(); cleared != null; cleared = CLEARED.poll()) {
+                SPECS.remove(cleared);
+            }
+            SpecReference reference = new SpecReference(spec, CLEARED);
+            while (true) {
+                SpecReference existing = SPECS.putIfAbsent(reference, reference);
+                if (existing == null) {
+                    return spec;
+                }
+                OptionSpec shared = existing.get();
+                if (shared != null) {
+                    return shared;
+                }
+
+                // Cleared since it was matched; drop it and try again
+                SPECS.remove(existing, existing);
+            }
+        }
+    }
+
+    /**
+     * A weak reference to a definition which compares equal to a reference to an equal definition.
+     * A cleared reference only equals itself, so that it can still be removed from the pool.
+     */
+    private static final class SpecReference extends WeakReference<OptionSpec> {
+
+        /** Hash code of the definition. */
+        private final int hash;
+
+        /**
+         * Constructor.
+         * @param spec the definition.
+         * @param queue queue receiving the reference once it is cleared.
+         */
+        SpecReference(final OptionSpec spec, final ReferenceQueue<OptionSpec> queue) {
+            super(spec, queue);
+            this.hash = spec.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SpecReference)) {
+                return false;
+            }
+            OptionSpec spec = get();
+            return spec != null && spec.equals(((SpecReference) other).get());
+        }
+    }
+}
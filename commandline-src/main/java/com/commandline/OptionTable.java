@@ -0,0 +1,153 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A specification held in {@link Option}s, with their tags looked up in an index or, without one, by
+ * searching the options. The key-value and required options are gathered once, when the table is made,
+ * so that parsing does not visit the options it is not given.
+ *
+ * @author Zach Wilson
+ */
+final class OptionTable extends SpecTable {
+
+    /** The options, by ordinal. */
+    private final List<Option> options;
+
+    /** Ordinal of the help option, or -1. */
+    private final int helpOrdinal;
+
+    /** Index of the option tags, or null to search the options. */
+    private final TagIndex index;
+
+    /** Ordinals of the key-value options. */
+    private final int[] keyValueOrdinals;
+
+    /** Ordinals of the required options. */
+    private final int[] requiredOrdinals;
+
+    /**
+     * Constructor.
+     * @param options the options, by ordinal; not to be changed while the table is in use.
+     * @param helpOrdinal ordinal of the help option, or -1.
+     * @param index index of the option tags, or null to search the options.
+     */
+    OptionTable(final List<Option> options, final int helpOrdinal, final TagIndex index) {
+        this.options = options;
+        this.helpOrdinal = helpOrdinal;
+        this.index = index;
+        int[] keyValue = new int[options.size()];
+        int[] required = new int[options.size()];
+        int keyValueCount = 0;
+        int requiredCount = 0;
+        for (int ordinal = 0; ordinal < options.size(); ++ordinal) {
+            OptionSpec spec = options.get(ordinal).getSpec();
+            if (spec.isKeyValue()) {
+                keyValue[keyValueCount++] = ordinal;
+            }
+            if (spec.isRequired()) {
+                required[requiredCount++] = ordinal;
+            }
+        }
+        this.keyValueOrdinals = Arrays.copyOf(keyValue, keyValueCount);
+        this.requiredOrdinals = Arrays.copyOf(required, requiredCount);
+    }
+
+    /**
+     * Gets the options.
+     * @return options, by ordinal.
+     */
+    List<Option> getOptions() {
+        return this.options;
+    }
+
+    /**
+     * Gets an option.
+     * @param ordinal ordinal of the option.
+     * @return the option.
+     */
+    Option getOption(final int ordinal) {
+        return this.options.get(ordinal);
+    }
+
+    @Override
+    int size() {
+        return this.options.size();
+    }
+
+    @Override
+    int getHelpOrdinal() {
+        return this.helpOrdinal;
+    }
+
+    @Override
+    int find(final String tag, final int from) {
+        if (this.index != null) {
+            int ordinal = this.index.get(tag);
+            return ordinal >= from ? ordinal : -1;
+        }
+        for (int ordinal = from; ordinal < this.options.size(); ++ordinal) {
+            if (this.options.get(ordinal).hasTag(tag)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int find(final byte[] bytes, final int start, final int end, final int from) {
+        if (this.index != null) {
+            int ordinal = this.index.get(bytes, start, end);
+            return ordinal >= from ? ordinal : -1;
+        }
+        for (int ordinal = from; ordinal < this.options.size(); ++ordinal) {
+            OptionSpec spec = this.options.get(ordinal).getSpec();
+            if (ByteStore.equals(bytes, start, end, spec.getShortTag()) ||
+                ByteStore.equals(bytes, start, end, spec.getLongTag())) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int[] getKeyValueOrdinals() {
+        return this.keyValueOrdinals;
+    }
+
+    @Override
+    int[] getRequiredOrdinals() {
+        return this.requiredOrdinals;
+    }
+
+    @Override
+    String getShortTag(final int ordinal) {
+        return this.options.get(ordinal).getSpec().getShortTag();
+    }
+
+    @Override
+    String getShortName(final int ordinal) {
+        return this.options.get(ordinal).getShortName();
+    }
+
+    @Override
+    int getExpectedArgumentCount(final int ordinal) {
+        return this.options.get(ordinal).getExpectedArgumentCount();
+    }
+
+    @Override
+    boolean isRepeatable(final int ordinal) {
+        return this.options.get(ordinal).isRepeatable();
+    }
+
+    @Override
+    boolean isKeyValue(final int ordinal) {
+        return this.options.get(ordinal).isKeyValue();
+    }
+
+    @Override
+    DuplicateKeyPolicy getDuplicateKeyPolicy(final int ordinal) {
+        return this.options.get(ordinal).getDuplicateKeyPolicy();
+    }
+}
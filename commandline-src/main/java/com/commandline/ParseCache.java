@@ -0,0 +1,227 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A size-bounded, least recently used cache of parse results in front of a {@link CommandLine}.
+ *
+ * Results are keyed by the arguments, which are hashed once per call. A hit returns the very
+ * result that was cached: results are never changed after parsing, so one result may be shared by
+ * any number of callers. The cache is cleared when the specification of the command line changes, or
+ * the way its results hold arguments.
+ * Results on which file checks were made ({@link ParseResult#areFiles(int)}) remember the outcome
+ * of those checks, and can be made to expire with {@link #setTimeToLive(long, TimeUnit)}.
+ * Arguments which fail to parse are not cached.
+ *
+ * @author Zach Wilson
+ */
+public class ParseCache {
+
+    /** The command line the arguments are parsed against. */
+    private final CommandLine commandLine;
+
+    /** Maximum number of cached results. */
+    private final int maxEntries;
+
+    /** Cached results, least recently used first. */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /** Specification version the cached results belong to. */
+    private long specVersion;
+
+    /** Lifetime of results with file checks, in nanoseconds; 0 for no expiry. */
+    private long timeToLive;
+
+    /** Number of calls answered from the cache. */
+    private long hits;
+
+    /** Number of calls which had to parse. */
+    private long misses;
+
+    /**
+     * Constructor.
+     * @param commandLine the command line the arguments are parsed against.
+     * @param maxEntries maximum number of cached results.
+     */
+    public ParseCache(final CommandLine commandLine, final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive, given " + maxEntries + ".");
+        }
+        this.commandLine = commandLine;
+        this.maxEntries = maxEntries;
+        this.specVersion = commandLine.getSpecVersion();
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > ParseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Sets how long results on which file checks were made stay cached. By default, they do not expire.
+     * @param duration lifetime; 0 for no expiry.
+     * @param unit unit of the lifetime.
+     */
+    public synchronized void setTimeToLive(final long duration, final TimeUnit unit) {
+        this.timeToLive = unit.toNanos(duration);
+    }
+
+    /**
+     * Parses command line arguments, or returns the cached result of identical arguments.
+     * @param args command line arguments.
+     * @return the parse result, shared with other callers.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public ParseResult parse(final String[] args) {
+        Key key = new Key(args);
+        long version = this.commandLine.getSpecVersion();
+
+        synchronized (this) {
+            if (version != this.specVersion) {
+                this.entries.clear();
+                this.specVersion = version;
+            }
+            Entry entry = this.entries.get(key);
+            if (entry != null) {
+                if (this.timeToLive > 0 && entry.result.hasFileChecks() &&
+                        System.nanoTime() - entry.created > this.timeToLive) {
+                    this.entries.remove(key);
+                } else {
+                    ++this.hits;
+                    return entry.result;
+                }
+            }
+            ++this.misses;
+        }
+
+        // Parse outside the lock so that misses do not wait for each other
+        key = new Key(args.clone(), key.hash);
+        ParseResult result = this.commandLine.parseResult(args);
+        synchronized (this) {
+            if (version == this.specVersion) {
+                this.entries.put(key, new Entry(result, System.nanoTime()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * Gets the number of cached results.
+     * @return number of cached results.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of calls answered from the cache.
+     * @return number of hits.
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of calls which had to parse.
+     * @return number of misses.
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Arguments with their hash.
+     */
+    private static final class Key {
+
+        /** The arguments. */
+        private final String[] args;
+
+        /** Hash of the arguments. */
+        private final long hash;
+
+        /**
+         * Constructor.
+         * @param args the arguments.
+         */
+        Key(final String[] args) {
+            this(args, hash(args));
+        }
+
+        /**
+         * Constructor.
+         * @param args the arguments.
+         * @param hash hash of the arguments.
+         */
+        Key(final String[] args, final long hash) {
+            this.args = args;
+            this.hash = hash;
+        }
+
+        /**
+         * Hashes the arguments in one pass over their characters.
+         * @param args the arguments.
+         * @return hash value.
+         */
+        private static long hash(final String[] args) {
+            long hash = 0xCBF29CE484222325L;
+            for (String arg : args) {
+                for (int i = 0; i < arg.length(); ++i) {
+                    hash = (hash ^ arg.charAt(i)) * 0x100000001B3L;
+                }
+                // Separate arguments so that "ab" "c" differs from "a" "bc"
+                hash = (hash ^ 0x10000) * 0x100000001B3L;
+            }
+            return hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (this.hash ^ (this.hash >>> 32));
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return this.hash == key.hash && Arrays.equals(this.args, key.args);
+        }
+    }
+
+    /**
+     * A cached result.
+     */
+    private static final class Entry {
+
+        /** The parse result. */
+        private final ParseResult result;
+
+        /** When the result was cached, from {@link System#nanoTime()}. */
+        private final long created;
+
+        /**
+         * Constructor.
+         * @param result the parse result.
+         * @param created when the result was cached.
+         */
+        Entry(final ParseResult result, final long created) {
+            this.result = result;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package main.java.com.commandline;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The outcome of parsing one set of command line arguments, kept apart from the {@link Option}s.
+ *
+ * Options are referred to by their ordinal: their index in the list of options that was parsed.
+ * Only options which were found take up room, so a result costs as much as the arguments it holds
+ * and not as much as the specification. A result is not changed once parsing has finished, and may
+ * be shared between threads.
+ *
+ * @author Zach Wilson
+ */
+public final class ParseResult {
+
+    /** Initial number of found options. */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The specification that was parsed against. */
+    private final SpecTable spec;
+
+    /** Ordinal of each found option, by slot. */
+    private int[] ordinals = new int[INITIAL_CAPACITY];
+
+    /** Number of occurrences of each found option, by slot. */
+    private int[] counts = new int[INITIAL_CAPACITY];
+
+    /** Arguments of each found option, by slot. */
+    private final ArgumentStore arguments;
+
+    /** The arguments again, for a result of strings; null for a result of bytes. */
+    private final StringArgumentStore stringArguments;
+
+    /** The arguments again, for a result of bytes; null for a result of strings. */
+    private final ByteStore byteArguments;
+
+    /** Entries of each found key-value option, by slot; null until an entry has been found. */
+    private ArgumentMap[] entries;
+
+    /** Hash table of slot + 1 keyed by ordinal, 0 marks an empty slot. Twice the slot capacity. */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    /** Number of found options. */
+    private int size;
+
+    /** Upper half of the fingerprint: the sum over all occurrences. */
+    private long fingerprintHigh;
+
+    /** Lower half of the fingerprint: the sum over all occurrences. */
+    private long fingerprintLow;
+
+    /** Read-only views of the arguments by slot, created on first use. */
+    private List<?>[] views;
+
+    /** Found options as a bit set by ordinal, created on first use. */
+    private volatile long[] foundBits;
+
+    /** Outcome of file checks by ordinal, created on first use. */
+    private HashMap<Integer, Boolean> fileChecks;
+
+    /**
+     * Constructor.
+     * @param spec the specification being parsed against.
+     * @param storage how arguments are held.
+     */
+    ParseResult(final SpecTable spec, final ArgumentStorage storage) {
+        this.spec = spec;
+        this.stringArguments = StringArgumentStore.create(storage, INITIAL_CAPACITY);
+        this.byteArguments = null;
+        this.arguments = this.stringArguments;
+    }
+
+    /**
+     * Constructor for a result whose arguments stay in the UTF-8 bytes they are parsed from.
+     * @param spec the specification being parsed against.
+     * @param bytes the bytes being parsed.
+     */
+    ParseResult(final SpecTable spec, final byte[] bytes) {
+        this.spec = spec;
+        this.stringArguments = null;
+        this.byteArguments = ByteStore.create(bytes, INITIAL_CAPACITY);
+        this.arguments = this.byteArguments;
+    }
+
+    /**
+     * Finds the ordinal of the option with the given tag: "-" short name or "--" long name.
+     * @param tag to be searched for.
+     * @return ordinal of the option; but if no option is found, -1.
+     */
+    public int ordinalOf(final String tag) {
+        return this.spec.find(tag, 0);
+    }
+
+    /**
+     * Determines whether the option has been provided.
+     * @param ordinal ordinal of the option.
+     * @return true if option has been found.
+     */
+    public boolean isFound(final int ordinal) {
+        return slotOf(ordinal) >= 0;
+    }
+
+    /**
+     * Determines whether the option with the given tag has been provided.
+     * @param tag the option's short or long tag, e.g. "-o" or "--option".
+     * @return true if option has been found.
+     */
+    public boolean isFound(final String tag) {
+        int ordinal = ordinalOf(tag);
+        return ordinal >= 0 && isFound(ordinal);
+    }
+
+    /**
+     * Gets the number of times the option has been provided.
+     * @param ordinal ordinal of the option.
+     * @return number of occurrences.
+     */
+    public int getCount(final int ordinal) {
+        int slot = slotOf(ordinal);
+        return slot < 0 ? 0 : this.counts[slot];
+    }
+
+    /**
+     * Gets the number of times the option with the given tag has been provided.
+     * @param tag the option's short or long tag.
+     * @return number of occurrences.
+     */
+    public int getCount(final String tag) {
+        int ordinal = ordinalOf(tag);
+        return ordinal < 0 ? 0 : getCount(ordinal);
+    }
+
+    /**
+     * Gets a read-only view of the arguments of the option.
+     * @param ordinal ordinal of the option.
+     * @return arguments; empty if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getArguments(final int ordinal) {
+        int slot = slotOf(ordinal);
+        if (slot < 0) {
+            return Collections.<String>emptyList();
+        }
+
+        // Views are immutable, so threads racing to create one may each keep their own
+        List<?>[] views = this.views;
+        if (views == null || views.length <= slot) {
+            views = new List<?>[this.ordinals.length];
+            this.views = views;
+        }
+        List<String> view = (List<String>) views[slot];
+        if (view == null) {
+            view = this.arguments.list(slot);
+            views[slot] = view;
+        }
+        return view;
+    }
+
+    /**
+     * Gets a read-only view of the arguments of the option with the given tag.
+     * @param tag the option's short or long tag.
+     * @return arguments; empty if there are none.
+     */
+    public List<String> getArguments(final String tag) {
+        int ordinal = ordinalOf(tag);
+        return ordinal < 0 ? Collections.<String>emptyList() : getArguments(ordinal);
+    }
+
+    /**
+     * Gets the argument of the option with the specified index.
+     * @param ordinal ordinal of the option.
+     * @param index specified index of argument.
+     * @return argument; but if there is no such argument, null.
+     */
+    public String getArgument(final int ordinal, final int index) {
+        int slot = slotOf(ordinal);
+        return slot < 0 || index >= this.arguments.size(slot) ? null : this.arguments.get(slot, index);
+    }
+
+    /**
+     * Gets the argument of the option with the given tag and the specified index.
+     * @param tag the option's short or long tag.
+     * @param index specified index of argument.
+     * @return argument; but if there is no such argument, null.
+     */
+    public String getArgument(final String tag, final int index) {
+        int ordinal = ordinalOf(tag);
+        return ordinal < 0 ? null : getArgument(ordinal, index);
+    }
+
+    /**
+     * Gets the entries of a key-value option.
+     * @param ordinal ordinal of the option.
+     * @return entries; but if none were given, null.
+     */
+    public ArgumentMap getEntries(final int ordinal) {
+        int slot = slotOf(ordinal);
+        return slot < 0 ? null : entriesAt(slot);
+    }
+
+    /**
+     * Gets the entries of the key-value option with the given tag.
+     * @param tag the option's short or long tag.
+     * @return entries; but if none were given, null.
+     */
+    public ArgumentMap getEntries(final String tag) {
+        int ordinal = ordinalOf(tag);
+        return ordinal < 0 ? null : getEntries(ordinal);
+    }
+
+    /**
+     * Determines whether all arguments of the option are existing files. The outcome is remembered,
+     * so later calls on the same result do not touch the disk again.
+     * @param ordinal ordinal of the option.
+     * @return true if all arguments are existing files.
+     */
+    public synchronized boolean areFiles(final int ordinal) {
+        if (this.fileChecks == null) {
+            this.fileChecks = new HashMap<>();
+        }
+        Boolean outcome = this.fileChecks.get(ordinal);
+        if (outcome == null) {
+            outcome = true;
+            for (String argument : getArguments(ordinal)) {
+                if (!new File(argument).exists()) {
+                    outcome = false;
+                    break;
+                }
+            }
+            this.fileChecks.put(ordinal, outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Determines whether all arguments of the option with the given tag are existing files.
+     * @param tag the option's short or long tag.
+     * @return true if all arguments are existing files.
+     */
+    public boolean areFiles(final String tag) {
+        int ordinal = ordinalOf(tag);
+        return ordinal >= 0 && areFiles(ordinal);
+    }
+
+    /**
+     * Determines whether any file checks have been made on this result.
+     * @return true if {@link #areFiles(int)} has been called.
+     */
+    public synchronized boolean hasFileChecks() {
+        return this.fileChecks != null;
+    }
+
+    /**
+     * Determines whether all arguments of the option are numeric.
+     * @param ordinal ordinal of the option.
+     * @return true if all arguments are numbers.
+     */
+    public boolean areAllNumeric(final int ordinal) {
+        for (String argument : getArguments(ordinal)) {
+            if (!Option.isNumber(argument)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the help option is found.
+     * @return true if the help option is found.
+     */
+    public boolean needHelp() {
+        int helpOrdinal = this.spec.getHelpOrdinal();
+        return helpOrdinal >= 0 && isFound(helpOrdinal);
+    }
+
+    /**
+     * Gets the number of options which have been found.
+     * @return number of found options.
+     */
+    public int getFoundCount() {
+        return this.size;
+    }
+
+    /**
+     * Gets the next found option, in ordinal order, as {@link java.util.BitSet#nextSetBit(int)} does.
+     * @param fromOrdinal ordinal to start from, inclusive.
+     * @return ordinal of the next found option; but if there is none, -1.
+     */
+    public int nextFound(final int fromOrdinal) {
+        long[] bits = this.foundBits;
+        if (bits == null) {
+            bits = new long[(this.spec.size() + 63) >>> 6];
+            for (int slot = 0; slot < this.size; ++slot) {
+                bits[this.ordinals[slot] >>> 6] |= 1L << this.ordinals[slot];
+            }
+            this.foundBits = bits;
+        }
+        if (fromOrdinal < 0) {
+            throw new IndexOutOfBoundsException("Ordinal " + fromOrdinal + ".");
+        }
+        int word = fromOrdinal >>> 6;
+        if (word >= bits.length) {
+            return -1;
+        }
+        long current = bits[word] & (-1L << fromOrdinal);
+        while (current == 0) {
+            if (++word == bits.length) {
+                return -1;
+            }
+            current = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(current);
+    }
+
+    /**
+     * Gets the ordinal of a found option, in the order options were first found.
+     * @param index index among the found options.
+     * @return ordinal of the option.
+     */
+    public int getFoundOrdinal(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + this.size + ".");
+        }
+        return this.ordinals[index];
+    }
+
+    /**
+     * Gets the fingerprint of the found options and their arguments, which does not depend on the order
+     * of different options.
+     * @return fingerprint.
+     */
+    public Fingerprint getFingerprint() {
+        return new Fingerprint(this.fingerprintHigh, this.fingerprintLow);
+    }
+
+    /**
+     * Encodes the result into a compact binary form, which a process holding the same specification
+     * reads back with {@link CommandLine#decodeResult(ByteBuffer)} or
+     * {@link CommandLine#readResult(ReadableByteChannel)}, without parsing the arguments again.
+     * @return buffer holding the encoding, from position 0 to its limit.
+     * @throws IllegalArgumentException if the encoding would be larger than 64 MiB.
+     */
+    public ByteBuffer encode() {
+        return ResultCodec.encode(this, this.spec);
+    }
+
+    /**
+     * Re-emits the result as canonical command line arguments, e.g. for a child process: the found
+     * options in ordinal order by their short tags, each occurrence followed by its arguments, and each
+     * entry of a key-value option after its tag. Parsing them against the same specification finds the
+     * same options, arguments and entries.
+     * @return the arguments.
+     */
+    public String[] toArgs() {
+        return ResultCodec.toArgs(this, this.spec);
+    }
+
+    /**
+     * Records an occurrence of an option.
+     * @param ordinal ordinal of the option.
+     * @return slot of the option.
+     */
+    int markFound(final int ordinal) {
+        int slot = slotOf(ordinal);
+        if (slot < 0) {
+            slot = insert(ordinal);
+        }
+        ++this.counts[slot];
+        return slot;
+    }
+
+    /**
+     * Gets the number of occurrences of a found option.
+     * @param slot slot of the option.
+     * @return number of occurrences.
+     */
+    int getCountAt(final int slot) {
+        return this.counts[slot];
+    }
+
+    /**
+     * Adds a hashed occurrence to the fingerprint.
+     * @param hasher hasher holding the occurrence.
+     */
+    void addToFingerprint(final Fingerprint.Hasher hasher) {
+        this.fingerprintHigh += hasher.getHigh();
+        this.fingerprintLow += hasher.getLow();
+    }
+
+    /**
+     * Adds the entries kept by the key-value options to the fingerprint, each on its own so that their
+     * order does not matter, and the number of occurrences of each option.
+     * @param hasher hasher to use.
+     */
+    void addEntriesToFingerprint(final Fingerprint.Hasher hasher) {
+        if (this.entries == null) {
+            return;
+        }
+        for (int slot = 0; slot < this.size; ++slot) {
+            ArgumentMap map = this.entries[slot];
+            if (map == null) {
+                continue;
+            }
+            String tag = this.spec.getShortTag(this.ordinals[slot]);
+            hasher.start(tag, this.counts[slot]);
+            addToFingerprint(hasher);
+            for (int i = 0; i < map.size(); ++i) {
+                hasher.startEntry(tag);
+                hasher.add(map.getSource(i), map.getKeyStart(i));
+                addToFingerprint(hasher);
+            }
+        }
+    }
+
+    /**
+     * Sets the fingerprint of a result which was decoded rather than parsed.
+     * @param high upper half of the fingerprint.
+     * @param low lower half of the fingerprint.
+     */
+    void setFingerprint(final long high, final long low) {
+        this.fingerprintHigh = high;
+        this.fingerprintLow = low;
+    }
+
+    /**
+     * Adds an argument to a found option of a result of strings.
+     * @param slot slot of the option.
+     * @param argument argument to be added.
+     */
+    void addArgument(final int slot, final String argument) {
+        this.stringArguments.add(slot, argument);
+    }
+
+    /**
+     * Adds the argument in a range of the bytes being parsed to a found option of a result of bytes.
+     * @param slot slot of the option.
+     * @param start index of the first byte.
+     * @param end index after the last byte.
+     */
+    void addArgument(final int slot, final int start, final int end) {
+        this.byteArguments.add(slot, start, end);
+    }
+
+    /**
+     * Called once parsing has finished.
+     */
+    void finish() {
+        this.arguments.trim();
+    }
+
+    /**
+     * Adds an entry to a found key-value option.
+     * @param slot slot of the option.
+     * @param argument argument holding the entry.
+     * @param keyStart start of the key within the argument.
+     * @param policy what to do if the key already exists.
+     * @return false if the key already exists and the policy is {@link DuplicateKeyPolicy#ERROR}.
+     */
+    boolean addEntry(final int slot, final String argument, final int keyStart, final DuplicateKeyPolicy policy) {
+        if (this.entries == null) {
+            this.entries = new ArgumentMap[this.ordinals.length];
+        }
+        if (this.entries[slot] == null) {
+            this.entries[slot] = new ArgumentMap();
+        }
+        return this.entries[slot].put(argument, keyStart, policy);
+    }
+
+    /**
+     * Stores the result into the options, as parsing straight into them would have.
+     * @param options the options that were parsed, by ordinal.
+     */
+    void applyTo(final List<Option> options) {
+        for (int slot = 0; slot < this.size; ++slot) {
+            Option option = options.get(this.ordinals[slot]);
+            option.setFound(true);
+            for (int i = 0; i < this.counts[slot]; ++i) {
+                option.incrementCount();
+            }
+            for (String argument : this.arguments.list(slot)) {
+                option.addArgument(argument);
+            }
+            if (entriesAt(slot) != null) {
+                option.addEntries(this.entries[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets the entries of a slot.
+     * @param slot slot of the option.
+     * @return entries; but if none were given, null.
+     */
+    private ArgumentMap entriesAt(final int slot) {
+        return this.entries == null ? null : this.entries[slot];
+    }
+
+    /**
+     * Finds the slot of an option.
+     * @param ordinal ordinal of the option.
+     * @return slot; but if the option has not been found, -1.
+     */
+    private int slotOf(final int ordinal) {
+        int mask = this.table.length - 1;
+        int index = mix(ordinal) & mask;
+        while (this.table[index] != 0) {
+            int slot = this.table[index] - 1;
+            if (this.ordinals[slot] == ordinal) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a slot for an option which has not been found before.
+     * @param ordinal ordinal of the option.
+     * @return new slot.
+     */
+    private int insert(final int ordinal) {
+        if (this.size == this.ordinals.length) {
+            int capacity = this.size * 2;
+            this.ordinals = Arrays.copyOf(this.ordinals, capacity);
+            this.counts = Arrays.copyOf(this.counts, capacity);
+            this.arguments.grow(capacity);
+            if (this.entries != null) {
+                this.entries = Arrays.copyOf(this.entries, capacity);
+            }
+            this.table = new int[capacity * 2];
+            for (int slot = 0; slot < this.size; ++slot) {
+                place(slot);
+            }
+        }
+        int slot = this.size++;
+        this.ordinals[slot] = ordinal;
+        place(slot);
+        return slot;
+    }
+
+    /**
+     * Puts a slot into the hash table.
+     * @param slot slot to be placed.
+     */
+    private void place(final int slot) {
+        int mask = this.table.length - 1;
+        int index = mix(this.ordinals[slot]) & mask;
+        while (this.table[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        this.table[index] = slot + 1;
+    }
+
+    /**
+     * Spreads the bits of an ordinal.
+     * @param ordinal ordinal to be hashed.
+     * @return hash value.
+     */
+    private static int mix(final int ordinal) {
+        int hash = ordinal * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int slot = 0; slot < this.size; ++slot) {
+            builder.append(this.spec.getShortTag(this.ordinals[slot]));
+            builder.append(" x");
+            builder.append(this.counts[slot]);
+            for (String argument : this.arguments.list(slot)) {
+                builder.append(" ");
+                builder.append(argument);
+            }
+            if (entriesAt(slot) != null) {
+                builder.append(" ");
+                builder.append(this.entries[slot]);
+            }
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+}
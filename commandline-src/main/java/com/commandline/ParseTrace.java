@@ -0,0 +1,319 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the decisions of parsers in a ring buffer, to tell afterwards why an option was or was not
+ * found: whether its tag was matched, skipped because the option had already been found, or taken as
+ * an argument of the option before it.
+ *
+ * Each decision is written as five ints into an array allocated once, overwriting the oldest when the
+ * buffer is full; nothing is formatted until {@link #dump(CommandLine)} is called. Parses on several
+ * threads may share a trace; their decisions are told apart by the number of the parse. A large trace
+ * is split into stripes, one ring each with its own count of decisions, and each parse writes to the
+ * stripe of its number, so that parses running at once rarely count on the same stripe. Decisions
+ * are read from a {@link #snapshot()}, by parse, and within a parse in the order they were made. A
+ * decision copied while another thread writes it may be torn, which only affects what is read.
+ *
+ * @author Zach Wilson
+ */
+public final class ParseTrace {
+
+    /**
+     * What a parser decided about an argument.
+     */
+    public enum Action {
+
+        /** A parse started; the count is the number of arguments. */
+        START,
+
+        /** The argument is the tag of the option; the count is the number of arguments it took. */
+        MATCHED,
+
+        /** The argument is the tag of an option which was already found and may not be repeated; it is ignored. */
+        SKIPPED,
+
+        /** The argument is an entry attached to the short tag of the key-value option, e.g. "-Dname=value". */
+        ENTRY,
+
+        /** No option has the argument as a tag; it is ignored. */
+        IGNORED,
+
+        /** Parsing failed at the argument. */
+        FAILED
+    }
+
+    /** Number of ints per decision. */
+    private static final int FIELDS = 5;
+
+    /** All actions, by ordinal. */
+    private static final Action[] ACTIONS = Action.values();
+
+    /** Fewest decisions a stripe holds, so that a small trace is a single ring. */
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    /** Distance between the counts of two stripes, so that they are not on the same cache line. */
+    private static final int PADDING = 8;
+
+    /** Decisions: parse number, argument index, option ordinal, action and count; stripe after stripe. */
+    private final int[] records;
+
+    /** Number of decisions held at most, a power of two. */
+    private final int capacity;
+
+    /** Number of decisions each stripe holds, a power of two. */
+    private final int stripeCapacity;
+
+    /** Number of stripes less one; the stripes are a power of two. */
+    private final int stripeMask;
+
+    /** Number of decisions written so far to each stripe, {@link #PADDING} apart. */
+    private final AtomicLongArray written;
+
+    /** Number of parses started so far. */
+    private final AtomicInteger parses = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * @param capacity number of decisions held; rounded up to a power of two.
+     * @throws IllegalArgumentException if the capacity is not positive or too large.
+     */
+    public ParseTrace(final int capacity) {
+        if (capacity < 1 || capacity > (1 << 26)) {
+            throw new IllegalArgumentException("Trace capacity must be between 1 and " + (1 << 26) + ".");
+        }
+        int rounded = Integer.highestOneBit(capacity);
+        this.capacity = rounded < capacity ? rounded << 1 : rounded;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(processors * 2 - 1,
+                this.capacity / MIN_STRIPE_CAPACITY)));
+        this.stripeCapacity = this.capacity / stripes;
+        this.stripeMask = stripes - 1;
+        this.records = new int[this.capacity * FIELDS];
+        this.written = new AtomicLongArray(stripes * PADDING);
+    }
+
+    /**
+     * Records the start of a parse.
+     * @param argumentCount number of arguments; -1 if not known beforehand.
+     * @return number of the parse, to be passed to {@link #record(int, int, int, Action, int)}.
+     */
+    int start(final int argumentCount) {
+        int parse = this.parses.getAndIncrement();
+        record(parse, -1, -1, Action.START, argumentCount);
+        return parse;
+    }
+
+    /**
+     * Records a decision.
+     * @param parse number of the parse.
+     * @param argument index of the argument.
+     * @param ordinal ordinal of the option; -1 for none.
+     * @param action what was decided.
+     * @param count number of arguments taken.
+     */
+    void record(final int parse, final int argument, final int ordinal, final Action action, final int count) {
+        int stripe = parse & this.stripeMask;
+        long position = this.written.getAndIncrement(stripe * PADDING);
+        int i = (stripe * this.stripeCapacity + (int) (position & (this.stripeCapacity - 1))) * FIELDS;
+        this.records[i] = parse;
+        this.records[i + 1] = argument;
+        this.records[i + 2] = ordinal;
+        this.records[i + 3] = action.ordinal();
+        this.records[i + 4] = count;
+    }
+
+    /**
+     * Gets the number of decisions held.
+     * @return number of decisions, at most the capacity.
+     */
+    public int size() {
+        int size = 0;
+        for (int stripe = 0; stripe <= this.stripeMask; ++stripe) {
+            size += (int) Math.min(this.written.get(stripe * PADDING), this.stripeCapacity);
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of decisions written, including those overwritten.
+     * @return number of decisions.
+     */
+    public long getWrittenCount() {
+        long written = 0;
+        for (int stripe = 0; stripe <= this.stripeMask; ++stripe) {
+            written += this.written.get(stripe * PADDING);
+        }
+        return written;
+    }
+
+    /**
+     * Copies the held decisions, by parse, and within a parse in the order they were made. The order is
+     * found once, so take a snapshot and read the decisions from it.
+     * @return the decisions held now.
+     */
+    public Snapshot snapshot() {
+        long[] written = new long[this.stripeMask + 1];
+        int size = 0;
+        for (int stripe = 0; stripe <= this.stripeMask; ++stripe) {
+            written[stripe] = this.written.get(stripe * PADDING);
+            size += (int) Math.min(written[stripe], this.stripeCapacity);
+        }
+
+        // A parse writes to one stripe in the order of its decisions, which a stable sort by parse keeps
+        int[] order = new int[size];
+        long[] keys = new long[size];
+        int key = 0;
+        for (int stripe = 0; stripe <= this.stripeMask; ++stripe) {
+            int stripeSize = (int) Math.min(written[stripe], this.stripeCapacity);
+            for (long position = written[stripe] - stripeSize; position < written[stripe]; ++position) {
+                order[key] = stripe * this.stripeCapacity + (int) (position & (this.stripeCapacity - 1));
+                keys[key] = (long) this.records[order[key] * FIELDS] << 32 | key;
+                ++key;
+            }
+        }
+        Arrays.sort(keys);
+        int[] held = new int[size * FIELDS];
+        for (int i = 0; i < size; ++i) {
+            System.arraycopy(this.records, order[(int) keys[i]] * FIELDS, held, i * FIELDS, FIELDS);
+        }
+        return new Snapshot(held);
+    }
+
+    /**
+     * Renders the held decisions by parse, oldest first, one per line, naming options by their tags.
+     * @param commandLine the command line that was parsed, to name the options.
+     * @return rendered decisions.
+     */
+    public String dump(final CommandLine commandLine) {
+        return snapshot().dump(commandLine);
+    }
+
+    /**
+     * The decisions a trace held when the snapshot was taken, which later decisions do not change.
+     */
+    public static final class Snapshot {
+
+        /** Decisions in order, five ints each. */
+        private final int[] records;
+
+        /**
+         * Constructor.
+         * @param records decisions in order.
+         */
+        private Snapshot(final int[] records) {
+            this.records = records;
+        }
+
+        /**
+         * Gets the number of decisions.
+         * @return number of decisions.
+         */
+        public int size() {
+            return this.records.length / FIELDS;
+        }
+
+        /**
+         * Gets the number of the parse of a decision.
+         * @param index index of the decision, 0 for the first, by parse.
+         * @return number of the parse.
+         */
+        public int getParse(final int index) {
+            return field(index, 0);
+        }
+
+        /**
+         * Gets the index of the argument of a decision.
+         * @param index index of the decision, 0 for the first, by parse.
+         * @return index of the argument; -1 for the start of a parse.
+         */
+        public int getArgument(final int index) {
+            return field(index, 1);
+        }
+
+        /**
+         * Gets the option ordinal of a decision.
+         * @param index index of the decision, 0 for the first, by parse.
+         * @return ordinal of the option; -1 for none.
+         */
+        public int getOrdinal(final int index) {
+            return field(index, 2);
+        }
+
+        /**
+         * Gets the action of a decision.
+         * @param index index of the decision, 0 for the first, by parse.
+         * @return action.
+         */
+        public Action getAction(final int index) {
+            return ACTIONS[field(index, 3)];
+        }
+
+        /**
+         * Gets the count of a decision: the number of arguments taken, or of a parse.
+         * @param index index of the decision, 0 for the first, by parse.
+         * @return count.
+         */
+        public int getCount(final int index) {
+            return field(index, 4);
+        }
+
+        /**
+         * Reads a field of a decision.
+         * @param index index of the decision, 0 for the first, by parse.
+         * @param field index of the field.
+         * @return value of the field.
+         * @throws IndexOutOfBoundsException if there is no such decision.
+         */
+        private int field(final int index, final int field) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Decision " + index + " of " + size() + ".");
+            }
+            return this.records[index * FIELDS + field];
+        }
+
+        /**
+         * Renders the decisions, one per line, naming options by their tags.
+         * @param commandLine the command line that was parsed, to name the options.
+         * @return rendered decisions.
+         */
+        public String dump(final CommandLine commandLine) {
+            StringBuilder builder = new StringBuilder();
+            for (int index = 0; index < size(); ++index) {
+                int argument = getArgument(index);
+                int ordinal = getOrdinal(index);
+                Action action = getAction(index);
+                int count = getCount(index);
+                builder.append('#').append(getParse(index)).append(' ');
+                if (action == Action.START) {
+                    builder.append("START");
+                    if (count >= 0) {
+                        builder.append(' ').append(count).append(" arguments");
+                    }
+                    builder.append('\n');
+                    continue;
+                }
+                builder.append('[').append(argument).append("] ").append(action);
+                if (ordinal >= 0) {
+                    builder.append(' ');
+                    if (ordinal < commandLine.getOptionCount()) {
+                        builder.append('-').append(commandLine.getOption(ordinal).getShortName());
+                    } else {
+                        builder.append("option ").append(ordinal);
+                    }
+                }
+                if (action == Action.MATCHED && count > 0) {
+                    builder.append(", took [").append(argument + 1);
+                    if (count > 1) {
+                        builder.append("..").append(argument + count);
+                    }
+                    builder.append(']');
+                }
+                builder.append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
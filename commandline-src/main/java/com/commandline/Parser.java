@@ -2,26 +2,48 @@ package main.java.com.commandline;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.List;
 
 /*
  * The parser that handles parsing command line arguments and storing them into their appropriate Options.
  *
  * @author Zach Wilson
  */
-public class Parser {
+public class Parser extends AbstractParser {
+
+    /**
+     * Told about every occurrence of an option as soon as its arguments have been taken.
+     */
+    interface OccurrenceListener {
+
+        /**
+         * Called for an occurrence of an option.
+         * @param ordinal ordinal of the option.
+         * @param arguments arguments of the occurrence; for a key-value option, the entry.
+         */
+        void onOccurrence(int ordinal, List<String> arguments);
+    }
 
     /** The command line arguments. */
     private ArrayList<String> args;
 
-    /** The available options for command line arguments. */
+    /** The available options for command line arguments; null if only results are parsed. */
     private ArrayList<Option> options;
 
-    /**
-     * Constructor.
-     */
-    @SuppressWarnings("unused")
-    private Parser() {}
+    /** How the result holds arguments. */
+    private ArgumentStorage storage = ArgumentStorage.STRINGS;
+
+    /** Index of the next argument. */
+    private int position;
+
+    /** Whether options found by an earlier parse into the Options objects count as found. */
+    private boolean live;
+
+    /** The current argument. */
+    private String arg;
+
+    /** The argument held as a tag. */
+    private String tag;
 
     /**
      * Constructor.
@@ -30,69 +52,117 @@ public class Parser {
      * @param options list of command line options.
      */
     public Parser(String[] args, ArrayList<Option> options) {
+        this(args, options, new OptionTable(options, -1, null));
+    }
+
+    /**
+     * Constructor.
+     * Sets args, options and the specification they are read through.
+     * @param args command line arguments.
+     * @param options list of command line options; null if only results are parsed.
+     * @param table the specification being parsed against.
+     */
+    Parser(String[] args, ArrayList<Option> options, SpecTable table) {
+        super(table);
         this.args = new ArrayList<>(Arrays.asList(args));
         this.options = options;
     }
 
+    /**
+     * Sets how the result holds arguments.
+     * @param storage how arguments are held.
+     */
+    void setArgumentStorage(final ArgumentStorage storage) {
+        this.storage = storage;
+    }
+
     /**
      * Parses command line arguments and loads them into Options objects.
      * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
      */
     public void parse() throws IllegalArgumentException {
+        parseIntoOptions();
+    }
 
-        // Iterates over the arguments list
-        Iterator<String> iterator = this.args.iterator();
-
-        // Keeps track of whether a first argument has been obtained
-        boolean firstArgument = true;
-
-        // Iterate over arguments list
-        while (iterator.hasNext()) {
-
-            // Get the first argument
-            String arg = iterator.next();
-
-            // If the argument isn't an option, throw exception
-            if (!arg.startsWith("-")) {
-                if (firstArgument) {
-                    throw new IllegalArgumentException("Missing command line option.");
-                }
-                throw new IllegalArgumentException("Too many arguments for option.");
-            }
-
-            firstArgument = false;
-
-            // Iterate over the options, looking for a match
-            for (Option option : this.options) {
-
-                // Do not re-check options with arguments
-                // Check if argument matches long or short name
-                if (!option.isFound() && option.hasTag(arg)) {
-
-                    // Number of arguments preceding an option is known
-                    // Keep looping through until that number is expelled
-                    for(int counter = 0; counter < option.getExpectedArgumentCount(); ++counter) {
-
-                        // If there is no next-item, an item is missing: throw exception
-                        if (!iterator.hasNext()) {
-                            throw new IllegalArgumentException("Missing argument for option '" +
-                                    option.getShortName() + "'. Given " + counter + ", expected " +
-                                    option.getExpectedArgumentCount() + ".");
-                        }
-
-                        // Ensuring no option is found here because more args are expected
-                        String a = iterator.next();
-                        if (a.startsWith("-")) {
-                            throw new IllegalArgumentException();
-                        }
-
-                        // If all checks out, assign argument into it's associated option
-                        option.addArgument(a);
-                    }
-                    option.setFound(true);
-                }
-            }
-        }
+    /**
+     * Parses command line arguments and loads them into Options objects.
+     * @return the parse result that was loaded.
+     * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
+     */
+    ParseResult parseIntoOptions() throws IllegalArgumentException {
+        ParseResult result = parse(true);
+        result.applyTo(this.options);
+        return result;
+    }
+
+    /**
+     * Parses command line arguments into a result, without changing the Options objects.
+     * Several threads may parse against the same options at once, as long as the options are not changed.
+     * @return the parse result.
+     * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
+     */
+    ParseResult parseResult() throws IllegalArgumentException {
+        return parse(false);
+    }
+
+    /**
+     * Parses command line arguments into a result.
+     * @param live whether options found by an earlier parse into the Options objects count as found.
+     * @return the parse result.
+     * @throws IllegalArgumentException if there is an incorrect number of command line arguments.
+     */
+    private ParseResult parse(final boolean live) throws IllegalArgumentException {
+        this.position = 0;
+        this.live = live;
+        return parse(new ParseResult(getTable(), this.storage), this.args.size());
+    }
+
+    @Override
+    boolean hasNext() {
+        return this.position < this.args.size();
+    }
+
+    @Override
+    void next() {
+        this.arg = this.args.get(this.position++);
+    }
+
+    @Override
+    void holdTag() {
+        this.tag = this.arg;
+    }
+
+    @Override
+    boolean isDash() {
+        return this.arg.startsWith("-");
+    }
+
+    @Override
+    int find(final SpecTable table, final int from) {
+        return table.find(this.tag, from);
+    }
+
+    @Override
+    boolean wasFound(final int ordinal) {
+        return this.live && this.options.get(ordinal).isFound();
+    }
+
+    @Override
+    boolean startsWith(final String tag) {
+        return this.tag.length() > tag.length() && this.tag.startsWith(tag);
+    }
+
+    @Override
+    String decode() {
+        return this.arg;
+    }
+
+    @Override
+    String addArgument(final ParseResult result, final int slot, final Fingerprint.Hasher hasher) {
+        String argument = canonicalize(this.arg);
+        result.addArgument(slot, argument);
+        hasher.add(argument);
+        return argument;
     }
 
     /**
@@ -0,0 +1,275 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * A list of non-negative integers and inclusive ranges, e.g. "0-1023,2048-4095" or "1,5,9".
+ *
+ * Only the bounds of each range are stored, so a range of millions of values costs as much as a
+ * single value. The values are expanded on request into a {@link BitSet}, a primitive array or a
+ * lazy {@link IntStream}.
+ *
+ * @author Zach Wilson
+ */
+public final class RangeList {
+
+    /** Start and end of each range, inclusive. */
+    private final int[] bounds;
+
+    /** Number of ranges. */
+    private final int rangeCount;
+
+    /** Number of values in all ranges. */
+    private final long size;
+
+    /**
+     * Constructor.
+     * @param bounds start and end of each range.
+     * @param rangeCount number of ranges.
+     * @param size number of values.
+     */
+    private RangeList(final int[] bounds, final int rangeCount, final long size) {
+        this.bounds = bounds;
+        this.rangeCount = rangeCount;
+        this.size = size;
+    }
+
+    /**
+     * Parses a comma separated list of values and ranges in a single scan.
+     * @param text list to be parsed, e.g. "0-3,8,10-12".
+     * @return parsed list.
+     * @throws IllegalArgumentException if the text is not a valid list.
+     */
+    public static RangeList parse(final String text) {
+        int[] bounds = new int[8];
+        int rangeCount = 0;
+        long size = 0;
+
+        int length = text.length();
+        int position = 0;
+        while (true) {
+            // Start of a range
+            int start = position;
+            long low = 0;
+            while (position < length && isDigit(text.charAt(position))) {
+                low = low * 10 + (text.charAt(position++) - '0');
+                if (low > Integer.MAX_VALUE) {
+                    throw invalid(text, start, "value too large");
+                }
+            }
+            if (position == start) {
+                throw invalid(text, position, "expected a number");
+            }
+
+            // Optional end of the range
+            long high = low;
+            if (position < length && text.charAt(position) == '-') {
+                start = ++position;
+                high = 0;
+                while (position < length && isDigit(text.charAt(position))) {
+                    high = high * 10 + (text.charAt(position++) - '0');
+                    if (high > Integer.MAX_VALUE) {
+                        throw invalid(text, start, "value too large");
+                    }
+                }
+                if (position == start) {
+                    throw invalid(text, position, "expected a number");
+                }
+                if (high < low) {
+                    throw invalid(text, start, "range end is less than its start");
+                }
+            }
+
+            if (rangeCount * 2 == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[rangeCount * 2] = (int) low;
+            bounds[rangeCount * 2 + 1] = (int) high;
+            ++rangeCount;
+            size += high - low + 1;
+
+            if (position == length) {
+                break;
+            }
+            if (text.charAt(position) != ',') {
+                throw invalid(text, position, "expected ',' or '-'");
+            }
+            ++position;
+        }
+        return new RangeList(bounds, rangeCount, size);
+    }
+
+    /**
+     * Gets the number of ranges. A single value counts as a range.
+     * @return number of ranges.
+     */
+    public int getRangeCount() {
+        return this.rangeCount;
+    }
+
+    /**
+     * Gets the start of the range with the specified index.
+     * @param index index of the range.
+     * @return first value of the range.
+     */
+    public int getStart(final int index) {
+        checkIndex(index);
+        return this.bounds[index * 2];
+    }
+
+    /**
+     * Gets the end of the range with the specified index.
+     * @param index index of the range.
+     * @return last value of the range, inclusive.
+     */
+    public int getEnd(final int index) {
+        checkIndex(index);
+        return this.bounds[index * 2 + 1];
+    }
+
+    /**
+     * Gets the number of values in all ranges, counting repeated values each time.
+     * @return number of values.
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Determines whether any range contains the value.
+     * @param value value to be searched for.
+     * @return true if the value is in the list.
+     */
+    public boolean contains(final int value) {
+        for (int index = 0; index < this.rangeCount; ++index) {
+            if (value >= this.bounds[index * 2] && value <= this.bounds[index * 2 + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expands the list into a bit set.
+     * @return bit set with a bit set for every value.
+     */
+    public BitSet toBitSet() {
+        BitSet set = new BitSet();
+        for (int index = 0; index < this.rangeCount; ++index) {
+            int end = this.bounds[index * 2 + 1];
+            if (end == Integer.MAX_VALUE) {
+                set.set(this.bounds[index * 2], end);
+                set.set(end);
+            } else {
+                set.set(this.bounds[index * 2], end + 1);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Expands the list into an array of values, in the order given.
+     * @return values.
+     * @throws IllegalStateException if there are too many values for an array.
+     */
+    public int[] toIntArray() {
+        int[] values = new int[arraySize()];
+        int position = 0;
+        for (int index = 0; index < this.rangeCount; ++index) {
+            int end = this.bounds[index * 2 + 1];
+            for (int value = this.bounds[index * 2]; ; ++value) {
+                values[position++] = value;
+                if (value == end) {
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Expands the list into an array of values, in the order given.
+     * @return values.
+     * @throws IllegalStateException if there are too many values for an array.
+     */
+    public long[] toLongArray() {
+        long[] values = new long[arraySize()];
+        int position = 0;
+        for (int index = 0; index < this.rangeCount; ++index) {
+            long end = this.bounds[index * 2 + 1];
+            for (long value = this.bounds[index * 2]; value <= end; ++value) {
+                values[position++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Streams the values in the order given. Values are produced lazily, range by range.
+     * @return stream of values.
+     */
+    public IntStream stream() {
+        return IntStream.range(0, this.rangeCount)
+                .flatMap(index -> IntStream.rangeClosed(this.bounds[index * 2], this.bounds[index * 2 + 1]));
+    }
+
+    /**
+     * Gets the size of an array holding every value.
+     * @return number of values.
+     */
+    private int arraySize() {
+        if (this.size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many values for an array: " + this.size + ".");
+        }
+        return (int) this.size;
+    }
+
+    /**
+     * Checks that a range index is valid.
+     * @param index index to be checked.
+     */
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= this.rangeCount) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + this.rangeCount + ".");
+        }
+    }
+
+    /**
+     * Determines whether the character is an ASCII digit.
+     * @param c character to be checked.
+     * @return true if the character is a digit.
+     */
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Creates the exception for an invalid list.
+     * @param text list being parsed.
+     * @param position position of the error.
+     * @param reason what is wrong.
+     * @return exception to be thrown.
+     */
+    private static IllegalArgumentException invalid(final String text, final int position, final String reason) {
+        return new IllegalArgumentException("Invalid range list '" + text + "' at position " + position + ": " +
+                reason + ".");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < this.rangeCount; ++index) {
+            if (index > 0) {
+                builder.append(",");
+            }
+            builder.append(this.bounds[index * 2]);
+            if (this.bounds[index * 2 + 1] != this.bounds[index * 2]) {
+                builder.append("-");
+                builder.append(this.bounds[index * 2 + 1]);
+            }
+        }
+        return builder.toString();
+    }
+}
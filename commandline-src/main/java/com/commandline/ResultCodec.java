@@ -0,0 +1,457 @@
+package main.java.com.commandline;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes parse results into a compact binary form, so that a process which parsed a command line
+ * can hand what it found to workers, which read it back without matching any tags, and re-emits
+ * results as canonical command line arguments.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header:  magic, version, length of the whole encoding, option count,
+ *            fingerprint high, fingerprint low, found count
+ *   found:   ordinal, spec check, count, argument count, entry count,
+ *            then each argument and each entry as length and UTF-8 bytes
+ * </pre>
+ * Options are written in the order they were found. An encoding is at most {@link #MAX_LENGTH} bytes,
+ * so that a reader checks the length it is given before allocating for it. The spec check of an option is a hash of its
+ * short tag, argument count and whether it takes entries, so that a result is not read against a
+ * specification which gives its ordinals another meaning. Arguments of a decoded result stay in the
+ * bytes they were read from, as those of {@link CommandLine#parseResult(ByteBuffer)} do.
+ *
+ * @author Zach Wilson
+ */
+final class ResultCodec {
+
+    /** Identifies an encoded result: "CLPR". */
+    private static final int MAGIC = 0x434C5052;
+
+    /** Current format version. */
+    private static final int VERSION = 1;
+
+    /** Size of the header in bytes. */
+    static final int HEADER_SIZE = 4 * 4 + 2 * 8 + 4;
+
+    /** Size of the fields of a found option in bytes, before its strings. */
+    private static final int FOUND_SIZE = 5 * 4;
+
+    /** Largest encoding in bytes. */
+    static final int MAX_LENGTH = 1 << 26;
+
+    /** Initial size of the encoding buffer. */
+    private static final int INITIAL_SIZE = 256;
+
+    /** The bytes written so far. */
+    private byte[] bytes = new byte[INITIAL_SIZE];
+
+    /** Number of bytes written so far. */
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    private ResultCodec() {}
+
+    /**
+     * Encodes a result.
+     * @param result the result.
+     * @param table the specification that was parsed against.
+     * @return buffer holding the encoding, from position 0 to its limit.
+     * @throws IllegalArgumentException if the encoding would be longer than {@link #MAX_LENGTH}.
+     */
+    static ByteBuffer encode(final ParseResult result, final SpecTable table) {
+        ResultCodec codec = new ResultCodec();
+        Fingerprint fingerprint = result.getFingerprint();
+        codec.putInt(MAGIC);
+        codec.putInt(VERSION);
+        codec.putInt(0);
+        codec.putInt(table.size());
+        codec.putLong(fingerprint.getHigh());
+        codec.putLong(fingerprint.getLow());
+        codec.putInt(result.getFoundCount());
+        for (int i = 0; i < result.getFoundCount(); ++i) {
+            int ordinal = result.getFoundOrdinal(i);
+            List<String> arguments = result.getArguments(ordinal);
+            ArgumentMap entries = result.getEntries(ordinal);
+            int entryCount = entries == null ? 0 : entries.size();
+            codec.putInt(ordinal);
+            codec.putInt(check(table, ordinal));
+            codec.putInt(result.getCount(ordinal));
+            codec.putInt(arguments.size());
+            codec.putInt(entryCount);
+            for (int index = 0; index < arguments.size(); ++index) {
+                codec.putString(arguments.get(index), 0);
+            }
+            for (int index = 0; index < entryCount; ++index) {
+                codec.putString(entries.getSource(index), entries.getKeyStart(index));
+            }
+        }
+
+        // The length is only known at the end
+        int size = codec.size;
+        if (size > MAX_LENGTH) {
+            throw new IllegalArgumentException("Parse result of " + size + " bytes is too large to encode.");
+        }
+        codec.size = 8;
+        codec.putInt(size);
+        return ByteBuffer.wrap(codec.bytes, 0, size);
+    }
+
+    /**
+     * Decodes a result from the position of a buffer, and moves the position past it. The bytes of a
+     * buffer with an accessible array are read in place; those of any other buffer are copied once.
+     * @param buffer the encoding.
+     * @param table the specification to read the result against.
+     * @return the decoded result.
+     * @throws IllegalArgumentException if the buffer does not hold an encoded result, or the result was
+     *         encoded against another specification.
+     */
+    static ParseResult decode(final ByteBuffer buffer, final SpecTable table) {
+        int length = checkHeader(buffer, buffer.position(), table);
+        if (length > buffer.remaining()) {
+            throw corrupt();
+        }
+        byte[] bytes;
+        int start;
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            start = buffer.arrayOffset() + buffer.position();
+        } else {
+            bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            start = 0;
+        }
+        ParseResult result = decode(bytes, start, start + length, table);
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+
+    /**
+     * Reads one result from a channel, such as a pipe.
+     * @param channel the channel.
+     * @param table the specification to read the result against.
+     * @return the decoded result; but if the channel is at its end, null.
+     * @throws IOException if the channel cannot be read or ends within a result.
+     * @throws IllegalArgumentException if the channel does not hold an encoded result, or the result was
+     *         encoded against another specification.
+     */
+    static ParseResult read(final ReadableByteChannel channel, final SpecTable table) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(channel, header)) {
+            return null;
+        }
+
+        // The length has been checked against the limit, so a corrupt one allocates little
+        int length = checkHeader(header, 0, table);
+        byte[] bytes = Arrays.copyOf(header.array(), length);
+        if (!readFully(channel, ByteBuffer.wrap(bytes, HEADER_SIZE, length - HEADER_SIZE))) {
+            throw new EOFException("Channel ended within a parse result.");
+        }
+        return decode(bytes, 0, length, table);
+    }
+
+    /**
+     * Fills a buffer from a channel.
+     * @param channel the channel.
+     * @param buffer the buffer.
+     * @return true if the buffer was filled; false if the channel ended before anything was read.
+     * @throws IOException if the channel cannot be read or ends after part of the buffer was read.
+     */
+    private static boolean readFully(final ReadableByteChannel channel, final ByteBuffer buffer)
+            throws IOException {
+        boolean started = false;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (started) {
+                    throw new EOFException("Channel ended within a parse result.");
+                }
+                return false;
+            }
+            started = true;
+        }
+        return true;
+    }
+
+    /**
+     * Checks the header of an encoding.
+     * @param buffer buffer holding the header.
+     * @param position position of the header.
+     * @param table the specification to read the result against.
+     * @return length of the encoding in bytes, at most {@link #MAX_LENGTH}.
+     * @throws IllegalArgumentException if the header is not that of an encoded result, or the result was
+     *         encoded against another specification.
+     */
+    private static int checkHeader(final ByteBuffer buffer, final int position, final SpecTable table) {
+        if (buffer.limit() - position < HEADER_SIZE || buffer.getInt(position) != MAGIC) {
+            throw new IllegalArgumentException("Not an encoded parse result.");
+        }
+        if (buffer.getInt(position + 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported parse result version " + buffer.getInt(position + 4) +
+                    ", expected " + VERSION + ".");
+        }
+        if (buffer.getInt(position + 12) != table.size()) {
+            throw mismatch();
+        }
+        int length = buffer.getInt(position + 8);
+        int found = buffer.getInt(position + 32);
+        if (length < HEADER_SIZE || length > MAX_LENGTH || found < 0 || found > table.size()
+                || found > (length - HEADER_SIZE) / FOUND_SIZE) {
+            throw corrupt();
+        }
+        return length;
+    }
+
+    /**
+     * Decodes a result whose header has been checked.
+     * @param bytes the bytes holding the encoding.
+     * @param start index of the first byte of the encoding.
+     * @param end index after the last byte of the encoding.
+     * @param table the specification to read the result against.
+     * @return the decoded result.
+     * @throws IllegalArgumentException if the encoding is corrupt, or the result was encoded against
+     *         another specification.
+     */
+    private static ParseResult decode(final byte[] bytes, final int start, final int end, final SpecTable table) {
+        ParseResult result = new ParseResult(table, bytes);
+        result.setFingerprint(getLong(bytes, start + 16), getLong(bytes, start + 24));
+        int found = getInt(bytes, start + 32);
+        int position = start + HEADER_SIZE;
+        for (int i = 0; i < found; ++i) {
+            if (end - position < FOUND_SIZE) {
+                throw corrupt();
+            }
+            int ordinal = getInt(bytes, position);
+            int count = getInt(bytes, position + 8);
+            int argumentCount = getInt(bytes, position + 12);
+            int entryCount = getInt(bytes, position + 16);
+            if (ordinal < 0 || ordinal >= table.size() || result.isFound(ordinal) || count < 1
+                    || argumentCount < 0 || entryCount < 0 || (entryCount > 0 && !table.isKeyValue(ordinal))) {
+                throw corrupt();
+            }
+            if (getInt(bytes, position + 4) != check(table, ordinal)) {
+                throw mismatch();
+            }
+            position += FOUND_SIZE;
+
+            int slot = result.markFound(ordinal);
+            for (int occurrence = 1; occurrence < count; ++occurrence) {
+                result.markFound(ordinal);
+            }
+            for (int argument = 0; argument < argumentCount; ++argument) {
+                int length = stringLength(bytes, position, end);
+                result.addArgument(slot, position + 4, position + 4 + length);
+                position += 4 + length;
+            }
+            for (int entry = 0; entry < entryCount; ++entry) {
+                int length = stringLength(bytes, position, end);
+                String source = ByteStore.decode(bytes, position + 4, position + 4 + length);
+                if (!result.addEntry(slot, source, 0, table.getDuplicateKeyPolicy(ordinal))) {
+                    throw corrupt();
+                }
+                position += 4 + length;
+            }
+        }
+        if (position != end) {
+            throw corrupt();
+        }
+        result.finish();
+        return result;
+    }
+
+    /**
+     * Re-emits a result as the canonical command line arguments which parse back into it: options in
+     * ordinal order by their short tags, each occurrence followed by its arguments, and each entry of a
+     * key-value option as a separate argument after the tag, or attached to it if the entry itself
+     * starts with '-'.
+     * @param result the result.
+     * @param table the specification that was parsed against.
+     * @return the arguments.
+     */
+    static String[] toArgs(final ParseResult result, final SpecTable table) {
+
+        // Count first, so that the arguments are gathered into an array of the right size
+        int total = 0;
+        for (int ordinal = result.nextFound(0); ordinal >= 0; ordinal = result.nextFound(ordinal + 1)) {
+            if (table.isKeyValue(ordinal)) {
+                total += 2 * entryCount(result, ordinal);
+            } else {
+                total += result.getCount(ordinal) + result.getArguments(ordinal).size();
+            }
+        }
+
+        String[] args = new String[total];
+        int position = 0;
+        for (int ordinal = result.nextFound(0); ordinal >= 0; ordinal = result.nextFound(ordinal + 1)) {
+            String tag = table.getShortTag(ordinal);
+            if (table.isKeyValue(ordinal)) {
+                ArgumentMap entries = result.getEntries(ordinal);
+                for (int index = 0; index < entryCount(result, ordinal); ++index) {
+                    String entry = entries.getSource(index).substring(entries.getKeyStart(index));
+                    if (entry.startsWith("-")) {
+                        args[position++] = tag + entry;
+                    } else {
+                        args[position++] = tag;
+                        args[position++] = entry;
+                    }
+                }
+                continue;
+            }
+            List<String> arguments = result.getArguments(ordinal);
+            int perOccurrence = table.getExpectedArgumentCount(ordinal);
+            int next = 0;
+            for (int occurrence = 0; occurrence < result.getCount(ordinal); ++occurrence) {
+                args[position++] = tag;
+                for (int i = 0; i < perOccurrence && next < arguments.size(); ++i) {
+                    args[position++] = arguments.get(next++);
+                }
+            }
+        }
+
+        // Entries written attached take one argument instead of two
+        return position == args.length ? args : Arrays.copyOf(args, position);
+    }
+
+    /**
+     * Gets the number of entries of a found key-value option.
+     * @param result the result.
+     * @param ordinal ordinal of the option.
+     * @return number of entries.
+     */
+    private static int entryCount(final ParseResult result, final int ordinal) {
+        ArgumentMap entries = result.getEntries(ordinal);
+        return entries == null ? 0 : entries.size();
+    }
+
+    /**
+     * Hashes what an ordinal must mean for a result to be read: the option's short tag, argument count
+     * and whether it takes entries.
+     * @param table the specification.
+     * @param ordinal ordinal of the option.
+     * @return spec check.
+     */
+    private static int check(final SpecTable table, final int ordinal) {
+        return (table.getShortTag(ordinal).hashCode() * 31 + table.getExpectedArgumentCount(ordinal)) * 2
+                + (table.isKeyValue(ordinal) ? 1 : 0);
+    }
+
+    /**
+     * Reads the length of a string and checks that the string lies within the encoding.
+     * @param bytes the bytes holding the encoding.
+     * @param position position of the length.
+     * @param end index after the last byte of the encoding.
+     * @return length of the string in bytes.
+     * @throws IllegalArgumentException if the string does not lie within the encoding.
+     */
+    private static int stringLength(final byte[] bytes, final int position, final int end) {
+        if (end - position < 4) {
+            throw corrupt();
+        }
+        int length = getInt(bytes, position);
+        if (length < 0 || length > end - position - 4) {
+            throw corrupt();
+        }
+        return length;
+    }
+
+    /**
+     * Creates the exception thrown for a corrupt encoding.
+     * @return the exception.
+     */
+    private static IllegalArgumentException corrupt() {
+        return new IllegalArgumentException("Corrupt parse result.");
+    }
+
+    /**
+     * Creates the exception thrown for a result encoded against another specification.
+     * @return the exception.
+     */
+    private static IllegalArgumentException mismatch() {
+        return new IllegalArgumentException("Parse result was encoded against another specification.");
+    }
+
+    /**
+     * Reads a big-endian int.
+     * @param bytes the bytes.
+     * @param position position of the first byte.
+     * @return the value.
+     */
+    private static int getInt(final byte[] bytes, final int position) {
+        return (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16
+                | (bytes[position + 2] & 0xFF) << 8 | (bytes[position + 3] & 0xFF);
+    }
+
+    /**
+     * Reads a big-endian long.
+     * @param bytes the bytes.
+     * @param position position of the first byte.
+     * @return the value.
+     */
+    private static long getLong(final byte[] bytes, final int position) {
+        return (long) getInt(bytes, position) << 32 | (getInt(bytes, position + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Makes room for more bytes.
+     * @param count number of bytes about to be written.
+     */
+    private void reserve(final int count) {
+        if (this.size + count > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.size + count));
+        }
+    }
+
+    /**
+     * Writes a big-endian int.
+     * @param value the value.
+     */
+    private void putInt(final int value) {
+        reserve(4);
+        this.bytes[this.size] = (byte) (value >>> 24);
+        this.bytes[this.size + 1] = (byte) (value >>> 16);
+        this.bytes[this.size + 2] = (byte) (value >>> 8);
+        this.bytes[this.size + 3] = (byte) value;
+        this.size += 4;
+    }
+
+    /**
+     * Writes a big-endian long.
+     * @param value the value.
+     */
+    private void putLong(final long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    /**
+     * Writes the end of a string as its length and UTF-8 bytes. ASCII characters are copied as they
+     * are; a string which is not ASCII is encoded first.
+     * @param string the string.
+     * @param start index of the first character to be written.
+     */
+    private void putString(final String string, final int start) {
+        int length = string.length() - start;
+        reserve(4 + length);
+        int position = this.size + 4;
+        for (int i = start; i < string.length(); ++i) {
+            char c = string.charAt(i);
+            if (c >= 0x80) {
+                byte[] encoded = string.substring(start).getBytes(StandardCharsets.UTF_8);
+                putInt(encoded.length);
+                reserve(encoded.length);
+                System.arraycopy(encoded, 0, this.bytes, this.size, encoded.length);
+                this.size += encoded.length;
+                return;
+            }
+            this.bytes[position++] = (byte) c;
+        }
+        putInt(length);
+        this.size += length;
+    }
+}
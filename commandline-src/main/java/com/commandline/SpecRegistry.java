@@ -0,0 +1,111 @@
+package main.java.com.commandline;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current specification of a long-running service, which may be replaced while requests
+ * are being parsed.
+ *
+ * The current specification is a frozen {@link CommandLine} held in an atomic reference, and is never
+ * changed. An update copies it, changes the copy, freezes the copy, which builds its tag index, and
+ * then publishes it in one swap; all of this happens on the updating thread, so parses only ever read
+ * the reference. A parse that started before a swap finishes against the specification it started
+ * with.
+ *
+ * @author Zach Wilson
+ */
+public final class SpecRegistry {
+
+    /** The current specification, frozen. */
+    private final AtomicReference<CommandLine> current;
+
+    /**
+     * Constructor.
+     * @param commandLine the initial specification; it is copied, so it may still be changed.
+     * @throws IllegalArgumentException if two options share a tag.
+     */
+    public SpecRegistry(final CommandLine commandLine) {
+        this.current = new AtomicReference<>(compile(commandLine));
+    }
+
+    /**
+     * Copies and freezes a specification.
+     * @param commandLine the specification.
+     * @return frozen copy.
+     * @throws IllegalArgumentException if two options share a tag.
+     */
+    private static CommandLine compile(final CommandLine commandLine) {
+        CommandLine copy = commandLine.copy();
+        copy.freeze();
+        return copy;
+    }
+
+    /**
+     * Gets the current specification. It is frozen, so it may be read and parsed against from any
+     * thread, but not changed; use {@link #update(Consumer)} for that. It is only parsed into results,
+     * with {@link CommandLine#parseResult(String[])} or {@link #parseResult(String[])}:
+     * {@link CommandLine#parse(String[])} stores into the options shared by every thread, so it throws
+     * {@link IllegalStateException}, and the getters of {@link OptionHandle} which take no result have
+     * nothing to read.
+     * @return the current specification.
+     */
+    public CommandLine getCurrent() {
+        return this.current.get();
+    }
+
+    /**
+     * Parses command line arguments into a result against the current specification.
+     * @param args command line arguments.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public ParseResult parseResult(final String[] args) {
+        return this.current.get().parseResult(args);
+    }
+
+    /**
+     * Parses command line arguments given as NUL-separated UTF-8 bytes into a result against the
+     * current specification.
+     * @param args command line arguments, separated by NUL.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     * @see CommandLine#parseResult(ByteBuffer)
+     */
+    public ParseResult parseResult(final ByteBuffer args) {
+        return this.current.get().parseResult(args);
+    }
+
+    /**
+     * Replaces the current specification.
+     * @param commandLine the new specification; it is copied, so it may still be changed.
+     * @return the published specification.
+     * @throws IllegalArgumentException if two options share a tag.
+     */
+    public CommandLine publish(final CommandLine commandLine) {
+        CommandLine compiled = compile(commandLine);
+        this.current.set(compiled);
+        return compiled;
+    }
+
+    /**
+     * Changes the current specification. The change is applied to a copy which is not frozen, so it may
+     * add options and change those it holds. If another update is published meanwhile, the change is
+     * applied again to a copy of that one, so it must not have other effects.
+     * @param change change to the specification.
+     * @return the published specification.
+     * @throws IllegalArgumentException if the change leaves two options sharing a tag.
+     */
+    public CommandLine update(final Consumer<CommandLine> change) {
+        while (true) {
+            CommandLine base = this.current.get();
+            CommandLine copy = base.copy();
+            change.accept(copy);
+            copy.freeze();
+            if (this.current.compareAndSet(base, copy)) {
+                return copy;
+            }
+        }
+    }
+}
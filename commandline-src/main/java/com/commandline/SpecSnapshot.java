@@ -0,0 +1,716 @@
+package main.java.com.commandline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A compiled, versioned binary snapshot of a command line specification.
+ *
+ * The snapshot is loaded through a memory-mapped file. Lookups read directly from the mapped buffer
+ * and descriptions are only decoded when they are requested. Arguments are parsed against the tables
+ * of the snapshot with {@link #parseResult(String[])} or {@link #parseResult(ByteBuffer)}, following
+ * the same rules as a frozen {@link CommandLine} whose tags are matched exactly: no option is built,
+ * and only the short tags of the options found are decoded. As when freezing, each tag belongs to one
+ * option, so a command line with options sharing a tag cannot be written.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header:  magic, version, option count, help ordinal, index size
+ *   records: short offset, short length, long offset, long length,
+ *            description offset, description length, argument count, flags
+ *   index:   open-addressing table of (ordinal + 1) keyed by tag
+ *   strings: UTF-8 tags ("-x", "--xx") and descriptions
+ * </pre>
+ *
+ * @author Zach Wilson
+ */
+public final class SpecSnapshot extends SpecTable {
+
+    /** Identifies a snapshot file: "CLSP". */
+    private static final int MAGIC = 0x434C5350;
+
+    /** Current snapshot format version; 2 added the repeatable and key-value flags and the policy. */
+    private static final int VERSION = 2;
+
+    /** Size of the header in bytes. */
+    private static final int HEADER_SIZE = 5 * 4;
+
+    /** Number of int fields per option record. */
+    private static final int RECORD_FIELDS = 8;
+
+    /** Size of an option record in bytes. */
+    private static final int RECORD_SIZE = RECORD_FIELDS * 4;
+
+    /** Flag: the option is required. */
+    private static final int FLAG_REQUIRED = 1;
+
+    /** Flag: the option is the help option. */
+    private static final int FLAG_HELP = 1 << 1;
+
+    /** Flag: the option is repeatable. */
+    private static final int FLAG_REPEATABLE = 1 << 2;
+
+    /** Flag: the option takes key-value entries. */
+    private static final int FLAG_KEY_VALUE = 1 << 3;
+
+    /** Shift of the duplicate key policy ordinal within the flags. */
+    private static final int POLICY_SHIFT = 4;
+
+    /** All duplicate key policies, by ordinal. */
+    private static final DuplicateKeyPolicy[] POLICIES = DuplicateKeyPolicy.values();
+
+    /** The mapped snapshot. */
+    private final ByteBuffer buffer;
+
+    /** Number of options in the snapshot. */
+    private final int count;
+
+    /** Ordinal of the help option, or -1. */
+    private final int helpOrdinal;
+
+    /** Number of slots in the tag index. */
+    private final int indexSize;
+
+    /** Position of the tag index. */
+    private final int indexStart;
+
+    /** Position of the string pool. */
+    private final int stringsStart;
+
+    /** Short tags decoded so far, by ordinal. */
+    private final String[] shortTags;
+
+    /** Ordinals of the key-value options; null until needed. */
+    private volatile int[] keyValueOrdinals;
+
+    /** Ordinals of the required options; null until needed. */
+    private volatile int[] requiredOrdinals;
+
+    /**
+     * Constructor. The header, records and index are checked once, so that lookups may trust them.
+     * @param buffer snapshot contents.
+     * @throws IOException if the buffer is not a valid snapshot.
+     */
+    private SpecSnapshot(final ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a command line snapshot.");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ", expected " + VERSION + ".");
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.helpOrdinal = buffer.getInt(12);
+        this.indexSize = buffer.getInt(16);
+
+        // Sizes are checked before they are multiplied, so that a corrupt file cannot overflow them
+        if (this.count < 0 || this.count > (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE ||
+            this.helpOrdinal < -1 || this.helpOrdinal >= this.count) {
+            throw corrupt();
+        }
+        this.indexStart = HEADER_SIZE + this.count * RECORD_SIZE;
+        if (Integer.bitCount(this.indexSize) != 1 || this.indexSize > (buffer.capacity() - this.indexStart) / 4) {
+            throw corrupt();
+        }
+        this.stringsStart = this.indexStart + this.indexSize * 4;
+        checkRecords();
+        checkIndex();
+        this.shortTags = new String[this.count];
+    }
+
+    /**
+     * Checks that every record lies within the string pool and holds a known argument count and policy.
+     * @throws IOException if a record is corrupt.
+     */
+    private void checkRecords() throws IOException {
+        int stringsSize = this.buffer.capacity() - this.stringsStart;
+        for (int ordinal = 0; ordinal < this.count; ++ordinal) {
+            for (int field = 0; field < 6; field += 2) {
+                int offset = record(ordinal, field);
+                int length = record(ordinal, field + 1);
+
+                // A missing description has length -1
+                if (field == 4 && length == -1) {
+                    continue;
+                }
+                if (offset < 0 || length < 0 || length > stringsSize - offset) {
+                    throw corrupt();
+                }
+            }
+            int flags = record(ordinal, 7);
+            if (record(ordinal, 1) < 2 || record(ordinal, 6) < 0 || flags >>> POLICY_SHIFT >= POLICIES.length) {
+                throw corrupt();
+            }
+        }
+    }
+
+    /**
+     * Checks that the index only holds ordinals of the snapshot and has an empty slot, at which every
+     * lookup of a missing tag stops.
+     * @throws IOException if the index is corrupt.
+     */
+    private void checkIndex() throws IOException {
+        boolean empty = false;
+        for (int slot = 0; slot < this.indexSize; ++slot) {
+            int entry = this.buffer.getInt(this.indexStart + slot * 4);
+            if (entry < 0 || entry > this.count) {
+                throw corrupt();
+            }
+            empty |= entry == 0;
+        }
+        if (!empty) {
+            throw corrupt();
+        }
+    }
+
+    /**
+     * Creates the exception thrown for a snapshot which is not consistent.
+     * @return the exception.
+     */
+    private static IOException corrupt() {
+        return new IOException("Corrupt command line snapshot.");
+    }
+
+    /**
+     * Writes the specification of a command line to a snapshot file.
+     * @param commandLine command line to be written.
+     * @param file destination file.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if two options share a tag, which a snapshot cannot look up.
+     */
+    public static void write(final CommandLine commandLine, final Path file) throws IOException {
+        ByteBuffer buffer = encode(commandLine);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Loads a snapshot file by memory-mapping it.
+     * @param file snapshot file.
+     * @return the loaded snapshot.
+     * @throws IOException if the file cannot be read or is not a valid snapshot.
+     */
+    public static SpecSnapshot load(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SpecSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Encodes the specification of a command line.
+     * @param commandLine command line to be encoded.
+     * @return buffer ready to be written.
+     * @throws IllegalArgumentException if two options share a tag.
+     */
+    static ByteBuffer encode(final CommandLine commandLine) {
+        ArrayList<Option> options = commandLine.getOptions();
+        int count = options.size();
+
+        // Encode strings
+        byte[][] shortTags = new byte[count][];
+        byte[][] longTags = new byte[count][];
+        byte[][] descriptions = new byte[count][];
+        int stringsSize = 0;
+        int tagCount = 0;
+        for (int i = 0; i < count; ++i) {
+            Option option = options.get(i);
+            shortTags[i] = ("-" + option.getShortName()).getBytes(StandardCharsets.UTF_8);
+            stringsSize += shortTags[i].length;
+            ++tagCount;
+            if (!option.getLongName().isEmpty()) {
+                longTags[i] = ("--" + option.getLongName()).getBytes(StandardCharsets.UTF_8);
+                stringsSize += longTags[i].length;
+                ++tagCount;
+            }
+            if (option.getDescription() != null) {
+                descriptions[i] = option.getDescription().getBytes(StandardCharsets.UTF_8);
+                stringsSize += descriptions[i].length;
+            }
+        }
+
+        int indexSize = Integer.highestOneBit(Math.max(tagCount, 1)) << 2;
+        int indexStart = HEADER_SIZE + count * RECORD_SIZE;
+        int stringsStart = indexStart + indexSize * 4;
+        ByteBuffer buffer = ByteBuffer.allocate(stringsStart + stringsSize);
+
+        // Header
+        int helpOrdinal = -1;
+        for (int i = 0; i < count; ++i) {
+            if (commandLine.isHelp(options.get(i))) {
+                helpOrdinal = i;
+            }
+        }
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(helpOrdinal).putInt(indexSize);
+
+        // Records and strings
+        int offset = 0;
+        for (int i = 0; i < count; ++i) {
+            Option option = options.get(i);
+            buffer.position(HEADER_SIZE + i * RECORD_SIZE);
+
+            buffer.putInt(offset).putInt(shortTags[i].length);
+            putString(buffer, stringsStart + offset, shortTags[i]);
+            offset += shortTags[i].length;
+
+            if (longTags[i] != null) {
+                buffer.putInt(offset).putInt(longTags[i].length);
+                putString(buffer, stringsStart + offset, longTags[i]);
+                offset += longTags[i].length;
+            } else {
+                buffer.putInt(0).putInt(0);
+            }
+
+            if (descriptions[i] != null) {
+                buffer.putInt(offset).putInt(descriptions[i].length);
+                putString(buffer, stringsStart + offset, descriptions[i]);
+                offset += descriptions[i].length;
+            } else {
+                buffer.putInt(0).putInt(-1);
+            }
+
+            int flags = 0;
+            if (option.isRequired()) {
+                flags |= FLAG_REQUIRED;
+            }
+            if (i == helpOrdinal) {
+                flags |= FLAG_HELP;
+            }
+            if (option.isRepeatable()) {
+                flags |= FLAG_REPEATABLE;
+            }
+            if (option.isKeyValue()) {
+                flags |= FLAG_KEY_VALUE;
+            }
+            flags |= option.getDuplicateKeyPolicy().ordinal() << POLICY_SHIFT;
+            buffer.putInt(option.getExpectedArgumentCount()).putInt(flags);
+        }
+
+        // Tag index: each tag finds one option, so options sharing a tag are rejected as when freezing
+        int mask = indexSize - 1;
+        for (int i = 0; i < count; ++i) {
+            for (byte[] tag : new byte[][] { shortTags[i], longTags[i] }) {
+                if (tag == null) {
+                    continue;
+                }
+                int slot = hash(tag, 0, tag.length) & mask;
+                while (true) {
+                    int entry = buffer.getInt(indexStart + slot * 4);
+                    if (entry == 0) {
+                        buffer.putInt(indexStart + slot * 4, i + 1);
+                        break;
+                    }
+                    if (tagEquals(buffer, stringsStart, entry - 1, tag, 0, tag.length)) {
+                        throw new IllegalArgumentException("Duplicate option tag '" +
+                                new String(tag, StandardCharsets.UTF_8) + "'.");
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Gets the number of options in the snapshot.
+     * @return number of options.
+     */
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    int getHelpOrdinal() {
+        return this.helpOrdinal;
+    }
+
+    /**
+     * Finds the ordinal of the option with the given tag: "-" short name or "--" long name.
+     * @param tag to be searched for.
+     * @return ordinal of the option; but if no option is found, -1.
+     */
+    public int indexOf(final String tag) {
+        if (!ByteStore.isAscii(tag)) {
+            byte[] bytes = tag.getBytes(StandardCharsets.UTF_8);
+            return indexOf(bytes, 0, bytes.length);
+        }
+        if (this.indexSize == 0) {
+            return -1;
+        }
+
+        // An ASCII tag is hashed and compared as it is, one byte per character
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < tag.length(); ++i) {
+            hash ^= tag.charAt(i);
+            hash *= 0x01000193;
+        }
+        int mask = this.indexSize - 1;
+        int slot = hash & mask;
+        while (true) {
+            int entry = this.buffer.getInt(this.indexStart + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            int record = HEADER_SIZE + (entry - 1) * RECORD_SIZE;
+            int shortStart = this.stringsStart + this.buffer.getInt(record);
+            int longStart = this.stringsStart + this.buffer.getInt(record + 8);
+            if (regionEquals(shortStart, this.buffer.getInt(record + 4), tag) ||
+                regionEquals(longStart, this.buffer.getInt(record + 12), tag)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Finds the ordinal of the option with the tag held in a range of UTF-8 bytes.
+     * @param bytes the bytes.
+     * @param start index of the first byte of the tag.
+     * @param end index after the last byte of the tag.
+     * @return ordinal of the option; but if no option is found, -1.
+     */
+    private int indexOf(final byte[] bytes, final int start, final int end) {
+        if (this.indexSize == 0) {
+            return -1;
+        }
+        int mask = this.indexSize - 1;
+        int slot = hash(bytes, start, end) & mask;
+        while (true) {
+            int entry = this.buffer.getInt(this.indexStart + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            if (tagEquals(this.buffer, this.stringsStart, entry - 1, bytes, start, end)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @Override
+    int find(final String tag, final int from) {
+        int ordinal = indexOf(tag);
+        return ordinal >= from ? ordinal : -1;
+    }
+
+    @Override
+    int find(final byte[] bytes, final int start, final int end, final int from) {
+        int ordinal = indexOf(bytes, start, end);
+        return ordinal >= from ? ordinal : -1;
+    }
+
+    @Override
+    int[] getKeyValueOrdinals() {
+        int[] ordinals = this.keyValueOrdinals;
+        if (ordinals == null) {
+            ordinals = ordinalsWithFlag(FLAG_KEY_VALUE);
+            this.keyValueOrdinals = ordinals;
+        }
+        return ordinals;
+    }
+
+    @Override
+    int[] getRequiredOrdinals() {
+        int[] ordinals = this.requiredOrdinals;
+        if (ordinals == null) {
+            ordinals = ordinalsWithFlag(FLAG_REQUIRED);
+            this.requiredOrdinals = ordinals;
+        }
+        return ordinals;
+    }
+
+    /**
+     * Gathers the ordinals of the options with a flag set.
+     * @param flag the flag.
+     * @return ordinals, in increasing order.
+     */
+    private int[] ordinalsWithFlag(final int flag) {
+        int[] ordinals = new int[this.count];
+        int found = 0;
+        for (int ordinal = 0; ordinal < this.count; ++ordinal) {
+            if ((record(ordinal, 7) & flag) != 0) {
+                ordinals[found++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(ordinals, found);
+    }
+
+    @Override
+    String getShortTag(final int ordinal) {
+        String tag = this.shortTags[ordinal];
+        if (tag == null) {
+            tag = readString(record(ordinal, 0), record(ordinal, 1));
+            this.shortTags[ordinal] = tag;
+        }
+        return tag;
+    }
+
+    /**
+     * Gets short name of the option.
+     * @param ordinal ordinal of the option.
+     * @return short name.
+     */
+    @Override
+    public String getShortName(final int ordinal) {
+        return getShortTag(ordinal).substring(1);
+    }
+
+    /**
+     * Gets long name of the option.
+     * @param ordinal ordinal of the option.
+     * @return long name; but if the option has none, an empty string.
+     */
+    public String getLongName(final int ordinal) {
+        int length = record(ordinal, 3);
+        return length == 0 ? "" : readString(record(ordinal, 2), length).substring(2);
+    }
+
+    /**
+     * Gets description of the option. The description is decoded on every call.
+     * @param ordinal ordinal of the option.
+     * @return description; but if the option has none, null.
+     */
+    public String getDescription(final int ordinal) {
+        int length = record(ordinal, 5);
+        return length < 0 ? null : readString(record(ordinal, 4), length);
+    }
+
+    /**
+     * Gets the help information: the description of the help option, decoded on every call.
+     * @return help information; but if there is no help option, null.
+     */
+    public String getHelp() {
+        return this.helpOrdinal < 0 ? null : getDescription(this.helpOrdinal);
+    }
+
+    /**
+     * Gets arguments count of the option.
+     * @param ordinal ordinal of the option.
+     * @return number of preceding arguments.
+     */
+    @Override
+    public int getExpectedArgumentCount(final int ordinal) {
+        return record(ordinal, 6);
+    }
+
+    /**
+     * Returns whether the option is required or not.
+     * @param ordinal ordinal of the option.
+     * @return true if option is required.
+     */
+    public boolean isRequired(final int ordinal) {
+        return (record(ordinal, 7) & FLAG_REQUIRED) != 0;
+    }
+
+    /**
+     * Returns whether the option may be given more than once.
+     * @param ordinal ordinal of the option.
+     * @return true if option is repeatable.
+     */
+    @Override
+    public boolean isRepeatable(final int ordinal) {
+        return (record(ordinal, 7) & FLAG_REPEATABLE) != 0;
+    }
+
+    /**
+     * Returns whether the option takes key-value entries.
+     * @param ordinal ordinal of the option.
+     * @return true if option takes key-value entries.
+     */
+    @Override
+    public boolean isKeyValue(final int ordinal) {
+        return (record(ordinal, 7) & FLAG_KEY_VALUE) != 0;
+    }
+
+    /**
+     * Gets what happens when a key-value option is given a key more than once.
+     * @param ordinal ordinal of the option.
+     * @return duplicate key policy.
+     */
+    @Override
+    public DuplicateKeyPolicy getDuplicateKeyPolicy(final int ordinal) {
+        return POLICIES[(record(ordinal, 7) >>> POLICY_SHIFT) & 3];
+    }
+
+    /**
+     * Parses command line arguments against the snapshot into a result.
+     * Several threads may call this at once.
+     * @param args command line arguments.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public ParseResult parseResult(final String[] args) {
+        ParseResult result = new Parser(args, null, this).parseResult();
+        checkRequired(result);
+        return result;
+    }
+
+    /**
+     * Parses command line arguments given as NUL-separated UTF-8 bytes against the snapshot into a
+     * result, as {@link CommandLine#parseResult(ByteBuffer)} does.
+     * Several threads may call this at once.
+     * @param args command line arguments, separated by NUL; a NUL after the last is optional.
+     * @return the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public ParseResult parseResult(final ByteBuffer args) {
+        ParseResult result = new ByteParser(args, this).parseResult();
+        checkRequired(result);
+        return result;
+    }
+
+    /**
+     * Builds a command line from the snapshot. Every option is built and every description decoded, so
+     * this is for changing the specification; to parse, use {@link #parseResult(String[])}.
+     * @return new command line holding the options of the snapshot.
+     */
+    public CommandLine toCommandLine() {
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < this.count; ++i) {
+            if (i == this.helpOrdinal) {
+                commandLine.createHelp(getDescription(i));
+                continue;
+            }
+            Option option = new Option(getShortName(i));
+            String longName = getLongName(i);
+            if (!longName.isEmpty()) {
+                option.setLongName(longName);
+            }
+            option.setDescription(getDescription(i));
+            option.setExpectedArgumentCount(getExpectedArgumentCount(i));
+            option.setRequired(isRequired(i));
+            option.setRepeatable(isRepeatable(i));
+            option.setKeyValue(isKeyValue(i));
+            option.setDuplicateKeyPolicy(getDuplicateKeyPolicy(i));
+            commandLine.addOption(option);
+        }
+        return commandLine;
+    }
+
+    /**
+     * Reads a field of an option record.
+     * @param ordinal ordinal of the option.
+     * @param field index of the field.
+     * @return value of the field.
+     */
+    private int record(final int ordinal, final int field) {
+        if (ordinal < 0 || ordinal >= this.count) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + ", size " + this.count + ".");
+        }
+        return this.buffer.getInt(HEADER_SIZE + ordinal * RECORD_SIZE + field * 4);
+    }
+
+    /**
+     * Decodes a string from the string pool.
+     * @param offset offset into the string pool.
+     * @param length length in bytes.
+     * @return decoded string.
+     */
+    private String readString(final int offset, final int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = this.buffer.get(this.stringsStart + offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes bytes to an absolute position without moving the buffer position.
+     * @param buffer destination buffer.
+     * @param position absolute position.
+     * @param bytes bytes to be written.
+     */
+    private static void putString(final ByteBuffer buffer, final int position, final byte[] bytes) {
+        for (int i = 0; i < bytes.length; ++i) {
+            buffer.put(position + i, bytes[i]);
+        }
+    }
+
+    /**
+     * Determines whether either tag of an option equals a range of bytes.
+     * @param buffer snapshot contents.
+     * @param stringsStart position of the string pool.
+     * @param ordinal ordinal of the option.
+     * @param tag bytes holding the tag to be compared.
+     * @param start index of the first byte of the tag.
+     * @param end index after the last byte of the tag.
+     * @return true if the short or long tag matches.
+     */
+    private static boolean tagEquals(final ByteBuffer buffer, final int stringsStart, final int ordinal,
+                                     final byte[] tag, final int start, final int end) {
+        int record = HEADER_SIZE + ordinal * RECORD_SIZE;
+        return regionEquals(buffer, stringsStart + buffer.getInt(record), buffer.getInt(record + 4), tag, start, end) ||
+               regionEquals(buffer, stringsStart + buffer.getInt(record + 8), buffer.getInt(record + 12), tag, start,
+                       end);
+    }
+
+    /**
+     * Compares a region of the buffer with a range of bytes.
+     * @param buffer buffer to be read.
+     * @param position absolute position of the region.
+     * @param length length of the region.
+     * @param bytes bytes to be compared.
+     * @param start index of the first byte to be compared.
+     * @param end index after the last byte to be compared.
+     * @return true if the region holds exactly the given bytes.
+     */
+    private static boolean regionEquals(final ByteBuffer buffer, final int position, final int length,
+                                        final byte[] bytes, final int start, final int end) {
+        if (length != end - start || length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (buffer.get(position + i) != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a region of the string pool with an ASCII tag.
+     * @param position absolute position of the region.
+     * @param length length of the region.
+     * @param tag the tag, all ASCII.
+     * @return true if the region holds exactly the tag.
+     */
+    private boolean regionEquals(final int position, final int length, final String tag) {
+        if (length != tag.length() || length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (this.buffer.get(position + i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a hash of a range of bytes.
+     * @param bytes bytes to be hashed.
+     * @param start index of the first byte.
+     * @param end index after the last byte.
+     * @return hash value.
+     */
+    private static int hash(final byte[] bytes, final int start, final int end) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; ++i) {
+            hash ^= bytes[i] & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+}
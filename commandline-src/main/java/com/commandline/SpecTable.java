@@ -0,0 +1,113 @@
+package main.java.com.commandline;
+
+/**
+ * What parsing reads of a specification, by ordinal: how tags are looked up, and the short tag, argument
+ * count and flags of each option. The parsers, results and the codec only read these, so a specification
+ * held in {@link Option}s and one held in the tables of a {@link SpecSnapshot} are parsed alike.
+ *
+ * @author Zach Wilson
+ */
+abstract class SpecTable {
+
+    /**
+     * Gets the number of options.
+     * @return number of options.
+     */
+    abstract int size();
+
+    /**
+     * Gets the ordinal of the help option.
+     * @return ordinal, or -1.
+     */
+    abstract int getHelpOrdinal();
+
+    /**
+     * Finds the first option from an ordinal on with the given tag. Only options which share a tag are
+     * found again from a later ordinal.
+     * @param tag the tag, e.g. "-o" or "--option".
+     * @param from ordinal to start from, inclusive.
+     * @return ordinal of the option; but if no option is found, -1.
+     */
+    abstract int find(String tag, int from);
+
+    /**
+     * Finds the first option from an ordinal on with the tag held in a range of UTF-8 bytes.
+     * @param bytes the bytes.
+     * @param start index of the first byte of the tag.
+     * @param end index after the last byte of the tag.
+     * @param from ordinal to start from, inclusive.
+     * @return ordinal of the option; but if no option is found, -1.
+     */
+    abstract int find(byte[] bytes, int start, int end, int from);
+
+    /**
+     * Gets the ordinals of the key-value options.
+     * @return ordinals, in increasing order; not to be changed.
+     */
+    abstract int[] getKeyValueOrdinals();
+
+    /**
+     * Gets the ordinals of the required options.
+     * @return ordinals, in increasing order; not to be changed.
+     */
+    abstract int[] getRequiredOrdinals();
+
+    /**
+     * Gets the short tag of an option.
+     * @param ordinal ordinal of the option.
+     * @return "-" followed by the short name.
+     */
+    abstract String getShortTag(int ordinal);
+
+    /**
+     * Gets the number of arguments each occurrence of an option takes.
+     * @param ordinal ordinal of the option.
+     * @return number of arguments.
+     */
+    abstract int getExpectedArgumentCount(int ordinal);
+
+    /**
+     * Determines whether an option may be given more than once.
+     * @param ordinal ordinal of the option.
+     * @return true if the option is repeatable.
+     */
+    abstract boolean isRepeatable(int ordinal);
+
+    /**
+     * Determines whether an option takes key-value entries.
+     * @param ordinal ordinal of the option.
+     * @return true if the option takes key-value entries.
+     */
+    abstract boolean isKeyValue(int ordinal);
+
+    /**
+     * Gets what happens when a key-value option is given a key more than once.
+     * @param ordinal ordinal of the option.
+     * @return duplicate key policy.
+     */
+    abstract DuplicateKeyPolicy getDuplicateKeyPolicy(int ordinal);
+
+    /**
+     * Gets the short name of an option.
+     * @param ordinal ordinal of the option.
+     * @return short name.
+     */
+    String getShortName(final int ordinal) {
+        return getShortTag(ordinal).substring(1);
+    }
+
+    /**
+     * Checks that a result holds every required option, unless help is needed.
+     * @param result the parse result.
+     * @throws IllegalArgumentException if a required option is missing.
+     */
+    void checkRequired(final ParseResult result) {
+        if (!result.needHelp()) {
+            for (int ordinal : getRequiredOrdinals()) {
+                if (!result.isFound(ordinal)) {
+                    throw new IllegalArgumentException("Missing required option '" + getShortName(ordinal) + "'.");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package main.java.com.commandline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time from launching a JVM until its command line has been parsed, with and without
+ * class-data-sharing archives.
+ *
+ * {@link #train(String, String...)} runs a training workload, such as {@link StartupTraining}, in a
+ * JVM which writes the list of loaded classes and dumps a dynamic archive of them at exit.
+ * {@link #measure(Launch, String, String...)} then launches the measured workload a number of
+ * times and takes the median wall-clock time. Archives only hold classes from JAR files, so
+ * directories on the class path are packed into a JAR in the working directory first.
+ *
+ * @author Zach Wilson
+ */
+public final class StartupHarness {
+
+    /**
+     * How a measured JVM is launched.
+     */
+    public enum Launch {
+
+        /** Without any archive. */
+        COLD,
+
+        /** With the archive of the JDK, which also maps the archived heap objects of the JDK. */
+        CDS,
+
+        /** With the archive of the JDK and the dynamic archive written by training. */
+        APP_CDS
+    }
+
+    /** Working directory holding the packed class path, the class list and the archive. */
+    private final Path directory;
+
+    /** Class path of the launched JVMs, as given. */
+    private String classPath = System.getProperty("java.class.path");
+
+    /** Class path of the launched JVMs, with directories packed; null until packed. */
+    private String packedClassPath;
+
+    /** Number of launches measured per kind of launch. */
+    private int runs = 10;
+
+    /**
+     * Constructor.
+     * @param directory working directory, which must exist.
+     */
+    public StartupHarness(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the class path of the launched JVMs. By default it is the class path of this JVM.
+     * @param classPath class path.
+     */
+    public void setClassPath(final String classPath) {
+        this.classPath = classPath;
+        this.packedClassPath = null;
+    }
+
+    /**
+     * Sets the number of launches measured per kind of launch.
+     * @param runs number of launches.
+     * @throws IllegalArgumentException if the number is not positive.
+     */
+    public void setRuns(final int runs) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("Number of runs must be positive.");
+        }
+        this.runs = runs;
+    }
+
+    /**
+     * Gets the class list written by training.
+     * @return path of the class list.
+     */
+    public Path getClassList() {
+        return this.directory.resolve("classes.lst");
+    }
+
+    /**
+     * Gets the dynamic archive written by training.
+     * @return path of the archive.
+     */
+    public Path getArchive() {
+        return this.directory.resolve("classes.jsa");
+    }
+
+    /**
+     * Runs a training workload, writing the class list and the dynamic archive.
+     * @param mainClass main class of the workload.
+     * @param args arguments of the workload.
+     * @throws IOException if the class path cannot be packed or the JVM cannot be launched.
+     * @throws IllegalStateException if the workload fails or no archive has been written.
+     */
+    public void train(final String mainClass, final String... args) throws IOException {
+        Files.deleteIfExists(getArchive());
+        run(Arrays.asList("-XX:DumpLoadedClassList=" + getClassList(), "-XX:ArchiveClassesAtExit=" + getArchive()),
+                mainClass, args);
+        if (!Files.isRegularFile(getArchive())) {
+            throw new IllegalStateException("No archive has been written to '" + getArchive() + "'.");
+        }
+    }
+
+    /**
+     * Measures the median time from launch to exit of a workload.
+     * @param launch how the JVM is launched.
+     * @param mainClass main class of the workload.
+     * @param args arguments of the workload.
+     * @return median time in nanoseconds.
+     * @throws IOException if the class path cannot be packed or the JVM cannot be launched.
+     * @throws IllegalStateException if the workload fails, or if an archive is needed but training has not run.
+     */
+    public long measure(final Launch launch, final String mainClass, final String... args) throws IOException {
+        List<String> flags;
+        switch (launch) {
+            case COLD:
+                flags = Arrays.asList("-Xshare:off");
+                break;
+            case CDS:
+                flags = Arrays.asList("-Xshare:auto");
+                break;
+            default:
+                if (!Files.isRegularFile(getArchive())) {
+                    throw new IllegalStateException("Training has not written an archive.");
+                }
+                flags = Arrays.asList("-XX:SharedArchiveFile=" + getArchive());
+                break;
+        }
+        long[] times = new long[this.runs];
+        for (int i = 0; i < this.runs; ++i) {
+            times[i] = run(flags, mainClass, args);
+        }
+        Arrays.sort(times);
+        return times[this.runs / 2];
+    }
+
+    /**
+     * Launches a JVM and waits for it to exit.
+     * @param flags options of the JVM.
+     * @param mainClass main class.
+     * @param args arguments of the main class.
+     * @return wall-clock time in nanoseconds.
+     * @throws IOException if the class path cannot be packed or the JVM cannot be launched.
+     * @throws IllegalStateException if the JVM exits with an error.
+     */
+    private long run(final List<String> flags, final String mainClass, final String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(flags);
+        command.add("-cp");
+        command.add(packedClassPath());
+        command.add(mainClass);
+        command.addAll(Arrays.asList(args));
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        int status;
+        try {
+            status = process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for '" + mainClass + "'.", e);
+        }
+        long time = System.nanoTime() - start;
+        if (status != 0) {
+            throw new IllegalStateException("'" + mainClass + "' exited with status " + status + ".");
+        }
+        return time;
+    }
+
+    /**
+     * Gets the class path with its directories packed into a JAR, packing them on first use.
+     * @return class path of JAR files.
+     * @throws IOException if a directory cannot be packed.
+     */
+    private String packedClassPath() throws IOException {
+        if (this.packedClassPath == null) {
+            List<String> entries = new ArrayList<>();
+            List<Path> directories = new ArrayList<>();
+            for (String entry : this.classPath.split(File.pathSeparator)) {
+                if (Files.isDirectory(Paths.get(entry))) {
+                    directories.add(Paths.get(entry));
+                } else if (!entry.isEmpty()) {
+                    entries.add(entry);
+                }
+            }
+            if (!directories.isEmpty()) {
+                Path jar = this.directory.resolve("classes.jar");
+                pack(directories, jar);
+                entries.add(0, jar.toString());
+            }
+            this.packedClassPath = String.join(File.pathSeparator, entries);
+        }
+        return this.packedClassPath;
+    }
+
+    /**
+     * Packs the files of directories into a JAR. Files found in more than one directory are taken from
+     * the first, as the class path would.
+     * @param directories directories to be packed.
+     * @param jar the JAR to be written.
+     * @throws IOException if a file cannot be read or the JAR cannot be written.
+     */
+    private static void pack(final List<Path> directories, final Path jar) throws IOException {
+        Set<String> packed = new HashSet<>();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Path directory : directories) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(directory)) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    String name = directory.relativize(file).toString().replace(File.separatorChar, '/');
+                    if (packed.add(name)) {
+                        out.putNextEntry(new JarEntry(name));
+                        Files.copy(file, out);
+                        out.closeEntry();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Trains with {@link StartupTraining} and prints the median time of each kind of launch parsing
+     * sample arguments.
+     * @param args working directory, and optionally the number of launches per kind.
+     * @throws IOException if the class path cannot be packed or a JVM cannot be launched.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: StartupHarness <directory> [runs]");
+        }
+        StartupHarness harness = new StartupHarness(Paths.get(args[0]));
+        if (args.length > 1) {
+            harness.setRuns(Integer.parseInt(args[1]));
+        }
+        String mainClass = StartupTraining.class.getName();
+        harness.train(mainClass, "train");
+        for (Launch launch : Launch.values()) {
+            long time = harness.measure(launch, mainClass, "parse", "-i", "in.txt", "-v", "-Dkey=value");
+            System.out.println(String.format("%-8s %8.1f ms", launch, time / 1e6));
+        }
+    }
+}
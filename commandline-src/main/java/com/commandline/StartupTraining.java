@@ -0,0 +1,151 @@
+package main.java.com.commandline;
+
+/**
+ * A representative workload for class-data-sharing archives. Run with "train", it defines a
+ * specification using every kind of option, parses sample arguments both into results and live,
+ * rejects bad ones and renders the help, so that the classes of all these paths are loaded and end
+ * up in an archive dumped at exit. Run with "parse" and further arguments, it only parses those,
+ * which is what {@link StartupHarness} times.
+ *
+ * Applications with their own specification call {@link #train(CommandLine, String[][])} from a
+ * training entry point of their own.
+ *
+ * @author Zach Wilson
+ */
+public final class StartupTraining {
+
+    /** Sample arguments for the specification of {@link #createCommandLine()}. */
+    private static final String[][] SAMPLES = {
+        { "-i", "in.txt", "-o", "out.txt" },
+        { "--input", "in.txt", "-v", "-v", "-Dkey=value", "-D", "other=1", "-r", "1-3,7" },
+        { "-i", "in.txt", "-s", "640", "480", "--define", "k=v" },
+        { "--help" },
+        { "-i" },
+        { "-o", "out.txt" },
+        { "-x" },
+    };
+
+    /**
+     * Constructor.
+     */
+    private StartupTraining() {
+    }
+
+    /**
+     * Creates the representative specification: a required option with one argument, optional ones
+     * with one and two arguments, a repeatable flag, a key-value option, a numeric range and help.
+     * @return the command line.
+     */
+    public static CommandLine createCommandLine() {
+        CommandLine commandLine = new CommandLine();
+        Option input = new Option("i");
+        input.setLongName("input");
+        input.setDescription("Input file.");
+        input.setExpectedArgumentCount(1);
+        input.setRequired(true);
+        commandLine.addOption(input);
+        Option output = new Option("o");
+        output.setLongName("output");
+        output.setDescription("Output file.");
+        output.setExpectedArgumentCount(1);
+        commandLine.addOption(output);
+        Option size = new Option("s");
+        size.setDescription("Width and height.");
+        size.setExpectedArgumentCount(2);
+        commandLine.addOption(size);
+        Option verbose = new Option("v");
+        verbose.setDescription("More output, may be repeated.");
+        verbose.setRepeatable(true);
+        commandLine.addOption(verbose);
+        Option define = new Option("D");
+        define.setLongName("define");
+        define.setDescription("Defines a property.");
+        define.setKeyValue(true);
+        commandLine.addOption(define);
+        Option ranges = new Option("r");
+        ranges.setDescription("Ranges of lines.");
+        ranges.setExpectedArgumentCount(1);
+        commandLine.addOption(ranges);
+        commandLine.createHelp("Usage: sample -i <file> [options]");
+        return commandLine;
+    }
+
+    /**
+     * Exercises a command line with sample arguments: each sample is parsed into a result, the
+     * arguments found are read back, and the help is rendered. Samples which are invalid are rejected
+     * as usual, which trains the error paths too. The options of the command line are left untouched.
+     * @param commandLine the command line.
+     * @param samples sample arguments.
+     */
+    public static void train(final CommandLine commandLine, final String[][] samples) {
+        for (String[] sample : samples) {
+            try {
+                ParseResult result = commandLine.parseResult(sample);
+                for (int ordinal = result.nextFound(0); ordinal >= 0; ordinal = result.nextFound(ordinal + 1)) {
+                    result.getArguments(ordinal);
+                    result.getEntries(ordinal);
+                }
+                result.getFingerprint();
+                result.toString();
+            } catch (IllegalArgumentException e) {
+                // Invalid samples train the error paths
+            }
+        }
+        commandLine.getHelp();
+        commandLine.toString();
+    }
+
+    /**
+     * Parses each sample into the options of a new command line of {@link #createCommandLine()}, and
+     * reads the arguments found back.
+     * @param samples sample arguments.
+     */
+    private static void trainLive(final String[][] samples) {
+        for (String[] sample : samples) {
+            CommandLine commandLine = createCommandLine();
+            try {
+                commandLine.parse(sample);
+            } catch (IllegalArgumentException e) {
+                // Invalid samples train the error paths
+            }
+            for (Option option : commandLine.getOptionsView()) {
+                if (option.isFound() && option.getArgumentCount() > 0) {
+                    option.areAllNumeric();
+                    trainRanges(option);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the first argument of an option as ranges, if it is one.
+     * @param option the option.
+     */
+    private static void trainRanges(final Option option) {
+        try {
+            option.getRanges();
+        } catch (IllegalArgumentException e) {
+            // Not every argument is a list of ranges
+        }
+    }
+
+    /**
+     * Runs the workload.
+     * @param args "train", or "parse" followed by the arguments to be parsed.
+     */
+    public static void main(final String[] args) {
+        if (args.length > 0 && args[0].equals("train")) {
+            CommandLine commandLine = createCommandLine();
+            train(commandLine, SAMPLES);
+            commandLine.freeze();
+            train(commandLine, SAMPLES);
+            trainLive(SAMPLES);
+        } else if (args.length > 0 && args[0].equals("parse")) {
+            String[] rest = new String[args.length - 1];
+            System.arraycopy(args, 1, rest, 0, rest.length);
+            createCommandLine().parse(rest);
+        } else {
+            throw new IllegalArgumentException("Usage: StartupTraining train | parse <args>");
+        }
+    }
+}
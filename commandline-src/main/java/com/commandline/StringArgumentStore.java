@@ -0,0 +1,27 @@
+package main.java.com.commandline;
+
+/**
+ * Holds arguments which are added as strings, by slot: the arguments of a parse of strings.
+ *
+ * @author Zach Wilson
+ */
+abstract class StringArgumentStore extends ArgumentStore {
+
+    /**
+     * Creates a store.
+     * @param storage how arguments are held.
+     * @param capacity initial number of slots.
+     * @return new store.
+     */
+    static StringArgumentStore create(final ArgumentStorage storage, final int capacity) {
+        // Created through factories, so that verifying this method loads neither store
+        return storage == ArgumentStorage.ARENA ? ArenaStore.create(capacity) : StringStore.create(capacity);
+    }
+
+    /**
+     * Adds an argument.
+     * @param slot slot of the option.
+     * @param argument argument to be added.
+     */
+    abstract void add(int slot, String argument);
+}
@@ -0,0 +1,67 @@
+package main.java.com.commandline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds arguments as the strings they were given as, in a list per slot.
+ *
+ * @author Zach Wilson
+ */
+final class StringStore extends StringArgumentStore {
+
+    /** Arguments by slot; null if there are none. */
+    private ArrayList<?>[] arguments;
+
+    /**
+     * Creates a store.
+     * @param capacity initial number of slots.
+     * @return new store.
+     */
+    static StringArgumentStore create(final int capacity) {
+        return new StringStore(capacity);
+    }
+
+    /**
+     * Constructor.
+     * @param capacity initial number of slots.
+     */
+    StringStore(final int capacity) {
+        this.arguments = new ArrayList<?>[capacity];
+    }
+
+    @Override
+    void grow(final int capacity) {
+        this.arguments = Arrays.copyOf(this.arguments, capacity);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void add(final int slot, final String argument) {
+        ArrayList<String> list = (ArrayList<String>) this.arguments[slot];
+        if (list == null) {
+            list = new ArrayList<>();
+            this.arguments[slot] = list;
+        }
+        list.add(argument);
+    }
+
+    @Override
+    int size(final int slot) {
+        return this.arguments[slot] == null ? 0 : this.arguments[slot].size();
+    }
+
+    @Override
+    String get(final int slot, final int index) {
+        return (String) this.arguments[slot].get(index);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    List<String> list(final int slot) {
+        ArrayList<String> list = (ArrayList<String>) this.arguments[slot];
+        return list == null ? Collections.<String>emptyList() : Collections.unmodifiableList(list);
+    }
+}
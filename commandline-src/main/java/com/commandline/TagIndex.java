@@ -0,0 +1,392 @@
+package main.java.com.commandline;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * A minimal perfect hash from option tags to option ordinals, built once for a frozen specification.
+ *
+ * Every short and long tag gets a slot of its own in a table exactly as large as the number of tags,
+ * following the hash and displace scheme: tags are hashed into buckets of about four, and each bucket
+ * is given a displacement which sends its tags to free slots. Buckets of a single tag point straight
+ * at a slot. A lookup is one hash of the tag, one displacement read, one slot probe and one compare
+ * to tell an unknown tag from the tag in the slot.
+ *
+ * With a {@link TagMatching} other than exact, the folded tags are indexed, and arguments are folded
+ * while they are hashed and compared.
+ *
+ * ASCII tags are also kept as bytes, so that arguments given as UTF-8 bytes are looked up without
+ * being decoded; since the hash is taken over characters, an ASCII byte hashes as its character.
+ *
+ * @author Zach Wilson
+ */
+public final class TagIndex {
+
+    /** Average number of tags per bucket. */
+    private static final int BUCKET_SIZE = 4;
+
+    /** Number of displacements tried for a bucket before starting over with another seed. */
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    /** How arguments are matched against tags. */
+    private final TagMatching matching;
+
+    /** Seed of the tag hash. */
+    private final long seed;
+
+    /** Displacement of each bucket; a negative value -(slot + 1) points a single tag straight at its slot. */
+    private final int[] displacements;
+
+    /** The tag in each slot, folded. */
+    private final String[] tags;
+
+    /** The tag in each slot as bytes, folded; null for a tag which is not ASCII. */
+    private final byte[][] asciiTags;
+
+    /** The option ordinal of each slot. */
+    private final int[] ordinals;
+
+    /**
+     * Constructor.
+     * Builds the index over the tags of the given options.
+     * @param options the options, by ordinal.
+     * @throws IllegalArgumentException if two options share a tag.
+     */
+    public TagIndex(final List<Option> options) {
+        this(options, TagMatching.EXACT);
+    }
+
+    /**
+     * Constructor.
+     * Builds the index over the folded tags of the given options.
+     * @param options the options, by ordinal.
+     * @param matching how arguments are matched against tags.
+     * @throws IllegalArgumentException if two options share a tag once folded.
+     */
+    public TagIndex(final List<Option> options, final TagMatching matching) {
+        this.matching = matching;
+        ArrayList<String> keys = new ArrayList<>();
+        ArrayList<Integer> keyOrdinals = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        for (int ordinal = 0; ordinal < options.size(); ++ordinal) {
+            Option option = options.get(ordinal);
+            OptionSpec spec = option.getSpec();
+            addKey(keys, keyOrdinals, seen, spec.getShortTag(), ordinal, matching);
+            if (!spec.getLongTag().isEmpty()) {
+                addKey(keys, keyOrdinals, seen, spec.getLongTag(), ordinal, matching);
+            }
+        }
+
+        int size = keys.size();
+        this.tags = new String[size];
+        this.asciiTags = new byte[size][];
+        this.ordinals = new int[size];
+        this.displacements = new int[Math.max(1, (size + BUCKET_SIZE - 1) / BUCKET_SIZE)];
+
+        long seed = 0;
+        while (!place(keys, keyOrdinals, seed)) {
+            ++seed;
+        }
+        this.seed = seed;
+    }
+
+    /**
+     * Adds a tag to be indexed.
+     * @param keys tags to be indexed.
+     * @param keyOrdinals ordinal of each tag.
+     * @param seen tags added so far.
+     * @param tag tag to be added.
+     * @param ordinal ordinal of the tag's option.
+     * @param matching how the tag is folded.
+     * @throws IllegalArgumentException if the tag was added before.
+     */
+    private static void addKey(final ArrayList<String> keys, final ArrayList<Integer> keyOrdinals,
+                               final HashSet<String> seen, final String tag, final int ordinal,
+                               final TagMatching matching) {
+        String key = matching == TagMatching.EXACT ? tag : matching.fold(tag);
+        if (!seen.add(key)) {
+            throw new IllegalArgumentException("Duplicate option tag '" + tag + "'.");
+        }
+        keys.add(key);
+        keyOrdinals.add(ordinal);
+    }
+
+    /**
+     * Places every tag in a slot of its own.
+     * @param keys tags to be placed.
+     * @param keyOrdinals ordinal of each tag.
+     * @param seed seed of the tag hash.
+     * @return true if all tags were placed; false if a bucket could not be placed with this seed.
+     */
+    private boolean place(final List<String> keys, final List<Integer> keyOrdinals, final long seed) {
+        int size = keys.size();
+        int bucketCount = this.displacements.length;
+
+        // Hash every tag once and group the tags by bucket
+        long[] hashes = new long[size];
+        int[] bucketSizes = new int[bucketCount];
+        for (int i = 0; i < size; ++i) {
+            hashes[i] = hash(keys.get(i), seed, null);
+            ++bucketSizes[bucketOf(hashes[i], bucketCount)];
+        }
+        int[] bucketStarts = new int[bucketCount + 1];
+        for (int bucket = 0; bucket < bucketCount; ++bucket) {
+            bucketStarts[bucket + 1] = bucketStarts[bucket] + bucketSizes[bucket];
+        }
+        int[] members = new int[size];
+        int[] filled = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < size; ++i) {
+            members[filled[bucketOf(hashes[i], bucketCount)]++] = i;
+        }
+
+        // Place the largest buckets first, while the table is emptiest
+        Integer[] order = new Integer[bucketCount];
+        for (int bucket = 0; bucket < bucketCount; ++bucket) {
+            order[bucket] = bucket;
+        }
+        Arrays.sort(order, (a, b) -> bucketSizes[b] - bucketSizes[a]);
+
+        boolean[] occupied = new boolean[size];
+        int[] slots = new int[BUCKET_SIZE * 8];
+        int nextFree = 0;
+        Arrays.fill(this.displacements, 0);
+        for (int bucket : order) {
+            int count = bucketSizes[bucket];
+            int start = bucketStarts[bucket];
+            if (count == 0) {
+                break;
+            }
+            if (count == 1) {
+                // A single tag takes the next free slot directly
+                while (occupied[nextFree]) {
+                    ++nextFree;
+                }
+                occupied[nextFree] = true;
+                this.displacements[bucket] = -(nextFree + 1);
+                store(nextFree, keys, keyOrdinals, members[start]);
+                continue;
+            }
+            if (slots.length < count) {
+                slots = new int[count];
+            }
+            int displacement = 0;
+            while (!fits(hashes, members, start, count, displacement, occupied, slots)) {
+                if (++displacement == MAX_DISPLACEMENT) {
+                    return false;
+                }
+            }
+            this.displacements[bucket] = displacement;
+            for (int i = 0; i < count; ++i) {
+                occupied[slots[i]] = true;
+                store(slots[i], keys, keyOrdinals, members[start + i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether a bucket's tags all land in distinct free slots with the given displacement.
+     * @param hashes hash of each tag.
+     * @param members tags grouped by bucket.
+     * @param start index of the bucket's first tag in members.
+     * @param count number of tags in the bucket.
+     * @param displacement displacement to be tried.
+     * @param occupied slots taken so far.
+     * @param slots receives the slot of each tag.
+     * @return true if the tags fit.
+     */
+    private static boolean fits(final long[] hashes, final int[] members, final int start, final int count,
+                                final int displacement, final boolean[] occupied, final int[] slots) {
+        for (int i = 0; i < count; ++i) {
+            int slot = slotOf(hashes[members[start + i]], displacement, occupied.length);
+            if (occupied[slot]) {
+                return false;
+            }
+            for (int j = 0; j < i; ++j) {
+                if (slots[j] == slot) {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a tag in its slot.
+     * @param slot the slot.
+     * @param keys tags being placed.
+     * @param keyOrdinals ordinal of each tag.
+     * @param key index of the tag.
+     */
+    private void store(final int slot, final List<String> keys, final List<Integer> keyOrdinals, final int key) {
+        String tag = keys.get(key);
+        this.tags[slot] = tag;
+        this.asciiTags[slot] = StandardCharsets.US_ASCII.newEncoder().canEncode(tag)
+                ? tag.getBytes(StandardCharsets.US_ASCII) : null;
+        this.ordinals[slot] = keyOrdinals.get(key);
+    }
+
+    /**
+     * Finds the ordinal of the option with the given tag.
+     * @param tag the option's short or long tag, e.g. "-o" or "--option".
+     * @return ordinal of the option; but if no option has the tag, -1.
+     */
+    public int get(final String tag) {
+        if (this.tags.length == 0) {
+            return -1;
+        }
+        if (this.matching == TagMatching.EXACT) {
+            return lookup(tag, null);
+        }
+        for (int i = 0; i < tag.length(); ++i) {
+            if (tag.charAt(i) >= 0x80) {
+                return lookup(this.matching.fold(tag), null);
+            }
+        }
+        return lookup(tag, this.matching);
+    }
+
+    /**
+     * Looks a tag up.
+     * @param tag the tag.
+     * @param asciiFolding folding applied to each character of the tag, which is ASCII; null for none.
+     * @return ordinal of the option; but if no option has the tag, -1.
+     */
+    private int lookup(final String tag, final TagMatching asciiFolding) {
+        long hash = hash(tag, this.seed, asciiFolding);
+        int displacement = this.displacements[bucketOf(hash, this.displacements.length)];
+        int slot = displacement < 0 ? -displacement - 1 : slotOf(hash, displacement, this.tags.length);
+        String candidate = this.tags[slot];
+        if (asciiFolding == null) {
+            return candidate.equals(tag) ? this.ordinals[slot] : -1;
+        }
+        if (candidate.length() != tag.length()) {
+            return -1;
+        }
+        for (int i = 0; i < tag.length(); ++i) {
+            if (candidate.charAt(i) != asciiFolding.foldAscii(tag.charAt(i))) {
+                return -1;
+            }
+        }
+        return this.ordinals[slot];
+    }
+
+    /**
+     * Finds the ordinal of the option with the tag in a range of UTF-8 bytes. An ASCII range is
+     * hashed and compared byte by byte; any other is decoded first.
+     * @param bytes the bytes.
+     * @param start index of the first byte.
+     * @param end index after the last byte.
+     * @return ordinal of the option; but if no option has the tag, -1.
+     */
+    int get(final byte[] bytes, final int start, final int end) {
+        if (this.tags.length == 0) {
+            return -1;
+        }
+        TagMatching asciiFolding = this.matching == TagMatching.EXACT ? null : this.matching;
+        long hash = offsetBasis(this.seed);
+        for (int i = start; i < end; ++i) {
+            byte b = bytes[i];
+            if (b < 0) {
+                return get(ByteStore.decode(bytes, start, end));
+            }
+            char c = asciiFolding == null ? (char) b : asciiFolding.foldAscii((char) b);
+            hash = (hash ^ c) * 0x100000001B3L;
+        }
+        hash = mix(hash);
+        int displacement = this.displacements[bucketOf(hash, this.displacements.length)];
+        int slot = displacement < 0 ? -displacement - 1 : slotOf(hash, displacement, this.tags.length);
+        byte[] candidate = this.asciiTags[slot];
+        if (candidate == null || candidate.length != end - start) {
+            return -1;
+        }
+        for (int i = 0; i < candidate.length; ++i) {
+            char c = (char) bytes[start + i];
+            if (candidate[i] != (asciiFolding == null ? c : asciiFolding.foldAscii(c))) {
+                return -1;
+            }
+        }
+        return this.ordinals[slot];
+    }
+
+    /**
+     * Gets how arguments are matched against tags.
+     * @return tag matching.
+     */
+    public TagMatching getMatching() {
+        return this.matching;
+    }
+
+    /**
+     * Gets the number of indexed tags.
+     * @return number of tags.
+     */
+    public int size() {
+        return this.tags.length;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of a tag, starting from a seed. The result is mixed, since
+     * the upper bits of FNV barely depend on the last characters, which are all that tell most tags apart.
+     * @param tag the tag.
+     * @param seed the seed.
+     * @param asciiFolding folding applied to each character of the tag, which is ASCII; null for none.
+     * @return hash value.
+     */
+    private static long hash(final String tag, final long seed, final TagMatching asciiFolding) {
+        long hash = offsetBasis(seed);
+        for (int i = 0; i < tag.length(); ++i) {
+            char c = tag.charAt(i);
+            if (asciiFolding != null) {
+                c = asciiFolding.foldAscii(c);
+            }
+            hash = (hash ^ c) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Gets the value a tag hash starts from.
+     * @param seed the seed.
+     * @return initial hash value.
+     */
+    private static long offsetBasis(final long seed) {
+        return 0xCBF29CE484222325L ^ (seed * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Mixes the bits of a value, so that each bit of the result depends on all bits of the value.
+     * @param value the value.
+     * @return mixed value.
+     */
+    private static long mix(final long value) {
+        long mixed = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return mixed ^ (mixed >>> 33);
+    }
+
+    /**
+     * Gets the bucket of a hash, from its upper bits.
+     * @param hash hash of a tag.
+     * @param bucketCount number of buckets.
+     * @return bucket.
+     */
+    private static int bucketOf(final long hash, final int bucketCount) {
+        return (int) ((hash >>> 33) % bucketCount);
+    }
+
+    /**
+     * Gets the slot of a hash under a displacement.
+     * @param hash hash of a tag.
+     * @param displacement displacement of the tag's bucket.
+     * @param size number of slots.
+     * @return slot.
+     */
+    private static int slotOf(final long hash, final int displacement, final int size) {
+        return (int) ((mix(hash + displacement * 0x9E3779B97F4A7C15L) >>> 1) % size);
+    }
+}
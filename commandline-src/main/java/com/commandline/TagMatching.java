@@ -0,0 +1,87 @@
+package main.java.com.commandline;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Decides how arguments are matched against option tags.
+ *
+ * Except for {@link #EXACT}, the folded form of every tag is computed once when the tags are indexed,
+ * and arguments are folded while they are looked up. Arguments made of ASCII characters only are
+ * folded character by character without creating a new string. Entries attached to a short tag,
+ * e.g. "-Dname=value", are still matched exactly.
+ *
+ * @author Zach Wilson
+ */
+public enum TagMatching {
+
+    /** Tags match if they are equal. */
+    EXACT(false, false),
+
+    /** Tags match if they are equal ignoring case, e.g. "--Verbose" and "--verbose". */
+    IGNORE_CASE(true, false),
+
+    /** Tags match if they are equal after Unicode NFC normalization. */
+    NORMALIZED(false, true),
+
+    /** Tags match if they are equal ignoring case after Unicode NFC normalization. */
+    NORMALIZED_IGNORE_CASE(true, true);
+
+    /** Whether case is ignored. */
+    private final boolean ignoreCase;
+
+    /** Whether tags are NFC normalized. */
+    private final boolean normalize;
+
+    /**
+     * Constructor.
+     * @param ignoreCase whether case is ignored.
+     * @param normalize whether tags are NFC normalized.
+     */
+    TagMatching(final boolean ignoreCase, final boolean normalize) {
+        this.ignoreCase = ignoreCase;
+        this.normalize = normalize;
+    }
+
+    /**
+     * Determines whether case is ignored.
+     * @return true if case is ignored.
+     */
+    public boolean ignoresCase() {
+        return this.ignoreCase;
+    }
+
+    /**
+     * Determines whether tags are NFC normalized.
+     * @return true if tags are normalized.
+     */
+    public boolean normalizes() {
+        return this.normalize;
+    }
+
+    /**
+     * Folds a tag into the form in which it is compared.
+     * @param tag the tag.
+     * @return folded tag.
+     */
+    String fold(final String tag) {
+        String folded = tag;
+        if (this.normalize) {
+            folded = Normalizer.normalize(folded, Normalizer.Form.NFC);
+        }
+        if (this.ignoreCase) {
+            // Upper then lower case, so that e.g. "\u00DF" and "SS" fold alike
+            folded = folded.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        }
+        return folded;
+    }
+
+    /**
+     * Folds an ASCII character.
+     * @param c the character, below 0x80.
+     * @return folded character.
+     */
+    char foldAscii(final char c) {
+        return this.ignoreCase && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
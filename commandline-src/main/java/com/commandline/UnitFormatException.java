@@ -0,0 +1,103 @@
+package main.java.com.commandline;
+
+/**
+ * Thrown when an argument is not a valid size, duration or rate. Tells what is wrong through a
+ * {@link Reason}, and where through the position within the argument.
+ *
+ * @author Zach Wilson
+ */
+public final class UnitFormatException extends IllegalArgumentException {
+
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * What is wrong with an argument.
+     */
+    public enum Reason {
+
+        /** The argument is empty. */
+        EMPTY("empty"),
+
+        /** A number was expected, e.g. "GiB" or "1.s". */
+        EXPECTED_NUMBER("expected a number"),
+
+        /** The unit is not known, e.g. "4GB/s" for a size. */
+        UNKNOWN_UNIT("unknown unit"),
+
+        /** A number has no unit, where one is required, e.g. "250" for a duration. */
+        MISSING_UNIT("missing unit"),
+
+        /** The value is not a whole number of the unit it is given in, e.g. "0.5ns". */
+        INEXACT("not a whole number of the base unit"),
+
+        /** The value does not fit in a long. */
+        OVERFLOW("too large");
+
+        /** Description of the reason. */
+        private final String description;
+
+        /**
+         * Constructor.
+         * @param description description of the reason.
+         */
+        Reason(final String description) {
+            this.description = description;
+        }
+
+        /**
+         * Gets the description of the reason.
+         * @return description.
+         */
+        public String getDescription() {
+            return this.description;
+        }
+    }
+
+    /** What is wrong. */
+    private final Reason reason;
+
+    /** The argument. */
+    private final String text;
+
+    /** Position within the argument where it went wrong. */
+    private final int position;
+
+    /**
+     * Constructor.
+     * @param kind what the argument should have been, e.g. "duration".
+     * @param text the argument.
+     * @param position position within the argument where it went wrong.
+     * @param reason what is wrong.
+     */
+    UnitFormatException(final String kind, final String text, final int position, final Reason reason) {
+        super("Invalid " + kind + " '" + text + "' at position " + position + ": " + reason.getDescription() + ".");
+        this.reason = reason;
+        this.text = text;
+        this.position = position;
+    }
+
+    /**
+     * Gets what is wrong with the argument.
+     * @return reason.
+     */
+    public Reason getReason() {
+        return this.reason;
+    }
+
+    /**
+     * Gets the argument.
+     * @return the argument.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Gets the position within the argument where it went wrong.
+     * @return position.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+}
@@ -0,0 +1,350 @@
+package main.java.com.commandline;
+
+/**
+ * Parses byte sizes, durations and rates, e.g. "4GiB", "1h30m" or "10k/s", straight to a long.
+ *
+ * Each argument is read in one scan, without creating any objects unless it is invalid. A number is
+ * a run of digits with an optional fraction, which must come out as a whole number in the base unit:
+ * "1.5KiB" is 1536 bytes, but "0.5ns" is an error. Overflow is an error too. Errors are thrown as
+ * {@link UnitFormatException}s telling what is wrong and where.
+ *
+ * @author Zach Wilson
+ */
+public final class Units {
+
+    /** Nanoseconds in each duration unit, by {@link #durationUnit(String, int, int)} code. */
+    private static final long[] NANOS = new long[] { 1L, 1000L, 1000000L, 1000000000L, 60000000000L,
+            3600000000000L, 86400000000000L };
+
+    /** Letters of the magnitudes, from kilo up. */
+    private static final String MAGNITUDES = "KMGTPE";
+
+    /** Kind of argument, for messages. */
+    private static final String SIZE = "size";
+
+    /** Kind of argument, for messages. */
+    private static final String DURATION = "duration";
+
+    /** Kind of argument, for messages. */
+    private static final String RATE = "rate";
+
+    /** Powers of ten that fit in a long. */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    private Units() {}
+
+    /**
+     * Parses a byte size. Units are:
+     * <ul>
+     *   <li>none or "B": bytes;</li>
+     *   <li>"KiB", "MiB", "GiB", "TiB", "PiB", "EiB": powers of 1024;</li>
+     *   <li>"kB" or "KB", "MB", "GB", "TB", "PB", "EB": powers of 1000;</li>
+     *   <li>a single letter "k", "m", "g", "t", "p", "e" in either case: powers of 1024, as the JVM's
+     *       -Xmx takes them.</li>
+     * </ul>
+     * @param text the size, e.g. "4GiB", "512m" or "1.5MB".
+     * @return number of bytes.
+     * @throws UnitFormatException if the text is not a valid size.
+     */
+    public static long parseSize(final String text) {
+        int length = text.length();
+        int end = numberEnd(text, 0, SIZE);
+        long multiplier;
+        int unitLength = length - end;
+        if (unitLength == 0) {
+            multiplier = 1;
+        } else if (unitLength == 1) {
+            char c = text.charAt(end);
+            multiplier = c == 'B' ? 1 : binary(magnitude(c));
+        } else if (unitLength == 2 && text.charAt(end + 1) == 'B' && isPrefix(text.charAt(end), true)) {
+            multiplier = decimal(magnitude(text.charAt(end)));
+        } else if (unitLength == 3 && text.charAt(end + 1) == 'i' && text.charAt(end + 2) == 'B'
+                && isPrefix(text.charAt(end), false)) {
+            multiplier = binary(magnitude(text.charAt(end)));
+        } else {
+            multiplier = 0;
+        }
+        if (multiplier == 0) {
+            throw new UnitFormatException(SIZE, text, end, UnitFormatException.Reason.UNKNOWN_UNIT);
+        }
+        return scale(text, 0, end, multiplier, 1, SIZE);
+    }
+
+    /**
+     * Parses a duration: one or more numbers, each followed by a unit, which are added up, e.g. "1h30m".
+     * Units are "ns", "us" or "&micro;s", "ms", "s", "m" or "min", "h" and "d".
+     * @param text the duration, e.g. "250ms" or "1.5s".
+     * @return number of nanoseconds.
+     * @throws UnitFormatException if the text is not a valid duration.
+     */
+    public static long parseDuration(final String text) {
+        int length = text.length();
+        long total = 0;
+        int start = 0;
+        do {
+            int end = numberEnd(text, start, DURATION);
+            int unitEnd = end;
+            while (unitEnd < length && !isDigit(text.charAt(unitEnd)) && text.charAt(unitEnd) != '.') {
+                ++unitEnd;
+            }
+            if (unitEnd == end) {
+                throw new UnitFormatException(DURATION, text, end, UnitFormatException.Reason.MISSING_UNIT);
+            }
+            int unit = durationUnit(text, end, unitEnd);
+            if (unit < 0) {
+                throw new UnitFormatException(DURATION, text, end, UnitFormatException.Reason.UNKNOWN_UNIT);
+            }
+            long nanos = scale(text, start, end, NANOS[unit], 1, DURATION);
+            if (total > Long.MAX_VALUE - nanos) {
+                throw new UnitFormatException(DURATION, text, start, UnitFormatException.Reason.OVERFLOW);
+            }
+            total += nanos;
+            start = unitEnd;
+        } while (start < length);
+        return total;
+    }
+
+    /**
+     * Parses a rate: a number with an optional magnitude "k" or "K", "M", "G", "T" in powers of 1000,
+     * and an optional window after '/' in any duration unit; without one, the rate is per second. The
+     * rate must come out as a whole number per second, so "120/min" is 2, but "100/min" is an error.
+     * @param text the rate, e.g. "10k/s", "500" or "2M/h".
+     * @return number per second.
+     * @throws UnitFormatException if the text is not a valid rate.
+     */
+    public static long parseRate(final String text) {
+        int length = text.length();
+        int end = numberEnd(text, 0, RATE);
+        int slash = end;
+        while (slash < length && text.charAt(slash) != '/') {
+            ++slash;
+        }
+        long multiplier = 1;
+        if (slash - end == 1 && isPrefix(text.charAt(end), true) && magnitude(text.charAt(end)) <= 4) {
+            multiplier = decimal(magnitude(text.charAt(end)));
+        } else if (slash != end) {
+            throw new UnitFormatException(RATE, text, end, UnitFormatException.Reason.UNKNOWN_UNIT);
+        }
+
+        // The window divides the rate, or multiplies it if shorter than a second
+        long divisor = 1;
+        if (slash < length) {
+            int unit = durationUnit(text, slash + 1, length);
+            if (unit < 0) {
+                throw new UnitFormatException(RATE, text, slash + 1, UnitFormatException.Reason.UNKNOWN_UNIT);
+            }
+            long nanos = NANOS[unit];
+            if (nanos < NANOS[3]) {
+                if (multiplier > Long.MAX_VALUE / (NANOS[3] / nanos)) {
+                    throw new UnitFormatException(RATE, text, 0, UnitFormatException.Reason.OVERFLOW);
+                }
+                multiplier *= NANOS[3] / nanos;
+            } else {
+                divisor = nanos / NANOS[3];
+            }
+        }
+        return scale(text, 0, end, multiplier, divisor, RATE);
+    }
+
+    /**
+     * Finds the end of a number: digits with an optional fraction.
+     * @param text the argument.
+     * @param start position of the number.
+     * @param kind kind of argument, for messages.
+     * @return position after the number.
+     * @throws UnitFormatException if there is no number at the position.
+     */
+    private static int numberEnd(final String text, final int start, final String kind) {
+        int length = text.length();
+        if (length == 0) {
+            throw new UnitFormatException(kind, text, 0, UnitFormatException.Reason.EMPTY);
+        }
+        int position = start;
+        while (position < length && isDigit(text.charAt(position))) {
+            ++position;
+        }
+        int digits = position - start;
+        if (position < length && text.charAt(position) == '.') {
+            int fraction = ++position;
+            while (position < length && isDigit(text.charAt(position))) {
+                ++position;
+            }
+            if (position == fraction) {
+                throw new UnitFormatException(kind, text, position, UnitFormatException.Reason.EXPECTED_NUMBER);
+            }
+            digits += position - fraction;
+        }
+        if (digits == 0) {
+            throw new UnitFormatException(kind, text, start, UnitFormatException.Reason.EXPECTED_NUMBER);
+        }
+        return position;
+    }
+
+    /**
+     * Computes number * multiplier / divisor exactly, for a number checked by
+     * {@link #numberEnd(String, int, String)}.
+     * @param text the argument.
+     * @param start position of the number.
+     * @param end position after the number.
+     * @param multiplier positive multiplier.
+     * @param divisor positive divisor.
+     * @param kind kind of argument, for messages.
+     * @return the value.
+     * @throws UnitFormatException if the value is not whole or does not fit in a long.
+     */
+    private static long scale(final String text, final int start, final int end, final long multiplier,
+                              final long divisor, final String kind) {
+
+        // Trailing zeros of a fraction do not count
+        int dot = text.lastIndexOf('.', end - 1);
+        int last = end;
+        if (dot >= start) {
+            while (last > dot + 1 && text.charAt(last - 1) == '0') {
+                --last;
+            }
+        } else {
+            dot = -1;
+        }
+        int fractionDigits = dot < 0 ? 0 : last - dot - 1;
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            throw new UnitFormatException(kind, text, start, UnitFormatException.Reason.INEXACT);
+        }
+
+        // All digits as one integer, to be divided by a power of ten
+        long digits = 0;
+        for (int position = start; position < last; ++position) {
+            char c = text.charAt(position);
+            if (c == '.') {
+                continue;
+            }
+            if (digits > (Long.MAX_VALUE - (c - '0')) / 10) {
+                throw new UnitFormatException(kind, text, start, UnitFormatException.Reason.OVERFLOW);
+            }
+            digits = digits * 10 + (c - '0');
+        }
+
+        // Cancel the power of ten against the multiplier and the digits; what is left must be 1
+        long denominator = POWERS_OF_TEN[fractionDigits];
+        long common = gcd(multiplier, denominator);
+        long factor = multiplier / common;
+        denominator /= common;
+        common = gcd(digits, denominator);
+        digits /= common;
+        denominator /= common;
+        if (denominator != 1) {
+            throw new UnitFormatException(kind, text, start, UnitFormatException.Reason.INEXACT);
+        }
+        if (digits != 0 && factor > Long.MAX_VALUE / digits) {
+            throw new UnitFormatException(kind, text, start, UnitFormatException.Reason.OVERFLOW);
+        }
+        long value = digits * factor;
+        if (value % divisor != 0) {
+            throw new UnitFormatException(kind, text, start, UnitFormatException.Reason.INEXACT);
+        }
+        return value / divisor;
+    }
+
+    /**
+     * Identifies a duration unit.
+     * @param text the argument.
+     * @param start position of the unit.
+     * @param end position after the unit.
+     * @return index into {@link #NANOS}; but if the unit is not known, -1.
+     */
+    private static int durationUnit(final String text, final int start, final int end) {
+        int length = end - start;
+        char first = length == 0 ? 0 : text.charAt(start);
+        if (length == 1) {
+            switch (first) {
+                case 's': return 3;
+                case 'm': return 4;
+                case 'h': return 5;
+                case 'd': return 6;
+                default: return -1;
+            }
+        }
+        if (length == 2 && text.charAt(start + 1) == 's') {
+            switch (first) {
+                case 'n': return 0;
+                case 'u': case '\u00b5': return 1;
+                case 'm': return 2;
+                default: return -1;
+            }
+        }
+        return length == 3 && text.startsWith("min", start) ? 4 : -1;
+    }
+
+    /**
+     * Gets the magnitude of a letter: 1 for kilo up to 6 for exa, in either case.
+     * @param c the letter.
+     * @return magnitude; but if the letter is not one, 7.
+     */
+    private static int magnitude(final char c) {
+        int index = MAGNITUDES.indexOf(Character.toUpperCase(c));
+        return index < 0 ? 7 : index + 1;
+    }
+
+    /**
+     * Determines whether a letter is an upper case magnitude prefix, or the "k" of kilo.
+     * @param c the letter.
+     * @param kilo whether a lower case "k" is allowed, as it is in decimal units.
+     * @return true if the letter is a prefix.
+     */
+    private static boolean isPrefix(final char c, final boolean kilo) {
+        return (kilo && c == 'k') || (c >= 'A' && c <= 'Z' && MAGNITUDES.indexOf(c) >= 0);
+    }
+
+    /**
+     * Gets a power of 1024.
+     * @param magnitude exponent, 1 to 6; anything else is not a magnitude.
+     * @return the power; but if the exponent is not a magnitude, 0.
+     */
+    private static long binary(final int magnitude) {
+        return magnitude > 6 ? 0 : 1L << (10 * magnitude);
+    }
+
+    /**
+     * Gets a power of 1000.
+     * @param magnitude exponent, 1 to 6; anything else is not a magnitude.
+     * @return the power; but if the exponent is not a magnitude, 0.
+     */
+    private static long decimal(final int magnitude) {
+        return magnitude > 6 ? 0 : POWERS_OF_TEN[3 * magnitude];
+    }
+
+    /**
+     * Computes the greatest common divisor of two non-negative numbers.
+     * @param a first number.
+     * @param b second number.
+     * @return greatest common divisor; if both are 0, 0.
+     */
+    private static long gcd(final long a, final long b) {
+        long x = a;
+        long y = b;
+        while (y != 0) {
+            long r = x % y;
+            x = y;
+            y = r;
+        }
+        return x;
+    }
+
+    /**
+     * Determines whether the character is an ASCII digit.
+     * @param c character to be checked.
+     * @return true if the character is a digit.
+     */
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,383 @@
+package main.java.com.commandline;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the arguments of options in the background, instead of one check after another once
+ * parsing is done.
+ *
+ * Checks are declared per option up front. While parsing, the checks of an option start as soon
+ * as the arguments of each of its occurrences have been taken, so slow checks, such as file checks
+ * on remote mounts, run alongside the parsing of the remaining arguments and alongside whatever the
+ * application does next. {@link Validation#join()} waits for all of them and reports every failure
+ * at once.
+ *
+ * @author Zach Wilson
+ */
+public class ValidationPipeline {
+
+    /** The command line the checks belong to. */
+    private final CommandLine commandLine;
+
+    /** Registered checks, in registration order. */
+    private final ArrayList<Check> registeredChecks = new ArrayList<>();
+
+    /** Executor running the checks; null for the default. */
+    private Executor executor;
+
+    /** Checks by option ordinal; null until compiled. */
+    private Check[][] table;
+
+    /** Specification version the table was compiled for. */
+    private long tableVersion;
+
+    /**
+     * Constructor.
+     * @param commandLine the command line the checks belong to.
+     */
+    public ValidationPipeline(final CommandLine commandLine) {
+        this.commandLine = commandLine;
+    }
+
+    /**
+     * Sets the executor running the checks. By default, checks run on a shared pool of daemon threads,
+     * several per processor since most checks wait on I/O; checks beyond that wait their turn.
+     * @param executor executor running the checks; null for the default.
+     */
+    public synchronized void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Requires every argument of the option to be an existing file.
+     * @param tag the option's short or long tag, e.g. "-o" or "--option".
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    public void requireFiles(final String tag) {
+        require(tag, "an existing file", argument -> new File(argument).exists());
+    }
+
+    /**
+     * Requires every argument of the option to be a number within a range.
+     * @param tag the option's short or long tag.
+     * @param min smallest allowed number.
+     * @param max largest allowed number.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    public void requireRange(final String tag, final double min, final double max) {
+        require(tag, "a number from " + min + " to " + max, argument -> {
+            if (!Option.isNumber(argument)) {
+                return false;
+            }
+            double value = Double.parseDouble(argument);
+            return value >= min && value <= max;
+        });
+    }
+
+    /**
+     * Requires every argument of the option to match a regular expression.
+     * @param tag the option's short or long tag.
+     * @param pattern the regular expression.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    public void requirePattern(final String tag, final Pattern pattern) {
+        require(tag, "matching '" + pattern.pattern() + "'", argument -> pattern.matcher(argument).matches());
+    }
+
+    /**
+     * Requires every argument of the option to pass a check. The check may be called from any thread.
+     * @param tag the option's short or long tag.
+     * @param description what a valid argument is, e.g. "a port number".
+     * @param check returns true for a valid argument.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    public synchronized void require(final String tag, final String description, final Predicate<String> check) {
+        this.registeredChecks.add(new Check(findOption(tag), description, check));
+        this.table = null;
+    }
+
+    /**
+     * Parses command line arguments, starting the checks of each option occurrence as soon as it is parsed.
+     * @param args command line arguments.
+     * @return the validation, holding the parse result.
+     * @throws IllegalArgumentException if the arguments are invalid or a required option is missing.
+     */
+    public Validation parse(final String[] args) {
+        final Check[][] table = compile();
+        final Executor executor = executor();
+        final ArrayList<CompletableFuture<String>> pending = new ArrayList<>();
+        ParseResult result;
+        try {
+            result = this.commandLine.parseResult(args, (ordinal, arguments) ->
+                    submit(table, ordinal, arguments, executor, pending));
+        } catch (IllegalArgumentException e) {
+            for (CompletableFuture<String> future : pending) {
+                future.cancel(false);
+            }
+            throw e;
+        }
+        return new Validation(result, pending);
+    }
+
+    /**
+     * Starts the checks of every option found by a parse.
+     * @param result the parse result.
+     * @return the validation.
+     */
+    public Validation validate(final ParseResult result) {
+        Check[][] table = compile();
+        Executor executor = executor();
+        ArrayList<CompletableFuture<String>> pending = new ArrayList<>();
+        for (int index = 0; index < result.getFoundCount(); ++index) {
+            int ordinal = result.getFoundOrdinal(index);
+            List<String> arguments = result.getArguments(ordinal);
+            ArgumentMap entries = result.getEntries(ordinal);
+            if (entries != null) {
+                arguments = new ArrayList<>();
+                for (int i = 0; i < entries.size(); ++i) {
+                    arguments.add(entries.getSource(i).substring(entries.getKeyStart(i)));
+                }
+            }
+            submit(table, ordinal, arguments, executor, pending);
+        }
+        return new Validation(result, pending);
+    }
+
+    /**
+     * Starts the checks of an option occurrence.
+     * @param table checks by option ordinal.
+     * @param ordinal ordinal of the option.
+     * @param arguments arguments of the occurrence.
+     * @param executor executor running the checks.
+     * @param pending receives a future per check, completing with a failure message or null.
+     */
+    private void submit(final Check[][] table, final int ordinal, final List<String> arguments,
+                        final Executor executor, final List<CompletableFuture<String>> pending) {
+        if (ordinal >= table.length || table[ordinal] == null || arguments.isEmpty()) {
+            return;
+        }
+        for (final Check check : table[ordinal]) {
+            pending.add(CompletableFuture.supplyAsync(() -> check.run(arguments), executor));
+        }
+    }
+
+    /**
+     * Compiles the registered checks into a table indexed by option ordinal, unless the specification
+     * has not changed since the last time.
+     * @return checks by option ordinal.
+     */
+    private synchronized Check[][] compile() {
+        long version = this.commandLine.getSpecVersion();
+        if (this.table != null && this.tableVersion == version) {
+            return this.table;
+        }
+        Check[][] table = new Check[this.commandLine.getOptionCount()][];
+        for (Check check : this.registeredChecks) {
+            int ordinal = check.option.getOrdinal();
+            Check[] checks = table[ordinal] == null ? new Check[1] :
+                    Arrays.copyOf(table[ordinal], table[ordinal].length + 1);
+            checks[checks.length - 1] = check;
+            table[ordinal] = checks;
+        }
+        this.table = table;
+        this.tableVersion = version;
+        return table;
+    }
+
+    /**
+     * Gets the executor running the checks.
+     * @return executor.
+     */
+    private synchronized Executor executor() {
+        return this.executor != null ? this.executor : DefaultExecutor.EXECUTOR;
+    }
+
+    /**
+     * Finds the option with the given tag.
+     * @param tag the option's short or long tag.
+     * @return the option.
+     * @throws IllegalArgumentException if no option has the tag.
+     */
+    private Option findOption(final String tag) {
+        return this.commandLine.getHandle(tag).getOption();
+    }
+
+    /**
+     * A check of the arguments of an option.
+     */
+    private static final class Check {
+
+        /** The option whose arguments are checked. */
+        private final Option option;
+
+        /** What a valid argument is. */
+        private final String description;
+
+        /** Returns true for a valid argument. */
+        private final Predicate<String> predicate;
+
+        /**
+         * Constructor.
+         * @param option the option whose arguments are checked.
+         * @param description what a valid argument is.
+         * @param predicate returns true for a valid argument.
+         */
+        Check(final Option option, final String description, final Predicate<String> predicate) {
+            this.option = option;
+            this.description = description;
+            this.predicate = predicate;
+        }
+
+        /**
+         * Checks the arguments of an occurrence.
+         * @param arguments the arguments.
+         * @return failure message; but if all arguments are valid, null.
+         */
+        String run(final List<String> arguments) {
+            for (String argument : arguments) {
+                boolean valid;
+                try {
+                    valid = this.predicate.test(argument);
+                } catch (RuntimeException e) {
+                    return "Argument '" + argument + "' of option '" + this.option.getShortName() +
+                            "' could not be checked: " + e + ".";
+                }
+                if (!valid) {
+                    return "Argument '" + argument + "' of option '" + this.option.getShortName() +
+                            "' is not " + this.description + ".";
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The default executor, created on first use.
+     */
+    private static final class DefaultExecutor {
+
+        /** Most threads of the pool: several per processor, since most checks wait on I/O. */
+        private static final int THREADS = Math.max(4, 4 * Runtime.getRuntime().availableProcessors());
+
+        /** Shared pool of daemon threads, which stop when idle. */
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        /**
+         * Creates the pool. Checks started while every thread is busy are queued.
+         * @return new executor.
+         */
+        private static ExecutorService createExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "validation");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * The checks started for one parse, with the parse result.
+     */
+    public static final class Validation {
+
+        /** The parse result. */
+        private final ParseResult result;
+
+        /** A future per check, completing with a failure message or null. */
+        private final List<CompletableFuture<String>> pending;
+
+        /**
+         * Constructor.
+         * @param result the parse result.
+         * @param pending a future per check.
+         */
+        Validation(final ParseResult result, final List<CompletableFuture<String>> pending) {
+            this.result = result;
+            this.pending = pending;
+        }
+
+        /**
+         * Gets the parse result, which may be used while checks are still running.
+         * @return the parse result.
+         */
+        public ParseResult getResult() {
+            return this.result;
+        }
+
+        /**
+         * Determines whether all checks have finished.
+         * @return true if all checks have finished.
+         */
+        public boolean isDone() {
+            for (CompletableFuture<String> future : this.pending) {
+                if (!future.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets a future completing with the failure messages once all checks have finished.
+         * @return future of the failure messages, in the order the checks were started.
+         */
+        public CompletableFuture<List<String>> toFuture() {
+            return CompletableFuture.allOf(this.pending.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(ignored -> gather());
+        }
+
+        /**
+         * Waits for all checks to finish.
+         * @return failure messages, in the order the checks were started; empty if all arguments are valid.
+         */
+        public List<String> getFailures() {
+            try {
+                return toFuture().join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Validation failed unexpectedly.", e.getCause());
+            }
+        }
+
+        /**
+         * Waits for all checks to finish.
+         * @throws IllegalArgumentException if any argument is invalid, with every failure in its message.
+         */
+        public void join() {
+            List<String> failures = getFailures();
+            if (!failures.isEmpty()) {
+                throw new IllegalArgumentException(String.join(" ", failures));
+            }
+        }
+
+        /**
+         * Gathers the failure messages of finished checks.
+         * @return failure messages.
+         */
+        private List<String> gather() {
+            ArrayList<String> failures = new ArrayList<>();
+            for (CompletableFuture<String> future : this.pending) {
+                String failure = future.join();
+                if (failure != null) {
+                    failures.add(failure);
+                }
+            }
+            return Collections.unmodifiableList(failures);
+        }
+    }
+}
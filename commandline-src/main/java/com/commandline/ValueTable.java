@@ -0,0 +1,151 @@
+package main.java.com.commandline;
+
+import java.util.Arrays;
+
+/**
+ * Canonicalizes equal argument values, so that a value given many times, such as "--label prod" in
+ * every set of a batch, is held as one string by all the results and options that keep it.
+ *
+ * The table is a fixed array of strings, in sets of two indexed by the hash of a value: a value is
+ * looked up with at most two probes and compares. A value not found is placed on probation in the
+ * second slot of its set, evicting what was there, and is promoted to the first slot once it is found
+ * again. The table never holds more than its capacity, and a stream of values given only once, such as
+ * job names, only ever evicts each other, not the values which keep being given. Values longer than
+ * the maximum length are never held. Strings are immutable, so several threads may
+ * share a table without locking; a value they race to place is held by one of them.
+ *
+ * @author Zach Wilson
+ */
+public final class ValueTable {
+
+    /** Default maximum length of a held value. */
+    public static final int DEFAULT_MAX_LENGTH = 128;
+
+    /** The held values, by slot. */
+    private final String[] values;
+
+    /** Maximum length of a held value. */
+    private final int maxLength;
+
+    /** Number of values found in the table; may miss counts while threads share the table. */
+    private long hits;
+
+    /** Number of values placed into the table; may miss counts while threads share the table. */
+    private long misses;
+
+    /**
+     * Constructor.
+     * @param capacity number of values held at most; rounded up to a power of two, and at least two.
+     * @throws IllegalArgumentException if the capacity is not positive or too large.
+     */
+    public ValueTable(final int capacity) {
+        this(capacity, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Constructor.
+     * @param capacity number of values held at most; rounded up to a power of two, and at least two.
+     * @param maxLength length of the longest value held.
+     * @throws IllegalArgumentException if the capacity is not positive or too large, or the maximum
+     *         length is negative.
+     */
+    public ValueTable(final int capacity, final int maxLength) {
+        if (capacity < 1 || capacity > (1 << 26)) {
+            throw new IllegalArgumentException("Value table capacity must be between 1 and " + (1 << 26) + ".");
+        }
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Maximum value length must not be negative, given " + maxLength + ".");
+        }
+        int rounded = Integer.highestOneBit(capacity);
+        this.values = new String[Math.max(2, rounded < capacity ? rounded << 1 : rounded)];
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Gets the canonical string equal to a value: the one held by the table, or else the value itself,
+     * which is then held on probation.
+     * @param value the value.
+     * @return equal string held by the table, or the value.
+     */
+    public String canonicalize(final String value) {
+        if (value.length() > this.maxLength) {
+            return value;
+        }
+        int hash = value.hashCode() * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & (this.values.length - 2);
+        String held = this.values[slot];
+        if (held != null && held.equals(value)) {
+            ++this.hits;
+            return held;
+        }
+
+        // A value found on probation is promoted, and the value it displaces goes on probation
+        String probation = this.values[slot + 1];
+        if (probation != null && probation.equals(value)) {
+            ++this.hits;
+            this.values[slot] = probation;
+            this.values[slot + 1] = held;
+            return probation;
+        }
+        ++this.misses;
+        this.values[slot + 1] = value;
+        return value;
+    }
+
+    /**
+     * Gets the number of values held at most.
+     * @return capacity.
+     */
+    public int getCapacity() {
+        return this.values.length;
+    }
+
+    /**
+     * Gets the length of the longest value held.
+     * @return maximum length.
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * Gets the number of values currently held.
+     * @return number of values.
+     */
+    public int size() {
+        int size = 0;
+        for (String value : this.values) {
+            if (value != null) {
+                ++size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of values which were found in the table. Counts may be missed while several
+     * threads share the table.
+     * @return number of hits.
+     */
+    public long getHitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the number of values which were not found in the table and were placed into it, evicting
+     * what their slot held. Counts may be missed while several threads share the table.
+     * @return number of misses.
+     */
+    public long getMissCount() {
+        return this.misses;
+    }
+
+    /**
+     * Removes all values and resets the counts.
+     */
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.hits = 0;
+        this.misses = 0;
+    }
+}
@@ -0,0 +1,96 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.ArgumentMap;
+import main.java.com.commandline.DuplicateKeyPolicy;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.Parser;
+
+import java.util.ArrayList;
+
+/**
+ * Test {@link ArgumentMap}.
+ *
+ * @author Zach Wilson
+ */
+public class ArgumentMapTest {
+
+    /**
+     * Parses the arguments with a single key-value option "-D".
+     * @param args command line arguments.
+     * @param policy duplicate key policy.
+     * @return the key-value option.
+     */
+    private static Option parse(final String[] args, final DuplicateKeyPolicy policy) {
+        Option define = new Option("D");
+        define.setLongName("define");
+        define.setKeyValue(true);
+        define.setDuplicateKeyPolicy(policy);
+
+        ArrayList<Option> options = new ArrayList<>();
+        options.add(define);
+        new Parser(args, options).parse();
+        return define;
+    }
+
+    /**
+     * Method: get(final String key), containsKey(final String key), getKey(final int index), getValue(final int index).
+     */
+    @Test
+    public void testEntries() {
+        Option define = parse(new String[] { "-Da=1", "-Db=x=y", "--define", "c=3", "-Dflag" },
+                DuplicateKeyPolicy.LAST);
+        ArgumentMap entries = define.getEntries();
+
+        Assert.assertEquals(4, entries.size());
+        Assert.assertEquals("1", entries.get("a"));
+        Assert.assertEquals("x=y", entries.get("b"));
+        Assert.assertEquals("3", define.getValue("c"));
+        Assert.assertEquals("", entries.get("flag"));
+        Assert.assertTrue(entries.containsKey("flag"));
+        Assert.assertFalse(entries.containsKey("x"));
+        Assert.assertNull(entries.get("missing"));
+
+        Assert.assertEquals("a", entries.getKey(0));
+        Assert.assertEquals("b", entries.getKey(1));
+        Assert.assertEquals("x=y", entries.getValue(1));
+        Assert.assertEquals(4, define.getCount());
+    }
+
+    /**
+     * Method: get(final String key) with many keys.
+     */
+    @Test
+    public void testManyEntries() {
+        String[] args = new String[5000];
+        for (int i = 0; i < args.length; ++i) {
+            args[i] = "-Dkey" + i + "=value" + i;
+        }
+        ArgumentMap entries = parse(args, DuplicateKeyPolicy.LAST).getEntries();
+
+        Assert.assertEquals(args.length, entries.size());
+        for (int i = 0; i < args.length; ++i) {
+            Assert.assertEquals("value" + i, entries.get("key" + i));
+        }
+    }
+
+    /**
+     * Method: get(final String key) with duplicate keys.
+     */
+    @Test
+    public void testDuplicateKeyPolicy() {
+        String[] args = new String[] { "-Da=1", "-Da=2" };
+        Assert.assertEquals("1", parse(args, DuplicateKeyPolicy.FIRST).getValue("a"));
+        Assert.assertEquals("2", parse(args, DuplicateKeyPolicy.LAST).getValue("a"));
+        Assert.assertEquals(1, parse(args, DuplicateKeyPolicy.LAST).getEntries().size());
+        try {
+            parse(args, DuplicateKeyPolicy.ERROR);
+            Assert.fail("Duplicate key accepted.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Duplicate key 'a' for option 'D'.", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.ArgumentStorage;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.ParseResult;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test {@link ArgumentStorage}.
+ *
+ * @author Zach Wilson
+ */
+public class ArgumentStorageTest {
+
+    /**
+     * Creates a command line with a repeatable "-i" taking two arguments and "-f" taking the given number.
+     * @param files number of arguments of "-f".
+     * @param storage how arguments are held.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int files, final ArgumentStorage storage) {
+        CommandLine commandLine = CommandLines.of(CommandLines.repeatable(CommandLines.option("i", 2)),
+                CommandLines.option("f", files));
+        commandLine.setArgumentStorage(storage);
+        return commandLine;
+    }
+
+    /**
+     * Test that arguments read back from the arena as given.
+     */
+    @Test
+    public void testArena() {
+        String[] args = new String[] { "-i", "plain", "", "-f", "caf\u00E9", "\u65E5\u672C", "\uD83D\uDE00x",
+                "-i", "a", "b" };
+        ParseResult strings = createCommandLine(3, ArgumentStorage.STRINGS).parseResult(args);
+        ParseResult arena = createCommandLine(3, ArgumentStorage.ARENA).parseResult(args);
+
+        for (int ordinal = 0; ordinal < 2; ++ordinal) {
+            Assert.assertEquals(strings.getArguments(ordinal), arena.getArguments(ordinal));
+        }
+        Assert.assertEquals(Arrays.asList("plain", "", "a", "b"), arena.getArguments("-i"));
+        Assert.assertEquals("\uD83D\uDE00x", arena.getArgument("-f", 2));
+        Assert.assertNull(arena.getArgument("-f", 3));
+        Assert.assertEquals(strings.toString(), arena.toString());
+
+        List<String> view = arena.getArguments("-f");
+        try {
+            view.add("d");
+            Assert.fail("Changed the arguments of a result.");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.ArgumentTokenizer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares scanning an argument file eight bytes at a time with scanning it one byte at a time, on a file
+ * of long paths and quoted labels. Wall-clock throughput depends on the machine, so it is printed rather
+ * than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class ArgumentTokenizerBenchmark {
+
+    /**
+     * Constructor.
+     */
+    private ArgumentTokenizerBenchmark() {}
+
+    /**
+     * Runs the comparison.
+     * @param args number of rounds, optionally; 30 by default.
+     */
+    public static void main(final String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        ArgumentTokenizer word = new ArgumentTokenizer();
+        ArgumentTokenizer scalar = new ArgumentTokenizer(ArgumentTokenizer.Scan.BYTE);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            text.append("--input /srv/data/warehouse/partitions/2026/10/part-").append(i)
+                    .append(".parquet --label 'nightly compaction run' -v\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[bytes.length + 1];
+        if (word.tokenize(bytes, 0, bytes.length, out, 0) != scalar.tokenize(bytes, 0, bytes.length, out, 0)) {
+            throw new IllegalStateException("The scans disagree.");
+        }
+
+        long wordTime = Long.MAX_VALUE;
+        long scalarTime = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; ++round) {
+            long start = System.nanoTime();
+            word.tokenize(bytes, 0, bytes.length, out, 0);
+            long middle = System.nanoTime();
+            scalar.tokenize(bytes, 0, bytes.length, out, 0);
+            long end = System.nanoTime();
+            wordTime = Math.min(wordTime, middle - start);
+            scalarTime = Math.min(scalarTime, end - middle);
+        }
+        System.out.println("WORD " + bytes.length * 1000L / wordTime + " MB/s, BYTE " +
+                bytes.length * 1000L / scalarTime + " MB/s, on " + bytes.length + " bytes.");
+    }
+}
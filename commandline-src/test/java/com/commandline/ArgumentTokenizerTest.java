@@ -0,0 +1,147 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.ArgumentTokenizer;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test {@link ArgumentTokenizer}.
+ *
+ * @author Zach Wilson
+ */
+public class ArgumentTokenizerTest {
+
+    /** Tokenizer scanning eight bytes at a time. */
+    private static final ArgumentTokenizer WORD = new ArgumentTokenizer();
+
+    /** Tokenizer scanning one byte at a time. */
+    private static final ArgumentTokenizer BYTE = new ArgumentTokenizer(ArgumentTokenizer.Scan.BYTE);
+
+    /**
+     * Splits text with both tokenizers, checking they agree.
+     * @param text the text.
+     * @return the arguments, each followed by "|".
+     */
+    private static String tokenize(final String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String word = decode(WORD.tokenize(ByteBuffer.wrap(bytes)));
+        Assert.assertEquals(decode(BYTE.tokenize(ByteBuffer.wrap(bytes))), word);
+        return word;
+    }
+
+    /**
+     * Decodes arguments, showing each NUL as "|".
+     * @param buffer the arguments.
+     * @return the arguments as text.
+     */
+    private static String decode(final ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString().replace('\0', '|');
+    }
+
+    /**
+     * Test splitting on whitespace, quotes and backslashes.
+     */
+    @Test
+    public void testTokenize() {
+        Assert.assertEquals("", tokenize(""));
+        Assert.assertEquals("", tokenize(" \t\r\n "));
+        Assert.assertEquals("-a|b|", tokenize("-a b"));
+        Assert.assertEquals("--output|/var/log/long-file-name.txt|-v|",
+                tokenize("  --output\t/var/log/long-file-name.txt\n\n-v\n"));
+        Assert.assertEquals("-m|a message with spaces|", tokenize("-m 'a message with spaces'"));
+        Assert.assertEquals("-m|say \"hi\" \\ there\\n|", tokenize("-m \"say \\\"hi\\\" \\\\ there\\n\""));
+        Assert.assertEquals("--name=a b c|", tokenize("--name='a b'\" c\""));
+        Assert.assertEquals("a b|'|", tokenize("a\\ b \\'"));
+        Assert.assertEquals("|-x||", tokenize("'' -x \"\""));
+        Assert.assertEquals("-Dkey=caf\u00e9 cr\u00e8me|-e|", tokenize("-Dkey=\"caf\u00e9 cr\u00e8me\" -e"));
+        Assert.assertEquals("first|second|", tokenize("first\0second"));
+
+        // Special bytes at every offset within a word
+        for (int i = 1; i < 17; ++i) {
+            String prefix = "abcdefghijklmnopq".substring(0, i);
+            Assert.assertEquals(prefix + "|x y|z|", tokenize(prefix + " 'x y'\tz"));
+        }
+
+        for (String invalid : new String[] { "-m 'open", "-m \"open\\\"", "trailing\\" }) {
+            try {
+                tokenize(invalid);
+                Assert.fail("Tokenized " + invalid + ".");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        try {
+            WORD.tokenize(new byte[4], 0, 4, new byte[4], 0);
+            Assert.fail("Wrote to a short output.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test that both scans agree on random text made mostly of special bytes.
+     */
+    @Test
+    public void testRandom() {
+        Random random = new Random(42);
+        byte[] alphabet = " \t\n\0'\"\\-abcdefgh\u00e9".getBytes(StandardCharsets.UTF_8);
+        int valid = 0;
+        for (int round = 0; round < 20000; ++round) {
+            byte[] text = new byte[random.nextInt(64)];
+            for (int i = 0; i < text.length; ++i) {
+                text[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String word;
+            try {
+                word = decode(WORD.tokenize(ByteBuffer.wrap(text)));
+            } catch (IllegalArgumentException e) {
+                word = e.getMessage();
+            }
+            String bytes;
+            try {
+                bytes = decode(BYTE.tokenize(ByteBuffer.wrap(text)));
+                ++valid;
+            } catch (IllegalArgumentException e) {
+                bytes = e.getMessage();
+            }
+            Assert.assertEquals(bytes, word);
+        }
+        Assert.assertTrue(valid > 1000);
+    }
+
+    /**
+     * Test that the arguments parse as they are, from a heap or direct buffer.
+     */
+    @Test
+    public void testParse() {
+        CommandLine commandLine = new CommandLine();
+        Option output = new Option("o");
+        output.setLongName("output");
+        output.setExpectedArgumentCount(1);
+        commandLine.addOption(output);
+        Option message = new Option("m");
+        message.setExpectedArgumentCount(1);
+        commandLine.addOption(message);
+        commandLine.addOption(new Option("v"));
+
+        byte[] file = "--output '/tmp/out dir'\n-m \"it's done\" -v\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(file.length + 2);
+        direct.put(new byte[] { 'x', ' ' }).put(file).position(2);
+        for (ByteBuffer text : new ByteBuffer[] { ByteBuffer.wrap(file), direct }) {
+            ByteBuffer args = WORD.tokenize(text);
+            Assert.assertEquals(text.isDirect() ? 2 : 0, text.position());
+            ParseResult result = commandLine.parseResult(args);
+            Assert.assertEquals("/tmp/out dir", result.getArgument("-o", 0));
+            Assert.assertEquals("it's done", result.getArgument("-m", 0));
+            Assert.assertTrue(result.isFound("-v"));
+        }
+    }
+}
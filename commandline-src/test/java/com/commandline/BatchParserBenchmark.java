@@ -0,0 +1,81 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.BatchParser;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many argument sets a batch parses per second against one command line, on 1, 8 and 32
+ * threads. Throughput depends on the machine and its processors, so it is printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class BatchParserBenchmark {
+
+    /** Numbers of threads parsing. */
+    private static final int[] THREADS = new int[] { 1, 8, 32 };
+
+    /**
+     * Constructor.
+     */
+    private BatchParserBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args number of sets, optionally; 200000 by default.
+     * @throws InterruptedException if interrupted while parsing.
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        CommandLine commandLine = CommandLines.of(CommandLines.required(CommandLines.option("x", "input", 1)),
+                CommandLines.repeatable(new Option("v")), CommandLines.keyValue("D"),
+                CommandLines.repeatable(CommandLines.option("i", "include", 1)));
+        commandLine.freeze();
+        List<String[]> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            inputs.add(new String[] { "--input", "/data/input-" + i, "-v", "-Dmode=fast", "-i", "/usr/include",
+                    "--include", "/opt/include/" + i % 16, "-Dlevel=" + i % 5, "-v" });
+        }
+
+        // The first batch warms up
+        parse(commandLine, inputs, THREADS[THREADS.length - 1]);
+        for (int threads : THREADS) {
+            long start = System.nanoTime();
+            parse(commandLine, inputs, threads);
+            long elapsed = System.nanoTime() - start;
+            System.out.println(threads + " threads: " + count * 1000000000L / elapsed + " sets per second.");
+        }
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processors.");
+    }
+
+    /**
+     * Parses a batch on a pool of threads, handing out outcomes as they complete.
+     * @param commandLine the command line.
+     * @param inputs the argument sets.
+     * @param threads number of threads.
+     * @throws InterruptedException if interrupted while parsing.
+     */
+    private static void parse(final CommandLine commandLine, final List<String[]> inputs, final int threads)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            BatchParser batch = new BatchParser(commandLine);
+            batch.setExecutor(executor);
+            batch.setParallelism(threads * 4);
+            batch.setOrdered(false);
+            AtomicLong found = new AtomicLong();
+            batch.parse(inputs.iterator(), outcome -> found.addAndGet(outcome.getResult().getFoundCount()));
+            if (found.get() != 4L * inputs.size()) {
+                throw new IllegalStateException("Found " + found.get() + " options in " + inputs.size() + " sets.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.BatchParser;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Test {@link BatchParser}.
+ *
+ * @author Zach Wilson
+ */
+public class BatchParserTest {
+
+    /**
+     * Creates a command line with a required option "-x" taking one argument and a flag "-v".
+     * @return command line.
+     */
+    private static CommandLine createCommandLine() {
+        return CommandLines.of(CommandLines.required(CommandLines.option("x", 1)),
+                CommandLines.repeatable(new Option("v")));
+    }
+
+    /**
+     * Creates sets of arguments; every tenth set lacks the required option.
+     * @param count number of sets.
+     * @return sets of arguments.
+     */
+    private static List<String[]> createInputs(final int count) {
+        List<String[]> inputs = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            inputs.add(i % 10 == 9 ? new String[] { "-v" } : new String[] { "-x", "X" + i, "-v", "-v" });
+        }
+        return inputs;
+    }
+
+    /**
+     * Method: parse(final Iterator&lt;String[]&gt; inputs, final Consumer&lt;Outcome&gt; sink) in input order.
+     * @throws Exception if parsing is interrupted.
+     */
+    @Test
+    public void testParseOrdered() throws Exception {
+        CommandLine commandline = createCommandLine();
+        BatchParser batch = new BatchParser(commandline);
+        batch.setParallelism(4);
+
+        List<BatchParser.Outcome> outcomes = new ArrayList<>();
+        batch.parse(createInputs(1000).iterator(), outcomes::add);
+
+        Assert.assertEquals(1000, outcomes.size());
+        for (int i = 0; i < outcomes.size(); ++i) {
+            BatchParser.Outcome outcome = outcomes.get(i);
+            Assert.assertEquals(i, outcome.getIndex());
+            if (i % 10 == 9) {
+                Assert.assertNull(outcome.getResult());
+                Assert.assertNotNull(outcome.getError());
+            } else {
+                Assert.assertNull(outcome.getError());
+                Assert.assertEquals("X" + i, outcome.getResult().getArgument("-x", 0));
+                Assert.assertEquals(2, outcome.getResult().getCount("-v"));
+            }
+        }
+
+        // The options themselves are untouched
+        Assert.assertFalse(commandline.getOptions().get(0).isFound());
+    }
+
+    /**
+     * Method: parse(final Stream&lt;String[]&gt; inputs, final Consumer&lt;Outcome&gt; sink) in completion order.
+     * @throws Exception if parsing is interrupted.
+     */
+    @Test
+    public void testParseUnordered() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            BatchParser batch = new BatchParser(createCommandLine());
+            batch.setExecutor(executor);
+            batch.setOrdered(false);
+
+            HashSet<Long> indexes = new HashSet<>();
+            batch.parse(createInputs(500).stream(), outcome -> indexes.add(outcome.getIndex()));
+
+            Assert.assertEquals(500, indexes.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
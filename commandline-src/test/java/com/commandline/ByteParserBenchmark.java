@@ -0,0 +1,114 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares parsing NUL-separated bytes with decoding them to strings and parsing those, on command lines
+ * of the kind a busy host runs: thousands of processes with JVM options, a main class and application
+ * options. Wall-clock timings depend on the machine, so they are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class ByteParserBenchmark {
+
+    /**
+     * Constructor.
+     */
+    private ByteParserBenchmark() {}
+
+    /**
+     * Runs the comparison.
+     * @param args number of rounds, optionally; 20 by default.
+     */
+    public static void main(final String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < 30; ++i) {
+            Option option = new Option("o" + i);
+            option.setLongName("option-" + i);
+            option.setExpectedArgumentCount(i % 3);
+            option.setRepeatable(true);
+            commandLine.addOption(option);
+        }
+        Option define = new Option("D");
+        define.setKeyValue(true);
+        commandLine.addOption(define);
+        commandLine.freeze();
+
+        Random random = new Random(4);
+        List<ByteBuffer> processes = new ArrayList<>();
+        for (int process = 0; process < 5000; ++process) {
+            List<String> arguments = new ArrayList<>();
+            arguments.add("/usr/lib/jvm/bin/java");
+            arguments.add("-Xmx" + random.nextInt(64) + "g");
+            arguments.add("-Djava.io.tmpdir=/var/tmp/process-" + process);
+            arguments.add("com.example.Service");
+            int header = String.join("\0", arguments).length() + 1;
+            for (int i = 0; i < 30; ++i) {
+                if (random.nextInt(3) == 0) {
+                    arguments.add("-Dproperty." + i + "=" + random.nextLong());
+                } else {
+                    int option = random.nextInt(30);
+                    arguments.add(random.nextBoolean() ? "-o" + option : "--option-" + option);
+                    for (int j = 0; j < option % 3; ++j) {
+                        arguments.add("/srv/data/" + Long.toHexString(random.nextLong()) + "/file-" + j);
+                    }
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(join(arguments));
+            buffer.position(header);
+            processes.add(buffer);
+        }
+
+        long bytes = Long.MAX_VALUE;
+        long strings = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; ++round) {
+            long start = System.nanoTime();
+            for (ByteBuffer buffer : processes) {
+                commandLine.parseResult(buffer).getArgument("-o1", 0);
+            }
+            bytes = Math.min(bytes, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (ByteBuffer buffer : processes) {
+                commandLine.parseResult(split(buffer)).getArgument("-o1", 0);
+            }
+            strings = Math.min(strings, System.nanoTime() - start);
+        }
+        System.out.println("Bytes took " + bytes / 1000 + " us, strings " + strings / 1000 + " us, for " +
+                processes.size() + " command lines.");
+    }
+
+    /**
+     * Joins arguments into NUL-separated UTF-8 bytes, each followed by a NUL.
+     * @param args the arguments.
+     * @return the bytes.
+     */
+    private static byte[] join(final List<String> args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String arg : args) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+            out.write(0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes NUL-separated bytes from the position into strings.
+     * @param buffer the bytes.
+     * @return the arguments.
+     */
+    private static String[] split(final ByteBuffer buffer) {
+        String all = new String(buffer.array(), buffer.position(), buffer.remaining() - 1, StandardCharsets.UTF_8);
+        return all.split("\0", -1);
+    }
+}
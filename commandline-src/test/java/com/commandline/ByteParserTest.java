@@ -0,0 +1,142 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.TagMatching;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Test parsing NUL-separated bytes with {@link CommandLine#parseResult(ByteBuffer)}.
+ *
+ * @author Zach Wilson
+ */
+public class ByteParserTest {
+
+    /** Tags and arguments the fuzzed arguments are drawn from. */
+    private static final String[] WORDS = { "-a", "--alpha", "-b", "-c", "--\u00E9t\u00E9", "-D", "-Dk=v", "-Dk=w",
+        "-Dx", "-B", "--ALPHA", "-", "", "x", "y", "k=v", "caf\u00E9", "\uD83D\uDE00", "-z" };
+
+    /**
+     * Creates a command line with "-a" taking one argument, a repeatable flag "-b", "-c" taking two
+     * arguments, "-e" with a long tag which is not ASCII, a key-value option "-D" and help.
+     * @param extra number of further options, to have the tags indexed.
+     * @param matching how arguments are matched against tags.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int extra, final TagMatching matching) {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("a", "alpha", 1),
+                CommandLines.repeatable(new Option("b")), CommandLines.option("c", 2),
+                CommandLines.option("e", "\u00E9t\u00E9", 1), CommandLines.keyValue("D"));
+        for (int i = 0; i < extra; ++i) {
+            commandLine.addOption(new Option("x" + i));
+        }
+        commandLine.createHelp("Usage.");
+        commandLine.setTagMatching(matching);
+        return commandLine;
+    }
+
+    /**
+     * Joins arguments into NUL-separated UTF-8 bytes, each followed by a NUL.
+     * @param args the arguments.
+     * @return the bytes.
+     */
+    private static byte[] join(final String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String arg : args) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+            out.write(0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Parses arguments both ways and checks the results are the same, or both fail.
+     * @param commandLine the command line.
+     * @param direct whether the bytes are in a direct buffer.
+     * @param args the arguments.
+     */
+    private static void assertSame(final CommandLine commandLine, final boolean direct, final String... args) {
+        String expected;
+        try {
+            ParseResult result = commandLine.parseResult(args);
+            expected = result.toString() + result.getFingerprint();
+        } catch (IllegalArgumentException e) {
+            expected = "failed";
+        }
+        byte[] bytes = join(args);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.wrap(bytes);
+        if (direct) {
+            buffer.put(bytes).flip();
+        }
+        String actual;
+        try {
+            ParseResult result = commandLine.parseResult(buffer);
+            actual = result.toString() + result.getFingerprint();
+        } catch (IllegalArgumentException e) {
+            actual = "failed";
+        }
+        Assert.assertEquals(String.join(" ", args), expected, actual);
+        Assert.assertEquals(0, buffer.position());
+    }
+
+    /**
+     * Test that bytes parse as the same arguments given as strings do.
+     */
+    @Test
+    public void testSameAsStrings() {
+        Random random = new Random(44);
+        for (CommandLine commandLine : new CommandLine[] { createCommandLine(0, TagMatching.EXACT),
+                createCommandLine(20, TagMatching.EXACT), createCommandLine(0, TagMatching.IGNORE_CASE) }) {
+            assertSame(commandLine, false, "-a", "x", "-b", "-b", "-c", "caf\u00E9", "", "-Dk=v", "-D", "j=w");
+            assertSame(commandLine, true, "--\u00E9t\u00E9", "\uD83D\uDE00", "--alpha", "y");
+            assertSame(commandLine, false, "--help");
+            assertSame(commandLine, false);
+            for (int i = 0; i < 2000; ++i) {
+                String[] args = new String[random.nextInt(8)];
+                for (int j = 0; j < args.length; ++j) {
+                    args[j] = WORDS[random.nextInt(WORDS.length)];
+                }
+                assertSame(commandLine, random.nextBoolean(), args);
+            }
+        }
+
+        // Options sharing a tag each take their own argument
+        CommandLine shared = createCommandLine(0, TagMatching.EXACT);
+        Option again = new Option("a");
+        again.setExpectedArgumentCount(1);
+        shared.addOption(again);
+        assertSame(shared, false, "-a", "x", "y", "-b");
+        assertSame(shared, true, "-b", "--alpha", "x", "-a", "y");
+    }
+
+    /**
+     * Test that parsing starts at the position, and that arguments are decoded only when read.
+     */
+    @Test
+    public void testLazyDecoding() {
+        CommandLine commandLine = createCommandLine(0, TagMatching.EXACT);
+        byte[] bytes = join("java", "-Xmx1g", "Main", "-a", "in.txt", "-c", "one", "two");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(String.join("\0", "java", "-Xmx1g", "Main").length() + 1);
+        ParseResult result = commandLine.parseResult(buffer);
+
+        // The arguments are still read from the buffer
+        bytes[bytes.length - 2] = 'a';
+        Assert.assertEquals("in.txt", result.getArgument("-a", 0));
+        Assert.assertEquals("twa", result.getArgument("-c", 1));
+
+        // Without a NUL after the last argument
+        buffer = ByteBuffer.wrap(bytes, 0, bytes.length - 1).slice();
+        buffer.position(bytes.length - "-c\0one\0twa\0".length());
+        Assert.assertEquals("twa", commandLine.parseResult(buffer).getArgument("-c", 1));
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Test;
 
 import main.java.com.commandline.CommandLine;
 import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
 
 import java.util.ArrayList;
 
@@ -43,6 +44,37 @@ public class CommandLineTest {
 
     }
 
+    /**
+     * Method: addOption(final Option option) with an option of another command line.
+     */
+    @Test
+    public void testAddOptionOfOther() {
+        Option a = new Option("a");
+        CommandLine first = new CommandLine();
+        first.addOption(new Option("z"));
+        first.addOption(a);
+
+        CommandLine second = new CommandLine();
+        try {
+            second.addOption(a);
+            Assert.fail("Added an option of another command line.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            first.addOption(a);
+            Assert.fail("Added an option twice.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        Assert.assertEquals(1, a.getOrdinal());
+        Assert.assertEquals(0, second.getOptionCount());
+
+        // A new option may share the definition
+        second.addOption(new Option(a.getSpec()));
+        Assert.assertEquals(0, second.getOption(0).getOrdinal());
+    }
+
     /**
      * Method: parse(final String[] args).
      */
@@ -97,4 +129,37 @@ public class CommandLineTest {
         }
     }
 
+    /**
+     * Method: parseResult(final String[] args).
+     */
+    @Test
+    public void testParseResult() {
+        CommandLine commandline = new CommandLine();
+
+        Option x = new Option("x");
+        x.setLongName("ex");
+        x.setExpectedArgumentCount(2);
+        commandline.addOption(x);
+
+        Option y = new Option("y");
+        y.setRequired(true);
+        commandline.addOption(y);
+
+        ParseResult result = commandline.parseResult(new String[] { "--ex", "X1", "X2", "-y" });
+
+        Assert.assertTrue(result.isFound("-x"));
+        Assert.assertTrue(result.isFound(1));
+        Assert.assertEquals(2, result.getArguments("--ex").size());
+        Assert.assertEquals("X2", result.getArgument("-x", 1));
+        Assert.assertNull(result.getArgument("-y", 0));
+        Assert.assertFalse(x.isFound());
+
+        try {
+            commandline.parseResult(new String[] { "-x", "X1", "X2" });
+            Assert.fail("Missing required option accepted.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
 }
@@ -0,0 +1,86 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+
+/**
+ * Builds the command lines the tests parse against, so that each test only lists its options.
+ *
+ * @author Zach Wilson
+ */
+final class CommandLines {
+
+    /**
+     * Constructor.
+     */
+    private CommandLines() {}
+
+    /**
+     * Creates a command line holding options.
+     * @param options the options, in ordinal order.
+     * @return the command line.
+     */
+    static CommandLine of(final Option... options) {
+        CommandLine commandLine = new CommandLine();
+        for (Option option : options) {
+            commandLine.addOption(option);
+        }
+        return commandLine;
+    }
+
+    /**
+     * Creates an option taking arguments.
+     * @param shortName the short name.
+     * @param argumentCount number of arguments of each occurrence.
+     * @return the option.
+     */
+    static Option option(final String shortName, final int argumentCount) {
+        Option option = new Option(shortName);
+        option.setExpectedArgumentCount(argumentCount);
+        return option;
+    }
+
+    /**
+     * Creates an option with a long name taking arguments.
+     * @param shortName the short name.
+     * @param longName the long name.
+     * @param argumentCount number of arguments of each occurrence.
+     * @return the option.
+     */
+    static Option option(final String shortName, final String longName, final int argumentCount) {
+        Option option = option(shortName, argumentCount);
+        option.setLongName(longName);
+        return option;
+    }
+
+    /**
+     * Creates a key-value option.
+     * @param shortName the short name.
+     * @return the option.
+     */
+    static Option keyValue(final String shortName) {
+        Option option = new Option(shortName);
+        option.setKeyValue(true);
+        return option;
+    }
+
+    /**
+     * Makes an option repeatable.
+     * @param option the option.
+     * @return the option.
+     */
+    static Option repeatable(final Option option) {
+        option.setRepeatable(true);
+        return option;
+    }
+
+    /**
+     * Makes an option required.
+     * @param option the option.
+     * @return the option.
+     */
+    static Option required(final Option option) {
+        option.setRequired(true);
+        return option;
+    }
+}
@@ -0,0 +1,125 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Dispatcher;
+import main.java.com.commandline.Option;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test {@link Dispatcher}.
+ *
+ * @author Zach Wilson
+ */
+public class DispatcherTest {
+
+    /** Calls recorded by the method handle test. */
+    private static final List<String> handled = new ArrayList<>();
+
+    /**
+     * Target of the method handle test.
+     * @param arguments arguments of the option.
+     */
+    public static void handle(final List<String> arguments) {
+        handled.add("handle " + arguments);
+    }
+
+    /**
+     * Target of the method handle test taking no parameters.
+     * @return number of calls recorded so far.
+     */
+    public static int count() {
+        handled.add("count");
+        return handled.size();
+    }
+
+    /**
+     * Creates a command line with options "-a", "-b" taking one argument and "-c".
+     * @return command line.
+     */
+    private static CommandLine createCommandLine() {
+        return CommandLines.of(new Option("a"), CommandLines.option("b", 1), new Option("c"));
+    }
+
+    /**
+     * Method: on(final String tag, final Action action), dispatch().
+     */
+    @Test
+    public void testDispatch() {
+        CommandLine commandline = createCommandLine();
+        List<String> calls = new ArrayList<>();
+
+        Dispatcher dispatcher = new Dispatcher(commandline);
+        dispatcher.on("-a", arguments -> calls.add("a"));
+        dispatcher.on("-b", arguments -> calls.add("b " + arguments));
+        dispatcher.on("-b", arguments -> calls.add("b again"));
+        dispatcher.on(commandline.getOptions().get(2), arguments -> calls.add("c"));
+
+        commandline.parse(new String[] { "-b", "B", "-a" });
+        Assert.assertEquals(2, dispatcher.dispatch());
+
+        // Order of appearance on the command line, then registration order
+        Assert.assertEquals("[b [B], b again, a]", calls.toString());
+    }
+
+    /**
+     * Method: dispatch(final ParseResult result).
+     */
+    @Test
+    public void testDispatchResult() {
+        CommandLine commandline = createCommandLine();
+        List<String> calls = new ArrayList<>();
+
+        Dispatcher dispatcher = new Dispatcher(commandline);
+        dispatcher.on("-c", arguments -> calls.add("c"));
+        dispatcher.compile();
+
+        Assert.assertEquals(0, dispatcher.dispatch(commandline.parseResult(new String[] { "-a" })));
+        Assert.assertEquals(1, dispatcher.dispatch(commandline.parseResult(new String[] { "-a", "-c" })));
+        Assert.assertEquals("[c]", calls.toString());
+    }
+
+    /**
+     * Method: on(final String tag, final MethodHandle handle).
+     * @throws Exception if the method handle cannot be found.
+     */
+    @Test
+    public void testMethodHandle() throws Exception {
+        CommandLine commandline = createCommandLine();
+        Dispatcher dispatcher = new Dispatcher(commandline);
+        dispatcher.on("-b", MethodHandles.lookup().findStatic(DispatcherTest.class, "handle",
+                MethodType.methodType(void.class, List.class)));
+        dispatcher.on("-a", MethodHandles.lookup().findStatic(DispatcherTest.class, "count",
+                MethodType.methodType(int.class)));
+
+        handled.clear();
+        commandline.parse(new String[] { "-b", "B", "-a" });
+        dispatcher.dispatch();
+        Assert.assertEquals("[handle [B], count]", handled.toString());
+    }
+
+    /**
+     * Method: on(final String tag, final Action action) with an unknown tag.
+     */
+    @Test (expected=IllegalArgumentException.class)
+    public void testUnknownOption() {
+        new Dispatcher(createCommandLine()).on("-z", arguments -> { });
+    }
+
+    /**
+     * Method: compile() with an option of another command line at an ordinal of this one.
+     */
+    @Test (expected=IllegalArgumentException.class)
+    public void testForeignOption() {
+        Dispatcher dispatcher = new Dispatcher(createCommandLine());
+        dispatcher.on(createCommandLine().getOption(0), arguments -> { });
+        dispatcher.compile();
+    }
+
+}
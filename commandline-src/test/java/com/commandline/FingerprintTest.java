@@ -0,0 +1,79 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Fingerprint;
+import main.java.com.commandline.Option;
+
+/**
+ * Test {@link Fingerprint}.
+ *
+ * @author Zach Wilson
+ */
+public class FingerprintTest {
+
+    /**
+     * Creates a command line with "-a" taking two arguments, a flag "-b", a repeatable "-I" taking one
+     * argument and a key-value option "-D".
+     * @param reversed whether the options are added in reverse order.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final boolean reversed) {
+        Option a = CommandLines.option("a", 2);
+        a.setDescription(reversed ? "Other description." : "Description.");
+        Option b = new Option("b");
+        Option include = CommandLines.repeatable(CommandLines.option("I", 1));
+        Option define = CommandLines.keyValue("D");
+        return reversed ? CommandLines.of(define, include, b, a) : CommandLines.of(a, b, include, define);
+    }
+
+    /**
+     * Gets the fingerprint of a parse.
+     * @param commandLine the command line.
+     * @param args command line arguments.
+     * @return fingerprint.
+     */
+    private static Fingerprint fingerprint(final CommandLine commandLine, final String... args) {
+        return commandLine.parseResult(args).getFingerprint();
+    }
+
+    /**
+     * Test which differences change the fingerprint.
+     */
+    @Test
+    public void testFingerprint() {
+        CommandLine commandLine = createCommandLine(false);
+        Fingerprint fingerprint = fingerprint(commandLine, "-a", "x", "y", "-b", "-I", "p", "-I", "q");
+
+        // Order of different options, order and descriptions of the specification do not matter
+        Assert.assertEquals(fingerprint, fingerprint(commandLine, "-b", "-I", "p", "-I", "q", "-a", "x", "y"));
+        Assert.assertEquals(fingerprint, fingerprint(createCommandLine(true), "-I", "p", "-a", "x", "y", "-I", "q", "-b"));
+        Assert.assertEquals(fingerprint.toString(),
+                fingerprint(createCommandLine(true), "-a", "x", "y", "-b", "-I", "p", "-I", "q").toString());
+
+        // Arguments, their order and the order of occurrences of one option do
+        Assert.assertNotEquals(fingerprint, fingerprint(commandLine, "-a", "y", "x", "-b", "-I", "p", "-I", "q"));
+        Assert.assertNotEquals(fingerprint, fingerprint(commandLine, "-a", "x", "y", "-b", "-I", "q", "-I", "p"));
+        Assert.assertNotEquals(fingerprint, fingerprint(commandLine, "-a", "x", "y", "-I", "p", "-I", "q"));
+        Assert.assertNotEquals(fingerprint(commandLine, "-a", "xy", "z"), fingerprint(commandLine, "-a", "x", "yz"));
+
+        // Attached and separate entries are the same
+        Assert.assertEquals(fingerprint(commandLine, "-Dk=v"), fingerprint(commandLine, "-D", "k=v"));
+        Assert.assertNotEquals(fingerprint(commandLine, "-Dk=v"), fingerprint(commandLine, "-Dk=w"));
+
+        // Entries with different keys may come in any order; the value a repeated key keeps matters
+        Assert.assertEquals(fingerprint(commandLine, "-Da=1", "-Db=2"), fingerprint(commandLine, "-Db=2", "-Da=1"));
+        Assert.assertEquals(fingerprint(commandLine, "-D", "a=1", "-Db=2"), fingerprint(commandLine, "-Db=2", "-Da=1"));
+        Assert.assertNotEquals(fingerprint(commandLine, "-Da=1", "-Da=2"), fingerprint(commandLine, "-Da=2", "-Da=1"));
+        Assert.assertNotEquals(fingerprint(commandLine, "-Da=1"), fingerprint(commandLine, "-Da=1", "-Da=1"));
+        Assert.assertNotEquals(fingerprint(commandLine, "-Da=1", "-Db=2"), fingerprint(commandLine, "-Da=2", "-Db=1"));
+
+        Assert.assertEquals(Fingerprint.EMPTY, fingerprint(commandLine));
+        Assert.assertEquals(Fingerprint.EMPTY, commandLine.getFingerprint());
+        commandLine.parse(new String[] { "-b", "-I", "p", "-I", "q", "-a", "x", "y" });
+        Assert.assertEquals(fingerprint, commandLine.getFingerprint());
+        Assert.assertEquals(32, fingerprint.toString().length());
+    }
+}
@@ -0,0 +1,234 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.ArgumentMap;
+import main.java.com.commandline.ArgumentStorage;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.OptionSpec;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.ValueTable;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+
+/**
+ * Measures the heap parse results hold on to: a million arguments held as strings and in the arena,
+ * a batch of results giving the same values with and without a value table, the entries of key-value
+ * options in their open-addressing map and split into a HashMap, command lines built from the same
+ * definitions with and without sharing them, and results of a few flags against a hundred thousand
+ * options. The heap in use is only known after asking for garbage
+ * collection, which the JVM may ignore, so the figures are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class FootprintBenchmark {
+
+    /** Labels given by the sets of the batch. */
+    private static final String[] LABELS = new String[] { "prod", "eu-west", "canary", "team-storage",
+            "tier-1", "batch", "nightly", "retain-30d" };
+
+    /** Number of entries of each key-value map. */
+    private static final int ENTRIES = 8;
+
+    /** Number of options of each command line built from the same definitions. */
+    private static final int SPECS = 16;
+
+    /**
+     * Constructor.
+     */
+    private FootprintBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args ignored.
+     */
+    public static void main(final String[] args) {
+        int files = 1000000;
+        long strings = retainedArguments(files, ArgumentStorage.STRINGS);
+        long arena = retainedArguments(files, ArgumentStorage.ARENA);
+        System.out.println(files + " arguments: strings " + strings + " bytes, arena " + arena + " bytes.");
+
+        int sets = 50000;
+        long plain = retainedSets(sets, null);
+        long canonical = retainedSets(sets, new ValueTable(1024));
+        System.out.println(sets + " results: " + plain / sets + " bytes each without a value table, " +
+                canonical / sets + " with.");
+
+        int maps = 20000;
+        long open = retainedEntries(maps, false);
+        long hashed = retainedEntries(maps, true);
+        System.out.println(maps + " maps of " + ENTRIES + " entries: " + open / maps + " bytes each in an " +
+                "ArgumentMap, " + hashed / maps + " in a HashMap.");
+
+        int commandLines = 20000;
+        long shared = retainedCommandLines(commandLines, true);
+        long own = retainedCommandLines(commandLines, false);
+        System.out.println(commandLines + " command lines of " + SPECS + " options: " + shared / commandLines +
+                " bytes each sharing definitions, " + own / commandLines + " without.");
+
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < 100000; ++i) {
+            commandLine.addOption(new Option("o" + i));
+        }
+        String[] flags = new String[] { "-o1", "-o2", "-o3", "-o4", "-o5", "-o6", "-o7", "-o8" };
+        int count = 2000;
+        ParseResult[] results = new ParseResult[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; ++i) {
+            results[i] = commandLine.parseResult(flags);
+        }
+        long retained = (usedHeap() - before) / count;
+        System.out.println(results[count - 1].getFoundCount() + " flags of " + commandLine.getOptionCount() +
+                " options: " + retained + " bytes per result.");
+    }
+
+    /**
+     * Measures the heap a result of many arguments holds on to, including the arguments it keeps alive.
+     * @param files number of arguments.
+     * @param storage how arguments are held.
+     * @return bytes.
+     */
+    private static long retainedArguments(final int files, final ArgumentStorage storage) {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("f", files));
+        commandLine.setArgumentStorage(storage);
+        long before = usedHeap();
+        String[] args = new String[files + 1];
+        args[0] = "-f";
+        for (int i = 1; i <= files; ++i) {
+            args[i] = "f" + i;
+        }
+        ParseResult result = commandLine.parseResult(args);
+        args = null;
+        long retained = usedHeap() - before;
+        if (!("f" + files).equals(result.getArgument("-f", files - 1))) {
+            throw new IllegalStateException("Lost the last argument.");
+        }
+        return retained;
+    }
+
+    /**
+     * Measures the heap held on to by the results of a batch giving the same values over and over.
+     * @param sets number of sets in the batch.
+     * @param table the value table, or null.
+     * @return bytes.
+     */
+    private static long retainedSets(final int sets, final ValueTable table) {
+        CommandLine commandLine = CommandLines.of(CommandLines.repeatable(CommandLines.option("l", "label", 1)),
+                CommandLines.option("d", 1), CommandLines.option("n", 1));
+        commandLine.setValueTable(table);
+        commandLine.freeze();
+        long before = usedHeap();
+        ParseResult[] results = new ParseResult[sets];
+        for (int set = 0; set < sets; ++set) {
+            String[] args = new String[16];
+            for (int i = 0; i < 6; ++i) {
+                args[i * 2] = "--label";
+                args[i * 2 + 1] = new String(LABELS[(set + i) % LABELS.length]);
+            }
+            args[12] = "-d";
+            args[13] = "/data/shared/volumes/" + set % 16;
+            args[14] = "-n";
+            args[15] = "job-" + set;
+            results[set] = commandLine.parseResult(args);
+        }
+        long retained = usedHeap() - before;
+        if (!("job-" + (sets - 1)).equals(results[sets - 1].getArgument("-n", 0))) {
+            throw new IllegalStateException("Lost the last set.");
+        }
+        return retained;
+    }
+
+    /**
+     * Measures the heap held on to by the entries of key-value options, beyond the arguments they came
+     * from: either the maps of the results, or HashMaps of the keys and values split from the arguments.
+     * @param maps number of maps.
+     * @param hashMap true to split the entries into HashMaps.
+     * @return bytes.
+     */
+    private static long retainedEntries(final int maps, final boolean hashMap) {
+        CommandLine commandLine = CommandLines.of(CommandLines.keyValue("D"));
+        String[][] args = new String[maps][ENTRIES];
+        for (int map = 0; map < maps; ++map) {
+            for (int i = 0; i < ENTRIES; ++i) {
+                args[map][i] = "-Dsetting." + i + "=value-" + map;
+            }
+        }
+        Object[] held = new Object[maps];
+        long before = usedHeap();
+        for (int map = 0; map < maps; ++map) {
+            if (hashMap) {
+                HashMap<String, String> entries = new HashMap<>();
+                for (String arg : args[map]) {
+                    int separator = arg.indexOf('=');
+                    entries.put(arg.substring(2, separator), arg.substring(separator + 1));
+                }
+                held[map] = entries;
+            } else {
+                held[map] = commandLine.parseResult(args[map]).getEntries("-D");
+            }
+        }
+        long retained = usedHeap() - before;
+        Object last = held[maps - 1];
+        String value = hashMap ? ((HashMap<?, ?>) last).get("setting.0").toString() :
+                ((ArgumentMap) last).get("setting.0");
+        if (!("value-" + (maps - 1)).equals(value) || args[0].length != ENTRIES) {
+            throw new IllegalStateException("Lost the last map.");
+        }
+        return retained;
+    }
+
+    /**
+     * Measures the heap held on to by command lines built from the same definitions, as a service
+     * building one per request would. Added options share their definitions through the intern pool;
+     * without it, each option keeps the definition it was built with, which is put back after adding.
+     * @param count number of command lines.
+     * @param interned true to share the definitions.
+     * @return bytes.
+     */
+    private static long retainedCommandLines(final int count, final boolean interned) {
+        Field specField;
+        try {
+            specField = Option.class.getDeclaredField("spec");
+            specField.setAccessible(true);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to reach 'Option#spec'.", e);
+        }
+        CommandLine[] held = new CommandLine[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; ++i) {
+            CommandLine commandLine = new CommandLine();
+            for (int j = 0; j < SPECS; ++j) {
+                Option option = CommandLines.option("o" + j, "option-" + j, j % 3);
+                option.setDescription("Sets option number " + j + " of the service.");
+                OptionSpec spec = option.getSpec();
+                commandLine.addOption(option);
+                if (!interned) {
+                    try {
+                        specField.set(option, spec);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException("Failed to reach 'Option#spec'.", e);
+                    }
+                }
+            }
+            held[i] = commandLine;
+        }
+        long retained = usedHeap() - before;
+        Option last = held[count - 1].getOption(SPECS - 1);
+        if ((last.getSpec() == held[0].getOption(SPECS - 1).getSpec()) != interned) {
+            throw new IllegalStateException("The definitions were " + (interned ? "not " : "") + "shared.");
+        }
+        return retained;
+    }
+
+    /**
+     * Gets the heap in use after asking for garbage collection.
+     * @return bytes.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
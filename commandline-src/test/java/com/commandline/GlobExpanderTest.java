@@ -0,0 +1,193 @@
+package test.java.com.commandline;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import main.java.com.commandline.GlobExpander;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test {@link GlobExpander}.
+ *
+ * @author Zach Wilson
+ */
+public class GlobExpanderTest {
+
+    /** Test directory holding the tree to be expanded. */
+    private static Path testDir;
+
+    /**
+     * Create a directory tree:
+     * data/a.parquet, data/b.csv, data/x/c.parquet, data/x/y/d.parquet, data/z/e.csv.
+     * @throws Exception if the tree cannot be created.
+     */
+    @BeforeClass
+    public static void before() throws Exception {
+        testDir = Files.createTempDirectory("commandline-glob");
+        for (String name : new String[] { "data/a.parquet", "data/b.csv", "data/x/c.parquet",
+                "data/x/y/d.parquet", "data/z/e.csv" }) {
+            Path file = testDir.resolve(name);
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+    }
+
+    /**
+     * Remove test directory.
+     * @throws Exception if the test directory cannot be deleted.
+     */
+    @AfterClass
+    public static void after() throws Exception {
+        delete(testDir);
+    }
+
+    /**
+     * Deletes a directory tree.
+     * @param dir root of the tree.
+     * @throws IOException if the tree cannot be deleted.
+     */
+    private static void delete(final Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Expands a pattern relative to the test directory.
+     * @param pattern glob pattern.
+     * @param maxResults maximum number of matches.
+     * @return matches relative to the test directory.
+     */
+    private static Set<String> expand(final String pattern, final int maxResults) {
+        String root = testDir.toString().replace('\\', '/');
+        try (Stream<Path> stream = new GlobExpander(root + "/" + pattern).expand(maxResults)) {
+            return stream.map(path -> testDir.relativize(path).toString().replace('\\', '/'))
+                    .collect(Collectors.toCollection(TreeSet::new));
+        }
+    }
+
+    /**
+     * Method: expand(final int maxResults).
+     */
+    @Test
+    public void testExpand() {
+        Assert.assertEquals(new TreeSet<>(java.util.Arrays.asList(
+                "data/a.parquet", "data/x/c.parquet", "data/x/y/d.parquet")), expand("data/**/*.parquet", 100));
+        Assert.assertEquals(new TreeSet<>(java.util.Arrays.asList("data/a.parquet")), expand("data/*.parquet", 100));
+        Assert.assertEquals(new TreeSet<>(java.util.Arrays.asList("data/x/c.parquet")), expand("*/?/*.parquet", 100));
+        Assert.assertEquals(new TreeSet<>(java.util.Arrays.asList("data/b.csv", "data/z/e.csv")),
+                expand("**/*.csv", 100));
+        Assert.assertTrue(expand("missing/**/*.csv", 100).isEmpty());
+    }
+
+    /**
+     * Method: expand(final int maxResults) with a cutoff.
+     */
+    @Test
+    public void testMaxResults() {
+        Assert.assertEquals(2, expand("**", 2).size());
+        Assert.assertEquals(5, expand("**", 100).size());
+        Assert.assertEquals(0, expand("**", 0).size());
+    }
+
+    /**
+     * Method: expand(final int maxResults) with more matches than the queue holds, a cutoff past it and a
+     * caller which reads slowly: every accepted match is delivered, and closing early frees the walk.
+     * @throws Exception if the tree cannot be created.
+     */
+    @Test
+    public void testSlowCaller() throws Exception {
+        Path many = Files.createTempDirectory("commandline-glob-many");
+        for (int i = 0; i < 1500; ++i) {
+            Path file = many.resolve("d" + i % 10).resolve("f" + i + ".log");
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+        String pattern = many.toString().replace('\\', '/') + "/*/*.log";
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            try (Stream<Path> stream = new GlobExpander(pattern, pool).expand(1030)) {
+                Iterator<Path> iterator = stream.iterator();
+                Thread.sleep(200);
+                int count = 0;
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    ++count;
+                }
+                Assert.assertEquals(1030, count);
+            }
+
+            // Tasks waiting for room are woken by closing
+            try (Stream<Path> stream = new GlobExpander(pattern, pool).expand(1500)) {
+                Assert.assertTrue(stream.iterator().hasNext());
+                Thread.sleep(200);
+            }
+            Assert.assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+            delete(many);
+        }
+    }
+
+    /**
+     * Method: expand(final int maxResults) with a stream which is neither read nor closed: the tasks
+     * waiting for room let the pool run other work.
+     * @throws Exception if the tree cannot be created.
+     */
+    @Test
+    public void testDroppedStream() throws Exception {
+        Path many = Files.createTempDirectory("commandline-glob-dropped");
+        for (int i = 0; i < 1500; ++i) {
+            Path file = many.resolve("d" + i % 10).resolve("f" + i + ".log");
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+        }
+        String pattern = many.toString().replace('\\', '/') + "/*/*.log";
+        ForkJoinPool pool = new ForkJoinPool(1);
+        Stream<Path> stream = new GlobExpander(pattern, pool).expand(1500);
+        try {
+            Thread.sleep(200);
+            Assert.assertEquals("other", pool.submit(() -> "other").get(10, TimeUnit.SECONDS));
+        } finally {
+            stream.close();
+            pool.shutdown();
+            delete(many);
+        }
+    }
+
+    /**
+     * Method: hasWildcard(final String argument).
+     */
+    @Test
+    public void testHasWildcard() {
+        Assert.assertTrue(GlobExpander.hasWildcard("data/*.csv"));
+        Assert.assertTrue(GlobExpander.hasWildcard("file?.txt"));
+        Assert.assertFalse(GlobExpander.hasWildcard("data/file.txt"));
+    }
+
+}
@@ -0,0 +1,149 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.IncrementalParser;
+import main.java.com.commandline.IncrementalParser.State;
+import main.java.com.commandline.IncrementalParser.TokenKind;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.TagMatching;
+
+/**
+ * Test {@link IncrementalParser}.
+ *
+ * @author Zach Wilson
+ */
+public class IncrementalParserTest {
+
+    /**
+     * Creates a command line with a required option "-x" taking two arguments, a flag "-v"
+     * and a key-value option "-D".
+     * @return command line.
+     */
+    private static CommandLine createCommandLine() {
+        return CommandLines.of(CommandLines.required(CommandLines.option("x", "ex", 2)), new Option("v"),
+                CommandLines.keyValue("D"));
+    }
+
+    /**
+     * Method: update(final String newLine) while typing character by character.
+     */
+    @Test
+    public void testTyping() {
+        IncrementalParser parser = new IncrementalParser(createCommandLine());
+        String line = "-v --ex a b -Dk=v";
+        State[] states = new State[line.length()];
+        for (int i = 1; i <= line.length(); ++i) {
+            states[i - 1] = parser.update(line.substring(0, i));
+        }
+
+        // "-" is a tag being typed; "-v" lacks the required option
+        Assert.assertEquals(State.INCOMPLETE, states[0]);
+        Assert.assertEquals(State.INCOMPLETE, states[1]);
+        // "-v --ex a" lacks an argument
+        Assert.assertEquals(State.INCOMPLETE, states["-v --ex a".length() - 1]);
+        // "-v --ex a b" is complete
+        Assert.assertEquals(State.COMPLETE, states["-v --ex a b".length() - 1]);
+        Assert.assertEquals(State.COMPLETE, states[line.length() - 1]);
+
+        Assert.assertEquals(5, parser.getTokenCount());
+        Assert.assertEquals(TokenKind.OPTION, parser.getTokenKind(0));
+        Assert.assertEquals(TokenKind.OPTION, parser.getTokenKind(1));
+        Assert.assertEquals(TokenKind.ARGUMENT, parser.getTokenKind(2));
+        Assert.assertEquals(0, parser.getTokenOrdinal(3));
+        Assert.assertEquals(TokenKind.ENTRY, parser.getTokenKind(4));
+        Assert.assertEquals(3, parser.getTokenStart(1));
+        Assert.assertEquals(7, parser.getTokenEnd(1));
+    }
+
+    /**
+     * Method: edit(final int position, final int removed, final String inserted).
+     */
+    @Test
+    public void testEdit() {
+        IncrementalParser parser = new IncrementalParser(createCommandLine());
+        Assert.assertEquals(State.COMPLETE, parser.update("-x a b -v"));
+
+        // Remove "-x a b ": the required option goes away
+        Assert.assertEquals(State.INCOMPLETE, parser.edit(0, 7, ""));
+        Assert.assertEquals("-v", parser.getLine());
+        Assert.assertFalse(parser.isFound(0));
+
+        // Put it back at the end
+        Assert.assertEquals(State.INCOMPLETE, parser.edit(2, 0, " -x a"));
+        Assert.assertEquals(1, parser.getPendingArgumentCount());
+        Assert.assertEquals(State.COMPLETE, parser.edit(7, 0, " b"));
+        Assert.assertTrue(parser.isFound(0));
+    }
+
+    /**
+     * Method: update(final String newLine) with invalid input.
+     */
+    @Test
+    public void testInvalid() {
+        IncrementalParser parser = new IncrementalParser(createCommandLine());
+
+        Assert.assertEquals(State.INVALID, parser.update("a"));
+        Assert.assertEquals("Missing command line option.", parser.getMessage());
+
+        Assert.assertEquals(State.INVALID, parser.update("-x a -v"));
+        Assert.assertEquals(TokenKind.INVALID, parser.getTokenKind(2));
+        Assert.assertEquals("Missing argument for option 'x'.", parser.getMessage());
+
+        // Fixing the argument makes the line valid again
+        Assert.assertEquals(State.COMPLETE, parser.update("-x a b -v"));
+        Assert.assertNull(parser.getMessage());
+
+        Assert.assertEquals(State.INVALID, parser.update("-x a b -v c"));
+        Assert.assertEquals("Too many arguments for option.", parser.getMessage());
+    }
+
+    /**
+     * Method: update(final String newLine) with options sharing a tag, which each take an occurrence.
+     */
+    @Test
+    public void testSharedTag() {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("s", 1), CommandLines.option("s", 1),
+                new Option("v"));
+        IncrementalParser parser = new IncrementalParser(commandLine);
+
+        Assert.assertEquals(State.INCOMPLETE, parser.update("-s A"));
+        Assert.assertEquals(1, parser.getPendingArgumentCount());
+        Assert.assertEquals(State.COMPLETE, parser.update("-s A B -v"));
+        Assert.assertEquals(0, parser.getTokenOrdinal(1));
+        Assert.assertEquals(1, parser.getTokenOrdinal(2));
+        Assert.assertEquals(TokenKind.OPTION, parser.getTokenKind(3));
+        Assert.assertTrue(parser.isFound(1));
+        Assert.assertEquals("B", commandLine.parseResult(new String[] { "-s", "A", "B", "-v" }).getArgument(1, 0));
+
+        // Editing the second argument away leaves the second option awaiting it
+        Assert.assertEquals(State.INCOMPLETE, parser.update("-s A"));
+        Assert.assertTrue(parser.isFound(1));
+        Assert.assertEquals(State.INVALID, parser.update("-s A -v"));
+        Assert.assertEquals("Missing argument for option 's'.", parser.getMessage());
+    }
+
+    /**
+     * Method: update(final String newLine) with tags matched ignoring case.
+     */
+    @Test
+    public void testIgnoreCase() {
+        CommandLine commandLine = createCommandLine();
+        commandLine.setTagMatching(TagMatching.IGNORE_CASE);
+        IncrementalParser parser = new IncrementalParser(commandLine);
+
+        Assert.assertEquals(State.INCOMPLETE, parser.update("-X a"));
+        Assert.assertEquals(TokenKind.OPTION, parser.getTokenKind(0));
+        Assert.assertEquals(1, parser.getPendingArgumentCount());
+        Assert.assertEquals(State.COMPLETE, parser.update("--EX a b -V"));
+        Assert.assertEquals(1, parser.getTokenOrdinal(3));
+
+        // Entries attached to a short tag are still matched exactly
+        Assert.assertEquals(State.COMPLETE, parser.update("--EX a b -Dk=v"));
+        Assert.assertEquals(TokenKind.ENTRY, parser.getTokenKind(3));
+        Assert.assertEquals(State.INCOMPLETE, parser.update("--EX a b -dk=v"));
+        Assert.assertEquals(TokenKind.UNKNOWN, parser.getTokenKind(3));
+    }
+}
@@ -0,0 +1,95 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.OptionHandle;
+import main.java.com.commandline.ParseResult;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test {@link OptionHandle}.
+ *
+ * @author Zach Wilson
+ */
+public class OptionHandleTest {
+
+    /**
+     * Creates a command line with options "-o0" to "-o(n - 1)", each taking one argument.
+     * @param count number of options.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int count) {
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < count; ++i) {
+            commandLine.addOption(CommandLines.option("o" + i, "option-" + i, 1));
+        }
+        return commandLine;
+    }
+
+    /**
+     * Test that options get their index as ordinal and that handles read by it.
+     */
+    @Test
+    public void testHandle() {
+        CommandLine commandLine = createCommandLine(100);
+        commandLine.createHelp("Usage.");
+        List<Option> view = commandLine.getOptionsView();
+        Assert.assertEquals(101, commandLine.getOptionCount());
+        Assert.assertSame(view, commandLine.getOptionsView());
+        for (int ordinal = 0; ordinal < view.size(); ++ordinal) {
+            Assert.assertEquals(ordinal, view.get(ordinal).getOrdinal());
+            Assert.assertSame(view.get(ordinal), commandLine.getOption(ordinal));
+        }
+        Assert.assertEquals(-1, new Option("x").getOrdinal());
+
+        OptionHandle handle = commandLine.getHandle("--option-42");
+        Assert.assertEquals(42, handle.getOrdinal());
+        Assert.assertSame(commandLine.getOption(42), handle.getOption());
+        try {
+            handle.isFound();
+            Assert.fail("Read a handle before parsing.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        commandLine.parse(new String[] { "-o42", "a", "-o7", "b" });
+        Assert.assertTrue(handle.isFound());
+        Assert.assertEquals(1, handle.getCount());
+        Assert.assertEquals("a", handle.getArgument(0));
+        Assert.assertEquals(Arrays.asList("a"), handle.getArguments());
+        Assert.assertSame(handle.getArguments(), handle.getArguments());
+
+        ParseResult result = commandLine.parseResult(new String[] { "-o7", "c" });
+        Assert.assertFalse(handle.isFound(result));
+        Assert.assertEquals("c", commandLine.getHandle("-o7").getArgument(result, 0));
+
+        try {
+            view.add(new Option("x"));
+            Assert.fail("Changed the options through the view.");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test iterating over the found options in ordinal order.
+     */
+    @Test
+    public void testNextFound() {
+        CommandLine commandLine = createCommandLine(200);
+        ParseResult result = commandLine.parseResult(new String[] { "-o150", "a", "-o3", "b", "-o64", "c", "-o63", "d" });
+        StringBuilder found = new StringBuilder();
+        for (int ordinal = result.nextFound(0); ordinal >= 0; ordinal = result.nextFound(ordinal + 1)) {
+            found.append(ordinal).append(' ');
+        }
+        Assert.assertEquals("3 63 64 150 ", found.toString());
+        Assert.assertEquals(-1, result.nextFound(151));
+        Assert.assertEquals(-1, result.nextFound(1000));
+        Assert.assertEquals(-1, commandLine.parseResult(new String[0]).nextFound(0));
+    }
+}
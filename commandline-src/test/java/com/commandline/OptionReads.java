@@ -0,0 +1,101 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Counts the options a command line reads while doing something, which tells how its work grows without
+ * timing it. Without an index, looking up a tag reads options one by one.
+ *
+ * @author Zach Wilson
+ */
+final class OptionReads {
+
+    /**
+     * Constructor.
+     */
+    private OptionReads() {}
+
+    /**
+     * Counts the options read by an action, once whatever is kept for the specification has been built.
+     * The options are swapped for a counting list and the specification marked as changed, so that what
+     * is kept for it is built again over the counting list when the action first runs; the action then
+     * runs again and only that run is counted.
+     * @param commandLine the command line.
+     * @param action what is done with the command line.
+     * @return number of options read.
+     */
+    static long count(final CommandLine commandLine, final Runnable action) {
+        CountingList counting;
+        try {
+            Field field = CommandLine.class.getDeclaredField("options");
+            field.setAccessible(true);
+            Method specChanged = CommandLine.class.getDeclaredMethod("specChanged");
+            specChanged.setAccessible(true);
+            @SuppressWarnings("unchecked")
+            ArrayList<Option> options = (ArrayList<Option>) field.get(commandLine);
+            counting = new CountingList(options);
+            field.set(commandLine, counting);
+            specChanged.invoke(commandLine);
+            try {
+                action.run();
+                counting.visits = 0;
+                action.run();
+            } finally {
+                field.set(commandLine, options);
+                specChanged.invoke(commandLine);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Failed to reach 'CommandLine#options'.", e);
+        }
+        return counting.visits;
+    }
+
+    /**
+     * A list of options counting the options read from it.
+     */
+    private static final class CountingList extends ArrayList<Option> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Number of options read. */
+        private long visits;
+
+        /**
+         * Constructor.
+         * @param options the options.
+         */
+        CountingList(final List<Option> options) {
+            super(options);
+        }
+
+        @Override
+        public Option get(final int index) {
+            ++this.visits;
+            return super.get(index);
+        }
+
+        @Override
+        public Iterator<Option> iterator() {
+            Iterator<Option> iterator = super.iterator();
+            return new Iterator<Option>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Option next() {
+                    ++CountingList.this.visits;
+                    return iterator.next();
+                }
+            };
+        }
+    }
+}
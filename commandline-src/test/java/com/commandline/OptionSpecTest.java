@@ -0,0 +1,114 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.OptionSpec;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Test {@link OptionSpec}.
+ *
+ * @author Zach Wilson
+ */
+public class OptionSpecTest {
+
+    /**
+     * Creates an option as every plugin would.
+     * @return the option.
+     */
+    private static Option createOption() {
+        Option option = new Option("o");
+        option.setLongName("output");
+        option.setDescription("Output file.");
+        option.setExpectedArgumentCount(1);
+        option.setRequired(true);
+        return option;
+    }
+
+    /**
+     * Test that equal definitions added to different command lines are shared, while parse state is not.
+     */
+    @Test
+    public void testShared() {
+        CommandLine first = new CommandLine();
+        Option firstOption = createOption();
+        first.addOption(firstOption);
+        first.createHelp("Usage.");
+
+        CommandLine second = new CommandLine();
+        Option secondOption = createOption();
+        second.addOption(secondOption);
+        second.createHelp("Usage.");
+
+        Assert.assertSame(firstOption.getSpec(), secondOption.getSpec());
+        Assert.assertSame(first.getOptions().get(1).getSpec(), second.getOptions().get(1).getSpec());
+
+        first.parse(new String[] { "-o", "a.txt" });
+        second.parse(new String[] { "--output", "b.txt" });
+        Assert.assertEquals("a.txt", firstOption.getArgumentAtIndex(0));
+        Assert.assertEquals("b.txt", secondOption.getArgumentAtIndex(0));
+    }
+
+    /**
+     * Test that changing an option after it was added does not change other options sharing its definition,
+     * and that the changed definition is shared in turn.
+     */
+    @Test
+    public void testChangeAfterAdd() {
+        CommandLine first = new CommandLine();
+        Option firstOption = createOption();
+        first.addOption(firstOption);
+
+        CommandLine second = new CommandLine();
+        Option secondOption = createOption();
+        second.addOption(secondOption);
+
+        secondOption.setDescription("Other file.");
+        Assert.assertNotSame(firstOption.getSpec(), secondOption.getSpec());
+        Assert.assertEquals("Output file.", firstOption.getDescription());
+        Assert.assertEquals("Other file.", secondOption.getDescription());
+        Assert.assertEquals(firstOption.getSpec(), createOption().getSpec());
+
+        // The changed definition is shared too
+        firstOption.setDescription("Other file.");
+        Assert.assertSame(secondOption.getSpec(), firstOption.getSpec());
+        Option thirdOption = createOption();
+        thirdOption.setDescription("Other file.");
+        new CommandLine().addOption(thirdOption);
+        Assert.assertSame(secondOption.getSpec(), thirdOption.getSpec());
+    }
+
+    /**
+     * Test that equal definitions added on many threads at once are all shared.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Test(timeout = 60000)
+    public void testConcurrentIntern() throws InterruptedException {
+        final int specs = 500;
+        final AtomicReferenceArray<OptionSpec> shared = new AtomicReferenceArray<>(specs);
+        final AtomicInteger mismatches = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < specs; ++i) {
+                    Option option = createOption();
+                    option.setDescription("Output file " + i + ".");
+                    new CommandLine().addOption(option);
+                    if (!shared.compareAndSet(i, null, option.getSpec()) && shared.get(i) != option.getSpec()) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, mismatches.get());
+    }
+}
@@ -0,0 +1,115 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.ArgumentStorage;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseCache;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.ValueTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test {@link ParseCache}.
+ *
+ * @author Zach Wilson
+ */
+public class ParseCacheTest {
+
+    /**
+     * Creates a command line with an option "-x" taking one argument.
+     * @return command line.
+     */
+    private static CommandLine createCommandLine() {
+        return CommandLines.of(CommandLines.option("x", 1));
+    }
+
+    /**
+     * Method: parse(final String[] args), getHits(), getMisses().
+     */
+    @Test
+    public void testParse() {
+        ParseCache cache = new ParseCache(createCommandLine(), 10);
+
+        ParseResult first = cache.parse(new String[] { "-x", "X" });
+        ParseResult second = cache.parse(new String[] { "-x", "X" });
+        ParseResult other = cache.parse(new String[] { "-x", "Y" });
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, other);
+        Assert.assertEquals("Y", other.getArgument("-x", 0));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Method: parse(final String[] args) beyond the maximum size.
+     */
+    @Test
+    public void testEviction() {
+        ParseCache cache = new ParseCache(createCommandLine(), 2);
+
+        ParseResult a = cache.parse(new String[] { "-x", "A" });
+        cache.parse(new String[] { "-x", "B" });
+        cache.parse(new String[] { "-x", "A" });
+        cache.parse(new String[] { "-x", "C" });
+
+        // "B" was least recently used
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(a, cache.parse(new String[] { "-x", "A" }));
+        cache.parse(new String[] { "-x", "B" });
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+    }
+
+    /**
+     * Method: parse(final String[] args) after the specification changes.
+     */
+    @Test
+    public void testSpecChange() {
+        CommandLine commandline = createCommandLine();
+        ParseCache cache = new ParseCache(commandline, 10);
+
+        ParseResult first = cache.parse(new String[] { "-x", "X" });
+        commandline.getOptions().get(0).setLongName("ex");
+        ParseResult second = cache.parse(new String[] { "-x", "X" });
+        Assert.assertNotSame(first, second);
+
+        commandline.addOption(new Option("y"));
+        ParseResult third = cache.parse(new String[] { "-x", "X" });
+        Assert.assertNotSame(second, third);
+
+        // Results held another way are parsed afresh
+        commandline.setArgumentStorage(ArgumentStorage.ARENA);
+        ParseResult fourth = cache.parse(new String[] { "-x", "X" });
+        Assert.assertNotSame(third, fourth);
+        commandline.setValueTable(new ValueTable(16));
+        Assert.assertNotSame(fourth, cache.parse(new String[] { "-x", "X" }));
+        Assert.assertEquals(0, cache.getHits());
+    }
+
+    /**
+     * Method: setTimeToLive(final long duration, final TimeUnit unit).
+     * @throws Exception if sleeping is interrupted.
+     */
+    @Test
+    public void testTimeToLive() throws Exception {
+        ParseCache cache = new ParseCache(createCommandLine(), 10);
+        cache.setTimeToLive(1, TimeUnit.MILLISECONDS);
+
+        // Without file checks, results do not expire
+        ParseResult plain = cache.parse(new String[] { "-x", "X" });
+        Thread.sleep(5);
+        Assert.assertSame(plain, cache.parse(new String[] { "-x", "X" }));
+
+        // With file checks, they do
+        ParseResult checked = cache.parse(new String[] { "-x", "non-file.txt" });
+        Assert.assertFalse(checked.areFiles("-x"));
+        Thread.sleep(5);
+        Assert.assertNotSame(checked, cache.parse(new String[] { "-x", "non-file.txt" }));
+    }
+
+}
@@ -0,0 +1,71 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.ParseTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares parsing with and without a trace, on a long command line of repeatable options taking zero to
+ * two arguments each. Wall-clock timings depend on the machine, so they are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class ParseTraceBenchmark {
+
+    /**
+     * Constructor.
+     */
+    private ParseTraceBenchmark() {}
+
+    /**
+     * Runs the comparison.
+     * @param args number of rounds, optionally; 20 by default.
+     */
+    public static void main(final String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < 32; ++i) {
+            commandLine.addOption(CommandLines.repeatable(CommandLines.option("o" + i, i % 3)));
+        }
+        commandLine.freeze();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; list.size() < 30000; ++i) {
+            int option = i % 32;
+            list.add("-o" + option);
+            for (int j = 0; j < option % 3; ++j) {
+                list.add("value" + j);
+            }
+        }
+        String[] arguments = list.toArray(new String[0]);
+
+        ParseTrace trace = new ParseTrace(1 << 12);
+        long plain = Long.MAX_VALUE;
+        long traced = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; ++round) {
+            commandLine.setTrace(null);
+            long start = System.nanoTime();
+            commandLine.parseResult(arguments);
+            plain = Math.min(plain, System.nanoTime() - start);
+
+            commandLine.setTrace(trace);
+            start = System.nanoTime();
+            commandLine.parseResult(arguments);
+            traced = Math.min(traced, System.nanoTime() - start);
+        }
+        System.out.println("Traced took " + traced / 1000 + " us, plain " + plain / 1000 + " us, for " +
+                arguments.length + " arguments.");
+
+        long start = System.nanoTime();
+        ParseTrace.Snapshot held = trace.snapshot();
+        int matched = 0;
+        for (int index = 0; index < held.size(); ++index) {
+            if (held.getAction(index) == ParseTrace.Action.MATCHED) {
+                ++matched;
+            }
+        }
+        System.out.println("Reading " + held.size() + " decisions (" + matched + " matched) took " +
+                (System.nanoTime() - start) / 1000 + " us.");
+    }
+}
@@ -0,0 +1,148 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseTrace;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test {@link ParseTrace}.
+ *
+ * @author Zach Wilson
+ */
+public class ParseTraceTest {
+
+    /**
+     * Creates a command line with "-a" taking one argument, a flag "-b" and a key-value option "-D".
+     * @param frozen whether the command line is frozen, so that tags are indexed.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final boolean frozen) {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("a", 1), new Option("b"),
+                CommandLines.keyValue("D"));
+        if (frozen) {
+            commandLine.freeze();
+        }
+        return commandLine;
+    }
+
+    /**
+     * Test the decisions recorded for each kind of argument, with and without an index, from strings
+     * and from bytes.
+     */
+    @Test
+    public void testDecisions() {
+        String[] args = new String[] { "-a", "x", "-b", "-b", "-Dk=v", "-z" };
+        String expected = "#0 START 6 arguments\n"
+                + "#0 [0] MATCHED -a, took [1]\n"
+                + "#0 [2] MATCHED -b\n"
+                + "#0 [3] SKIPPED -b\n"
+                + "#0 [4] ENTRY -D\n"
+                + "#0 [5] IGNORED\n";
+        for (boolean frozen : new boolean[] { false, true }) {
+            CommandLine commandLine = createCommandLine(frozen);
+            ParseTrace trace = new ParseTrace(64);
+            commandLine.setTrace(trace);
+            commandLine.parseResult(args);
+            Assert.assertEquals(expected, trace.dump(commandLine));
+            ParseTrace.Snapshot held = trace.snapshot();
+            Assert.assertEquals(ParseTrace.Action.MATCHED, held.getAction(1));
+            Assert.assertEquals(0, held.getOrdinal(1));
+            Assert.assertEquals(1, held.getCount(1));
+            Assert.assertEquals(-1, held.getOrdinal(5));
+
+            byte[] bytes = (String.join("\0", args) + "\0").getBytes(StandardCharsets.UTF_8);
+            commandLine.parseResult(ByteBuffer.wrap(bytes));
+            Assert.assertEquals(expected + expected.replace("#0", "#1").replace(" 6 arguments", ""),
+                    trace.dump(commandLine));
+
+            // A parse which fails records where
+            try {
+                commandLine.parseResult(new String[] { "-a", "x", "y" });
+                Assert.fail("Parsed a stray argument.");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            held = trace.snapshot();
+            Assert.assertEquals(ParseTrace.Action.FAILED, held.getAction(held.size() - 1));
+            Assert.assertEquals(2, held.getArgument(held.size() - 1));
+        }
+    }
+
+    /**
+     * Test that the oldest decisions are overwritten once the trace is full.
+     */
+    @Test
+    public void testRing() {
+        CommandLine commandLine = createCommandLine(false);
+        ParseTrace trace = new ParseTrace(3);
+        commandLine.setTrace(trace);
+        commandLine.parseResult(new String[] { "-a", "x", "-b", "-D", "k=v", "-z", "-y" });
+        Assert.assertEquals(4, trace.size());
+        Assert.assertEquals(6, trace.getWrittenCount());
+        ParseTrace.Snapshot held = trace.snapshot();
+        Assert.assertEquals(ParseTrace.Action.MATCHED, held.getAction(0));
+        Assert.assertEquals(2, held.getArgument(0));
+        Assert.assertEquals("#0 [2] MATCHED -b\n#0 [3] MATCHED -D, took [4]\n#0 [5] IGNORED\n#0 [6] IGNORED\n",
+                trace.dump(commandLine));
+        try {
+            held.getAction(4);
+            Assert.fail("Read a decision which is not held.");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+
+        commandLine.setTrace(null);
+        commandLine.parseResult(new String[] { "-b" });
+        Assert.assertEquals(6, trace.getWrittenCount());
+
+        // A snapshot keeps what was held when it was taken
+        commandLine.setTrace(trace);
+        commandLine.parseResult(new String[] { "-b" });
+        Assert.assertEquals(8, trace.getWrittenCount());
+        Assert.assertEquals(4, held.size());
+        Assert.assertEquals(2, held.getArgument(0));
+        Assert.assertEquals(ParseTrace.Action.START, trace.snapshot().getAction(2));
+    }
+
+    /**
+     * Test that parses on several threads sharing a trace each keep their decisions together and in order.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Test(timeout = 60000)
+    public void testConcurrentParses() throws InterruptedException {
+        final CommandLine commandLine = createCommandLine(true);
+        final String[] args = new String[] { "-a", "x", "-b", "-b", "-Dk=v", "-z" };
+        ParseTrace trace = new ParseTrace(1 << 12);
+        commandLine.setTrace(trace);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10; ++i) {
+                    commandLine.parseResult(args);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        ParseTrace.Action[] actions = new ParseTrace.Action[] { ParseTrace.Action.START,
+                ParseTrace.Action.MATCHED, ParseTrace.Action.MATCHED, ParseTrace.Action.SKIPPED,
+                ParseTrace.Action.ENTRY, ParseTrace.Action.IGNORED };
+        Assert.assertEquals(40 * actions.length, trace.getWrittenCount());
+        Assert.assertEquals(40 * actions.length, trace.size());
+        ParseTrace.Snapshot held = trace.snapshot();
+        Assert.assertEquals(trace.size(), held.size());
+        for (int index = 0; index < held.size(); ++index) {
+            Assert.assertEquals(index / actions.length, held.getParse(index));
+            Assert.assertEquals(actions[index % actions.length], held.getAction(index));
+        }
+    }
+}
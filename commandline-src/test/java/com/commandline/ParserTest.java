@@ -126,4 +126,75 @@ public class ParserTest {
 
     }
 
+    /**
+     * Method: parse() with repeatable options.
+     */
+    @Test
+    public void testParseRepeatable() {
+        String[] args = new String[] { "-v", "-I", "a", "-v", "-I", "b", "-v" };
+        ArrayList<Option> options = new ArrayList<>();
+
+        Option v = new Option("v");
+        v.setRepeatable(true);
+        options.add(v);
+
+        Option include = new Option("I");
+        include.setExpectedArgumentCount(1);
+        include.setRepeatable(true);
+        include.setInitialCapacity(16);
+        options.add(include);
+
+        Parser parser = new Parser(args, options);
+        parser.parse();
+
+        Assert.assertEquals(3, v.getCount());
+        Assert.assertEquals(2, include.getCount());
+        Assert.assertEquals(2, include.getArgumentCount());
+        Assert.assertEquals("a", include.getArguments().get(0));
+        Assert.assertEquals("b", include.getArgumentAtIndex(1));
+    }
+
+    /**
+     * Method: parse() with options sharing a tag, each taking its own argument.
+     */
+    @Test
+    public void testParseSharedTag() {
+        String[] args = new String[] { "-a", "x", "y", "-b" };
+        ArrayList<Option> options = new ArrayList<>();
+
+        Option first = new Option("a");
+        first.setExpectedArgumentCount(1);
+        options.add(first);
+
+        Option second = new Option("a");
+        second.setExpectedArgumentCount(1);
+        options.add(second);
+
+        Option b = new Option("b");
+        options.add(b);
+
+        Parser parser = new Parser(args, options);
+        parser.parse();
+
+        Assert.assertEquals("x", first.getArgumentAtIndex(0));
+        Assert.assertEquals("y", second.getArgumentAtIndex(0));
+        Assert.assertTrue(b.isFound());
+    }
+
+    /**
+     * Method: parse() with a repeated option that is not repeatable.
+     */
+    @Test (expected=IllegalArgumentException.class)
+    public void testParseNotRepeatable() {
+        String[] args = new String[] { "-I", "a", "-I", "b" };
+        ArrayList<Option> options = new ArrayList<>();
+
+        Option include = new Option("I");
+        include.setExpectedArgumentCount(1);
+        options.add(include);
+
+        Parser parser = new Parser(args, options);
+        parser.parse();
+    }
+
 }
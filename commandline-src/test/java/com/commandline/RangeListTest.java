@@ -0,0 +1,83 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.RangeList;
+
+import java.util.BitSet;
+
+/**
+ * Test {@link RangeList}.
+ *
+ * @author Zach Wilson
+ */
+public class RangeListTest {
+
+    /**
+     * Method: parse(final String text), getRangeCount(), getStart(final int index), getEnd(final int index), size().
+     */
+    @Test
+    public void testParse() {
+        RangeList list = RangeList.parse("0-1023,2048-4095,5000");
+
+        Assert.assertEquals(3, list.getRangeCount());
+        Assert.assertEquals(0, list.getStart(0));
+        Assert.assertEquals(1023, list.getEnd(0));
+        Assert.assertEquals(2048, list.getStart(1));
+        Assert.assertEquals(4095, list.getEnd(1));
+        Assert.assertEquals(5000, list.getStart(2));
+        Assert.assertEquals(5000, list.getEnd(2));
+        Assert.assertEquals(1024 + 2048 + 1, list.size());
+        Assert.assertTrue(list.contains(3000));
+        Assert.assertFalse(list.contains(1024));
+        Assert.assertEquals("0-1023,2048-4095,5000", list.toString());
+    }
+
+    /**
+     * Method: toBitSet(), toIntArray(), toLongArray(), stream().
+     */
+    @Test
+    public void testExpand() {
+        RangeList list = RangeList.parse("5,1-3,9");
+
+        Assert.assertArrayEquals(new int[] { 5, 1, 2, 3, 9 }, list.toIntArray());
+        Assert.assertArrayEquals(new long[] { 5, 1, 2, 3, 9 }, list.toLongArray());
+        Assert.assertArrayEquals(new int[] { 5, 1, 2, 3, 9 }, list.stream().toArray());
+
+        BitSet set = list.toBitSet();
+        Assert.assertEquals(5, set.cardinality());
+        Assert.assertTrue(set.get(2));
+        Assert.assertFalse(set.get(4));
+    }
+
+    /**
+     * Method: parse(final String text) with a large range.
+     */
+    @Test
+    public void testLargeRange() {
+        RangeList list = RangeList.parse("0-2147483647");
+
+        Assert.assertEquals(1, list.getRangeCount());
+        Assert.assertEquals(2147483648L, list.size());
+        Assert.assertEquals(10, list.stream().limit(10).count());
+        Assert.assertTrue(list.contains(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Method: parse(final String text) with invalid lists.
+     */
+    @Test
+    public void testParseBadInput() {
+        String[] bad = new String[] { "", ",", "1,", "1-", "-1", "3-1", "1,,2", "1 2", "a", "2147483648" };
+        for (String text : bad) {
+            try {
+                RangeList.parse(text);
+                Assert.fail("Invalid range list accepted: '" + text + "'.");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+}
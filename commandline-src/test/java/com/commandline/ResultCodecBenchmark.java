@@ -0,0 +1,59 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times decoding an encoded result against parsing the same arguments again, for a long command line
+ * against a large frozen specification. ResultCodecTest checks that decoding looks no tag up by counting
+ * the options it reads; wall-clock timings depend on the machine, so they are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class ResultCodecBenchmark {
+
+    /**
+     * Constructor.
+     */
+    private ResultCodecBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args number of rounds, optionally; 30 by default.
+     */
+    public static void main(final String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < 500; ++i) {
+            commandLine.addOption(CommandLines.repeatable(CommandLines.option("option" + i, i % 3)));
+        }
+        commandLine.freeze();
+        List<String> list = new ArrayList<>();
+        for (int i = 0; list.size() < 20000; ++i) {
+            int option = i * 7 % 500;
+            list.add("-option" + option);
+            for (int j = 0; j < option % 3; ++j) {
+                list.add("/some/path/value" + j);
+            }
+        }
+        String[] parsed = list.toArray(new String[0]);
+        ByteBuffer encoded = commandLine.parseResult(parsed).encode();
+
+        long parse = Long.MAX_VALUE;
+        long decode = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; ++round) {
+            long start = System.nanoTime();
+            commandLine.parseResult(parsed);
+            parse = Math.min(parse, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            commandLine.decodeResult(encoded.duplicate());
+            decode = Math.min(decode, System.nanoTime() - start);
+        }
+        System.out.println(parsed.length + " arguments against 500 options: parsing took " + parse / 1000 +
+                " us, decoding " + decode / 1000 + " us (" + encoded.remaining() + " bytes).");
+    }
+}
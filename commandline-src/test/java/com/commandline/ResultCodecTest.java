@@ -0,0 +1,260 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test encoding parse results with {@link ParseResult#encode()}, reading them back with
+ * {@link CommandLine#decodeResult(ByteBuffer)} and re-emitting them with {@link ParseResult#toArgs()}.
+ *
+ * @author Zach Wilson
+ */
+public class ResultCodecTest {
+
+    /** Position of the ordinal of the first found option in an encoding. */
+    private static final int FIRST_ORDINAL = 36;
+
+    /** Arguments finding every kind of option. */
+    private static final String[] ARGS = new String[] { "-v", "-s", "1", "2", "-a", "caf\u00e9", "-Dk=v",
+            "--size", "3", "4", "-v", "-D", "j=w", "-Dk=x", "-D-n=1", "-h" };
+
+    /**
+     * Creates a command line with "-a" taking one argument, "-s" ("--size") taking two and repeatable,
+     * a repeatable flag "-v", a key-value option "-D" and help.
+     * @param aArguments number of arguments of "-a".
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int aArguments) {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("a", aArguments),
+                CommandLines.repeatable(CommandLines.option("s", "size", 2)), CommandLines.repeatable(new Option("v")),
+                CommandLines.keyValue("D"));
+        commandLine.createHelp("Help.");
+        return commandLine;
+    }
+
+    /**
+     * Asserts that two results found the same.
+     * @param expected the result parsed.
+     * @param actual the result read back.
+     */
+    private static void assertSameResult(final ParseResult expected, final ParseResult actual) {
+        Assert.assertEquals(expected.toString(), actual.toString());
+        Assert.assertEquals(expected.getFingerprint(), actual.getFingerprint());
+        Assert.assertEquals(expected.getFoundCount(), actual.getFoundCount());
+        for (int i = 0; i < expected.getFoundCount(); ++i) {
+            int ordinal = expected.getFoundOrdinal(i);
+            Assert.assertEquals(ordinal, actual.getFoundOrdinal(i));
+            Assert.assertEquals(expected.getCount(ordinal), actual.getCount(ordinal));
+            Assert.assertEquals(expected.getArguments(ordinal), actual.getArguments(ordinal));
+        }
+        Assert.assertEquals(expected.needHelp(), actual.needHelp());
+    }
+
+    /**
+     * Test that a result reads back as it was parsed, in another command line with the same specification,
+     * from heap buffers at any offset, from direct buffers, and one after another.
+     */
+    @Test
+    public void testRoundTrip() {
+        ParseResult parsed = createCommandLine(1).parseResult(ARGS);
+        ByteBuffer encoded = parsed.encode();
+        Assert.assertEquals(0, encoded.position());
+
+        CommandLine worker = createCommandLine(1);
+        ParseResult decoded = worker.decodeResult(encoded.duplicate());
+        assertSameResult(parsed, decoded);
+        Assert.assertEquals("caf\u00e9", decoded.getArgument("-a", 0));
+        Assert.assertEquals(Arrays.asList("1", "2", "3", "4"), decoded.getArguments("--size"));
+        Assert.assertEquals(2, decoded.getCount("-v"));
+        Assert.assertEquals("x", decoded.getEntries("-D").get("k"));
+        Assert.assertEquals("w", decoded.getEntries("-D").get("j"));
+        Assert.assertEquals("1", decoded.getEntries("-D").get("-n"));
+        Assert.assertTrue(decoded.needHelp());
+
+        // Two results one after another, at an offset into a heap buffer and in a direct buffer
+        ParseResult other = createCommandLine(1).parseResult(new String[] { "-a", "x" });
+        int length = encoded.remaining() + other.encode().remaining();
+        for (ByteBuffer buffer : new ByteBuffer[] {
+                ByteBuffer.allocate(length + 10).position(7).slice(), ByteBuffer.allocateDirect(length) }) {
+            buffer.put(encoded.duplicate()).put(other.encode()).flip();
+            worker.freeze();
+            assertSameResult(parsed, worker.decodeResult(buffer));
+            Assert.assertEquals(encoded.remaining(), buffer.position());
+            assertSameResult(other, worker.decodeResult(buffer));
+            Assert.assertFalse(buffer.hasRemaining());
+            worker = createCommandLine(1);
+        }
+    }
+
+    /**
+     * Test that the arguments of a result decoded from a heap buffer are read in place.
+     */
+    @Test
+    public void testInPlace() {
+        ByteBuffer encoded = createCommandLine(1).parseResult(new String[] { "-a", "x" }).encode();
+        ParseResult decoded = createCommandLine(1).decodeResult(encoded);
+        encoded.put(encoded.limit() - 1, (byte) 'y');
+        Assert.assertEquals("y", decoded.getArgument("-a", 0));
+    }
+
+    /**
+     * Test that results are not read against another specification, nor from corrupt bytes.
+     */
+    @Test
+    public void testRejected() {
+        ByteBuffer encoded = createCommandLine(1).parseResult(new String[] { "-a", "x", "-v" }).encode();
+        assertRejected(createCommandLine(2), encoded, "another specification");
+        CommandLine more = createCommandLine(1);
+        more.addOption(new Option("z"));
+        assertRejected(more, encoded, "another specification");
+
+        ByteBuffer truncated = encoded.duplicate();
+        truncated.limit(truncated.limit() - 1);
+        assertRejected(createCommandLine(1), truncated, "Corrupt");
+        ByteBuffer stray = ByteBuffer.allocate(encoded.remaining());
+        stray.put(encoded.duplicate()).flip();
+        stray.putInt(FIRST_ORDINAL, 9);
+        assertRejected(createCommandLine(1), stray, "Corrupt");
+        assertRejected(createCommandLine(1), ByteBuffer.wrap(new byte[64]), "Not an encoded");
+        Assert.assertEquals(0, encoded.position());
+    }
+
+    /**
+     * Test that a corrupt length is rejected before anything is allocated for it.
+     * @throws IOException if the pipe fails.
+     */
+    @Test(timeout = 10000)
+    public void testCorruptLength() throws IOException {
+        ByteBuffer encoded = createCommandLine(1).parseResult(new String[] { "-a", "x", "-v" }).encode();
+        for (int length : new int[] { Integer.MAX_VALUE, (1 << 26) + 1 }) {
+            ByteBuffer header = ByteBuffer.allocate(encoded.remaining());
+            header.put(encoded.duplicate()).flip();
+            header.putInt(8, length);
+            Pipe pipe = Pipe.open();
+            pipe.sink().write(header);
+            pipe.sink().close();
+            try {
+                createCommandLine(1).readResult(pipe.source());
+                Assert.fail("Read a result with a corrupt length.");
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals("Corrupt parse result.", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Asserts that a result is not read.
+     * @param commandLine the command line reading it.
+     * @param encoded the encoded result.
+     * @param message start of the expected message.
+     */
+    private static void assertRejected(final CommandLine commandLine, final ByteBuffer encoded, final String message) {
+        try {
+            commandLine.decodeResult(encoded.duplicate());
+            Assert.fail("Read a result that should be rejected.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+
+    /**
+     * Test that results are read one after another from a pipe, until it is closed.
+     * @throws IOException if the pipe fails.
+     */
+    @Test(timeout = 10000)
+    public void testPipe() throws IOException {
+        CommandLine launcher = createCommandLine(1);
+        ParseResult first = launcher.parseResult(ARGS);
+        ParseResult second = launcher.parseResult(new String[] { "-s", "a", "b" });
+        Pipe pipe = Pipe.open();
+        for (ParseResult result : new ParseResult[] { first, second }) {
+            ByteBuffer encoded = result.encode();
+            while (encoded.hasRemaining()) {
+                pipe.sink().write(encoded);
+            }
+        }
+        pipe.sink().close();
+
+        CommandLine worker = createCommandLine(1);
+        assertSameResult(first, worker.readResult(pipe.source()));
+        assertSameResult(second, worker.readResult(pipe.source()));
+        Assert.assertNull(worker.readResult(pipe.source()));
+    }
+
+    /**
+     * Test that re-emitted arguments are canonical and parse back into the same options, arguments and
+     * entries.
+     */
+    @Test
+    public void testToArgs() {
+        CommandLine commandLine = createCommandLine(1);
+        ParseResult parsed = commandLine.parseResult(ARGS);
+        String[] args = parsed.toArgs();
+        Assert.assertEquals(Arrays.asList("-a", "caf\u00e9", "-s", "1", "2", "-s", "3", "4", "-v", "-v",
+                "-D", "k=x", "-D", "j=w", "-D-n=1", "-h"), Arrays.asList(args));
+
+        ParseResult reparsed = commandLine.parseResult(args);
+        Assert.assertEquals(parsed.getArguments("-s"), reparsed.getArguments("-s"));
+        Assert.assertEquals(parsed.getCount("-v"), reparsed.getCount("-v"));
+        Assert.assertEquals(parsed.getEntries("-D").toString(), reparsed.getEntries("-D").toString());
+        Assert.assertTrue(reparsed.needHelp());
+        Assert.assertArrayEquals(args, reparsed.toArgs());
+
+        // Without repeated keys, re-emitting keeps the fingerprint as well
+        ParseResult plain = commandLine.parseResult(new String[] { "-Da=1", "-v", "-a", "x", "-v" });
+        Assert.assertEquals(plain.getFingerprint(), commandLine.parseResult(plain.toArgs()).getFingerprint());
+        Assert.assertEquals(0, commandLine.parseResult(new String[0]).toArgs().length);
+    }
+
+    /**
+     * Test that handing a result over is cheaper than parsing again: decoding looks no tag up, so it reads
+     * each found option a few times however many arguments there are, while parsing searches the options
+     * for every tag. Without an index, which takes at least 16 options, looking a tag up reads options.
+     */
+    @Test
+    public void testDispatchCost() {
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < 10; ++i) {
+            commandLine.addOption(CommandLines.repeatable(CommandLines.option("option" + i, i % 3)));
+        }
+        String[] few = dispatchArgs(200);
+        String[] many = dispatchArgs(20000);
+        ByteBuffer fewEncoded = commandLine.parseResult(few).encode();
+        ByteBuffer manyEncoded = commandLine.parseResult(many).encode();
+
+        long fewReads = OptionReads.count(commandLine, () -> commandLine.decodeResult(fewEncoded.duplicate()));
+        long manyReads = OptionReads.count(commandLine, () -> commandLine.decodeResult(manyEncoded.duplicate()));
+        Assert.assertEquals(fewReads, manyReads);
+        Assert.assertTrue("Decoding read " + manyReads + " options.", manyReads <= 4 * commandLine.getOptionCount());
+        long parseReads = OptionReads.count(commandLine, () -> commandLine.parseResult(many));
+        Assert.assertTrue("Parsing read " + parseReads + " options.", parseReads >= many.length / 3);
+    }
+
+    /**
+     * Creates arguments finding each of the options of {@link #testDispatchCost()} in turn.
+     * @param count number of arguments at least.
+     * @return the arguments.
+     */
+    private static String[] dispatchArgs(final int count) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; list.size() < count; ++i) {
+            int option = i * 7 % 10;
+            list.add("-option" + option);
+            for (int j = 0; j < option % 3; ++j) {
+                list.add("/some/path/value" + j);
+            }
+        }
+        return list.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,87 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times parsing as the arguments grow tenfold and as the options grow a hundredfold. ScalabilityTest
+ * checks both by counting the options a parse reads; wall-clock timings depend on the machine, so they
+ * are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class ScalabilityBenchmark {
+
+    /**
+     * Constructor.
+     */
+    private ScalabilityBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args number of rounds, optionally; 5 by default.
+     */
+    public static void main(final String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        CommandLine thousand = createCommandLine(1000);
+        String[] small = repeatedArgs(100000, 1000);
+        String[] large = repeatedArgs(1000000, 1000);
+        System.out.println(small.length + " arguments took " + time(thousand, small, rounds) / 1000 + " us, " +
+                large.length + " took " + time(thousand, large, rounds) / 1000 + " us, against 1000 options.");
+
+        CommandLine hundredThousand = createCommandLine(100000);
+        System.out.println(small.length + " arguments took " + time(hundredThousand, small, rounds) / 1000 +
+                " us against 100000 options.");
+    }
+
+    /**
+     * Creates a command line with repeatable options "-o0" to "-o(n - 1)", taking zero to two arguments.
+     * @param count number of options.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int count) {
+        CommandLine commandLine = new CommandLine();
+        for (int i = 0; i < count; ++i) {
+            commandLine.addOption(CommandLines.repeatable(CommandLines.option("o" + i, i % 3)));
+        }
+        return commandLine;
+    }
+
+    /**
+     * Generates arguments made of occurrences of the first options.
+     * @param tokens number of arguments, at least.
+     * @param options number of options used.
+     * @return the arguments.
+     */
+    private static String[] repeatedArgs(final int tokens, final int options) {
+        List<String> list = new ArrayList<>(tokens + 2);
+        for (int i = 0; list.size() < tokens; ++i) {
+            int option = i % options;
+            list.add("-o" + option);
+            for (int j = 0; j < option % 3; ++j) {
+                list.add("a" + list.size());
+            }
+        }
+        return list.toArray(new String[0]);
+    }
+
+    /**
+     * Times the parse of some arguments: the best of a few runs, after one to warm up.
+     * @param commandLine the command line.
+     * @param args the arguments.
+     * @param rounds number of runs.
+     * @return nanoseconds.
+     */
+    private static long time(final CommandLine commandLine, final String[] args, final int rounds) {
+        commandLine.parseResult(args);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; ++round) {
+            long start = System.nanoTime();
+            commandLine.parseResult(args);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,464 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.ArgumentMap;
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Tests parsing with large specifications and many arguments, and fuzzes the parser against a
+ * straightforward reference implementation.
+ *
+ * Nothing is timed, so that the bounds hold on any machine: growing the arguments tenfold, or the options
+ * a hundredfold, is checked by counting the options a parse reads. ScalabilityBenchmark prints the
+ * timings. The timeouts only stop a quadratic parser from running for hours.
+ *
+ * @author Zach Wilson
+ */
+public class ScalabilityTest {
+
+    /** Largest number of options. */
+    private static final int MAX_OPTIONS = 100000;
+
+    /** Largest number of arguments. */
+    private static final int MAX_TOKENS = 1000000;
+
+    /** Most options a parse may read per argument: the tag's option, for its flags and arguments. */
+    private static final int VISITS_PER_ARGUMENT = 4;
+
+    /**
+     * A generated specification.
+     */
+    private static final class Spec {
+
+        /** The command line. */
+        private final CommandLine commandLine = new CommandLine();
+
+        /** The options, by ordinal. */
+        private final ArrayList<Option> options = new ArrayList<>();
+
+        /**
+         * Constructor.
+         * Generates options "-o0" to "-o(n - 1)" with random arities and flags.
+         * @param count number of options.
+         * @param random source of randomness.
+         * @param required whether some options are required.
+         * @param help whether a help option is added.
+         */
+        Spec(final int count, final Random random, final boolean required, final boolean help) {
+            for (int i = 0; i < count; ++i) {
+                Option option = new Option("o" + i);
+                if (random.nextInt(3) == 0) {
+                    option.setLongName("option-" + i);
+                }
+                if (random.nextInt(10) == 0) {
+                    option.setKeyValue(true);
+                } else {
+                    option.setExpectedArgumentCount(random.nextInt(4));
+                    option.setRepeatable(random.nextInt(3) == 0);
+                }
+                option.setRequired(required && random.nextInt(20) == 0);
+                this.commandLine.addOption(option);
+                this.options.add(option);
+            }
+            if (help) {
+                this.commandLine.createHelp("Usage.");
+                this.options.add(this.commandLine.getOptions().get(count));
+            }
+        }
+
+        /**
+         * Generates arguments made of occurrences of repeatable options with the right arities.
+         * @param tokens number of arguments, at least.
+         * @param random source of randomness.
+         * @return the arguments.
+         */
+        String[] repeatedArgs(final int tokens, final Random random) {
+            ArrayList<Option> repeatable = new ArrayList<>();
+            for (Option option : this.options) {
+                if (option.isRepeatable() || option.isKeyValue()) {
+                    repeatable.add(option);
+                }
+            }
+            ArrayList<String> args = new ArrayList<>(tokens + 4);
+            while (args.size() < tokens) {
+                Option option = repeatable.get(random.nextInt(repeatable.size()));
+                args.add("-" + option.getShortName());
+                if (option.isKeyValue()) {
+                    args.add("k" + random.nextInt(100) + "=v");
+                }
+                for (int i = 0; i < option.getExpectedArgumentCount(); ++i) {
+                    args.add("a" + args.size());
+                }
+            }
+            return args.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Test that parsing is linear in the number of arguments: tenfold the arguments read at most a
+     * bounded number of options per argument, as many as the fewer arguments do.
+     */
+    @Test(timeout = 60000)
+    public void testLinearInTokens() {
+        Random random = new Random(1);
+        Spec spec = new Spec(1000, random, false, false);
+        String[] small = spec.repeatedArgs(MAX_TOKENS / 10, random);
+        String[] large = spec.repeatedArgs(MAX_TOKENS, random);
+
+        long smallVisits = countVisits(spec.commandLine, small);
+        long largeVisits = countVisits(spec.commandLine, large);
+        Assert.assertTrue(smallVisits <= VISITS_PER_ARGUMENT * small.length);
+        Assert.assertTrue("Ten times the arguments read " + (double) largeVisits / smallVisits + " times the options.",
+                largeVisits <= VISITS_PER_ARGUMENT * large.length);
+    }
+
+    /**
+     * Test that parsing does not visit more options when there are more of them, frozen or not: the same
+     * arguments are parsed against a specification and against one a hundred times larger which begins
+     * with the same options, and the options each parse reads are counted.
+     */
+    @Test(timeout = 60000)
+    public void testIndependentOfOptions() {
+        Spec few = new Spec(MAX_OPTIONS / 100, new Random(2), true, false);
+        Spec many = new Spec(MAX_OPTIONS, new Random(2), true, false);
+        ArrayList<String> args = new ArrayList<>(Arrays.asList(few.repeatedArgs(20000, new Random(5))));
+        for (Option option : few.options) {
+            if (option.isRequired()) {
+                args.add("-" + option.getShortName());
+                if (option.isKeyValue()) {
+                    args.add("k=v");
+                }
+                for (int i = 0; i < option.getExpectedArgumentCount(); ++i) {
+                    args.add("a");
+                }
+            }
+        }
+        String[] argArray = args.toArray(new String[0]);
+
+        // Only the options the specifications share are required
+        for (Option option : many.options.subList(few.options.size(), many.options.size())) {
+            option.setRequired(false);
+        }
+
+        long fewVisits = countVisits(few.commandLine, argArray);
+        Assert.assertTrue(fewVisits <= VISITS_PER_ARGUMENT * argArray.length);
+        Assert.assertEquals(fewVisits, countVisits(many.commandLine, argArray));
+
+        few.commandLine.freeze();
+        many.commandLine.freeze();
+        long frozenVisits = countVisits(few.commandLine, argArray);
+        Assert.assertTrue(frozenVisits <= VISITS_PER_ARGUMENT * argArray.length);
+        Assert.assertEquals(frozenVisits, countVisits(many.commandLine, argArray));
+    }
+
+    /**
+     * Counts the options read while parsing, once whatever is kept for the specification has been built.
+     * @param commandLine the command line.
+     * @param args the arguments.
+     * @return number of options read.
+     */
+    private static long countVisits(final CommandLine commandLine, final String[] args) {
+        return OptionReads.count(commandLine, () -> Assert.assertTrue(commandLine.parseResult(args).getFoundCount() > 0));
+    }
+
+    /**
+     * Test that a result holds on to arrays sized for what was found, not for the whole specification.
+     * @throws ReflectiveOperationException if a field of the result cannot be read.
+     */
+    @Test
+    public void testRetainedSize() throws ReflectiveOperationException {
+        Random random = new Random(3);
+        Spec spec = new Spec(MAX_OPTIONS, random, false, false);
+        String[] args = new String[] { "-o1", "-o2", "-o3", "-o4", "-o5", "-o6", "-o7", "-o8" };
+        String[] valid = Arrays.stream(args).filter(arg -> {
+            Option option = spec.options.get(Integer.parseInt(arg.substring(2)));
+            return option.getExpectedArgumentCount() == 0 && !option.isKeyValue();
+        }).toArray(String[]::new);
+        ParseResult result = spec.commandLine.parseResult(valid);
+        Assert.assertEquals(valid.length, result.getFoundCount());
+
+        Field arguments = ParseResult.class.getDeclaredField("arguments");
+        arguments.setAccessible(true);
+        int elements = arrayElements(result) + arrayElements(arguments.get(result));
+        Assert.assertTrue("A result holds arrays of " + elements + " elements.", elements < 256);
+    }
+
+    /**
+     * Counts the elements of the arrays an object holds in its fields.
+     * @param object the object.
+     * @return number of elements.
+     * @throws IllegalAccessException if a field cannot be read.
+     */
+    private static int arrayElements(final Object object) throws IllegalAccessException {
+        int elements = 0;
+        for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getType().isArray() && !Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    Object array = field.get(object);
+                    elements += array == null ? 0 : Array.getLength(array);
+                }
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Test that random arguments, with errors injected, parse as the reference implementation parses them.
+     */
+    @Test
+    public void testFuzz() {
+        Random random = new Random(4);
+        for (int round = 0; round < 300; ++round) {
+            int count = 1 + random.nextInt(round % 2 == 0 ? 10 : 60);
+            Spec spec = new Spec(count, random, true, random.nextBoolean());
+            if (round % 3 == 0) {
+                spec.commandLine.freeze();
+            }
+            for (int sample = 0; sample < 20; ++sample) {
+                String[] args = fuzzArgs(spec, random);
+                Outcome expected = Reference.parse(spec.options, args);
+                Outcome actual;
+                try {
+                    actual = new Outcome(spec.commandLine.parseResult(args), spec.options.size());
+                } catch (IllegalArgumentException e) {
+                    actual = new Outcome(e.getMessage());
+                }
+                Assert.assertEquals(Arrays.toString(args), expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Generates arguments mostly made of occurrences of the options, with errors injected.
+     * @param spec the specification.
+     * @param random source of randomness.
+     * @return the arguments.
+     */
+    private static String[] fuzzArgs(final Spec spec, final Random random) {
+        ArrayList<String> args = new ArrayList<>();
+        int occurrences = random.nextInt(8);
+        for (int i = 0; i < occurrences; ++i) {
+            Option option = spec.options.get(random.nextInt(spec.options.size()));
+            boolean attached = option.isKeyValue() && random.nextBoolean();
+            if (attached) {
+                args.add("-" + option.getShortName() + "k" + random.nextInt(3) + "=" + i);
+            } else {
+                args.add(random.nextBoolean() || option.getLongName().isEmpty() ? "-" + option.getShortName() :
+                        "--" + option.getLongName());
+            }
+            int arity = option.isKeyValue() ? (attached ? 0 : 1) : option.getExpectedArgumentCount();
+            for (int a = 0; a < arity; ++a) {
+                args.add(option.isKeyValue() ? "k" + random.nextInt(3) + "=" + i : "a" + i + "." + a);
+            }
+
+            // Inject an error now and then
+            switch (random.nextInt(12)) {
+                case 0:
+                    if (!args.isEmpty()) {
+                        args.remove(args.size() - 1);
+                    }
+                    break;
+                case 1:
+                    args.add("stray");
+                    break;
+                case 2:
+                    args.add("-unknown");
+                    break;
+                case 3:
+                    args.add(random.nextInt(args.size() + 1), "-o" + random.nextInt(spec.options.size()));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * What a parse gives: an error message, or what was found.
+     */
+    private static final class Outcome {
+
+        /** Error message, or null; "" stands for an error without a message. */
+        private final String error;
+
+        /** Number of occurrences by ordinal. */
+        private final int[] counts;
+
+        /** Arguments by ordinal. */
+        private final List<List<String>> arguments = new ArrayList<>();
+
+        /** Entries by ordinal; null for options without entries. */
+        private final List<HashMap<String, String>> entries = new ArrayList<>();
+
+        /**
+         * Constructor.
+         * @param error error message.
+         */
+        Outcome(final String error) {
+            this.error = error == null ? "" : error;
+            this.counts = null;
+        }
+
+        /**
+         * Constructor.
+         * @param counts number of occurrences by ordinal.
+         */
+        Outcome(final int[] counts) {
+            this.error = null;
+            this.counts = counts;
+        }
+
+        /**
+         * Constructor.
+         * @param result the parse result.
+         * @param size number of options.
+         */
+        Outcome(final ParseResult result, final int size) {
+            this(new int[size]);
+            for (int ordinal = 0; ordinal < size; ++ordinal) {
+                this.counts[ordinal] = result.getCount(ordinal);
+                this.arguments.add(new ArrayList<>(result.getArguments(ordinal)));
+                ArgumentMap map = result.getEntries(ordinal);
+                HashMap<String, String> entries = null;
+                if (map != null) {
+                    entries = new HashMap<>();
+                    for (int i = 0; i < map.size(); ++i) {
+                        entries.put(map.getKey(i), map.getValue(i));
+                    }
+                }
+                this.entries.add(entries);
+            }
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Outcome)) {
+                return false;
+            }
+            Outcome outcome = (Outcome) other;
+            return Objects.equals(this.error, outcome.error) && Arrays.equals(this.counts, outcome.counts) &&
+                   this.arguments.equals(outcome.arguments) && this.entries.equals(outcome.entries);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.error, Arrays.hashCode(this.counts));
+        }
+
+        @Override
+        public String toString() {
+            return this.error != null ? "error: " + this.error :
+                    Arrays.toString(this.counts) + " " + this.arguments + " " + this.entries;
+        }
+    }
+
+    /**
+     * The reference implementation: each argument is compared with every option.
+     */
+    private static final class Reference {
+
+        /**
+         * Parses arguments.
+         * @param options the options, by ordinal; the help option, if any, is last and named "h".
+         * @param args the arguments.
+         * @return what was found.
+         */
+        static Outcome parse(final List<Option> options, final String[] args) {
+            int size = options.size();
+            Outcome outcome = new Outcome(new int[size]);
+            for (int ordinal = 0; ordinal < size; ++ordinal) {
+                outcome.arguments.add(new ArrayList<>());
+                outcome.entries.add(null);
+            }
+
+            int position = 0;
+            while (position < args.length) {
+                String arg = args[position++];
+                if (!arg.startsWith("-")) {
+                    return new Outcome(position == 1 ? "Missing command line option." : "Too many arguments for option.");
+                }
+                boolean matched = false;
+                for (int ordinal = 0; ordinal < size; ++ordinal) {
+                    Option option = options.get(ordinal);
+                    boolean tagged = arg.equals("-" + option.getShortName()) ||
+                            (!option.getLongName().isEmpty() && arg.equals("--" + option.getLongName()));
+                    if (!tagged || (outcome.counts[ordinal] > 0 && !option.isRepeatable() && !option.isKeyValue())) {
+                        continue;
+                    }
+                    matched = true;
+                    ++outcome.counts[ordinal];
+                    if (option.isKeyValue()) {
+                        if (position == args.length || args[position].startsWith("-")) {
+                            return new Outcome("Missing entry for option '" + option.getShortName() + "'.");
+                        }
+                        putEntry(outcome, ordinal, args[position++]);
+                        continue;
+                    }
+                    for (int a = 0; a < option.getExpectedArgumentCount(); ++a) {
+                        if (position == args.length) {
+                            return new Outcome("Missing argument for option '" + option.getShortName() + "'. Given " +
+                                    a + ", expected " + option.getExpectedArgumentCount() + ".");
+                        }
+                        if (args[position].startsWith("-")) {
+                            return new Outcome((String) null);
+                        }
+                        outcome.arguments.get(ordinal).add(args[position++]);
+                    }
+                }
+                if (!matched) {
+                    for (int ordinal = 0; ordinal < size; ++ordinal) {
+                        Option option = options.get(ordinal);
+                        String tag = "-" + option.getShortName();
+                        if (option.isKeyValue() && arg.length() > tag.length() && arg.startsWith(tag)) {
+                            ++outcome.counts[ordinal];
+                            putEntry(outcome, ordinal, arg.substring(tag.length()));
+                            break;
+                        }
+                    }
+                }
+            }
+
+            boolean help = size > 0 && options.get(size - 1).getShortName().equals("h") &&
+                    outcome.counts[size - 1] > 0;
+            if (!help) {
+                for (int ordinal = 0; ordinal < size; ++ordinal) {
+                    if (options.get(ordinal).isRequired() && outcome.counts[ordinal] == 0) {
+                        return new Outcome("Missing required option '" + options.get(ordinal).getShortName() + "'.");
+                    }
+                }
+            }
+            return outcome;
+        }
+
+        /**
+         * Records an entry, the last value of a key winning.
+         * @param outcome what was found.
+         * @param ordinal ordinal of the key-value option.
+         * @param entry the entry, "key=value" or "key".
+         */
+        private static void putEntry(final Outcome outcome, final int ordinal, final String entry) {
+            if (outcome.entries.get(ordinal) == null) {
+                outcome.entries.set(ordinal, new HashMap<>());
+            }
+            int separator = entry.indexOf('=');
+            outcome.entries.get(ordinal).put(separator < 0 ? entry : entry.substring(0, separator),
+                    separator < 0 ? "" : entry.substring(separator + 1));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.SpecSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Times starting up from a snapshot against building the command line: adding the options, freezing and
+ * parsing once, against mapping and loading a snapshot of it and parsing once. Wall-clock timings
+ * depend on the machine and the file cache, so they are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class SnapshotBenchmark {
+
+    /**
+     * Constructor.
+     */
+    private SnapshotBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args number of rounds, optionally; 20 by default.
+     * @throws IOException if the snapshot cannot be written or read.
+     */
+    public static void main(final String[] args) throws IOException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Path file = File.createTempFile("commandline", ".snapshot").toPath();
+        try {
+            for (int count : new int[] { 100, 1000, 10000 }) {
+                String[] parsed = new String[] { "-o1", "a", "-o" + (count - 1), "--long" + (count / 2), "b", "c" };
+                SpecSnapshot.write(createCommandLine(count), file);
+                long build = Long.MAX_VALUE;
+                long load = Long.MAX_VALUE;
+                for (int round = 0; round <= rounds; ++round) {
+                    long start = System.nanoTime();
+                    CommandLine commandLine = createCommandLine(count);
+                    commandLine.freeze();
+                    int found = commandLine.parseResult(parsed).getFoundCount();
+                    long built = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    SpecSnapshot snapshot = SpecSnapshot.load(file);
+                    int loadedFound = snapshot.parseResult(parsed).getFoundCount();
+                    long loaded = System.nanoTime() - start;
+                    if (found != loadedFound) {
+                        throw new IllegalStateException("The snapshot found " + loadedFound +
+                                " options, the command line " + found + ".");
+                    }
+                    // The first round warms up
+                    if (round > 0) {
+                        build = Math.min(build, built);
+                        load = Math.min(load, loaded);
+                    }
+                }
+                System.out.println(count + " options: building took " + build / 1000 + " us, mapping and loading " +
+                        load / 1000 + " us (" + Files.size(file) + " bytes).");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Creates a command line with options "-o0" ("--long0") to "-o(n - 1)", taking zero to two arguments.
+     * @param count number of options.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int count) {
+        Option[] options = new Option[count];
+        for (int i = 0; i < count; ++i) {
+            options[i] = CommandLines.option("o" + i, "long" + i, i % 3);
+            options[i].setDescription("Option number " + i + ".");
+        }
+        return CommandLines.of(options);
+    }
+}
@@ -0,0 +1,121 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.SpecRegistry;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures the latency of parses against a registry holding a large specification, with and without another
+ * thread reloading it over and over. Latencies depend on the machine and the scheduler, so the percentiles
+ * are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class SpecRegistryBenchmark {
+
+    /** Number of parses each reader makes. */
+    private static final int PARSES = 200000;
+
+    /**
+     * Constructor.
+     */
+    private SpecRegistryBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args ignored.
+     * @throws Exception if a thread is interrupted or a parse failed.
+     */
+    public static void main(final String[] args) throws Exception {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("a", 1));
+        for (int i = 0; i < 2000; ++i) {
+            commandLine.addOption(new Option("f" + i));
+        }
+        SpecRegistry registry = new SpecRegistry(commandLine);
+        String[] arguments = new String[] { "-a", "x", "-f10", "-f1999" };
+
+        // Warm up first, so that compiling the parser does not count
+        latencies(registry, arguments, null);
+        long[] quiet = latencies(registry, arguments, null);
+        AtomicInteger reloads = new AtomicInteger();
+        long[] reloading = latencies(registry, arguments, () -> {
+            registry.update(spec -> spec.getOption(0).setDescription("Reload " + reloads.incrementAndGet() + "."));
+        });
+        System.out.println("Quiet: " + percentiles(quiet) + ".");
+        System.out.println("Reloading, " + reloads.get() + " reloads: " + percentiles(reloading) + ".");
+    }
+
+    /**
+     * Renders the 50th, 99th and 99.9th percentiles of sorted latencies.
+     * @param sorted the latencies, sorted.
+     * @return the percentiles.
+     */
+    private static String percentiles(final long[] sorted) {
+        return "p50 " + sorted[sorted.length / 2] + " ns, p99 " + sorted[sorted.length / 100 * 99] +
+                " ns, p99.9 " + sorted[sorted.length / 1000 * 999] + " ns";
+    }
+
+    /**
+     * Parses the same arguments over and over on two threads, while another thread reloads.
+     * @param registry the registry.
+     * @param args the arguments.
+     * @param reload reloads the specification, or null to leave it.
+     * @return latency of every parse in nanoseconds, sorted.
+     * @throws Exception if a thread is interrupted or a parse failed.
+     */
+    private static long[] latencies(final SpecRegistry registry, final String[] args, final Runnable reload)
+            throws Exception {
+        long[][] latencies = new long[2][PARSES];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[latencies.length];
+        for (int t = 0; t < readers.length; ++t) {
+            long[] own = latencies[t];
+            readers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < PARSES; ++i) {
+                        long start = System.nanoTime();
+                        ParseResult result = registry.parseResult(args);
+                        own[i] = System.nanoTime() - start;
+                        if (!"x".equals(result.getArgument("-a", 0)) || !result.isFound("-f1999")) {
+                            throw new IllegalStateException("Parsed " + result);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+        }
+        Thread reloader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                reload.run();
+                Thread.yield();
+            }
+        });
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        if (reload != null) {
+            reloader.start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        reloader.interrupt();
+        reloader.join();
+        if (failure.get() != null) {
+            throw new IllegalStateException(failure.get());
+        }
+
+        long[] all = new long[PARSES * latencies.length];
+        for (int t = 0; t < latencies.length; ++t) {
+            System.arraycopy(latencies[t], 0, all, t * PARSES, PARSES);
+        }
+        Arrays.sort(all);
+        return all;
+    }
+}
@@ -0,0 +1,166 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.SpecRegistry;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test {@link SpecRegistry}.
+ *
+ * @author Zach Wilson
+ */
+public class SpecRegistryTest {
+
+    /**
+     * Creates a command line with "-a" taking one argument and the given number of flags "-f0", "-f1"...
+     * @param flags number of flags.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final int flags) {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("a", 1));
+        for (int i = 0; i < flags; ++i) {
+            commandLine.addOption(new Option("f" + i));
+        }
+        return commandLine;
+    }
+
+    /**
+     * Test that updates are published as new frozen specifications, leaving earlier ones as they were.
+     */
+    @Test
+    public void testUpdate() {
+        CommandLine commandLine = createCommandLine(0);
+        SpecRegistry registry = new SpecRegistry(commandLine);
+        CommandLine first = registry.getCurrent();
+        Assert.assertTrue(first.isFrozen());
+        Assert.assertFalse(commandLine.isFrozen());
+        commandLine.addOption(new Option("c"));
+        Assert.assertEquals(1, first.getOptionCount());
+
+        CommandLine second = registry.update(spec -> {
+            spec.getOption(0).setExpectedArgumentCount(2);
+            spec.addOption(new Option("b"));
+        });
+        Assert.assertSame(second, registry.getCurrent());
+        Assert.assertTrue(second.isFrozen());
+        ParseResult result = registry.parseResult(new String[] { "-a", "x", "y", "-b" });
+        Assert.assertEquals(Arrays.asList("x", "y"), result.getArguments("-a"));
+        Assert.assertTrue(result.isFound("-b"));
+
+        // A parse holding the first specification still parses against it
+        Assert.assertEquals(Arrays.asList("x"), first.parseResult(new String[] { "-a", "x" }).getArguments("-a"));
+        Assert.assertEquals(1, first.getOption(0).getExpectedArgumentCount());
+
+        // The published specifications are shared, so nothing parses into their options
+        try {
+            second.parse(new String[] { "-a", "x", "y" });
+            Assert.fail("Parsed into the options of a published specification.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        Assert.assertFalse(second.getOption(0).isFound());
+
+        // A failed update publishes nothing
+        try {
+            registry.update(spec -> spec.addOption(new Option("b")));
+            Assert.fail("Published two options sharing a tag.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        Assert.assertSame(second, registry.getCurrent());
+
+        Assert.assertEquals(2, registry.publish(commandLine).getOptionCount());
+        result = registry.parseResult(new String[] { "-a", "x", "-c" });
+        Assert.assertTrue(result.isFound("-c"));
+        Assert.assertFalse(result.isFound("-b"));
+    }
+
+    /**
+     * Test that updates from several threads at once are all kept.
+     * @throws Exception if a thread is interrupted.
+     */
+    @Test(timeout = 60000)
+    public void testConcurrentUpdates() throws Exception {
+        SpecRegistry registry = new SpecRegistry(createCommandLine(0));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            String prefix = "t" + t + "-";
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; ++i) {
+                    String name = prefix + i;
+                    registry.update(spec -> spec.addOption(new Option(name)));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CommandLine current = registry.getCurrent();
+        Assert.assertEquals(1 + threads.length * 50, current.getOptionCount());
+        Assert.assertNotNull(current.getHandle("-t3-49"));
+    }
+
+    /**
+     * Test that parses running while the specification is reloaded each see one consistent specification:
+     * reloads switch "-a" between one and two arguments, and every parse against the specification it
+     * got takes as many arguments as that specification says.
+     * @throws Exception if a thread is interrupted.
+     */
+    @Test(timeout = 60000)
+    public void testParseUnderReload() throws Exception {
+        SpecRegistry registry = new SpecRegistry(createCommandLine(2000));
+        int reloads = 50;
+        AtomicInteger parses = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reloader = new Thread(() -> {
+            for (int i = 0; i < reloads; ++i) {
+                int count = 2 - i % 2;
+                registry.update(spec -> spec.getOption(0).setExpectedArgumentCount(count));
+            }
+        });
+        Thread[] readers = new Thread[2];
+        for (int t = 0; t < readers.length; ++t) {
+            readers[t] = new Thread(() -> {
+                try {
+                    while (reloader.isAlive() || parses.get() < 1000) {
+                        CommandLine spec = registry.getCurrent();
+                        int count = spec.getOption(0).getExpectedArgumentCount();
+                        String[] args = count == 1 ? new String[] { "-a", "x", "-f1999" } :
+                                new String[] { "-a", "x", "y", "-f1999" };
+                        ParseResult result = spec.parseResult(args);
+                        if (result.getArguments("-a").size() != count || !result.isFound("-f1999")) {
+                            throw new AssertionError("Parsed " + result);
+                        }
+                        parses.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        reloader.start();
+        reloader.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        // Every reload was published, the last setting one argument
+        Assert.assertEquals(1, registry.getCurrent().getOption(0).getExpectedArgumentCount());
+        Assert.assertTrue(parses.get() >= 1000);
+    }
+}
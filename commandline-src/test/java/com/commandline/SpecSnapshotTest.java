@@ -0,0 +1,235 @@
+package test.java.com.commandline;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.SpecSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test {@link SpecSnapshot}.
+ *
+ * @author Zach Wilson
+ */
+public class SpecSnapshotTest {
+
+    /** Snapshot file written before the tests. */
+    private static Path snapshotFile;
+
+    /**
+     * Write a snapshot of a small command line.
+     * @throws Exception if the snapshot cannot be written.
+     */
+    @BeforeClass
+    public static void before() throws Exception {
+        CommandLine commandline = new CommandLine();
+
+        Option input = new Option("i");
+        input.setLongName("input");
+        input.setDescription("Input file.");
+        input.setExpectedArgumentCount(1);
+        input.setRequired(true);
+        commandline.addOption(input);
+
+        Option verbose = new Option("v");
+        commandline.addOption(verbose);
+
+        commandline.createHelp("This is the help message.");
+
+        snapshotFile = File.createTempFile("commandline", ".snapshot").toPath();
+        SpecSnapshot.write(commandline, snapshotFile);
+    }
+
+    /**
+     * Remove snapshot file.
+     * @throws Exception if the file cannot be deleted.
+     */
+    @AfterClass
+    public static void after() throws Exception {
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    /**
+     * Method: load(final Path file), indexOf(final String tag), getters.
+     * @throws Exception if the snapshot cannot be loaded.
+     */
+    @Test
+    public void testLoad() throws Exception {
+        SpecSnapshot snapshot = SpecSnapshot.load(snapshotFile);
+
+        Assert.assertEquals(3, snapshot.size());
+        Assert.assertEquals(0, snapshot.indexOf("-i"));
+        Assert.assertEquals(0, snapshot.indexOf("--input"));
+        Assert.assertEquals(1, snapshot.indexOf("-v"));
+        Assert.assertEquals(2, snapshot.indexOf("--help"));
+        Assert.assertEquals(-1, snapshot.indexOf("--verbose"));
+        Assert.assertEquals(-1, snapshot.indexOf("i"));
+
+        Assert.assertEquals("i", snapshot.getShortName(0));
+        Assert.assertEquals("input", snapshot.getLongName(0));
+        Assert.assertEquals("Input file.", snapshot.getDescription(0));
+        Assert.assertEquals(1, snapshot.getExpectedArgumentCount(0));
+        Assert.assertTrue(snapshot.isRequired(0));
+
+        Assert.assertEquals("", snapshot.getLongName(1));
+        Assert.assertNull(snapshot.getDescription(1));
+        Assert.assertFalse(snapshot.isRequired(1));
+    }
+
+    /**
+     * Method: toCommandLine().
+     * @throws Exception if the snapshot cannot be loaded.
+     */
+    @Test
+    public void testToCommandLine() throws Exception {
+        CommandLine commandline = SpecSnapshot.load(snapshotFile).toCommandLine();
+        commandline.parse(new String[] { "--input", "in.txt", "-v" });
+
+        Assert.assertEquals("in.txt", commandline.getOptionByName("-i"));
+        Assert.assertTrue(commandline.getOptions().get(1).isFound());
+        Assert.assertFalse(commandline.needHelp());
+        Assert.assertEquals("This is the help message.", commandline.getHelp());
+    }
+
+    /**
+     * Method: parseResult(final String[] args), parseResult(final ByteBuffer args).
+     * @throws Exception if the snapshot cannot be loaded.
+     */
+    @Test
+    public void testParseResult() throws Exception {
+        SpecSnapshot snapshot = SpecSnapshot.load(snapshotFile);
+
+        ParseResult result = snapshot.parseResult(new String[] { "--input", "in.txt", "-v" });
+        Assert.assertEquals("in.txt", result.getArgument("-i", 0));
+        Assert.assertTrue(result.isFound("-v"));
+        Assert.assertFalse(result.needHelp());
+
+        result = snapshot.parseResult(ByteBuffer.wrap("-v\0-i\0out.txt\0".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals("out.txt", result.getArgument(0, 0));
+        Assert.assertTrue(result.isFound(1));
+
+        // Help is needed, so the required option may be missing
+        result = snapshot.parseResult(new String[] { "--help" });
+        Assert.assertTrue(result.needHelp());
+        Assert.assertFalse(result.isFound("-i"));
+    }
+
+    /**
+     * Method: parseResult(final String[] args).
+     * @throws Exception if the snapshot cannot be loaded.
+     */
+    @Test (expected=IllegalArgumentException.class)
+    public void testParseResultMissingRequired() throws Exception {
+        SpecSnapshot.load(snapshotFile).parseResult(new String[] { "-v" });
+    }
+
+    /**
+     * Method: getHelp().
+     * @throws Exception if the snapshot cannot be loaded.
+     */
+    @Test
+    public void testGetHelp() throws Exception {
+        Assert.assertEquals("This is the help message.", SpecSnapshot.load(snapshotFile).getHelp());
+    }
+
+    /**
+     * Method: load(final Path file), with a snapshot written in an older format.
+     * @throws Exception if the old file cannot be written.
+     */
+    @Test (expected=IOException.class)
+    public void testLoadOldVersion() throws Exception {
+        Path old = File.createTempFile("commandline", ".old").toPath();
+        try {
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            ByteBuffer.wrap(bytes).putInt(4, 1);
+            Files.write(old, bytes);
+            SpecSnapshot.load(old);
+        } finally {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * Method: load(final Path file).
+     * @throws Exception if the bad file cannot be written.
+     */
+    @Test (expected=IOException.class)
+    public void testLoadBadFile() throws Exception {
+        Path bad = File.createTempFile("commandline", ".bad").toPath();
+        try {
+            Files.write(bad, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20 });
+            SpecSnapshot.load(bad);
+        } finally {
+            Files.deleteIfExists(bad);
+        }
+    }
+
+    /**
+     * Method: write(final CommandLine commandLine, final Path file), with options sharing a tag.
+     * @throws Exception if the snapshot cannot be written.
+     */
+    @Test (expected=IllegalArgumentException.class)
+    public void testWriteSharedTag() throws Exception {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("s", 1), CommandLines.option("s", 1));
+        Path shared = File.createTempFile("commandline", ".shared").toPath();
+        try {
+            SpecSnapshot.write(commandLine, shared);
+        } finally {
+            Files.deleteIfExists(shared);
+        }
+    }
+
+    /**
+     * Method: load(final Path file), with an index size which is not a power of two.
+     * @throws Exception if the corrupt file cannot be written.
+     */
+    @Test
+    public void testLoadCorruptIndexSize() throws Exception {
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(16, buffer.getInt(16) - 1);
+        assertCorrupt(bytes);
+    }
+
+    /**
+     * Method: load(final Path file), with a record whose string lies past the end of the file.
+     * @throws Exception if the corrupt file cannot be written.
+     */
+    @Test
+    public void testLoadCorruptOffset() throws Exception {
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+
+        // Offset of the description of the first option
+        ByteBuffer.wrap(bytes).putInt(20 + 4 * 4, bytes.length);
+        assertCorrupt(bytes);
+    }
+
+    /**
+     * Checks that a snapshot is rejected as corrupt when loaded.
+     * @param bytes contents of the snapshot.
+     * @throws Exception if the file cannot be written.
+     */
+    private static void assertCorrupt(final byte[] bytes) throws Exception {
+        Path corrupt = File.createTempFile("commandline", ".corrupt").toPath();
+        try {
+            Files.write(corrupt, bytes);
+            SpecSnapshot.load(corrupt);
+            Assert.fail("Corrupt snapshot loaded.");
+        } catch (IOException e) {
+            Assert.assertEquals("Corrupt command line snapshot.", e.getMessage());
+        } finally {
+            Files.deleteIfExists(corrupt);
+        }
+    }
+}
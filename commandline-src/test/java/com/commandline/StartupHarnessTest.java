@@ -0,0 +1,76 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.StartupHarness;
+import main.java.com.commandline.StartupTraining;
+
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Test {@link StartupHarness} and {@link StartupTraining}.
+ *
+ * @author Zach Wilson
+ */
+public class StartupHarnessTest {
+
+    /** Working directory of the harness. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that training leaves the command line usable.
+     */
+    @Test
+    public void testTrain() {
+        CommandLine commandLine = StartupTraining.createCommandLine();
+        StartupTraining.train(commandLine, new String[][] { { "-i", "a", "-v" }, { "-x" }, { "-r", "b" } });
+        commandLine.parse(new String[] { "-i", "in.txt", "-s", "1", "2" });
+        Assert.assertEquals("2", commandLine.getHandle("-s").getArgument(1));
+        Assert.assertFalse(commandLine.getHandle("-v").isFound());
+
+        try {
+            StartupTraining.main(new String[0]);
+            Assert.fail("Ran without a mode.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test that training writes the class list and the archive, and that each kind of launch runs.
+     * @throws Exception if a JVM cannot be launched.
+     */
+    @Test(timeout = 60000)
+    public void testHarness() throws Exception {
+        StartupHarness harness = new StartupHarness(this.folder.getRoot().toPath());
+        harness.setRuns(1);
+        String mainClass = StartupTraining.class.getName();
+        try {
+            harness.measure(StartupHarness.Launch.APP_CDS, mainClass, "parse", "-i", "in.txt");
+            Assert.fail("Measured without an archive.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        harness.train(mainClass, "train");
+        List<String> classes = Files.readAllLines(harness.getClassList());
+        Assert.assertTrue(classes.contains("main/java/com/commandline/Parser"));
+        Assert.assertTrue(Files.size(harness.getArchive()) > 0);
+        for (StartupHarness.Launch launch : StartupHarness.Launch.values()) {
+            Assert.assertTrue(harness.measure(launch, mainClass, "parse", "-i", "in.txt") > 0);
+        }
+
+        try {
+            harness.measure(StartupHarness.Launch.CDS, mainClass, "parse", "-o", "out.txt");
+            Assert.fail("Missing required option has not exited with an error.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.Option;
+import main.java.com.commandline.TagIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * Times looking tags up in the frozen perfect-hash {@link TagIndex}, in a HashMap from tag to ordinal
+ * and by scanning the options, at 100, 1000 and 10000 options. Wall-clock timings depend on the machine,
+ * so they are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class TagIndexBenchmark {
+
+    /** Number of tags looked up per round; an eighth of them are unknown. */
+    private static final int PROBES = 4096;
+
+    /**
+     * Constructor.
+     */
+    private TagIndexBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args number of rounds, optionally; 20 by default.
+     */
+    public static void main(final String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        for (int count : new int[] { 100, 1000, 10000 }) {
+            List<Option> options = new ArrayList<>(count);
+            HashMap<String, Integer> map = new HashMap<>();
+            for (int i = 0; i < count; ++i) {
+                Option option = CommandLines.option("o" + i, "option-" + i, 0);
+                options.add(option);
+                map.put("-o" + i, i);
+                map.put("--option-" + i, i);
+            }
+            TagIndex index = new TagIndex(options);
+
+            Random random = new Random(count);
+            String[] probes = new String[PROBES];
+            for (int i = 0; i < PROBES; ++i) {
+                int ordinal = random.nextInt(count);
+                probes[i] = i % 8 == 7 ? "--unknown-" + ordinal : i % 2 == 0 ? "-o" + ordinal : "--option-" + ordinal;
+            }
+
+            long indexed = time(index::get, probes, rounds);
+            long hashed = time(tag -> {
+                Integer ordinal = map.get(tag);
+                return ordinal == null ? -1 : ordinal;
+            }, probes, rounds);
+            long scanned = time(tag -> {
+                for (int ordinal = 0; ordinal < options.size(); ++ordinal) {
+                    if (options.get(ordinal).hasTag(tag)) {
+                        return ordinal;
+                    }
+                }
+                return -1;
+            }, probes, Math.max(1, rounds * 100 / count));
+            System.out.println(count + " options: " + indexed + " ns per lookup in the index, " + hashed +
+                    " in a HashMap, " + scanned + " scanning.");
+        }
+    }
+
+    /**
+     * Times looking tags up: the best of a few rounds, after one to warm up. Each round looks up fresh
+     * copies of the tags, as arguments would be, so that no hash code is cached in them beforehand.
+     * @param lookup finds the ordinal of a tag, or -1.
+     * @param probes the tags.
+     * @param rounds number of rounds.
+     * @return nanoseconds per lookup.
+     * @throws IllegalStateException if the lookup misses a known tag or finds an unknown one.
+     */
+    private static long time(final ToIntFunction<String> lookup, final String[] probes, final int rounds) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round <= rounds; ++round) {
+            String[] tags = new String[probes.length];
+            for (int i = 0; i < probes.length; ++i) {
+                tags[i] = new String(probes[i]);
+            }
+            int found = 0;
+            long start = System.nanoTime();
+            for (String probe : tags) {
+                if (lookup.applyAsInt(probe) >= 0) {
+                    ++found;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (found != PROBES - PROBES / 8) {
+                throw new IllegalStateException("Found " + found + " of " + PROBES + " tags.");
+            }
+            if (round > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best / PROBES;
+    }
+}
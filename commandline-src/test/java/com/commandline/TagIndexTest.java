@@ -0,0 +1,116 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.TagIndex;
+
+import java.util.ArrayList;
+
+/**
+ * Test {@link TagIndex}.
+ *
+ * @author Zach Wilson
+ */
+public class TagIndexTest {
+
+    /**
+     * Creates options "-o0" to "-o(n - 1)", every other one with a long name.
+     * @param count number of options.
+     * @return the options.
+     */
+    private static ArrayList<Option> createOptions(final int count) {
+        ArrayList<Option> options = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            Option option = new Option("o" + i);
+            if (i % 2 == 0) {
+                option.setLongName("option-" + i);
+            }
+            options.add(option);
+        }
+        return options;
+    }
+
+    /**
+     * Test that every tag is found and unknown tags are not, at several sizes.
+     */
+    @Test
+    public void testGet() {
+        for (int count : new int[] { 0, 1, 2, 100, 1000, 10000 }) {
+            ArrayList<Option> options = createOptions(count);
+            TagIndex index = new TagIndex(options);
+            Assert.assertEquals(count + (count + 1) / 2, index.size());
+            for (int i = 0; i < count; ++i) {
+                Assert.assertEquals(i, index.get("-o" + i));
+                Assert.assertEquals(i % 2 == 0 ? i : -1, index.get("--option-" + i));
+            }
+            Assert.assertEquals(-1, index.get("-o" + count));
+            Assert.assertEquals(-1, index.get("-x"));
+            Assert.assertEquals(-1, index.get(""));
+        }
+    }
+
+    /**
+     * Test that two options may not share a tag.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateTag() {
+        ArrayList<Option> options = createOptions(3);
+        options.add(new Option("o1"));
+        new TagIndex(options);
+    }
+
+    /**
+     * Test that a frozen command line parses as before, and may no longer be changed.
+     */
+    @Test
+    public void testFreeze() {
+        CommandLine commandLine = new CommandLine();
+        for (Option option : createOptions(1000)) {
+            commandLine.addOption(option);
+        }
+        Option define = new Option("D");
+        define.setKeyValue(true);
+        commandLine.addOption(define);
+        Option output = commandLine.getOptions().get(10);
+        output.setExpectedArgumentCount(1);
+        commandLine.createHelp("Usage.");
+
+        String[] args = new String[] { "--option-10", "out.txt", "-o999", "-Dname=value", "-D", "key=1" };
+        ParseResult expected = commandLine.parseResult(args);
+        commandLine.freeze();
+        Assert.assertTrue(commandLine.isFrozen());
+        ParseResult result = commandLine.parseResult(args);
+
+        Assert.assertEquals(expected.getFoundCount(), result.getFoundCount());
+        for (int i = 0; i < result.getFoundCount(); ++i) {
+            Assert.assertEquals(expected.getFoundOrdinal(i), result.getFoundOrdinal(i));
+        }
+        Assert.assertEquals("out.txt", result.getArgument("-o10", 0));
+        Assert.assertTrue(result.isFound("-o999"));
+        Assert.assertEquals("value", result.getEntries("-D").get("name"));
+        Assert.assertEquals("1", result.getEntries("-D").get("key"));
+
+        try {
+            commandLine.parse(args);
+            Assert.fail("Parsed into the options of a frozen command line.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        try {
+            commandLine.addOption(new Option("x"));
+            Assert.fail("Added an option to a frozen command line.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        try {
+            output.setRequired(true);
+            Assert.fail("Changed an option of a frozen command line.");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}
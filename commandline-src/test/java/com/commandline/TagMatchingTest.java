@@ -0,0 +1,88 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.TagMatching;
+
+/**
+ * Test {@link TagMatching}.
+ *
+ * @author Zach Wilson
+ */
+public class TagMatchingTest {
+
+    /**
+     * Creates a command line with "-v, --verbose" and "-n, --na\u00EFve", the latter written decomposed.
+     * @param matching tag matching.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final TagMatching matching) {
+        CommandLine commandLine = CommandLines.of(CommandLines.option("v", "verbose", 0),
+                CommandLines.option("n", "nai\u0308ve", 0));
+        commandLine.setTagMatching(matching);
+        return commandLine;
+    }
+
+    /**
+     * Test that exact matching is unchanged.
+     */
+    @Test
+    public void testExact() {
+        CommandLine commandLine = createCommandLine(TagMatching.EXACT);
+        Assert.assertTrue(commandLine.parseResult(new String[] { "--verbose" }).isFound(0));
+        try {
+            commandLine.parseResult(new String[] { "--Verbose", "x" });
+            Assert.fail("Matched a tag of another case.");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test that case is ignored, before and after freezing.
+     */
+    @Test
+    public void testIgnoreCase() {
+        CommandLine commandLine = createCommandLine(TagMatching.IGNORE_CASE);
+        for (int pass = 0; pass < 2; ++pass) {
+            Assert.assertTrue(commandLine.parseResult(new String[] { "--Verbose" }).isFound(0));
+            Assert.assertTrue(commandLine.parseResult(new String[] { "--VERBOSE" }).isFound(0));
+            Assert.assertTrue(commandLine.parseResult(new String[] { "-V" }).isFound(0));
+            Assert.assertTrue(commandLine.parseResult(new String[] { "--NAI\u0308VE" }).isFound(1));
+            Assert.assertFalse(commandLine.parseResult(new String[] { "--na\u00EFve" }).isFound(1));
+            commandLine.freeze();
+        }
+        ParseResult result = commandLine.parseResult(new String[] { "--VERBOSE" });
+        Assert.assertEquals(0, result.ordinalOf("--Verbose"));
+    }
+
+    /**
+     * Test that composed and decomposed forms match once normalized.
+     */
+    @Test
+    public void testNormalized() {
+        CommandLine commandLine = createCommandLine(TagMatching.NORMALIZED);
+        Assert.assertTrue(commandLine.parseResult(new String[] { "--na\u00EFve" }).isFound(1));
+        Assert.assertTrue(commandLine.parseResult(new String[] { "--nai\u0308ve" }).isFound(1));
+        Assert.assertFalse(commandLine.parseResult(new String[] { "--NA\u00CFVE" }).isFound(1));
+
+        commandLine = createCommandLine(TagMatching.NORMALIZED_IGNORE_CASE);
+        commandLine.freeze();
+        Assert.assertTrue(commandLine.parseResult(new String[] { "--NA\u00CFVE" }).isFound(1));
+        Assert.assertTrue(commandLine.parseResult(new String[] { "--Verbose" }).isFound(0));
+    }
+
+    /**
+     * Test that tags which only differ in case may not be matched ignoring case.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAmbiguous() {
+        CommandLine commandLine = createCommandLine(TagMatching.IGNORE_CASE);
+        commandLine.addOption(new Option("V"));
+        commandLine.parseResult(new String[] { "-v" });
+    }
+}
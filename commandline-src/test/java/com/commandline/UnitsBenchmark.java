@@ -0,0 +1,179 @@
+package test.java.com.commandline;
+
+import main.java.com.commandline.Units;
+
+import java.lang.management.ManagementFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures parsing typical sizes, durations and rates: the bytes allocated while parsing valid arguments,
+ * and the time taken compared with the usual regular expressions. Both depend on the JVM and the machine,
+ * so they are printed rather than asserted.
+ *
+ * @author Zach Wilson
+ */
+public final class UnitsBenchmark {
+
+    /** A size, duration and rate as they are usually given. */
+    private static final String[] TYPICAL = new String[] { "4GiB", "250ms", "10k/s", "512m", "30s", "2500" };
+
+    /**
+     * Constructor.
+     */
+    private UnitsBenchmark() {}
+
+    /**
+     * Runs the measurements.
+     * @param args ignored.
+     */
+    public static void main(final String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sum = 0;
+        for (int round = 0; round < 20000; ++round) {
+            sum += parseTypical();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < 100000; ++round) {
+            sum += parseTypical();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        System.out.println("Parsing " + TYPICAL.length * 100000 + " arguments allocated " + allocated +
+                " bytes.");
+        if (sum == 0) {
+            throw new IllegalStateException("Parsed nothing.");
+        }
+
+        compare();
+    }
+
+    /**
+     * Compares the scan with the usual regular expressions.
+     */
+    private static void compare() {
+        long scan = Long.MAX_VALUE;
+        long pattern = Long.MAX_VALUE;
+        long sum = 0;
+        for (int round = 0; round < 30; ++round) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 10000; ++i) {
+                sum += parseTypical();
+            }
+            scan = Math.min(scan, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < 10000; ++i) {
+                sum -= PatternUnits.parseSize(TYPICAL[0]) + PatternUnits.parseDuration(TYPICAL[1])
+                        + PatternUnits.parseRate(TYPICAL[2]) + PatternUnits.parseSize(TYPICAL[3])
+                        + PatternUnits.parseDuration(TYPICAL[4]) + PatternUnits.parseRate(TYPICAL[5]);
+            }
+            pattern = Math.min(pattern, System.nanoTime() - start);
+        }
+        if (sum != 0) {
+            throw new IllegalStateException("The scan and the pattern disagree.");
+        }
+        System.out.println("Scanning took " + scan / 1000 + " us, the pattern " + pattern / 1000 + " us, for " +
+                TYPICAL.length * 10000 + " arguments.");
+    }
+
+    /**
+     * Parses the typical arguments.
+     * @return sum of their values.
+     */
+    private static long parseTypical() {
+        return Units.parseSize(TYPICAL[0]) + Units.parseDuration(TYPICAL[1]) + Units.parseRate(TYPICAL[2])
+                + Units.parseSize(TYPICAL[3]) + Units.parseDuration(TYPICAL[4]) + Units.parseRate(TYPICAL[5]);
+    }
+
+    /**
+     * Parses sizes, durations and rates with regular expressions, as is usually done.
+     */
+    private static final class PatternUnits {
+
+        /** A number and a unit. */
+        private static final Pattern QUANTITY = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*([a-zA-Z]*)");
+
+        /** A number, a magnitude and a window. */
+        private static final Pattern RATE = Pattern.compile("(\\d+(?:\\.\\d+)?)([kKMGT]?)(?:/([a-z]+))?");
+
+        /**
+         * Parses a size.
+         * @param text the size.
+         * @return number of bytes.
+         */
+        static long parseSize(final String text) {
+            Matcher matcher = matchOrThrow(QUANTITY, text);
+            double value = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "": case "B": return (long) value;
+                case "KiB": case "k": return (long) (value * 1024);
+                case "MiB": case "m": return (long) (value * 1024 * 1024);
+                case "GiB": case "g": return (long) (value * 1024 * 1024 * 1024);
+                case "kB": return (long) (value * 1000);
+                case "MB": return (long) (value * 1000000);
+                case "GB": return (long) (value * 1000000000);
+                default: throw new IllegalArgumentException("Unknown unit in '" + text + "'.");
+            }
+        }
+
+        /**
+         * Parses a duration.
+         * @param text the duration.
+         * @return number of nanoseconds.
+         */
+        static long parseDuration(final String text) {
+            Matcher matcher = matchOrThrow(QUANTITY, text);
+            return (long) (Double.parseDouble(matcher.group(1)) * nanos(matcher.group(2)));
+        }
+
+        /**
+         * Parses a rate.
+         * @param text the rate.
+         * @return number per second.
+         */
+        static long parseRate(final String text) {
+            Matcher matcher = matchOrThrow(RATE, text);
+            double value = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "k": case "K": value *= 1000; break;
+                case "M": value *= 1000000; break;
+                case "G": value *= 1000000000; break;
+                default: break;
+            }
+            String window = matcher.group(3);
+            return window == null ? (long) value : (long) (value * 1000000000L / nanos(window));
+        }
+
+        /**
+         * Gets the nanoseconds of a duration unit.
+         * @param unit the unit.
+         * @return nanoseconds.
+         */
+        private static long nanos(final String unit) {
+            switch (unit) {
+                case "ns": return 1L;
+                case "us": return 1000L;
+                case "ms": return 1000000L;
+                case "s": return 1000000000L;
+                case "m": case "min": return 60000000000L;
+                case "h": return 3600000000000L;
+                default: throw new IllegalArgumentException("Unknown unit '" + unit + "'.");
+            }
+        }
+
+        /**
+         * Matches a whole argument.
+         * @param pattern the pattern.
+         * @param text the argument.
+         * @return the matcher.
+         */
+        private static Matcher matchOrThrow(final Pattern pattern, final String text) {
+            Matcher matcher = pattern.matcher(text);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Invalid argument '" + text + "'.");
+            }
+            return matcher;
+        }
+    }
+}
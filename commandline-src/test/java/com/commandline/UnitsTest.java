@@ -0,0 +1,160 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.UnitFormatException;
+import main.java.com.commandline.Units;
+
+/**
+ * Test {@link Units}.
+ *
+ * @author Zach Wilson
+ */
+public class UnitsTest {
+
+    /**
+     * Method: parseSize(final String text).
+     */
+    @Test
+    public void testParseSize() {
+        Assert.assertEquals(0, Units.parseSize("0"));
+        Assert.assertEquals(4096, Units.parseSize("4096"));
+        Assert.assertEquals(100, Units.parseSize("100B"));
+        Assert.assertEquals(4L << 30, Units.parseSize("4GiB"));
+        Assert.assertEquals(1536, Units.parseSize("1.5KiB"));
+        Assert.assertEquals(1536, Units.parseSize("1.50KiB"));
+        Assert.assertEquals(1500, Units.parseSize("1.5kB"));
+        Assert.assertEquals(1500000, Units.parseSize("1.5MB"));
+        Assert.assertEquals(512L << 20, Units.parseSize("512m"));
+        Assert.assertEquals(2L << 30, Units.parseSize("2G"));
+        Assert.assertEquals(512, Units.parseSize(".5k"));
+        Assert.assertEquals(7L << 60, Units.parseSize("7EiB"));
+        Assert.assertEquals(Long.MAX_VALUE, Units.parseSize("9223372036854775807"));
+    }
+
+    /**
+     * Method: parseDuration(final String text).
+     */
+    @Test
+    public void testParseDuration() {
+        Assert.assertEquals(250000000L, Units.parseDuration("250ms"));
+        Assert.assertEquals(1500000000L, Units.parseDuration("1.5s"));
+        Assert.assertEquals(7, Units.parseDuration("7ns"));
+        Assert.assertEquals(3000, Units.parseDuration("3us"));
+        Assert.assertEquals(3000, Units.parseDuration("3\u00b5s"));
+        Assert.assertEquals(120000000000L, Units.parseDuration("2m"));
+        Assert.assertEquals(120000000000L, Units.parseDuration("2min"));
+        Assert.assertEquals(5400000000000L, Units.parseDuration("1h30m"));
+        Assert.assertEquals(5400000000000L, Units.parseDuration("1.5h"));
+        Assert.assertEquals(86400000000000L + 1, Units.parseDuration("1d1ns"));
+        Assert.assertEquals(1, Units.parseDuration("0.000000001s"));
+    }
+
+    /**
+     * Method: parseRate(final String text).
+     */
+    @Test
+    public void testParseRate() {
+        Assert.assertEquals(2500, Units.parseRate("2500"));
+        Assert.assertEquals(10000, Units.parseRate("10k/s"));
+        Assert.assertEquals(10000, Units.parseRate("10K"));
+        Assert.assertEquals(1500000, Units.parseRate("1.5M/s"));
+        Assert.assertEquals(2, Units.parseRate("120/min"));
+        Assert.assertEquals(1000, Units.parseRate("3.6M/h"));
+        Assert.assertEquals(5000, Units.parseRate("5/ms"));
+        Assert.assertEquals(1000000000L, Units.parseRate("1/ns"));
+        Assert.assertEquals(1, Units.parseRate("86400/d"));
+    }
+
+    /**
+     * Test that invalid arguments are rejected with the reason and position of the error.
+     */
+    @Test
+    public void testErrors() {
+        assertError("size", "", UnitFormatException.Reason.EMPTY, 0);
+        assertError("size", "GiB", UnitFormatException.Reason.EXPECTED_NUMBER, 0);
+        assertError("size", "-1", UnitFormatException.Reason.EXPECTED_NUMBER, 0);
+        assertError("size", "1.", UnitFormatException.Reason.EXPECTED_NUMBER, 2);
+        assertError("size", "4GB/s", UnitFormatException.Reason.UNKNOWN_UNIT, 1);
+        assertError("size", "4 GiB", UnitFormatException.Reason.UNKNOWN_UNIT, 1);
+        assertError("size", "4mB", UnitFormatException.Reason.UNKNOWN_UNIT, 1);
+        assertError("size", "4kiB", UnitFormatException.Reason.UNKNOWN_UNIT, 1);
+        assertError("size", "4x", UnitFormatException.Reason.UNKNOWN_UNIT, 1);
+        assertError("size", "0.1B", UnitFormatException.Reason.INEXACT, 0);
+        assertError("size", "8EiB", UnitFormatException.Reason.OVERFLOW, 0);
+        assertError("size", "9223372036854775808", UnitFormatException.Reason.OVERFLOW, 0);
+
+        assertError("duration", "250", UnitFormatException.Reason.MISSING_UNIT, 3);
+        assertError("duration", "1h30", UnitFormatException.Reason.MISSING_UNIT, 4);
+        assertError("duration", "250xs", UnitFormatException.Reason.UNKNOWN_UNIT, 3);
+        assertError("duration", "1h 30m", UnitFormatException.Reason.UNKNOWN_UNIT, 1);
+        assertError("duration", "0.5ns", UnitFormatException.Reason.INEXACT, 0);
+        assertError("duration", "107000d", UnitFormatException.Reason.OVERFLOW, 0);
+        assertError("duration", "106000d106000d", UnitFormatException.Reason.OVERFLOW, 7);
+
+        assertError("rate", "10x/s", UnitFormatException.Reason.UNKNOWN_UNIT, 2);
+        assertError("rate", "10k/y", UnitFormatException.Reason.UNKNOWN_UNIT, 4);
+        assertError("rate", "10P/s", UnitFormatException.Reason.UNKNOWN_UNIT, 2);
+        assertError("rate", "100/min", UnitFormatException.Reason.INEXACT, 0);
+        assertError("rate", "10T/ns", UnitFormatException.Reason.OVERFLOW, 0);
+    }
+
+    /**
+     * Asserts that an argument is rejected.
+     * @param kind "size", "duration" or "rate".
+     * @param text the argument.
+     * @param reason expected reason.
+     * @param position expected position.
+     */
+    private static void assertError(final String kind, final String text, final UnitFormatException.Reason reason,
+                                    final int position) {
+        try {
+            switch (kind) {
+                case "size": Units.parseSize(text); break;
+                case "duration": Units.parseDuration(text); break;
+                default: Units.parseRate(text); break;
+            }
+            Assert.fail("Invalid " + kind + " accepted: '" + text + "'.");
+        } catch (UnitFormatException e) {
+            Assert.assertEquals(text, reason, e.getReason());
+            Assert.assertEquals(text, position, e.getPosition());
+            Assert.assertEquals(text, e.getText());
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid " + kind + " '" + text + "'"));
+        }
+    }
+
+    /**
+     * Test the getters of options.
+     */
+    @Test
+    public void testOptionGetters() {
+        CommandLine commandLine = new CommandLine();
+        Option heap = new Option("x");
+        heap.setLongName("heap");
+        heap.setExpectedArgumentCount(2);
+        commandLine.addOption(heap);
+        Option timeout = new Option("t");
+        timeout.setExpectedArgumentCount(1);
+        commandLine.addOption(timeout);
+        Option rate = new Option("r");
+        rate.setExpectedArgumentCount(1);
+        commandLine.addOption(rate);
+        commandLine.parse(new String[] { "--heap", "4GiB", "512m", "-t", "250ms", "-r", "10k/s" });
+
+        Assert.assertEquals(4L << 30, heap.getByteSize());
+        Assert.assertEquals(512L << 20, heap.getByteSizeAtIndex(1));
+        Assert.assertEquals(250000000L, timeout.getDurationNanos());
+        Assert.assertEquals(250000000L, timeout.getDurationNanosAtIndex(0));
+        Assert.assertEquals(10000, rate.getRatePerSecond());
+        Assert.assertEquals(10000, rate.getRatePerSecondAtIndex(0));
+        try {
+            rate.getDurationNanos();
+            Assert.fail("Parsed a rate as a duration.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(UnitFormatException.Reason.UNKNOWN_UNIT, ((UnitFormatException) e).getReason());
+        }
+    }
+}
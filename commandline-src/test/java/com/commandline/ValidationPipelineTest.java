@@ -0,0 +1,139 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.Option;
+import main.java.com.commandline.ValidationPipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Test {@link ValidationPipeline}.
+ *
+ * @author Zach Wilson
+ */
+public class ValidationPipelineTest {
+
+    /**
+     * Creates a command line with "-i" taking two files, "-n" taking a number, "-s" taking a name
+     * and a key-value option "-D".
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine() {
+        return CommandLines.of(CommandLines.option("i", 2), CommandLines.option("n", 1), CommandLines.option("s", 1),
+                CommandLines.keyValue("D"));
+    }
+
+    /**
+     * Test that all failures are gathered at the join point.
+     * @throws IOException if the temporary file cannot be created.
+     */
+    @Test
+    public void testFailures() throws IOException {
+        File file = File.createTempFile("validation", ".txt");
+        file.deleteOnExit();
+
+        CommandLine commandLine = createCommandLine();
+        ValidationPipeline pipeline = new ValidationPipeline(commandLine);
+        pipeline.requireFiles("-i");
+        pipeline.requireRange("-n", 1, 10);
+        pipeline.requirePattern("-s", Pattern.compile("[a-z]+"));
+        pipeline.require("-D", "an entry with a value", entry -> entry.contains("="));
+
+        ValidationPipeline.Validation validation = pipeline.parse(new String[] {
+                "-i", file.getPath(), file.getPath(), "-n", "5", "-s", "name", "-Dkey=value" });
+        Assert.assertTrue(validation.getResult().isFound("-i"));
+        Assert.assertTrue(validation.getFailures().isEmpty());
+        validation.join();
+
+        validation = pipeline.parse(new String[] {
+                "-i", file.getPath(), file.getPath() + ".missing", "-n", "50", "-s", "Name", "-D", "key" });
+        List<String> failures = validation.getFailures();
+        Assert.assertEquals(4, failures.size());
+        Assert.assertTrue(failures.get(0).contains(".missing"));
+        Assert.assertTrue(failures.get(1).contains("'50'"));
+        Assert.assertTrue(failures.get(2).contains("'Name'"));
+        Assert.assertTrue(failures.get(3).contains("'key'"));
+        try {
+            validation.join();
+            Assert.fail("Joined with invalid arguments.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains(".missing"));
+        }
+
+        // Checking a result after parsing gives the same failures
+        Assert.assertEquals(failures, pipeline.validate(validation.getResult()).getFailures());
+    }
+
+    /**
+     * Test that parsing does not wait for checks.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Test
+    public void testOverlap() throws InterruptedException {
+        final CountDownLatch parsed = new CountDownLatch(1);
+        CommandLine commandLine = createCommandLine();
+        ValidationPipeline pipeline = new ValidationPipeline(commandLine);
+        pipeline.require("-s", "reachable", name -> {
+            try {
+                // A slow check, only done once parsing has returned
+                return parsed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+
+        ValidationPipeline.Validation validation = pipeline.parse(new String[] { "-s", "a", "-n", "1" });
+        Assert.assertTrue(validation.getResult().isFound("-n"));
+        Assert.assertFalse(validation.isDone());
+        parsed.countDown();
+        validation.join();
+        Assert.assertTrue(validation.isDone());
+    }
+
+    /**
+     * Test that the default executor runs a bounded number of checks at once.
+     */
+    @Test
+    public void testBoundedDefaultExecutor() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        CommandLine commandLine = new CommandLine();
+        Option host = new Option("r");
+        host.setExpectedArgumentCount(1);
+        host.setRepeatable(true);
+        commandLine.addOption(host);
+        ValidationPipeline pipeline = new ValidationPipeline(commandLine);
+        pipeline.require("-r", "reachable", name -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                return false;
+            } finally {
+                running.decrementAndGet();
+            }
+            return true;
+        });
+
+        ArrayList<String> args = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            args.add("-r");
+            args.add("host" + i);
+        }
+        pipeline.parse(args.toArray(new String[0])).join();
+
+        // The pool has at most four threads per processor, and never fewer than four
+        int threads = Math.max(4, 4 * Runtime.getRuntime().availableProcessors());
+        Assert.assertTrue("Ran " + peak.get() + " checks at once.", peak.get() <= threads);
+    }
+}
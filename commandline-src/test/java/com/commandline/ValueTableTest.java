@@ -0,0 +1,143 @@
+package test.java.com.commandline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import main.java.com.commandline.CommandLine;
+import main.java.com.commandline.ParseResult;
+import main.java.com.commandline.ValueTable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test {@link ValueTable}.
+ *
+ * @author Zach Wilson
+ */
+public class ValueTableTest {
+
+    /** Labels given by the sets of the batch. */
+    private static final String[] LABELS = new String[] { "prod", "eu-west", "canary", "team-storage",
+            "tier-1", "batch", "nightly", "retain-30d" };
+
+    /**
+     * Creates a command line with a repeatable "-l" ("--label"), "-d" and "-n" taking one argument each,
+     * and a key-value option "-D".
+     * @param table the value table, or null.
+     * @return the command line.
+     */
+    private static CommandLine createCommandLine(final ValueTable table) {
+        CommandLine commandLine = CommandLines.of(CommandLines.repeatable(CommandLines.option("l", "label", 1)),
+                CommandLines.option("d", 1), CommandLines.option("n", 1), CommandLines.keyValue("D"));
+        commandLine.setValueTable(table);
+        return commandLine;
+    }
+
+    /**
+     * Creates a set of the batch, with arguments created afresh as if split from a line of input.
+     * @param set number of the set.
+     * @return the arguments.
+     */
+    private static String[] createSet(final int set) {
+        List<String> args = new ArrayList<>();
+        for (int i = 0; i < 6; ++i) {
+            args.add("--label");
+            args.add(new String(LABELS[(set + i) % LABELS.length]));
+        }
+        args.add("-d");
+        args.add("/data/shared/volumes/" + set % 16);
+        args.add("-n");
+        args.add("job-" + set);
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Test that equal values are canonicalized, and that the table stays within its capacity.
+     */
+    @Test
+    public void testCanonicalize() {
+        ValueTable table = new ValueTable(100, 8);
+        Assert.assertEquals(128, table.getCapacity());
+        String first = new String("prod");
+        String second = new String("prod");
+        Assert.assertSame(first, table.canonicalize(first));
+        Assert.assertSame(first, table.canonicalize(second));
+        Assert.assertEquals(1, table.getHitCount());
+        Assert.assertEquals(1, table.getMissCount());
+
+        // Long values are never held
+        String long1 = new String("/a/long/path");
+        Assert.assertSame(long1, table.canonicalize(long1));
+        Assert.assertSame(long1, table.canonicalize(long1));
+        Assert.assertSame(long1, table.canonicalize(long1));
+        Assert.assertNotSame(long1, table.canonicalize(new String("/a/long/path")));
+        Assert.assertEquals(1, table.size());
+
+        // A value given only once evicts the value on probation, not one which has been found again
+        ValueTable one = new ValueTable(1);
+        Assert.assertEquals(2, one.getCapacity());
+        Assert.assertSame(first, one.canonicalize(first));
+        String other = new String("dev");
+        Assert.assertSame(other, one.canonicalize(other));
+        Assert.assertSame(second, one.canonicalize(second));
+        Assert.assertEquals(1, one.size());
+        Assert.assertEquals(3, one.getMissCount());
+        Assert.assertSame(second, one.canonicalize(new String("prod")));
+        Assert.assertSame(other, one.canonicalize(other));
+        Assert.assertSame(second, one.canonicalize(new String("prod")));
+        Assert.assertEquals(2, one.size());
+
+        table.clear();
+        Assert.assertEquals(0, table.size());
+        Assert.assertEquals(0, table.getHitCount());
+        Assert.assertSame(second, table.canonicalize(second));
+
+        for (int[] invalid : new int[][] { { 0, 8 }, { (1 << 26) + 1, 8 }, { 8, -1 } }) {
+            try {
+                new ValueTable(invalid[0], invalid[1]);
+                Assert.fail("Created a table of capacity " + invalid[0] + ", maximum length " + invalid[1] + ".");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    /**
+     * Test that every way of parsing holds canonical values.
+     */
+    @Test
+    public void testParse() {
+        ValueTable table = new ValueTable(1024);
+        CommandLine commandLine = createCommandLine(table);
+        ParseResult first = commandLine.parseResult(createSet(0));
+        ParseResult second = commandLine.parseResult(createSet(16));
+        Assert.assertEquals(first.getArguments("-l"), second.getArguments("-l"));
+        for (int i = 0; i < 6; ++i) {
+            Assert.assertSame(first.getArgument("-l", i), second.getArgument("-l", i));
+        }
+        Assert.assertSame(first.getArgument("-d", 0), second.getArgument("-d", 0));
+        Assert.assertNotSame(first.getArgument("-n", 0), second.getArgument("-n", 0));
+
+        // Options parsed into keep the canonical values as well
+        commandLine.parse(createSet(32));
+        Assert.assertSame(first.getArgument("-l", 0), commandLine.getOption(0).getArgumentAtIndex(0));
+
+        // Entries, given separately, attached or as bytes
+        long misses = table.getMissCount();
+        commandLine.parseResult(new String[] { "-D", new String("k=v") });
+        commandLine.parseResult(new String[] { "-D", new String("k=v") });
+        Assert.assertEquals(misses + 1, table.getMissCount());
+        ParseResult attached = commandLine.parseResult(new String[] { "-Dk=v", "-Dj=w" });
+        long hits = table.getHitCount();
+        ParseResult bytes = commandLine.parseResult(ByteBuffer.wrap("-Dk=v\0-Dj=w".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(hits + 2, table.getHitCount());
+        Assert.assertEquals(attached.getEntries("-D").toString(), bytes.getEntries("-D").toString());
+
+        // Without a table, values are kept as given
+        commandLine.setValueTable(null);
+        Assert.assertNotSame(first.getArgument("-l", 0), commandLine.parseResult(createSet(0)).getArgument("-l", 0));
+    }
+}